@@ -64,6 +64,11 @@ android {
     room {
         schemaDirectory("$projectDir/schemas")
     }
+
+    // MigrationTestHelper reads the exported schemas as assets; Robolectric sees the debug ones
+    sourceSets {
+        getByName("debug").assets.srcDir("$projectDir/schemas")
+    }
 }
 
 dependencies {
@@ -91,6 +96,11 @@ dependencies {
     
     // Robolectric for Android framework testing on JVM
     testImplementation("org.robolectric:robolectric:4.11.1")
+
+    // Local websocket server for reconnect tests. OkHttp resolves to the 4.x that aws-api
+    // brings in, not retrofit's 3.x, so the BOM keeps mockwebserver on the same version
+    testImplementation(platform("com.squareup.okhttp3:okhttp-bom:4.12.0"))
+    testImplementation("com.squareup.okhttp3:mockwebserver")
     
     // Android Test Dependencies for Performance Tests
     testImplementation("androidx.test.ext:junit:1.1.5")
@@ -105,6 +115,7 @@ dependencies {
 
     implementation("androidx.room:room-runtime:$room_version")
     ksp("androidx.room:room-compiler:$room_version")
+    testImplementation("androidx.room:room-testing:$room_version")
 
     implementation("androidx.work:work-runtime:2.9.1")
 
@@ -134,7 +145,10 @@ dependencies {
     // Retrofit for API calls
     implementation("com.squareup.retrofit2:retrofit:2.9.0")
     implementation("com.squareup.retrofit2:converter-gson:2.9.0")
-    
+
+    // Gson streaming JsonReader/JsonWriter for websocket frames
+    implementation("com.google.code.gson:gson:2.10.1")
+
     // SwipeRefreshLayout for pull-to-refresh
     implementation("androidx.swiperefreshlayout:swiperefreshlayout:1.1.0")
     
@@ -12,10 +12,22 @@ import androidx.constraintlayout.widget.ConstraintLayout;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+
+import dagger.hilt.android.AndroidEntryPoint;
 import io.jhoyt.bubbletimer.ActiveTimerViewModel;
 
+@AndroidEntryPoint
 public class ActiveTimerListFragment extends Fragment {
 
+    @Inject
+    RenderTicker renderTicker;
+
+    private final List<TimerView> timerViews = new ArrayList<>();
+
     public ActiveTimerListFragment() {
     }
 
@@ -34,6 +46,7 @@ public class ActiveTimerListFragment extends Fragment {
 
         final ActiveTimerViewModel activeTimerViewModel = new ViewModelProvider(requireActivity()).get(ActiveTimerViewModel.class);
         activeTimerViewModel.getActiveTimers().observe(requireActivity(), timers -> {
+            unsubscribeTimerViews();
             listLayout.removeAllViews();
 
             timers.forEach(timer -> {
@@ -44,6 +57,8 @@ public class ActiveTimerListFragment extends Fragment {
                 timerView.setLayoutMode(TimerView.MODE_LIST_ITEM);
                 timerView.setCurrentUserId(((MainActivity)getActivity()).getUserId());
                 timerView.setTimer(timer);
+                renderTicker.subscribe(timerView);
+                timerViews.add(timerView);
 
                 layout.findViewById(R.id.stopButton).setOnClickListener(new View.OnClickListener() {
                     @Override
@@ -68,4 +83,15 @@ public class ActiveTimerListFragment extends Fragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
     }
+
+    @Override
+    public void onDestroyView() {
+        unsubscribeTimerViews();
+        super.onDestroyView();
+    }
+
+    private void unsubscribeTimerViews() {
+        timerViews.forEach(renderTicker::unsubscribe);
+        timerViews.clear();
+    }
 }
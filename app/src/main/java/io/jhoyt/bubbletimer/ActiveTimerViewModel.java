@@ -2,7 +2,6 @@ package io.jhoyt.bubbletimer;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
-import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModel;
 import androidx.lifecycle.ViewModelProvider;
 
@@ -11,15 +10,19 @@ import android.content.Context;
 import android.content.Intent;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 
+import java.util.AbstractSet;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
 import dagger.hilt.android.lifecycle.HiltViewModel;
 import dagger.hilt.android.qualifiers.ApplicationContext;
+import io.jhoyt.bubbletimer.db.ActiveTimerChange;
 import io.jhoyt.bubbletimer.db.ActiveTimerRepository;
 
 /**
@@ -31,13 +34,13 @@ public class ActiveTimerViewModel extends ViewModel {
     
     private final ActiveTimerRepository activeTimerRepository;
     private final Context applicationContext;
-    private final MutableLiveData<Set<Timer>> activeTimers = new MutableLiveData<>(new HashSet<>());
+    private final MutableLiveData<Set<Timer>> activeTimers = new MutableLiveData<>(new TimerSet());
     private final MutableLiveData<Timer> primaryTimer = new MutableLiveData<>();
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
     
-    // Observer reference for cleanup
-    private Observer<List<Timer>> databaseObserver;
+    // Listener reference for cleanup
+    private ActiveTimerRepository.ChangeListener timerChangeListener;
     
     @Inject
     public ActiveTimerViewModel(ActiveTimerRepository activeTimerRepository, @ApplicationContext Context applicationContext) {
@@ -72,23 +75,68 @@ public class ActiveTimerViewModel extends ViewModel {
      * Observe database changes for real-time synchronization with ForegroundService
      */
     private void observeDatabaseChanges() {
-        // Create observer for database changes
-        databaseObserver = timersFromDb -> {
-            if (timersFromDb != null) {
-                Set<Timer> timerSet = new HashSet<>(timersFromDb);
-                activeTimers.setValue(timerSet);
-                
-                // Update primary timer
-                if (!timerSet.isEmpty()) {
-                    primaryTimer.setValue(timerSet.iterator().next());
-                } else {
-                    primaryTimer.setValue(null);
-                }
+        // Start from the current timers, then apply each change in place
+        timerChangeListener = this::applyTimerChanges;
+        ActiveTimerRepository.Snapshot snapshot = activeTimerRepository.addChangeListener(timerChangeListener);
+        if (snapshot != null) {
+            setActiveTimers(snapshot.getTimers());
+        }
+    }
+
+    /**
+     * Apply a batch of repository changes to the active timer set, touching only the changed
+     * timers.
+     */
+    private void applyTimerChanges(List<ActiveTimerChange> changes) {
+        TimerSet timers = currentTimerSet();
+        Timer primary = primaryTimer.getValue();
+        boolean primaryChanged = false;
+
+        for (ActiveTimerChange change : changes) {
+            if (change.getType() == ActiveTimerChange.Type.REMOVED) {
+                timers.removeById(change.getTimerId());
+            } else {
+                timers.add(change.getTimer());
             }
-        };
-        
-        // Observe the database LiveData for real-time updates
-        activeTimerRepository.getAllActiveTimers().observeForever(databaseObserver);
+            if (primary != null && primary.getId().equals(change.getTimerId())) {
+                primaryChanged = true;
+            }
+        }
+        activeTimers.setValue(timers);
+
+        if (primary == null || primaryChanged) {
+            Timer updatedPrimary = primary != null ? timers.get(primary.getId()) : null;
+            if (updatedPrimary != null) {
+                primaryTimer.setValue(updatedPrimary);
+            } else {
+                updatePrimaryTimer();
+            }
+        }
+    }
+
+    private void setActiveTimers(List<Timer> timersFromDb) {
+        TimerSet timerSet = new TimerSet();
+        timersFromDb.forEach(timerSet::add);
+        activeTimers.setValue(timerSet);
+
+        // Update primary timer
+        if (!timerSet.isEmpty()) {
+            primaryTimer.setValue(timerSet.iterator().next());
+        } else {
+            primaryTimer.setValue(null);
+        }
+    }
+
+    private TimerSet currentTimerSet() {
+        Set<Timer> current = activeTimers.getValue();
+        if (current instanceof TimerSet) {
+            return (TimerSet) current;
+        }
+        TimerSet timerSet = new TimerSet();
+        if (current != null) {
+            current.forEach(timerSet::add);
+        }
+        return timerSet;
     }
     
     /**
@@ -98,15 +146,9 @@ public class ActiveTimerViewModel extends ViewModel {
         isLoading.setValue(true);
         
         // Get timers from database repository
-        List<Timer> timersFromDb = activeTimerRepository.getAllActiveTimers().getValue();
-        if (timersFromDb != null) {
-            Set<Timer> timerSet = new HashSet<>(timersFromDb);
-            activeTimers.setValue(timerSet);
-            
-            // Set primary timer if available
-            if (!timerSet.isEmpty()) {
-                primaryTimer.setValue(timerSet.iterator().next());
-            }
+        ActiveTimerRepository.Snapshot snapshot = activeTimerRepository.getSnapshot();
+        if (snapshot != null) {
+            setActiveTimers(snapshot.getTimers());
         }
         
         isLoading.setValue(false);
@@ -131,7 +173,7 @@ public class ActiveTimerViewModel extends ViewModel {
         // Add to active timers in memory
         Set<Timer> current = activeTimers.getValue();
         if (current == null) {
-            current = new HashSet<>();
+            current = new TimerSet();
         }
         current.add(timer);
         activeTimers.setValue(current);
@@ -287,9 +329,50 @@ public class ActiveTimerViewModel extends ViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
-        // Clean up the database observer to avoid memory leaks
-        if (databaseObserver != null) {
-            activeTimerRepository.getAllActiveTimers().removeObserver(databaseObserver);
+        // Clean up the change listener to avoid memory leaks
+        if (timerChangeListener != null) {
+            activeTimerRepository.removeChangeListener(timerChangeListener);
+        }
+    }
+
+    /**
+     * Active timers keyed by id, so a change replaces or removes its timer in O(1) even when
+     * the cached instance was mutated in place since it was added.
+     */
+    static final class TimerSet extends AbstractSet<Timer> {
+        private final Map<String, Timer> timersById = new LinkedHashMap<>();
+
+        Timer get(String timerId) {
+            return timersById.get(timerId);
+        }
+
+        boolean removeById(String timerId) {
+            return timersById.remove(timerId) != null;
+        }
+
+        @Override
+        public boolean add(Timer timer) {
+            return timersById.put(timer.getId(), timer) != timer;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return o instanceof Timer && removeById(((Timer) o).getId());
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Timer && timersById.containsKey(((Timer) o).getId());
+        }
+
+        @Override
+        public Iterator<Timer> iterator() {
+            return timersById.values().iterator();
+        }
+
+        @Override
+        public int size() {
+            return timersById.size();
         }
     }
 
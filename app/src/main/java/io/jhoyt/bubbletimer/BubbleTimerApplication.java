@@ -10,6 +10,8 @@ import com.amplifyframework.core.Amplify;
 import com.amplifyframework.core.configuration.AmplifyOutputs;
 
 import dagger.hilt.android.HiltAndroidApp;
+import io.jhoyt.bubbletimer.core.time.AndroidTimeSource;
+import io.jhoyt.bubbletimer.domain.core.TimeSources;
 
 @HiltAndroidApp
 public class BubbleTimerApplication extends Application {
@@ -17,6 +19,9 @@ public class BubbleTimerApplication extends Application {
     public void onCreate() {
         super.onCreate();
 
+        // Timer deadlines keep counting through device sleep and ignore wall-clock changes
+        TimeSources.set(new AndroidTimeSource());
+
         // Configure Amplify plugins
         try {
             Amplify.addPlugin(new AWSCognitoAuthPlugin());
@@ -7,7 +7,21 @@ import java.time.Duration;
 public class DurationUtil {
     static @NonNull String getFormattedDuration(Duration remaining) {
         long remainingSeconds = remaining.getSeconds() + (remaining.getNano() > 0 ? 1 : 0);
+        return formatSeconds(remainingSeconds);
+    }
+
+    static @NonNull String getFormattedDuration(long remainingMillis) {
+        return formatSeconds(getDisplayedSeconds(remainingMillis));
+    }
+
+    /**
+     * Whole seconds shown for the given remaining time, rounded up like the formatted text.
+     */
+    static long getDisplayedSeconds(long remainingMillis) {
+        return -Math.floorDiv(-remainingMillis, 1000L);
+    }
 
+    private static @NonNull String formatSeconds(long remainingSeconds) {
         String text;
         long absRemainingSeconds = Math.abs(remainingSeconds);
         if (remainingSeconds >= 0) {
@@ -95,7 +95,7 @@ public class EditTimerActivity extends AppCompatActivity {
 
                 duration.setText(getDisplayDuration());
 
-                tagsView.setText(timer.tagsString);
+                tagsView.setText(timer.tags == null ? "" : String.join("#~#", timer.tags));
             });
         }
 
@@ -19,12 +19,9 @@ import android.os.VibratorManager;
 import android.provider.Settings.Secure;
 import android.util.Log;
 
-import androidx.annotation.Nullable;
 import androidx.core.app.NotificationCompat;
 import androidx.lifecycle.LifecycleService;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
-import androidx.recyclerview.widget.DiffUtil;
-import androidx.recyclerview.widget.ListUpdateCallback;
 
 import dagger.hilt.android.AndroidEntryPoint;
 
@@ -32,14 +29,19 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import io.jhoyt.bubbletimer.db.ActiveTimerChange;
 import io.jhoyt.bubbletimer.db.ActiveTimerRepository;
 import javax.inject.Inject;
 
 import io.jhoyt.bubbletimer.overlay.OverlayWindowFactory;
+import io.jhoyt.bubbletimer.scheduling.ExpiryScheduler;
+import io.jhoyt.bubbletimer.scheduling.TimerAlarmScheduler;
+import io.jhoyt.bubbletimer.service.TimerExpiryReceiver;
 
 @AndroidEntryPoint
 public class ForegroundService extends LifecycleService implements OverlayWindowFactory.BubbleEventListener {
@@ -57,17 +59,24 @@ public class ForegroundService extends LifecycleService implements OverlayWindow
 
     private String currentUserId;
     private final Handler timerHandler;
-    private Runnable updater;
-    
-    // Counter to reduce notification update frequency (update every 1000ms instead of 100ms)
-    private int updateCounter = 0;
+    private ExpiryScheduler expiryScheduler;
+    private TimerAlarmScheduler timerAlarmScheduler;
+    private Runnable reconnectCheck;
+
+    // Delay before retrying a dropped websocket while shared timers exist
+    private static final long RECONNECT_CHECK_DELAY_MS = 1000;
 
     @Inject
     WebsocketManager websocketManager;
 
     @Inject
     ActiveTimerRepository activeTimerRepository;
-    private List<Timer> activeTimers;
+
+    @Inject
+    RenderTicker renderTicker;
+    // In the order the timers were first seen; the first one is shown in the notification
+    private Map<String, Timer> activeTimersById;
+    private ActiveTimerRepository.ChangeListener timerChangeListener;
     private Map<String, OverlayWindowFactory.IOverlayWindow> windowsByTimerId;
 
     private OverlayWindowFactory.IOverlayWindow expandedWindow;
@@ -100,8 +109,8 @@ public class ForegroundService extends LifecycleService implements OverlayWindow
 
             if (command.equals("showOverlay")) {
                 isOverlayShown = true;
-                if (!activeTimers.isEmpty()) {
-                    activeTimers.forEach(timer -> {
+                if (!activeTimersById.isEmpty()) {
+                    activeTimersById.values().forEach(timer -> {
                         if (windowsByTimerId.containsKey(timer.getId())) {
                             windowsByTimerId.get(timer.getId())
                                     .open(timer, ForegroundService.this);
@@ -113,8 +122,8 @@ public class ForegroundService extends LifecycleService implements OverlayWindow
                 }
             } else if (command.equals("hideOverlay")) {
                 isOverlayShown = false;
-                if (!activeTimers.isEmpty()) {
-                    activeTimers.forEach(timer -> {
+                if (!activeTimersById.isEmpty()) {
+                    activeTimersById.values().forEach(timer -> {
                         if (windowsByTimerId.containsKey(timer.getId())) {
                             windowsByTimerId.get(timer.getId()).close();
                         }
@@ -242,16 +251,18 @@ public class ForegroundService extends LifecycleService implements OverlayWindow
                 Log.i("ForegroundService", "stopTimer command received for timer: " + timerId);
                 
                 if (timerId != null) {
-                    Timer timerToStop = activeTimerRepository.getById(timerId);
-                    if (timerToStop != null) {
-                        Log.i("ForegroundService", "Stopping timer: " + timerId);
-                        onTimerStopped(timerToStop);
-                    } else {
-                        Log.w("ForegroundService", "Timer to stop not found in repository: " + timerId);
-                    }
+                    stopTimerById(timerId);
                 } else {
                     Log.w("ForegroundService", "stopTimer command received but timerId is null");
                 }
+
+                // A grouped alarm stops every timer that expired with it
+                String[] groupedTimerIds = intent.getStringArrayExtra("groupedTimerIds");
+                if (groupedTimerIds != null) {
+                    for (String groupedTimerId : groupedTimerIds) {
+                        stopTimerById(groupedTimerId);
+                    }
+                }
             } else if (command.equals("testAlarmActivity")) {
                 Log.i("ForegroundService", "testAlarmActivity command received - launching test alarm");
                 
@@ -260,7 +271,7 @@ public class ForegroundService extends LifecycleService implements OverlayWindow
 
                 // Log system state and attempt launch
                 logSystemState();
-                launchTimerAlarmActivity(testTimer);
+                launchTimerAlarmActivity(List.of(testTimer));
             } else if (command.equals("alarmDismissed")) {
                 String timerId = intent.getStringExtra("timerId");
                 Log.i("ForegroundService", "alarmDismissed command received for timer: " + timerId);
@@ -332,13 +343,19 @@ public class ForegroundService extends LifecycleService implements OverlayWindow
                         break;
                     case DISCONNECTED:
                         statusText = "Disconnected";
+                        timerHandler.removeCallbacks(reconnectCheck);
+                        timerHandler.postDelayed(reconnectCheck, RECONNECT_CHECK_DELAY_MS);
                         break;
                     default:
                         statusText = "Unknown state";
                 }
                 
-                notificationBuilder.setContentText(statusText);
-                notificationManager.notify(NOTIFICATION_ID, notificationBuilder.build());
+                if (activeTimersById.isEmpty()) {
+                    notificationBuilder.setContentText(statusText);
+                    notificationManager.notify(NOTIFICATION_ID, notificationBuilder.build());
+                } else {
+                    updateTimerNotification();
+                }
             }
 
             @Override
@@ -362,6 +379,7 @@ public class ForegroundService extends LifecycleService implements OverlayWindow
                         getApplicationContext(), false, currentUserId);
                     window.open(timer, ForegroundService.this);
                     windowsByTimerId.put(timer.getId(), window);
+                    renderTicker.subscribe(window.getTimerView());
                 }
             }
 
@@ -371,12 +389,14 @@ public class ForegroundService extends LifecycleService implements OverlayWindow
                 
                 // IMPORTANT: Dismiss any active alarm activity for this timer across all devices
                 dismissActiveAlarmActivity(timerId);
+                timerAlarmScheduler.cancel(timerId);
                 
                 // Clean up the specific timer's window
                 OverlayWindowFactory.IOverlayWindow window = windowsByTimerId.get(timerId);
                 Log.i("ForegroundService", "Found window for timerId " + timerId + ": " + (window != null ? "yes" : "no"));
                 if (window != null) {
                     Log.i("ForegroundService", "Closing window for timerId: " + timerId);
+                    renderTicker.unsubscribe(window.getTimerView());
                     window.close();
                     window.cleanup();
                     windowsByTimerId.remove(timerId);
@@ -396,94 +416,10 @@ public class ForegroundService extends LifecycleService implements OverlayWindow
             }
         });
 
-        this.activeTimers = new ArrayList<>();
+        this.activeTimersById = new LinkedHashMap<>();
         this.windowsByTimerId = new HashMap<>();
-
-        this.activeTimerRepository.getAllActiveTimers().observe(this, timers -> {
-            Log.d("ForegroundService", "Repository observer triggered with " + (timers != null ? timers.size() : 0) + " timers");
-            Log.i("ForegroundService", "Repository observer - timers: " + (timers != null ? timers.stream().map(t -> t.getId() + ":" + t.getSharedWith()).collect(java.util.stream.Collectors.joining(", ")) : "null"));
-            
-            // Update shared timer tracking
-            updateSharedTimerTracking(timers);
-            
-            DiffUtil.calculateDiff(
-                    new DiffUtil.Callback() {
-                        @Override
-                        public int getOldListSize() {
-                            return activeTimers.size();
-                        }
-
-                        @Override
-                        public int getNewListSize() {
-                            return timers.size();
-                        }
-
-                        @Override
-                        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
-                            return activeTimers.get(oldItemPosition).getId().equals(timers.get(newItemPosition).getId());
-                        }
-
-                        @Override
-                        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
-                            return activeTimers.get(oldItemPosition).equals(timers.get(newItemPosition));
-                        }
-                    }
-            ).dispatchUpdatesTo(new ListUpdateCallback() {
-                @Override
-                public void onInserted(int position, int count) {
-                    timers.subList(position, position + count).forEach(timer -> {
-                        Log.d("ForegroundService", "Creating new window (onInserted) with currentUserId: " + currentUserId);
-                        OverlayWindowFactory.IOverlayWindow window = OverlayWindowFactory.createOverlayWindow(
-                            getApplicationContext(), false, currentUserId);
-
-                        if (isOverlayShown) {
-                            window.open(timer, ForegroundService.this);
-                        }
-
-                        windowsByTimerId.put(timer.getId(), window);
-                    });
-                }
-
-                @Override
-                public void onRemoved(int position, int count) {
-                    // stop vibrator every time - if the timer is still alarming it will start again
-                    if (vibrator != null) {
-                        vibrator.cancel();
-                        vibrator = null;
-                    }
-
-                    activeTimers.subList(position, position + count).forEach(timer -> {
-                        OverlayWindowFactory.IOverlayWindow window = windowsByTimerId.get(timer.getId());
-                        if (window != null) {
-                            try {
-                                window.close();
-                                window.cleanup();
-                            } catch (Exception e) {
-                                Log.e("ForegroundService", "Error while closing: ", e);
-                            }
-                            windowsByTimerId.remove(timer.getId());
-                        }
-
-                        // Clean up alarm tracking for removed timer
-                        triggeredAlarmTimerIds.remove(timer.getId());
-
-                        websocketManager.sendStopTimerToWebsocket(timer);
-                    });
-                }
-
-                @Override
-                public void onMoved(int fromPosition, int toPosition) {
-
-                }
-
-                @Override
-                public void onChanged(int position, int count, @Nullable Object payload) {
-                    activeTimers.subList(position, position + count).forEach(timer -> {
-                    });
-                }
-            });
-            this.activeTimers = List.copyOf(timers);
-        });
+        this.expiryScheduler = new ExpiryScheduler(this::onTimersExpired);
+        this.timerAlarmScheduler = new TimerAlarmScheduler(this);
 
         Intent notificationIntent = new Intent(getApplicationContext(), MainActivity.class);
         //notificationIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
@@ -521,110 +457,27 @@ public class ForegroundService extends LifecycleService implements OverlayWindow
                 PowerManager.ACQUIRE_CAUSES_WAKEUP |
                 PowerManager.ON_AFTER_RELEASE, "bubbletimer::WakeLock");
 
-        this.updater = () -> {
-            updateCounter++;
-
-            // Update UI and notifications every 1000ms (every 10 cycles at 100ms intervals)
-            boolean shouldUpdateUI = (updateCounter % 10) == 0;
-            
-            if (shouldUpdateUI) {
-                // Periodically invalidate overlay timer views to update countdown arc/text
-                if (windowsByTimerId != null) {
-                    windowsByTimerId.forEach((timerId, window) -> {
-                        try {
-                            TimerView tv = window.getTimerView();
-                            if (tv != null) tv.invalidate();
-                        } catch (Exception ignored) { }
-                    });
-                }
-                if (this.expandedWindow != null) {
-                    try {
-                        TimerView tv = this.expandedWindow.getTimerView();
-                        if (tv != null) tv.invalidate();
-                    } catch (Exception ignored) { }
-                }
-
-                // Check WebSocket connection status and attempt reconnection if needed
-                // Only reconnect if there are shared timers (on-demand mode)
-                if (websocketManager != null && websocketManager.getConnectionState() == WebsocketManager.ConnectionState.DISCONNECTED) {
-                    if (!sharedTimerIds.isEmpty()) {
-                        Log.i("ForegroundService", "WebSocket is disconnected but shared timers exist, attempting to reconnect");
-                        websocketManager.forceReconnect();
-                    } else {
-                        Log.d("ForegroundService", "WebSocket is disconnected but no shared timers - staying disconnected (on-demand mode)");
-                    }
-                }
-            }
-
-            // CRITICAL: Always check for expired timers every 100ms for immediate alarm response
-            boolean shouldAlarm = false;
-            Timer expiredTimer = null;
-            if (!activeTimers.isEmpty()) {
-                // Update notification every 1000ms only
-                if (shouldUpdateUI) {
-                    String name = activeTimers.get(0).getName();
-                    Duration remainingDuration = activeTimers.get(0).getRemainingDuration();
-                    String text = "[" + name + "] " + DurationUtil.getFormattedDuration(remainingDuration);
-
-                    notificationBuilder.setContentText(text);
-                    notificationManager.notify(NOTIFICATION_ID, notificationBuilder.build());
-                }
-
-                // But check for expiration every cycle (100ms) for immediate alarm response
-                for (Timer timer : activeTimers) {
-                    if (timer.getRemainingDuration().isNegative() || timer.getRemainingDuration().isZero()) {
-                        shouldAlarm = true;
-                        expiredTimer = timer;
-                        break;
-                    }
-                }
-            }
-
-            if (shouldAlarm && vibrator == null) {
-                long[] timing   = {600L, 400L};
-                int[] amplitude = { 250,    0};
-                vibratorManager.vibrate(
-                        CombinedVibration.createParallel(
-                                VibrationEffect.createWaveform(timing, amplitude, 0)
-                        )
-                );
-                vibrator = vibratorManager.getDefaultVibrator();
-
-                // Launch full-screen alarm activity for the expired timer
-                if (expiredTimer != null && !triggeredAlarmTimerIds.contains(expiredTimer.getId())) {
-                    Log.i("ForegroundService", "Timer expired: " + expiredTimer.getId() + 
-                          " - currentUserId: " + currentUserId + 
-                          " - timer.getUserId(): " + expiredTimer.getUserId() +
-                          " - isShared: " + (expiredTimer.getSharedWith() != null && !expiredTimer.getSharedWith().isEmpty()));
-                    
-                    // CRITICAL: Acquire wake lock IMMEDIATELY when timer expires to wake screen
-                    if (wakeLock != null) {
-                        Log.i("ForegroundService", "⚡ WAKE LOCK: Acquiring to wake screen for expired timer");
-                        wakeLock.acquire(30000); // Hold for 30 seconds max (alarm activity will manage its own wake)
-                    }
-                    
-                    // Check full-screen intent permission status
-                    checkFullScreenIntentPermission();
-                    
-                    // Determine if current user should get full-screen alarm
-                    boolean shouldShowFullScreenAlarm = shouldShowFullScreenAlarmForUser(expiredTimer);
-                    boolean hasFullScreenPermission = FullScreenIntentPermissionHelper.hasFullScreenIntentPermission(this);
-                    
-                    if (shouldShowFullScreenAlarm && hasFullScreenPermission) {
-                        Log.i("ForegroundService", "Showing full-screen alarm for timer: " + expiredTimer.getId());
-                        launchTimerAlarmActivity(expiredTimer);
-                    } else {
-                        String reason = !hasFullScreenPermission ? "missing full-screen permission" : "unknown";
-                        Log.i("ForegroundService", "Showing enhanced notification (" + reason + ") for timer: " + expiredTimer.getId());
-                        showEnhancedAlarmNotification(expiredTimer);
-                    }
-                    
-                    triggeredAlarmTimerIds.add(expiredTimer.getId());
+        this.reconnectCheck = () -> {
+            // Only reconnect if there are shared timers (on-demand mode)
+            if (websocketManager.getConnectionState() == WebsocketManager.ConnectionState.DISCONNECTED) {
+                if (!sharedTimerIds.isEmpty()) {
+                    Log.i("ForegroundService", "WebSocket is disconnected but shared timers exist, attempting to reconnect");
+                    websocketManager.forceReconnect();
+                } else {
+                    Log.d("ForegroundService", "WebSocket is disconnected but no shared timers - staying disconnected (on-demand mode)");
                 }
             }
-            timerHandler.postDelayed(updater, 100); // Check every 100ms for more responsive alarm triggering
         };
-        timerHandler.post(updater);
+
+        // Build the windows for the timers that already exist, then apply changes as they come
+        this.timerChangeListener = this::applyTimerChanges;
+        ActiveTimerRepository.Snapshot snapshot = this.activeTimerRepository.addChangeListener(timerChangeListener);
+        Log.d("ForegroundService", "Starting from " + snapshot.getTimers().size()
+                + " active timers at version " + snapshot.getVersion());
+        snapshot.getTimers().forEach(this::putActiveTimer);
+        // Cancels the alarms a previous process left for timers stopped or removed since
+        timerAlarmScheduler.sync(new ArrayList<>(activeTimersById.values()));
+        onActiveTimersChanged();
 
         // Request auth data to initialize websocket
         Intent message = new Intent(MainActivity.MESSAGE_RECEIVER_ACTION);
@@ -632,6 +485,121 @@ public class ForegroundService extends LifecycleService implements OverlayWindow
         LocalBroadcastManager.getInstance(ForegroundService.this).sendBroadcast(message);
         }
     
+    /**
+     * Show the first active timer in the service notification. A running timer uses the
+     * system chronometer, so the countdown needs no periodic updates from the service.
+     */
+    private void updateTimerNotification() {
+        if (activeTimersById.isEmpty()) {
+            notificationBuilder
+                    .setUsesChronometer(false)
+                    .setShowWhen(false)
+                    .setContentText("No active timers.");
+            notificationManager.notify(NOTIFICATION_ID, notificationBuilder.build());
+            return;
+        }
+
+        Timer timer = activeTimersById.values().iterator().next();
+        if (timer.isPaused()) {
+            notificationBuilder
+                    .setUsesChronometer(false)
+                    .setShowWhen(false)
+                    .setContentText("[" + timer.getName() + "] " + DurationUtil.getFormattedDuration(timer.getRemainingMillis()));
+        } else {
+            notificationBuilder
+                    .setUsesChronometer(true)
+                    .setChronometerCountDown(true)
+                    .setShowWhen(true)
+                    .setWhen(System.currentTimeMillis() + timer.getRemainingMillis())
+                    .setContentText("[" + timer.getName() + "]");
+        }
+        notificationManager.notify(NOTIFICATION_ID, notificationBuilder.build());
+    }
+
+    /**
+     * Alarm for every timer that crossed its deadline since the last evaluation. Timers that
+     * expire together share one vibration, one wake lock acquisition and one alarm activity
+     * or notification.
+     */
+    private void onTimersExpired(List<Timer> expiredTimers) {
+        startAlarmVibration();
+
+        List<Timer> newlyExpiredTimers = new ArrayList<>();
+        for (Timer expiredTimer : expiredTimers) {
+            if (!triggeredAlarmTimerIds.contains(expiredTimer.getId())) {
+                newlyExpiredTimers.add(expiredTimer);
+            }
+        }
+        if (newlyExpiredTimers.isEmpty()) {
+            return;
+        }
+
+        for (Timer expiredTimer : newlyExpiredTimers) {
+            Log.i("ForegroundService", "Timer expired: " + expiredTimer.getId() +
+                  " - currentUserId: " + currentUserId +
+                  " - timer.getUserId(): " + expiredTimer.getUserId() +
+                  " - isShared: " + (expiredTimer.getSharedWith() != null && !expiredTimer.getSharedWith().isEmpty()));
+        }
+
+        // CRITICAL: Acquire wake lock IMMEDIATELY when timers expire to wake screen
+        if (wakeLock != null) {
+            Log.i("ForegroundService", "⚡ WAKE LOCK: Acquiring to wake screen for " + newlyExpiredTimers.size() + " expired timers");
+            wakeLock.acquire(30000); // Hold for 30 seconds max (alarm activity will manage its own wake)
+        }
+
+        // Check full-screen intent permission status
+        checkFullScreenIntentPermission();
+
+        // Determine if current user should get full-screen alarm
+        boolean shouldShowFullScreenAlarm = shouldShowFullScreenAlarmForUser(newlyExpiredTimers.get(0));
+        boolean hasFullScreenPermission = FullScreenIntentPermissionHelper.hasFullScreenIntentPermission(this);
+
+        if (shouldShowFullScreenAlarm && hasFullScreenPermission) {
+            Log.i("ForegroundService", "Showing full-screen alarm for " + newlyExpiredTimers.size() + " timers");
+            launchTimerAlarmActivity(newlyExpiredTimers);
+        } else {
+            String reason = !hasFullScreenPermission ? "missing full-screen permission" : "unknown";
+            Log.i("ForegroundService", "Showing enhanced notification (" + reason + ") for " + newlyExpiredTimers.size() + " timers");
+            showEnhancedAlarmNotification(newlyExpiredTimers);
+        }
+
+        for (Timer expiredTimer : newlyExpiredTimers) {
+            triggeredAlarmTimerIds.add(expiredTimer.getId());
+        }
+    }
+
+    private void startAlarmVibration() {
+        if (vibrator != null) {
+            return;
+        }
+
+        long[] timing   = {600L, 400L};
+        int[] amplitude = { 250,    0};
+        vibratorManager.vibrate(
+                CombinedVibration.createParallel(
+                        VibrationEffect.createWaveform(timing, amplitude, 0)
+                )
+        );
+        vibrator = vibratorManager.getDefaultVibrator();
+    }
+
+    private void stopAlarmVibration() {
+        if (vibrator != null) {
+            vibrator.cancel();
+            vibrator = null;
+        }
+    }
+
+    private void stopTimerById(String timerId) {
+        Timer timerToStop = activeTimerRepository.getById(timerId);
+        if (timerToStop != null) {
+            Log.i("ForegroundService", "Stopping timer: " + timerId);
+            onTimerStopped(timerToStop);
+        } else {
+            Log.w("ForegroundService", "Timer to stop not found in repository: " + timerId);
+        }
+    }
+
     /**
      * Check and log the status of full-screen intent permission and system settings.
      */
@@ -757,10 +725,12 @@ public class ForegroundService extends LifecycleService implements OverlayWindow
     }
     
     /**
-     * Launch the TimerAlarmActivity to show a full-screen alarm for the expired timer.
+     * Launch the TimerAlarmActivity to show a full-screen alarm for the expired timers. The first
+     * timer is displayed and the rest are grouped into the same alarm.
      * Uses a hybrid approach: direct activity launch + full-screen intent notification as backup.
      */
-    private void launchTimerAlarmActivity(Timer expiredTimer) {
+    private void launchTimerAlarmActivity(List<Timer> expiredTimers) {
+        Timer expiredTimer = expiredTimers.get(0);
         try {
             Log.i("ForegroundService", "=== LAUNCHING FULL-SCREEN ALARM ===");
             Log.i("ForegroundService", "Timer ID: " + expiredTimer.getId());
@@ -774,6 +744,7 @@ public class ForegroundService extends LifecycleService implements OverlayWindow
             alarmIntent.putExtra(TimerAlarmActivity.EXTRA_TIMER_NAME, expiredTimer.getName());
             alarmIntent.putExtra(TimerAlarmActivity.EXTRA_TIMER_TOTAL_DURATION, expiredTimer.getTotalDuration().toString());
             alarmIntent.putExtra(TimerAlarmActivity.EXTRA_TIMER_REMAINING_DURATION, expiredTimer.getRemainingDuration().toString());
+            alarmIntent.putExtra(TimerAlarmActivity.EXTRA_GROUPED_TIMER_IDS, getGroupedTimerIds(expiredTimers));
             alarmIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | 
                                Intent.FLAG_ACTIVITY_CLEAR_TOP |
                                Intent.FLAG_ACTIVITY_SINGLE_TOP |
@@ -808,7 +779,7 @@ public class ForegroundService extends LifecycleService implements OverlayWindow
         } catch (Exception e) {
             Log.e("ForegroundService", "Failed to launch TimerAlarmActivity", e);
             // Fallback: Enhanced notification if everything fails
-            showEnhancedAlarmNotification(expiredTimer);
+            showEnhancedAlarmNotification(expiredTimers);
         }
     }
     
@@ -915,10 +886,12 @@ public class ForegroundService extends LifecycleService implements OverlayWindow
     }
     
     /**
-     * Show enhanced notification as fallback when full-screen alarm fails.
+     * Show enhanced notification as fallback when full-screen alarm fails. Timers that expired
+     * together share one notification whose STOP action stops all of them.
      */
-    private void showEnhancedAlarmNotification(Timer expiredTimer) {
-        Log.i("ForegroundService", "Showing enhanced notification for expired timer: " + expiredTimer.getId());
+    private void showEnhancedAlarmNotification(List<Timer> expiredTimers) {
+        Timer expiredTimer = expiredTimers.get(0);
+        Log.i("ForegroundService", "Showing enhanced notification for " + expiredTimers.size() + " expired timers, first: " + expiredTimer.getId());
         
         // Create a more prominent notification for alarm
         String channelId = "timer_alarm_channel";
@@ -937,6 +910,7 @@ public class ForegroundService extends LifecycleService implements OverlayWindow
         Intent stopIntent = new Intent(ForegroundService.MESSAGE_RECEIVER_ACTION);
         stopIntent.putExtra("command", "stopTimer");
         stopIntent.putExtra("timerId", expiredTimer.getId());
+        stopIntent.putExtra("groupedTimerIds", getGroupedTimerIds(expiredTimers));
         PendingIntent stopPendingIntent = PendingIntent.getBroadcast(
             this, 
             expiredTimer.getId().hashCode(), 
@@ -945,8 +919,23 @@ public class ForegroundService extends LifecycleService implements OverlayWindow
         );
         
         // Enhanced notification is now only used when full-screen permission is missing
-        String contentTitle = "⏰ Timer Expired!";
-        String contentText = expiredTimer.getName() + " - Time's up! (Tap to view)";
+        String contentTitle;
+        String contentText;
+        String stopLabel;
+        NotificationCompat.InboxStyle groupStyle = null;
+        if (expiredTimers.size() == 1) {
+            contentTitle = "⏰ Timer Expired!";
+            contentText = expiredTimer.getName() + " - Time's up! (Tap to view)";
+            stopLabel = "STOP";
+        } else {
+            contentTitle = "⏰ " + expiredTimers.size() + " Timers Expired!";
+            contentText = expiredTimers.stream().map(Timer::getName).collect(java.util.stream.Collectors.joining(", "));
+            stopLabel = "STOP ALL";
+            groupStyle = new NotificationCompat.InboxStyle();
+            for (Timer timer : expiredTimers) {
+                groupStyle.addLine(timer.getName() + " - Time's up!");
+            }
+        }
         
         NotificationCompat.Builder alarmBuilder = new NotificationCompat.Builder(this, channelId)
             .setContentTitle(contentTitle)
@@ -956,13 +945,120 @@ public class ForegroundService extends LifecycleService implements OverlayWindow
             .setCategory(NotificationCompat.CATEGORY_ALARM)
             .setAutoCancel(true)
             .setFullScreenIntent(null, true)
-            .addAction(R.drawable.bubble_logo, "STOP", stopPendingIntent);
+            .addAction(R.drawable.bubble_logo, stopLabel, stopPendingIntent);
+        if (groupStyle != null) {
+            alarmBuilder.setStyle(groupStyle);
+        }
         
-        // Use unique notification ID for each timer alarm
+        // Use unique notification ID for each alarm, keyed by its first timer
         int notificationId = 1000 + expiredTimer.getId().hashCode();
         notificationManager.notify(notificationId, alarmBuilder.build());
     }
+
+    private static String[] getGroupedTimerIds(List<Timer> expiredTimers) {
+        return expiredTimers.stream()
+                .skip(1)
+                .map(Timer::getId)
+                .toArray(String[]::new);
+    }
     
+    /**
+     * Apply one batch of changes from the repository. Only the windows, alarms and deadlines of
+     * the changed timers are touched, so the cost is per change rather than per active timer.
+     */
+    private void applyTimerChanges(List<ActiveTimerChange> changes) {
+        Log.d("ForegroundService", "Applying " + changes.size() + " timer changes: " + changes);
+
+        for (ActiveTimerChange change : changes) {
+            if (change.getType() == ActiveTimerChange.Type.REMOVED) {
+                removeActiveTimer(change.getTimer());
+            } else {
+                putActiveTimer(change.getTimer());
+            }
+        }
+        onActiveTimersChanged();
+    }
+
+    private void putActiveTimer(Timer timer) {
+        Timer previous = activeTimersById.put(timer.getId(), timer);
+        if (previous == null) {
+            Log.d("ForegroundService", "Creating new window with currentUserId: " + currentUserId);
+            OverlayWindowFactory.IOverlayWindow window = OverlayWindowFactory.createOverlayWindow(
+                getApplicationContext(), false, currentUserId);
+
+            if (isOverlayShown) {
+                window.open(timer, ForegroundService.this);
+            }
+
+            windowsByTimerId.put(timer.getId(), window);
+            renderTicker.subscribe(window.getTimerView());
+        }
+
+        expiryScheduler.update(timer);
+        timerAlarmScheduler.update(timer);
+        trackSharedTimer(timer);
+    }
+
+    private void removeActiveTimer(Timer timer) {
+        if (activeTimersById.remove(timer.getId()) == null) {
+            return;
+        }
+
+        OverlayWindowFactory.IOverlayWindow window = windowsByTimerId.remove(timer.getId());
+        if (window != null) {
+            renderTicker.unsubscribe(window.getTimerView());
+            try {
+                window.close();
+                window.cleanup();
+            } catch (Exception e) {
+                Log.e("ForegroundService", "Error while closing: ", e);
+            }
+        }
+
+        expiryScheduler.remove(timer.getId());
+        timerAlarmScheduler.cancel(timer.getId());
+        untrackSharedTimer(timer.getId());
+
+        // Clean up alarm tracking for removed timer
+        triggeredAlarmTimerIds.remove(timer.getId());
+
+        websocketManager.sendStopTimerToWebsocket(timer);
+    }
+
+    private void onActiveTimersChanged() {
+        // Stopped, paused or extended timers are no longer alarming
+        triggeredAlarmTimerIds.retainAll(expiryScheduler.getExpiredTimerIds());
+        if (!expiryScheduler.hasExpired()) {
+            stopAlarmVibration();
+        }
+        expiryScheduler.evaluate();
+        updateTimerNotification();
+        checkWebsocketConnectionNeeds();
+    }
+
+    /**
+     * Shared timer tracking for one added or changed timer, see
+     * {@link #updateSharedTimerTracking(List)} for the rules.
+     */
+    private void trackSharedTimer(Timer timer) {
+        Set<String> sharedWith = timer.getSharedWith();
+        if (sharedWith == null || sharedWith.isEmpty()) {
+            untrackSharedTimer(timer.getId());
+            return;
+        }
+
+        sharedTimerIds.add(timer.getId());
+        if (!activeSharedTimerIds.contains(timer.getId())) {
+            pendingInvitationIds.add(timer.getId());
+        }
+    }
+
+    private void untrackSharedTimer(String timerId) {
+        sharedTimerIds.remove(timerId);
+        pendingInvitationIds.remove(timerId);
+        activeSharedTimerIds.remove(timerId);
+    }
+
     /**
      * Update shared timer tracking based on current timers.
      * This replaces the SharedTimerManager functionality with a simpler approach.
@@ -1060,10 +1156,20 @@ public class ForegroundService extends LifecycleService implements OverlayWindow
                 Log.d("ForegroundService", "Creating expanded window with currentUserId: " + currentUserId);
                 this.expandedWindow = OverlayWindowFactory.createOverlayWindow(
                     getApplicationContext(), true, currentUserId);
+                renderTicker.subscribe(this.expandedWindow.getTimerView());
             }
         }
 
-        timerHandler.post(updater);
+        if (intent != null && TimerExpiryReceiver.ACTION_TIMER_EXPIRED.equals(intent.getAction())) {
+            // Started via startForegroundService, so confirm foreground state right away
+            this.startForeground(NOTIFICATION_ID, notificationBuilder.build(), ServiceInfo.FOREGROUND_SERVICE_TYPE_SPECIAL_USE);
+
+            String timerId = intent.getStringExtra(TimerExpiryReceiver.EXTRA_TIMER_ID);
+            Log.i("ForegroundService", "Expiry alarm received for timer: " + timerId);
+            timerAlarmScheduler.onAlarmDelivered(timerId);
+            expiryScheduler.evaluate();
+            timerAlarmScheduler.sync(new ArrayList<>(activeTimersById.values()));
+        }
 
         return super.onStartCommand(intent, flags, startId);
     }
@@ -1093,13 +1199,13 @@ public class ForegroundService extends LifecycleService implements OverlayWindow
         
         // Update shared timer tracking to ensure WebSocket connection is established
         // This is important when a timer becomes shared for the first time
-        Log.d("ForegroundService", "activeTimers is null: " + (activeTimers == null));
-        if (activeTimers != null) {
-            Log.d("ForegroundService", "activeTimers size: " + activeTimers.size());
+        Log.d("ForegroundService", "activeTimersById is null: " + (activeTimersById == null));
+        if (activeTimersById != null) {
+            Log.d("ForegroundService", "activeTimersById size: " + activeTimersById.size());
             Log.d("ForegroundService", "Updating shared timer tracking before sending WebSocket message");
-            updateSharedTimerTracking(activeTimers);
+            updateSharedTimerTracking(new ArrayList<>(activeTimersById.values()));
         } else {
-            Log.d("ForegroundService", "activeTimers is null, skipping shared timer tracking update");
+            Log.d("ForegroundService", "activeTimersById is null, skipping shared timer tracking update");
         }
         
         // Check if WebSocket is connected before sending the message
@@ -1167,10 +1273,22 @@ public class ForegroundService extends LifecycleService implements OverlayWindow
     public void onDestroy() {
         super.onDestroy();
 
+        // Expiry alarms stay armed so timers still go off if the service is gone
+        timerHandler.removeCallbacks(reconnectCheck);
+        expiryScheduler.clear();
+
+        activeTimerRepository.removeChangeListener(timerChangeListener);
+        // Don't leave coalesced timer writes behind in memory
+        activeTimerRepository.flush();
+
         windowsByTimerId.forEach((timerId, window) -> {
+            renderTicker.unsubscribe(window.getTimerView());
             window.close();
             window.cleanup();
         });
+        if (expandedWindow != null) {
+            renderTicker.unsubscribe(expandedWindow.getTimerView());
+        }
 
         LocalBroadcastManager.getInstance(this).unregisterReceiver(broadcastReceiver);
 
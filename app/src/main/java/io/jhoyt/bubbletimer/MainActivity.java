@@ -11,8 +11,6 @@ import android.os.Handler;
 import android.provider.Settings;
 import android.util.Log;
 import android.view.View;
-import android.view.ViewGroup;
-import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.os.Looper;
 
@@ -52,9 +50,6 @@ public class MainActivity extends AppCompatActivity {
     public static int NEW_TIMER_REQUEST = 0;
     public static int EDIT_TIMER_REQUEST = 1;
 
-    private Handler timerHandler;
-    private Runnable updater;
-
     private Set<Timer> activeTimers;
     private String userId;
 
@@ -170,31 +165,6 @@ public class MainActivity extends AppCompatActivity {
         
         // Check and request full-screen intent permission for timer alarms
         checkFullScreenIntentPermission();
-        
-        this.timerHandler = new Handler();
-        final ViewGroup activeTimerList = findViewById(R.id.activeTimerListFragment);
-        this.updater = () -> {
-            LinearLayout layout = activeTimerList.findViewById(R.id.activeTimerList);
-            if (layout != null) {
-                boolean needsUpdate = false;
-                for (int i = 0; i < layout.getChildCount(); i++) {
-                    View cardTimer = layout.getChildAt(i);
-                    TimerView timerView = (TimerView) cardTimer.findViewById(R.id.timer);
-                    if (timerView != null) {
-                        needsUpdate = true;
-                        timerView.invalidate();
-                    }
-                }
-                
-                // Only schedule next update if we actually updated something
-                if (needsUpdate) {
-                    timerHandler.postDelayed(updater, 1000);
-                } else {
-                    timerHandler.postDelayed(updater, 100); // Check more frequently if no updates needed
-                }
-            }
-        };
-        timerHandler.post(updater);
 
         this.findViewById(R.id.button).setOnClickListener(v -> {
             Intent intent = new Intent(MainActivity.this, NewTimerActivity.class);
@@ -372,7 +342,11 @@ public class MainActivity extends AppCompatActivity {
 
                 final Set<String> tags = new HashSet<>();
                 if (!tagsString.isEmpty()) {
-                    tags.addAll(Set.of(tagsString.split("#~#")));
+                    for (String tag : tagsString.split("#~#")) {
+                        if (!tag.trim().isEmpty()) {
+                            tags.add(tag.trim());
+                        }
+                    }
                 }
 
                 final List<String> allTags =
@@ -411,7 +385,6 @@ public class MainActivity extends AppCompatActivity {
                 }
 
                 final Duration timerDuration = duration;
-                final String timerTagsString = tagsString;
                 if (requestCode == NEW_TIMER_REQUEST) {
                     // Show loading overlay
                     View loadingOverlay = findViewById(R.id.loadingOverlay);
@@ -423,7 +396,7 @@ public class MainActivity extends AppCompatActivity {
                     io.jhoyt.bubbletimer.db.Timer timer = new io.jhoyt.bubbletimer.db.Timer(
                             title,
                             timerDuration,
-                            timerTagsString
+                            tags
                     );
                     this.timerViewModel.insert(timer);
 
@@ -449,7 +422,7 @@ public class MainActivity extends AppCompatActivity {
                                 timerId,
                                 title,
                                 timerDuration,
-                                timerTagsString
+                                tags
                         );
                         this.timerViewModel.update(timer);
                         
@@ -515,7 +488,6 @@ public class MainActivity extends AppCompatActivity {
     protected void onDestroy() {
         super.onDestroy();
 
-        timerHandler.removeCallbacks(updater);
         LocalBroadcastManager.getInstance(this).unregisterReceiver(broadcastReceiver);
     }
 
@@ -0,0 +1,117 @@
+package io.jhoyt.bubbletimer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outgoing timer updates waiting to be sent, at most one per timer. Dragging a bubble or
+ * tapping +1 min a few times produces a burst of updates to the same timer; only the latest
+ * state is worth sending, so a newer update replaces a pending one instead of adding a frame.
+ *
+ * It does no scheduling of its own: {@link WebsocketManager} flushes it a short window after
+ * the first pending update, or right away before a stop. It counts the updates it was given
+ * and the frames that coalescing and batching saved.
+ */
+public class OutboundUpdateCoalescer {
+
+    /**
+     * The latest state of a timer to send and why it changed.
+     */
+    public static final class Update {
+        private final Timer timer;
+        private final String reason;
+
+        Update(Timer timer, String reason) {
+            this.timer = timer;
+            this.reason = reason;
+        }
+
+        @NonNull
+        public Timer getTimer() {
+            return timer;
+        }
+
+        @Nullable
+        public String getReason() {
+            return reason;
+        }
+    }
+
+    // Keeps the order in which timers were first updated
+    private final Map<String, Update> pending = new LinkedHashMap<>();
+    private long logicalUpdates;
+    private long framesSaved;
+
+    /**
+     * Queue an update, replacing any pending one for the same timer. The timer is sent as it
+     * is when the queue is flushed, so pass a copy if it can still change.
+     * @return true if nothing was pending before, so a flush needs to be scheduled
+     */
+    public synchronized boolean offer(@NonNull Timer timer, @Nullable String reason) {
+        logicalUpdates++;
+        boolean wasEmpty = pending.isEmpty();
+        if (pending.put(timer.getId(), new Update(timer, reason)) != null) {
+            framesSaved++;
+        }
+        return wasEmpty;
+    }
+
+    /**
+     * Drop the pending update for a timer that's being stopped, since the stop message
+     * carries its final state.
+     * @return whether an update was pending
+     */
+    public synchronized boolean discard(@NonNull String timerId) {
+        if (pending.remove(timerId) == null) {
+            return false;
+        }
+        framesSaved++;
+        return true;
+    }
+
+    /**
+     * Take every pending update, in the order the timers were first updated.
+     */
+    @NonNull
+    public synchronized List<Update> drain() {
+        List<Update> updates = new ArrayList<>(pending.values());
+        pending.clear();
+        return updates;
+    }
+
+    /**
+     * Record that several updates went out in one frame.
+     */
+    public synchronized void onBatchSent(int updateCount) {
+        if (updateCount > 1) {
+            framesSaved += updateCount - 1;
+        }
+    }
+
+    /**
+     * Drop every pending update without sending it, e.g. when the connection closes.
+     */
+    public synchronized void clear() {
+        pending.clear();
+    }
+
+    /**
+     * @return the number of updates offered, each of which used to be a frame of its own
+     */
+    public synchronized long getLogicalUpdateCount() {
+        return logicalUpdates;
+    }
+
+    /**
+     * @return the number of frames not sent because updates were replaced, discarded by a stop
+     * or sent together
+     */
+    public synchronized long getFramesSavedCount() {
+        return framesSaved;
+    }
+}
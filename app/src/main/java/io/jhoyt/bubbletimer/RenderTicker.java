@@ -0,0 +1,185 @@
+package io.jhoyt.bubbletimer;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.View;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Shared redraw clock for every on-screen {@link TimerView}.
+ *
+ * Instead of invalidating all views on a fixed interval, each tick is scheduled for the next
+ * moment a subscribed running timer crosses a whole second, so the countdown flips exactly on
+ * time. A view is only invalidated when its displayed seconds or arc bucket changed, and views
+ * whose window isn't showing are skipped. With nothing running and visible, no tick is posted.
+ */
+@Singleton
+public class RenderTicker {
+    static final int ARC_BUCKETS = 360;
+
+    private static final class Subscription {
+        final View.OnAttachStateChangeListener attachListener;
+        long lastDisplayedSeconds = Long.MIN_VALUE;
+        int lastArcBucket = -1;
+        TimerData lastTimerData;
+        Set<String> lastSharedWith;
+
+        Subscription(View.OnAttachStateChangeListener attachListener) {
+            this.attachListener = attachListener;
+        }
+
+        void reset() {
+            lastDisplayedSeconds = Long.MIN_VALUE;
+            lastArcBucket = -1;
+            lastTimerData = null;
+            lastSharedWith = null;
+        }
+    }
+
+    private final Handler handler;
+    private final Map<TimerView, Subscription> subscriptions = new IdentityHashMap<>();
+    private final Runnable tick = this::onTick;
+    private long scheduledTickAt = -1;
+
+    @Inject
+    public RenderTicker() {
+        this(new Handler(Looper.getMainLooper()));
+    }
+
+    RenderTicker(Handler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Start redrawing the view as its timer counts down. Must be called on the main thread.
+     */
+    public void subscribe(TimerView view) {
+        if (view == null || subscriptions.containsKey(view)) {
+            return;
+        }
+
+        View.OnAttachStateChangeListener attachListener = new View.OnAttachStateChangeListener() {
+            @Override
+            public void onViewAttachedToWindow(View v) {
+                reschedule();
+            }
+
+            @Override
+            public void onViewDetachedFromWindow(View v) {
+            }
+        };
+        view.addOnAttachStateChangeListener(attachListener);
+        view.setRenderTicker(this);
+        subscriptions.put(view, new Subscription(attachListener));
+
+        reschedule();
+    }
+
+    public void unsubscribe(TimerView view) {
+        if (view == null) {
+            return;
+        }
+
+        Subscription subscription = subscriptions.remove(view);
+        if (subscription == null) {
+            return;
+        }
+        view.removeOnAttachStateChangeListener(subscription.attachListener);
+        view.setRenderTicker(null);
+
+        if (subscriptions.isEmpty()) {
+            cancel();
+        }
+    }
+
+    /**
+     * Re-evaluate all views now, e.g. after a timer was paused, resumed or replaced.
+     */
+    public void reschedule() {
+        cancel();
+        handler.post(tick);
+        scheduledTickAt = SystemClock.uptimeMillis();
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * @return uptime of the next pending tick, or -1 if the ticker is idle
+     */
+    public long getScheduledTickAt() {
+        return scheduledTickAt;
+    }
+
+    private void onTick() {
+        scheduledTickAt = -1;
+
+        long nextDelay = Long.MAX_VALUE;
+        for (Map.Entry<TimerView, Subscription> entry : subscriptions.entrySet()) {
+            TimerView view = entry.getKey();
+            Subscription subscription = entry.getValue();
+            Timer timer = view.getTimer();
+
+            if (timer == null || !isShowing(view)) {
+                // Force a redraw as soon as it is visible again
+                subscription.reset();
+                continue;
+            }
+
+            long remainingMillis = timer.getRemainingMillis();
+            long displayedSeconds = DurationUtil.getDisplayedSeconds(remainingMillis);
+            int arcBucket = getArcBucket(remainingMillis, timer.getTotalDuration().toMillis());
+
+            if (displayedSeconds != subscription.lastDisplayedSeconds
+                    || arcBucket != subscription.lastArcBucket
+                    || timer.getTimerData() != subscription.lastTimerData
+                    || timer.getSharedWith() != subscription.lastSharedWith) {
+                subscription.lastDisplayedSeconds = displayedSeconds;
+                subscription.lastArcBucket = arcBucket;
+                subscription.lastTimerData = timer.getTimerData();
+                subscription.lastSharedWith = timer.getSharedWith();
+                view.invalidate();
+            }
+
+            if (!timer.isPaused()) {
+                nextDelay = Math.min(nextDelay, getMillisUntilNextSecond(remainingMillis));
+            }
+        }
+
+        if (nextDelay != Long.MAX_VALUE) {
+            scheduledTickAt = SystemClock.uptimeMillis() + nextDelay;
+            handler.postAtTime(tick, scheduledTickAt);
+        }
+    }
+
+    private void cancel() {
+        handler.removeCallbacks(tick);
+        scheduledTickAt = -1;
+    }
+
+    private static boolean isShowing(View view) {
+        return view.isShown() && view.getWindowVisibility() == View.VISIBLE;
+    }
+
+    /**
+     * Time until the displayed (rounded-up) seconds value next changes.
+     */
+    static long getMillisUntilNextSecond(long remainingMillis) {
+        return Math.floorMod(remainingMillis - 1, 1000L) + 1;
+    }
+
+    static int getArcBucket(long remainingMillis, long totalMillis) {
+        if (totalMillis <= 0 || remainingMillis <= 0) {
+            return 0;
+        }
+        return (int) (ARC_BUCKETS * Math.min(remainingMillis, totalMillis) / totalMillis);
+    }
+}
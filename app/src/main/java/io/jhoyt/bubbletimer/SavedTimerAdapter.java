@@ -0,0 +1,135 @@
+package io.jhoyt.bubbletimer;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.ImageButton;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import io.jhoyt.bubbletimer.db.SavedTimerPager;
+import io.jhoyt.bubbletimer.db.Timer;
+
+/**
+ * Shows the pages of saved timers loaded so far. Only the cards on screen are bound, and
+ * binding near the end of the loaded timers asks the pager for the next page.
+ */
+public class SavedTimerAdapter extends RecyclerView.Adapter<SavedTimerAdapter.ViewHolder> {
+    private List<Timer> timers;
+    private final SavedTimerPager pager;
+    private final String userId;
+    private final OnTimerActionListener actionListener;
+
+    public interface OnTimerActionListener {
+        void onStartTimer(Timer timer, TimerView timerView);
+        void onEditTimer(Timer timer);
+        void onDeleteTimer(Timer timer);
+    }
+
+    public SavedTimerAdapter(List<Timer> timers, SavedTimerPager pager, String userId,
+                             OnTimerActionListener actionListener) {
+        this.timers = timers;
+        this.pager = pager;
+        this.userId = userId;
+        this.actionListener = actionListener;
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.card_timer, parent, false);
+        return new ViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        holder.bind(timers.get(position));
+        pager.loadAround(position);
+    }
+
+    @Override
+    public int getItemCount() {
+        return timers.size();
+    }
+
+    public void updateTimers(List<Timer> newTimers) {
+        List<Timer> oldTimers = this.timers;
+        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldTimers.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newTimers.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                return oldTimers.get(oldItemPosition).id == newTimers.get(newItemPosition).id;
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                // Only the fields bind() shows
+                Timer oldTimer = oldTimers.get(oldItemPosition);
+                Timer newTimer = newTimers.get(newItemPosition);
+                return Objects.equals(oldTimer.title, newTimer.title)
+                        && Objects.equals(oldTimer.duration, newTimer.duration)
+                        && Objects.equals(oldTimer.tags, newTimer.tags);
+            }
+        });
+        this.timers = newTimers;
+        diff.dispatchUpdatesTo(this);
+    }
+
+    class ViewHolder extends RecyclerView.ViewHolder {
+        private final TimerView timerView;
+        private final Button startButton;
+        private final Button editButton;
+        private final ImageButton deleteButton;
+
+        ViewHolder(View itemView) {
+            super(itemView);
+            timerView = itemView.findViewById(R.id.timer);
+            timerView.setLayoutMode(TimerView.MODE_LIST_ITEM);
+            startButton = itemView.findViewById(R.id.startButton);
+            editButton = itemView.findViewById(R.id.editButton);
+            deleteButton = itemView.findViewById(R.id.delete);
+        }
+
+        void bind(Timer timer) {
+            timerView.setTimer(new io.jhoyt.bubbletimer.Timer(new TimerData(
+                    String.valueOf(timer.id),
+                    userId != null ? userId : "unknown",
+                    timer.title,
+                    timer.duration,
+                    null,
+                    null,
+                    (timer.tags == null) ? Set.of() : Set.copyOf(timer.tags)
+            ), new HashSet<>()));
+
+            startButton.setOnClickListener(v -> actionListener.onStartTimer(timer, timerView));
+            editButton.setOnClickListener(v -> actionListener.onEditTimer(timer));
+
+            // Re-enabled on every bind since holders are reused for other timers
+            deleteButton.setEnabled(true);
+            deleteButton.setOnClickListener(v -> {
+                // Disable the delete button to prevent multiple clicks; the card goes away
+                // once the pager reloads without the timer
+                v.setEnabled(false);
+                actionListener.onDeleteTimer(timer);
+            });
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package io.jhoyt.bubbletimer;
+
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The last cursor applied from the server's change stream, per user, so a reconnect can ask for
+ * only what changed since instead of the whole activeTimerList.
+ *
+ * A cursor not advanced for {@link #MAX_RESUME_AGE_MS} isn't offered: the server doesn't keep
+ * changes that long, so the connection starts over with a full activeTimerList instead. The
+ * cursor that list comes with replaces the stored one, even if it's lower.
+ *
+ * Kept in SharedPreferences so it outlives the process, or only in memory without them.
+ */
+public class ServerCursorStore {
+
+    // Changes older than this are gone from the server, so a cursor this old can't be resumed
+    static final long MAX_RESUME_AGE_MS = 24 * 60 * 60 * 1000L;
+
+    private static final String KEY_CURSOR = "cursor.";
+    private static final String KEY_APPLIED_AT = "cursorAppliedAt.";
+
+    @Nullable
+    private final SharedPreferences preferences;
+    // Cursor and the time it was last applied, by user
+    private final Map<String, long[]> cursors = new HashMap<>();
+
+    public ServerCursorStore() {
+        this(null);
+    }
+
+    public ServerCursorStore(@Nullable SharedPreferences preferences) {
+        this.preferences = preferences;
+    }
+
+    /**
+     * @return the cursor to resume the user's stream from, or 0 if there's none or it's too old
+     * and the full list has to be fetched
+     */
+    public synchronized long getResumeCursor(@Nullable String userName, long nowMillis) {
+        if (userName == null) {
+            return 0;
+        }
+        long[] cursor = load(userName);
+        if (cursor[0] <= 0 || nowMillis - cursor[1] > MAX_RESUME_AGE_MS) {
+            return 0;
+        }
+        return cursor[0];
+    }
+
+    /**
+     * Record a change applied from the stream. Replays can repeat older changes, so the cursor
+     * only goes up.
+     */
+    public synchronized void onApplied(@NonNull String userName, long cursor, long nowMillis) {
+        if (cursor <= 0) {
+            return;
+        }
+        store(userName, Math.max(load(userName)[0], cursor), nowMillis);
+    }
+
+    /**
+     * Record a full activeTimerList, which starts the stream over from its cursor.
+     */
+    public synchronized void onFullList(@NonNull String userName, long cursor, long nowMillis) {
+        if (cursor <= 0) {
+            clear(userName);
+            return;
+        }
+        store(userName, cursor, nowMillis);
+    }
+
+    /**
+     * Forget the user's cursor, so the next connection fetches the full list.
+     */
+    public synchronized void clear(@NonNull String userName) {
+        cursors.put(userName, new long[] {0, 0});
+        if (preferences != null) {
+            preferences.edit()
+                    .remove(KEY_CURSOR + userName)
+                    .remove(KEY_APPLIED_AT + userName)
+                    .apply();
+        }
+    }
+
+    private long[] load(String userName) {
+        long[] cursor = cursors.get(userName);
+        if (cursor == null) {
+            cursor = preferences != null
+                    ? new long[] {preferences.getLong(KEY_CURSOR + userName, 0),
+                            preferences.getLong(KEY_APPLIED_AT + userName, 0)}
+                    : new long[] {0, 0};
+            cursors.put(userName, cursor);
+        }
+        return cursor;
+    }
+
+    private void store(String userName, long cursor, long nowMillis) {
+        cursors.put(userName, new long[] {cursor, nowMillis});
+        if (preferences != null) {
+            preferences.edit()
+                    .putLong(KEY_CURSOR + userName, cursor)
+                    .putLong(KEY_APPLIED_AT + userName, nowMillis)
+                    .apply();
+        }
+    }
+}
@@ -7,10 +7,12 @@ import android.widget.Button;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Objects;
 
 import io.jhoyt.bubbletimer.db.SharedTimer;
 
@@ -48,8 +50,36 @@ public class SharedTimerAdapter extends RecyclerView.Adapter<SharedTimerAdapter.
     }
 
     public void updateSharedTimers(List<SharedTimer> newSharedTimers) {
+        List<SharedTimer> oldSharedTimers = this.sharedTimers;
+        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldSharedTimers.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newSharedTimers.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                return oldSharedTimers.get(oldItemPosition).timerId
+                        .equals(newSharedTimers.get(newItemPosition).timerId);
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                // Only the fields bind() shows
+                SharedTimer oldTimer = oldSharedTimers.get(oldItemPosition);
+                SharedTimer newTimer = newSharedTimers.get(newItemPosition);
+                return Objects.equals(oldTimer.name, newTimer.name)
+                        && Objects.equals(oldTimer.sharedBy, newTimer.sharedBy)
+                        && Objects.equals(oldTimer.totalDuration, newTimer.totalDuration);
+            }
+        });
         this.sharedTimers = newSharedTimers;
-        notifyDataSetChanged();
+        diff.dispatchUpdatesTo(this);
     }
 
     class ViewHolder extends RecyclerView.ViewHolder {
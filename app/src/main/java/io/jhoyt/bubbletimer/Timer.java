@@ -6,17 +6,13 @@ import androidx.compose.runtime.external.kotlinx.collections.immutable.Immutable
 
 import com.google.gson.annotations.SerializedName;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
 
+import io.jhoyt.bubbletimer.domain.core.TimeSources;
 import io.jhoyt.bubbletimer.utils.TimerSharingValidator;
 
 public class Timer {
@@ -46,20 +42,28 @@ public class Timer {
 
     private TimerData timerData;
 
+    // Deadline of a running timer on the monotonic clock; timerData.timerEnd mirrors it
+    // in wall-clock time for persistence and the wire
+    private transient long deadlineNanos;
+
+    // Version of this timer's state on the wire, 0 if it isn't known. Bumped by every update
+    // sent, so a patch can say which state it applies to
+    private transient long version;
+
     public Timer() {
         this.sharedWith = new HashSet<>();
     }
 
     public Timer(TimerData timerData, Set<String> sharedWith) {
-        this.timerData = timerData;
-        this.sharedWith = sharedWith;
-        this.sharedBy = null; // Default to null for non-shared timers
+        this(timerData, sharedWith, null); // Default to null for non-shared timers
     }
 
     public Timer(TimerData timerData, Set<String> sharedWith, String sharedBy) {
         this.timerData = timerData;
         this.sharedWith = sharedWith;
         this.sharedBy = sharedBy;
+        this.deadlineNanos = (timerData != null && timerData.timerEnd != null) ?
+                TimeSources.toDeadlineNanos(timerData.timerEnd) : 0;
     }
 
     public Timer(String userId, String name, Duration duration, Set<String> tags) {
@@ -95,54 +99,10 @@ public class Timer {
     }
 
     public Timer copy() {
-        return new Timer(this.timerData.copy(), new HashSet<>(this.getSharedWith()), this.sharedBy);
-    }
-
-    public static Timer timerFromJson(JSONObject jsonTimer) throws JSONException {
-        Set<String> tags = new HashSet<>();
-
-        if (jsonTimer.has("tags")) {
-            JSONArray tagsJson = jsonTimer.getJSONArray("tags");
-            for(int i=0; i<tagsJson.length(); i++) {
-                tags.add(tagsJson.getString(i));
-            }
-        }
-        Timer timer = new Timer(new TimerData(
-                jsonTimer.getString("id"),
-                jsonTimer.getString("userId"),
-                jsonTimer.getString("name"),
-                jsonTimer.has("totalDuration") ?
-                        Duration.parse(jsonTimer.getString("totalDuration"))
-                        : null,
-                jsonTimer.has("remainingDuration") ?
-                        Duration.parse(jsonTimer.getString("remainingDuration"))
-                        : null,
-                jsonTimer.has("timerEnd") ?
-                        LocalDateTime.parse(jsonTimer.getString("timerEnd"))
-                        : null,
-                tags
-        ), new HashSet<>());
-        JSONArray sharedWithJson = jsonTimer.getJSONArray("sharedWith");
-        for(int i=0; i<sharedWithJson.length(); i++) {
-            timer.shareWith(sharedWithJson.getString(i));
-        }
-
-        return timer;
-    }
-
-    static JSONObject timerToJson(Timer timer) throws JSONException {
-        JSONObject jsonTimer = new JSONObject();
-
-        TimerData timerData = timer.getTimerData();
-        jsonTimer.put("id", timerData.id);
-        jsonTimer.put("userId", timerData.userId);
-        jsonTimer.put("name", timerData.name);
-        jsonTimer.put("totalDuration", timerData.totalDuration);
-        jsonTimer.put("remainingDuration", timerData.remainingDurationWhenPaused);
-        jsonTimer.put("timerEnd",  timerData.timerEnd);
-        jsonTimer.put("sharedWith", new JSONArray(timer.getSharedWith()));
-        jsonTimer.put("tags", new JSONArray(timer.getTags()));
-        return jsonTimer;
+        Timer copy = new Timer(this.timerData.copy(), new HashSet<>(this.getSharedWith()), this.sharedBy);
+        copy.deadlineNanos = this.deadlineNanos;
+        copy.version = this.version;
+        return copy;
     }
 
     /*
@@ -182,7 +142,7 @@ public class Timer {
 
     public void setSharedWith(Set<String> sharedWith) {
         if (sharedWith == null) {
-            this.sharedWith = Collections.unmodifiableSet(new HashSet<>());
+            this.sharedWith = Set.of();
             return;
         }
         
@@ -198,11 +158,12 @@ public class Timer {
                 validatedSharedWith = TimerSharingValidator.cleanSharedWithSet(validatedSharedWith);
             }
             
-            this.sharedWith = Collections.unmodifiableSet(validatedSharedWith);
+            // Immutable sets are shared as they are by the domain timers read from this one
+            this.sharedWith = Set.copyOf(validatedSharedWith);
         } catch (Exception e) {
             System.err.println("Error in Timer.setSharedWith() for timer " + this.getId() + ": " + e.getMessage());
             // Fallback to empty set
-            this.sharedWith = Collections.unmodifiableSet(new HashSet<>());
+            this.sharedWith = Set.of();
         }
     }
 
@@ -219,7 +180,7 @@ public class Timer {
             // Use TimerSharingValidator to ensure creator is included
             shareWith = TimerSharingValidator.ensureCreatorIncluded(shareWith, this.getUserId());
             
-            this.sharedWith = Collections.unmodifiableSet(shareWith);
+            this.sharedWith = Set.copyOf(shareWith);
         } catch (Exception e) {
             System.err.println("Error in Timer.shareWith() for timer " + this.getId() + ": " + e.getMessage());
             // Keep existing sharedWith set on error
@@ -232,6 +193,14 @@ public class Timer {
         return new String[]{"ouchthathoyt", "jill", "tester"};
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public TimerData getTimerData() {
         return this.timerData;
     }
@@ -257,6 +226,9 @@ public class Timer {
     }
 
     public void addTime(Duration duration) {
+        if (timerData.timerEnd != null) {
+            this.deadlineNanos += duration.toNanos();
+        }
         this.timerData = new TimerData(
                 timerData.id,
                 timerData.userId,
@@ -282,11 +254,7 @@ public class Timer {
             return;
         }
 
-        Duration remainingDuration = getRemainingDuration();
-        if (remainingDuration == null) {
-            // If we can't calculate remaining duration, use total duration
-            remainingDuration = timerData.totalDuration;
-        }
+        Duration remainingDuration = Duration.ofNanos(getRemainingNanos());
 
         this.timerData = new TimerData(
                 timerData.id,
@@ -305,13 +273,14 @@ public class Timer {
             return;
         }
 
+        this.deadlineNanos = TimeSources.monotonicNanos() + this.timerData.remainingDurationWhenPaused.toNanos();
         this.timerData = new TimerData(
                 timerData.id,
                 timerData.userId,
                 timerData.name,
                 timerData.totalDuration,
                 null,
-                LocalDateTime.now().plus(this.timerData.remainingDurationWhenPaused),
+                TimeSources.toLocalDateTime(this.deadlineNanos),
                 timerData.tags
         );
     }
@@ -341,7 +310,7 @@ public class Timer {
                     return this.timerData.totalDuration;
                 }
 
-                return Duration.between(LocalDateTime.now(), this.timerData.timerEnd);
+                return Duration.ofNanos(this.deadlineNanos - TimeSources.monotonicNanos());
             }
 
             return this.timerData.remainingDurationWhenPaused;
@@ -349,6 +318,35 @@ public class Timer {
         return null;
     }
 
+    /**
+     * Remaining time without allocating, for the tick and draw paths. Negative once the
+     * deadline has passed.
+     */
+    public long getRemainingNanos() {
+        if (remainingDuration == null && this.timerData != null) {
+            if (this.timerData.remainingDurationWhenPaused != null) {
+                return this.timerData.remainingDurationWhenPaused.toNanos();
+            }
+            if (this.timerData.timerEnd != null) {
+                return this.deadlineNanos - TimeSources.monotonicNanos();
+            }
+        }
+
+        Duration remaining = getRemainingDuration();
+        return remaining != null ? remaining.toNanos() : 0;
+    }
+
+    /**
+     * Deadline of a running timer on the monotonic clock, 0 if it isn't running.
+     */
+    public long getDeadlineNanos() {
+        return this.timerData != null && this.timerData.timerEnd != null ? this.deadlineNanos : 0;
+    }
+
+    public long getRemainingMillis() {
+        return Math.floorDiv(getRemainingNanos(), 1_000_000L);
+    }
+
     public LocalDateTime getTimerEnd() {
         if (endTime != null) {
             try {
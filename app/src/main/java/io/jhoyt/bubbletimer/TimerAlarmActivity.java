@@ -19,6 +19,9 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 import dagger.hilt.android.AndroidEntryPoint;
 import io.jhoyt.bubbletimer.db.ActiveTimerRepository;
@@ -34,20 +37,26 @@ public class TimerAlarmActivity extends AppCompatActivity {
     public static final String EXTRA_TIMER_NAME = "timer_name";
     public static final String EXTRA_TIMER_TOTAL_DURATION = "timer_total_duration";
     public static final String EXTRA_TIMER_REMAINING_DURATION = "timer_remaining_duration";
+    // Other timers that expired together with the displayed one and share this alarm
+    public static final String EXTRA_GROUPED_TIMER_IDS = "grouped_timer_ids";
     
     // Broadcast action for dismissing alarm activities across devices
     public static final String DISMISS_ALARM_ACTION = "io.jhoyt.bubbletimer.DISMISS_ALARM";
     
     @Inject
     ActiveTimerRepository activeTimerRepository;
+
+    @Inject
+    RenderTicker renderTicker;
     
     private TimerView timerView;
     private Button stopButton;
     private String timerId;
+    private String[] groupedTimerIds;
+    private final Set<String> alarmingTimerIds = new HashSet<>();
     private Timer timer;
     private Handler handler;
     private Runnable autoDismissRunnable;
-    private Runnable timerUpdateRunnable;
     private PowerManager.WakeLock wakeLock;
     private BroadcastReceiver dismissReceiver;
     
@@ -79,7 +88,14 @@ public class TimerAlarmActivity extends AppCompatActivity {
             return;
         }
         
-        Log.i(TAG, "Timer alarm activity started for timer: " + timerId);
+        groupedTimerIds = getIntent().getStringArrayExtra(EXTRA_GROUPED_TIMER_IDS);
+        if (groupedTimerIds == null) {
+            groupedTimerIds = new String[0];
+        }
+        alarmingTimerIds.add(timerId);
+        alarmingTimerIds.addAll(Arrays.asList(groupedTimerIds));
+        
+        Log.i(TAG, "Timer alarm activity started for timer: " + timerId + " with " + groupedTimerIds.length + " grouped timers");
         
         // Initialize views
         timerView = findViewById(R.id.timer_view);
@@ -90,6 +106,9 @@ public class TimerAlarmActivity extends AppCompatActivity {
         
         // Set up stop button
         stopButton.setOnClickListener(v -> stopTimer());
+        if (groupedTimerIds.length > 0) {
+            stopButton.setText("STOP ALL (" + alarmingTimerIds.size() + ")");
+        }
         
         // Set up auto-dismiss timeout
         handler = new Handler();
@@ -136,9 +155,10 @@ public class TimerAlarmActivity extends AppCompatActivity {
                     String receivedTimerId = intent.getStringExtra(EXTRA_TIMER_ID);
                     Log.i(TAG, "Received dismiss alarm broadcast for timer: " + receivedTimerId);
                     
-                    // Only dismiss if this activity is for the same timer
-                    if (timerId != null && timerId.equals(receivedTimerId)) {
-                        Log.i(TAG, "Dismissing alarm activity due to remote stop for timer: " + timerId);
+                    // Only dismiss once every timer this activity is alarming for was stopped
+                    if (receivedTimerId != null && alarmingTimerIds.remove(receivedTimerId)
+                            && alarmingTimerIds.isEmpty()) {
+                        Log.i(TAG, "Dismissing alarm activity due to remote stop for timer: " + receivedTimerId);
                         remoteDismiss();
                     }
                 }
@@ -251,47 +271,26 @@ public class TimerAlarmActivity extends AppCompatActivity {
     }
     
     /**
-     * Start the timer update loop to continuously refresh the timer display
-     * This shows the continuing countdown/elapsed time since expiration
+     * Subscribe the timer view to the shared render ticker so the continuing
+     * countdown/elapsed time since expiration redraws on each second boundary
      */
     private void startTimerUpdateLoop() {
-        if (handler == null || timerView == null) {
-            Log.w(TAG, "Cannot start timer update loop - handler or timerView is null");
+        if (timerView == null) {
+            Log.w(TAG, "Cannot start timer updates - timerView is null");
             return;
         }
         
-        timerUpdateRunnable = new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    // Update the timer view to reflect current time
-                    if (timerView != null) {
-                        timerView.invalidate();
-                    }
-                    
-                    // Schedule next update in 1 second
-                    if (handler != null && timerUpdateRunnable != null) {
-                        handler.postDelayed(timerUpdateRunnable, 1000);
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "Error in timer update loop", e);
-                }
-            }
-        };
-        
-        // Start the update loop
-        handler.post(timerUpdateRunnable);
-        Log.d(TAG, "Timer update loop started");
+        renderTicker.subscribe(timerView);
+        Log.d(TAG, "Timer updates started");
     }
     
     /**
-     * Stop the timer update loop
+     * Stop redrawing the timer view
      */
     private void stopTimerUpdateLoop() {
-        if (handler != null && timerUpdateRunnable != null) {
-            handler.removeCallbacks(timerUpdateRunnable);
-            timerUpdateRunnable = null;
-            Log.d(TAG, "Timer update loop stopped");
+        if (timerView != null) {
+            renderTicker.unsubscribe(timerView);
+            Log.d(TAG, "Timer updates stopped");
         }
     }
     
@@ -311,6 +310,7 @@ public class TimerAlarmActivity extends AppCompatActivity {
         Intent stopIntent = new Intent(ForegroundService.MESSAGE_RECEIVER_ACTION);
         stopIntent.putExtra("command", "stopTimer");
         stopIntent.putExtra("timerId", timerId);
+        stopIntent.putExtra("groupedTimerIds", groupedTimerIds);
         LocalBroadcastManager.getInstance(this).sendBroadcast(stopIntent);
         
         // Notify ForegroundService that alarm was dismissed (to release wake lock)
@@ -12,45 +12,11 @@ public class TimerConverter {
             throw new IllegalArgumentException("ActiveTimer cannot be null");
         }
         
-        // Validate and clean the sharedWith string
-        Set<String> sharedWith = Set.of();
-        if (activeTimer.sharedWithString != null && !activeTimer.sharedWithString.isEmpty()) {
-            try {
-                sharedWith = Set.of(activeTimer.sharedWithString.split("#~#")).stream()
-                        .filter(s -> !s.isEmpty())
-                        .collect(java.util.stream.Collectors.toSet());
-                
-                // Use TimerSharingValidator to ensure creator is included
-                sharedWith = TimerSharingValidator.ensureCreatorIncluded(sharedWith, activeTimer.userId);
-                
-                // Validate the cleaned set
-                if (!TimerSharingValidator.isValidSharedWithSet(sharedWith, activeTimer.userId)) {
-                    System.err.println("Warning: Invalid sharedWith set detected in ActiveTimer: " + activeTimer.id);
-                    // Use cleaned set as fallback
-                    sharedWith = TimerSharingValidator.cleanSharedWithSet(sharedWith);
-                }
-            } catch (Exception e) {
-                System.err.println("Error processing sharedWith string for timer " + activeTimer.id + ": " + e.getMessage());
-                // Fallback to empty set
-                sharedWith = Set.of();
-            }
-        }
+        // Validated when the timer was written, so the stored sets are used as they are
+        Set<String> sharedWith = activeTimer.sharedWith != null ? Set.copyOf(activeTimer.sharedWith) : Set.of();
+        Set<String> tags = activeTimer.tags != null ? Set.copyOf(activeTimer.tags) : Set.of();
         
-        // Validate and clean the tags string
-        Set<String> tags = Set.of();
-        if (activeTimer.tagsString != null && !activeTimer.tagsString.isEmpty()) {
-            try {
-                tags = Set.of(activeTimer.tagsString.split("#~#")).stream()
-                        .filter(s -> !s.isEmpty())
-                        .collect(java.util.stream.Collectors.toSet());
-            } catch (Exception e) {
-                System.err.println("Error processing tags string for timer " + activeTimer.id + ": " + e.getMessage());
-                // Fallback to empty set
-                tags = Set.of();
-            }
-        }
-        
-        return new Timer(new TimerData(
+        Timer timer = new Timer(new TimerData(
                 activeTimer.id,
                 activeTimer.userId,
                 activeTimer.name,
@@ -59,6 +25,8 @@ public class TimerConverter {
                 activeTimer.timerEnd,
                 tags
         ), sharedWith, activeTimer.sharedBy);
+        timer.setVersion(activeTimer.version);
+        return timer;
     }
 
     public static ActiveTimer toActiveTimer(Timer timer) {
@@ -95,13 +63,13 @@ public class TimerConverter {
                     validatedSharedWith = TimerSharingValidator.cleanSharedWithSet(validatedSharedWith);
                 }
                 
-                activeTimer.sharedWithString = validatedSharedWith.isEmpty() ? "" : String.join("#~#", validatedSharedWith);
+                activeTimer.sharedWith = new HashSet<>(validatedSharedWith);
             } catch (Exception e) {
                 System.err.println("Error processing sharedWith set for timer " + activeTimer.id + ": " + e.getMessage());
-                activeTimer.sharedWithString = "";
+                activeTimer.sharedWith = new HashSet<>();
             }
         } else {
-            activeTimer.sharedWithString = "";
+            activeTimer.sharedWith = new HashSet<>();
         }
         
         // Validate and clean tags set
@@ -111,30 +79,19 @@ public class TimerConverter {
                 Set<String> cleanedTags = tags.stream()
                         .filter(tag -> tag != null && !tag.trim().isEmpty())
                         .map(String::trim)
-                        .collect(java.util.stream.Collectors.toSet());
-                activeTimer.tagsString = cleanedTags.isEmpty() ? "" : String.join("#~#", cleanedTags);
+                        .collect(java.util.stream.Collectors.toCollection(HashSet::new));
+                activeTimer.tags = cleanedTags;
             } catch (Exception e) {
                 System.err.println("Error processing tags set for timer " + activeTimer.id + ": " + e.getMessage());
-                activeTimer.tagsString = "";
+                activeTimer.tags = new HashSet<>();
             }
         } else {
-            activeTimer.tagsString = "";
+            activeTimer.tags = new HashSet<>();
         }
         
         // Set sharedBy field
         activeTimer.sharedBy = timer.getSharedBy() != null ? timer.getSharedBy() : "";
-
-        // Debug logging
-        System.out.println("TimerConverter - ActiveTimer values:");
-        System.out.println("  id: " + activeTimer.id);
-        System.out.println("  userId: " + activeTimer.userId);
-        System.out.println("  name: " + activeTimer.name);
-        System.out.println("  totalDuration: " + activeTimer.totalDuration);
-        System.out.println("  remainingDurationWhenPaused: " + activeTimer.remainingDurationWhenPaused + " (null=unpaused)");
-        System.out.println("  timerEnd: " + activeTimer.timerEnd + " (null=paused)");
-        System.out.println("  sharedWithString: '" + activeTimer.sharedWithString + "'");
-        System.out.println("  tagsString: '" + activeTimer.tagsString + "'");
-        System.out.println("  sharedBy: '" + activeTimer.sharedBy + "'");
+        activeTimer.version = timer.getVersion();
 
         return activeTimer;
     }
@@ -0,0 +1,191 @@
+package io.jhoyt.bubbletimer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The fields of a timer that changed between two versions. Applies only to a copy of the
+ * timer at {@link #getBaseVersion()}; anything else has to be resynced in full.
+ *
+ * A field is either left out, meaning unchanged, or set to its new value, which can be null
+ * for a field that was cleared (a paused timer has no end, a running one no remaining time).
+ */
+public final class TimerPatch {
+
+    static final int NAME = 1;
+    static final int TOTAL_DURATION = 1 << 1;
+    static final int REMAINING_DURATION = 1 << 2;
+    static final int TIMER_END = 1 << 3;
+    static final int SHARED_WITH = 1 << 4;
+    static final int TAGS = 1 << 5;
+
+    private final String timerId;
+    private final long baseVersion;
+    private final long version;
+    // Which fields are in the patch
+    private int fields;
+    private String name;
+    private Duration totalDuration;
+    private Duration remainingDuration;
+    private LocalDateTime timerEnd;
+    private Set<String> sharedWith;
+    private Set<String> tags;
+
+    TimerPatch(String timerId, long baseVersion, long version) {
+        this.timerId = timerId;
+        this.baseVersion = baseVersion;
+        this.version = version;
+    }
+
+    /**
+     * The patch that turns {@code base} into {@code current}.
+     */
+    @NonNull
+    public static TimerPatch diff(@NonNull Timer base, @NonNull Timer current, long baseVersion, long version) {
+        TimerData from = base.getTimerData();
+        TimerData to = current.getTimerData();
+        TimerPatch patch = new TimerPatch(to.id, baseVersion, version);
+        if (!Objects.equals(from.name, to.name)) {
+            patch.setName(to.name);
+        }
+        if (!Objects.equals(from.totalDuration, to.totalDuration)) {
+            patch.setTotalDuration(to.totalDuration);
+        }
+        if (!Objects.equals(from.remainingDurationWhenPaused, to.remainingDurationWhenPaused)) {
+            patch.setRemainingDuration(to.remainingDurationWhenPaused);
+        }
+        if (!Objects.equals(from.timerEnd, to.timerEnd)) {
+            patch.setTimerEnd(to.timerEnd);
+        }
+        if (!Objects.equals(base.getSharedWith(), current.getSharedWith())) {
+            patch.setSharedWith(current.getSharedWith());
+        }
+        if (!Objects.equals(from.tags, to.tags)) {
+            patch.setTags(to.tags);
+        }
+        return patch;
+    }
+
+    /**
+     * @return a new timer with the patch's fields replaced, at the patch's version
+     */
+    @NonNull
+    public Timer applyTo(@NonNull Timer base) {
+        TimerData data = base.getTimerData();
+        TimerData patched = new TimerData(
+                data.id,
+                data.userId,
+                has(NAME) ? name : data.name,
+                has(TOTAL_DURATION) ? totalDuration : data.totalDuration,
+                has(REMAINING_DURATION) ? remainingDuration : data.remainingDurationWhenPaused,
+                has(TIMER_END) ? timerEnd : data.timerEnd,
+                has(TAGS) ? tags : data.tags);
+        Timer timer = new Timer(patched, new HashSet<>(has(SHARED_WITH) ? sharedWith : base.getSharedWith()),
+                base.getSharedBy());
+        timer.setVersion(version);
+        return timer;
+    }
+
+    /**
+     * @return this patch's changes for the given timer and versions
+     */
+    @NonNull
+    TimerPatch at(String timerId, long baseVersion, long version) {
+        TimerPatch patch = new TimerPatch(timerId, baseVersion, version);
+        patch.fields = fields;
+        patch.name = name;
+        patch.totalDuration = totalDuration;
+        patch.remainingDuration = remainingDuration;
+        patch.timerEnd = timerEnd;
+        patch.sharedWith = sharedWith;
+        patch.tags = tags;
+        return patch;
+    }
+
+    public boolean isEmpty() {
+        return fields == 0;
+    }
+
+    @NonNull
+    public String getTimerId() {
+        return timerId;
+    }
+
+    public long getBaseVersion() {
+        return baseVersion;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    boolean has(int field) {
+        return (fields & field) != 0;
+    }
+
+    @Nullable
+    String getName() {
+        return name;
+    }
+
+    @Nullable
+    Duration getTotalDuration() {
+        return totalDuration;
+    }
+
+    @Nullable
+    Duration getRemainingDuration() {
+        return remainingDuration;
+    }
+
+    @Nullable
+    LocalDateTime getTimerEnd() {
+        return timerEnd;
+    }
+
+    @Nullable
+    Set<String> getSharedWith() {
+        return sharedWith;
+    }
+
+    @Nullable
+    Set<String> getTags() {
+        return tags;
+    }
+
+    void setName(String name) {
+        this.name = name;
+        fields |= NAME;
+    }
+
+    void setTotalDuration(Duration totalDuration) {
+        this.totalDuration = totalDuration;
+        fields |= TOTAL_DURATION;
+    }
+
+    void setRemainingDuration(Duration remainingDuration) {
+        this.remainingDuration = remainingDuration;
+        fields |= REMAINING_DURATION;
+    }
+
+    void setTimerEnd(LocalDateTime timerEnd) {
+        this.timerEnd = timerEnd;
+        fields |= TIMER_END;
+    }
+
+    void setSharedWith(Set<String> sharedWith) {
+        this.sharedWith = sharedWith;
+        fields |= SHARED_WITH;
+    }
+
+    void setTags(Set<String> tags) {
+        this.tags = tags;
+        fields |= TAGS;
+    }
+}
@@ -0,0 +1,339 @@
+package io.jhoyt.bubbletimer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The last state of each timer both ends of the connection agree on, and its version. An
+ * update to a timer with an agreed state goes out as a patch against it; an incoming patch
+ * applies only if its base version is the agreed one, otherwise the timer is resynced in full.
+ *
+ * Versions only go up, so incoming frames are also checked against the highest version known
+ * for their timer before anything is written: older frames and repeats are dropped, and a
+ * different state at the same version, which two devices editing at once produce, is resynced.
+ * Stopped timers keep their version for a while so a late update can't bring them back.
+ *
+ * Sending patches needs a backend that understands them, so it's off until
+ * {@link #setPatchesEnabled(boolean)}. Incoming patches are always accepted.
+ */
+public class TimerPatchTracker {
+
+    /**
+     * What to do with an incoming frame.
+     */
+    public enum Admission {
+        APPLY,
+        // Older than what's applied, or for a timer stopped since
+        STALE,
+        // Already applied
+        DUPLICATE,
+        // Another state at the applied version, the timer has to be resynced
+        CONFLICT
+    }
+
+    // Stopped timers remembered at once, beyond which the oldest are forgotten
+    static final int MAX_STOPPED_TIMERS = 256;
+    // Timers tracked at once, beyond which the least recently used are forgotten. A timer
+    // that's removed without being stopped here, e.g. one that expired, is never forgotten
+    // otherwise. A forgotten timer's next update goes out in full, and its version falls back
+    // to the stored one.
+    public static final int MAX_TRACKED_TIMERS = 1024;
+
+    // Copies of the timers as last sent or received, with their versions
+    private final Map<String, Timer> agreed = new HashMap<>();
+    // Highest version sent or applied for each timer, least recently used first. Every agreed
+    // timer has a version, so the agreed state goes when its version does.
+    private final Map<String, Long> versions = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            if (size() <= MAX_TRACKED_TIMERS) {
+                return false;
+            }
+            agreed.remove(eldest.getKey());
+            resyncRequested.remove(eldest.getKey());
+            return true;
+        }
+    };
+    // Versions timers were stopped at, oldest first
+    private final Map<String, Long> stopped = new LinkedHashMap<String, Long>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_STOPPED_TIMERS;
+        }
+    };
+    // Timers waiting on a resync, oldest first
+    private final Set<String> resyncRequested = Collections.newSetFromMap(new LinkedHashMap<String, Boolean>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_TRACKED_TIMERS;
+        }
+    });
+    // The locally stored timers, whose versions were persisted before this process started
+    private final Function<String, Timer> localTimers;
+    private boolean patchesEnabled;
+    private long patchesSent;
+
+    public TimerPatchTracker() {
+        this(timerId -> null);
+    }
+
+    /**
+     * @param localTimers looks up a stored timer by id, for the version of timers this
+     *                    tracker hasn't seen yet
+     */
+    public TimerPatchTracker(@NonNull Function<String, Timer> localTimers) {
+        this.localTimers = localTimers;
+    }
+
+    public synchronized void setPatchesEnabled(boolean patchesEnabled) {
+        this.patchesEnabled = patchesEnabled;
+    }
+
+    /**
+     * Encode an update as a patch if possible, or as a full updateTimer.
+     * @return the frame to send, null if the timer hasn't changed since it was last sent
+     */
+    @Nullable
+    public synchronized String encodeUpdate(@NonNull Timer timer, @Nullable String reason) {
+        Timer base = agreed.get(timer.getId());
+        if (!patchesEnabled || base == null) {
+            return WebsocketMessageCodec.encodeUpdateTimer(stampFullUpdate(timer), reason);
+        }
+
+        Timer sent = nextVersion(timer);
+        TimerPatch patch = TimerPatch.diff(base, sent, base.getVersion(), sent.getVersion());
+        if (patch.isEmpty()) {
+            return null;
+        }
+        agreed.put(sent.getId(), sent);
+        versions.put(sent.getId(), sent.getVersion());
+        patchesSent++;
+        return WebsocketMessageCodec.encodePatchTimer(patch, sent.getSharedWith());
+    }
+
+    /**
+     * Record a timer that's about to be sent in full.
+     * @return a copy of it at its next version, to send
+     */
+    @NonNull
+    public synchronized Timer stampFullUpdate(@NonNull Timer timer) {
+        Timer sent = nextVersion(timer);
+        agreed.put(sent.getId(), sent);
+        versions.put(sent.getId(), sent.getVersion());
+        return sent;
+    }
+
+    /**
+     * Record a timer that's about to be stopped here.
+     * @return a copy of it at its next version, to send the stop with
+     */
+    @NonNull
+    public synchronized Timer stampStop(@NonNull Timer timer) {
+        Timer sent = nextVersion(timer);
+        onStopped(sent.getId(), sent.getVersion());
+        return sent;
+    }
+
+    /**
+     * Check an incoming full timer against the version known for it. A timer a resync was
+     * requested for is taken as it is, since it's the server's state.
+     */
+    @NonNull
+    public synchronized Admission admitTimer(@NonNull Timer timer) {
+        long version = timer.getVersion();
+        if (version == 0 || resyncRequested.contains(timer.getId())) {
+            // Unversioned frames come from senders that don't track versions
+            return Admission.APPLY;
+        }
+        if (isStoppedSince(timer.getId(), version)) {
+            return Admission.STALE;
+        }
+        long known = getKnownVersion(timer.getId());
+        if (version != known) {
+            return version < known ? Admission.STALE : Admission.APPLY;
+        }
+        Timer current = currentTimer(timer.getId());
+        return current != null && current.getVersion() == version && hasSameState(current, timer)
+                ? Admission.DUPLICATE : Admission.CONFLICT;
+    }
+
+    /**
+     * Check an incoming patch against the version known for its timer. Whether it can be
+     * applied to the agreed state is up to {@link #applyPatch(TimerPatch)}.
+     */
+    @NonNull
+    public synchronized Admission admitPatch(@NonNull TimerPatch patch) {
+        if (isStoppedSince(patch.getTimerId(), patch.getVersion())) {
+            return Admission.STALE;
+        }
+        long known = getKnownVersion(patch.getTimerId());
+        if (patch.getVersion() != known) {
+            return patch.getVersion() < known ? Admission.STALE : Admission.APPLY;
+        }
+        // A repeat changes nothing on top of the state it produced
+        Timer current = currentTimer(patch.getTimerId());
+        return current != null && current.getVersion() == known && hasSameState(current, patch.applyTo(current))
+                ? Admission.DUPLICATE : Admission.CONFLICT;
+    }
+
+    /**
+     * Check an incoming stop. One older than the timer's version was sent before the timer was
+     * changed or shared again, and doesn't apply to it any more.
+     * @param version the version the timer was stopped at, 0 if the sender doesn't track them
+     */
+    @NonNull
+    public synchronized Admission admitStop(@NonNull String timerId, long version) {
+        if (version == 0) {
+            return Admission.APPLY;
+        }
+        if (isStoppedSince(timerId, version)) {
+            return Admission.DUPLICATE;
+        }
+        return version < getKnownVersion(timerId) ? Admission.STALE : Admission.APPLY;
+    }
+
+    /**
+     * Record a timer stopped at a version, here or elsewhere.
+     */
+    public synchronized void onStopped(@NonNull String timerId, long version) {
+        forget(timerId);
+        stopped.merge(timerId, version, Math::max);
+    }
+
+    /**
+     * @return whether the timer was stopped, here or elsewhere, and nothing was sent or received
+     * for it since, so stopping it again would only echo the stop
+     */
+    public synchronized boolean isStopped(@NonNull String timerId) {
+        return stopped.containsKey(timerId) && !versions.containsKey(timerId);
+    }
+
+    /**
+     * @return the highest version sent or applied for a timer, including the one it was
+     * stopped at, or 0 if none is known
+     */
+    public synchronized long getKnownVersion(@NonNull String timerId) {
+        Long version = versions.get(timerId);
+        if (version == null) {
+            Timer local = localTimers.apply(timerId);
+            version = local != null ? local.getVersion() : 0;
+        }
+        Long stoppedAt = stopped.get(timerId);
+        return stoppedAt != null ? Math.max(version, stoppedAt) : version;
+    }
+
+    /**
+     * Record a timer received in full, which answers any resync requested for it. A timer
+     * without a version came from a sender that doesn't patch, so patches can't be based on it.
+     */
+    public synchronized void onFullTimerReceived(@NonNull Timer timer) {
+        boolean resynced = resyncRequested.remove(timer.getId());
+        if (timer.getVersion() > 0) {
+            agreed.put(timer.getId(), timer.copy());
+            if (resynced) {
+                // The server's version stands, even if it's behind what was seen here
+                versions.put(timer.getId(), timer.getVersion());
+            } else {
+                versions.merge(timer.getId(), timer.getVersion(), Math::max);
+            }
+            // Shared again after it was stopped
+            stopped.remove(timer.getId());
+        } else {
+            agreed.remove(timer.getId());
+        }
+    }
+
+    /**
+     * Apply an incoming patch to the agreed state of its timer.
+     * @return the patched timer, or null if the patch's base isn't the agreed state and the
+     * timer has to be resynced
+     */
+    @Nullable
+    public synchronized Timer applyPatch(@NonNull TimerPatch patch) {
+        Timer base = agreed.get(patch.getTimerId());
+        if (base == null || base.getVersion() != patch.getBaseVersion()) {
+            return null;
+        }
+        Timer patched = patch.applyTo(base);
+        agreed.put(patched.getId(), patched);
+        versions.merge(patched.getId(), patched.getVersion(), Math::max);
+        return patched.copy();
+    }
+
+    /**
+     * Mark a timer as needing a resync, dropping its agreed state so later patches to it
+     * aren't applied until the full timer arrives.
+     * @return true if a resync wasn't already requested, so one needs to be sent
+     */
+    public synchronized boolean requestResync(@NonNull String timerId) {
+        agreed.remove(timerId);
+        return resyncRequested.add(timerId);
+    }
+
+    /**
+     * @return the timers whose requested resync hasn't been answered yet, oldest first
+     */
+    @NonNull
+    public synchronized List<String> getPendingResyncs() {
+        return new ArrayList<>(resyncRequested);
+    }
+
+    /**
+     * Drop what's known about a stopped timer.
+     */
+    public synchronized void forget(@NonNull String timerId) {
+        agreed.remove(timerId);
+        versions.remove(timerId);
+        resyncRequested.remove(timerId);
+    }
+
+    /**
+     * @return the number of timers with an agreed state, a version or a pending resync, not
+     * counting stopped ones
+     */
+    public synchronized int getTrackedTimerCount() {
+        Set<String> timerIds = new HashSet<>(agreed.keySet());
+        timerIds.addAll(versions.keySet());
+        timerIds.addAll(resyncRequested);
+        return timerIds.size();
+    }
+
+    /**
+     * @return the number of updates sent as patches rather than full timers
+     */
+    public synchronized long getPatchesSentCount() {
+        return patchesSent;
+    }
+
+    private Timer nextVersion(Timer timer) {
+        Timer sent = timer.copy();
+        sent.setVersion(Math.max(getKnownVersion(timer.getId()), timer.getVersion()) + 1);
+        return sent;
+    }
+
+    private boolean isStoppedSince(String timerId, long version) {
+        Long stoppedAt = stopped.get(timerId);
+        return stoppedAt != null && version <= stoppedAt;
+    }
+
+    @Nullable
+    private Timer currentTimer(String timerId) {
+        Timer current = agreed.get(timerId);
+        return current != null ? current : localTimers.apply(timerId);
+    }
+
+    private static boolean hasSameState(Timer current, Timer timer) {
+        // Timer.equals ignores tags
+        return current.equals(timer) && current.getTags().equals(timer.getTags());
+    }
+}
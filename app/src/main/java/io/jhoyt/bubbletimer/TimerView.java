@@ -62,6 +62,7 @@ public class TimerView extends View {
     private long lastUpdateTime = 0;
 
     private CircularMenuLayout menuLayout;
+    private RenderTicker renderTicker;
 
     private boolean inShareMenu = false;
     private static final int BUTTON_ID_BACK = 100;
@@ -124,6 +125,17 @@ public class TimerView extends View {
 
     public void setTimer(Timer timer) {
         this.timer = timer;
+        onTimerStateChanged();
+    }
+
+    void setRenderTicker(RenderTicker renderTicker) {
+        this.renderTicker = renderTicker;
+    }
+
+    private void onTimerStateChanged() {
+        if (renderTicker != null) {
+            renderTicker.reschedule();
+        }
     }
 
     public void setCurrentUserId(String currentUserId) {
@@ -133,6 +145,7 @@ public class TimerView extends View {
 
     public void addTime(Duration duration) {
         this.timer.addTime(duration);
+        onTimerStateChanged();
     }
 
     public boolean isPaused() {
@@ -141,6 +154,7 @@ public class TimerView extends View {
 
     public void pause() {
         this.timer.pause();
+        onTimerStateChanged();
     }
 
     public Duration getRemainingDuration() {
@@ -149,6 +163,7 @@ public class TimerView extends View {
 
     public void unpause() {
         this.timer.unpause();
+        onTimerStateChanged();
     }
 
     public void setSmallMode(boolean isSmallMode) {
@@ -320,12 +335,12 @@ public class TimerView extends View {
             return;
         }
         lastUpdateTime = System.currentTimeMillis();
-        Duration remaining = this.timer.getRemainingDuration();
-        String durationText = DurationUtil.getFormattedDuration(remaining);
+        long remainingMillis = this.timer.getRemainingMillis();
+        String durationText = DurationUtil.getFormattedDuration(remainingMillis);
         if (menuLayout == null) {
             setupMenuLayout();
         }
-        float remainingDuration = (float) remaining.getSeconds() + (remaining.getNano() / 1000000000.0f);
+        float remainingDuration = remainingMillis / 1000.0f;
         float totalDuration = (float) this.timer.getTotalDuration().getSeconds();
         float sweepAngle = 360.0f * Math.max(remainingDuration, 0.0f) / totalDuration;
         int mode = getEffectiveLayoutMode();
@@ -8,16 +8,17 @@ import androidx.annotation.Nullable;
 
 import com.amplifyframework.core.configuration.AmplifyOutputs;
 
-import org.json.JSONArray;
-import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import io.jhoyt.bubbletimer.db.ActiveTimerChange;
 import io.jhoyt.bubbletimer.db.ActiveTimerRepository;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -43,6 +44,9 @@ public class WebsocketManager {
     private static final long PONG_TIMEOUT_MS = 15000; // Wait 15 seconds for pong response (increased for emulator latency)
     private static final int MAX_QUEUE_SIZE = 1000; // Increased from 100 to handle bursts of messages
     private static final long QUEUE_CHECK_INTERVAL_MS = 5000; // Check queue every 5 seconds
+    private static final long UPDATE_COALESCE_WINDOW_MS = 250; // Updates to a timer within this window are sent once
+    private static final int MAX_UPDATES_PER_FRAME = 20; // Keeps batched frames well under the gateway's frame limit
+    private static final String PRODUCTION_HOST = "zc4ahryh1l.execute-api.us-east-1.amazonaws.com";
 
     private final OkHttpClient okHttpClient;
     private WebsocketMessageListener messageListener;
@@ -57,11 +61,23 @@ public class WebsocketManager {
     private Handler queueCheckHandler;
     private Handler pingHandler;
     private Handler reconnectHandler;
+    private Handler outboundHandler;
     private Runnable queueCheckRunnable;
     private Runnable pingRunnable;
     private long lastSuccessfulMessageTime = 0;
     private long lastPongTime = 0;
     private boolean hasReceivedPong = false;
+
+    // Outgoing updates waiting for the coalescing window to close
+    private final OutboundUpdateCoalescer outboundUpdates = new OutboundUpdateCoalescer();
+    private final Runnable flushUpdatesRunnable = this::flushPendingUpdates;
+    // Whether the backend accepts several updates in one updateTimers frame
+    private boolean batchedUpdatesSupported = false;
+    // Agreed timer states and versions, which updates are patched against and incoming
+    // frames checked against
+    private final TimerPatchTracker patchTracker;
+    // Where the server's change stream was last applied up to, so a reconnect resumes from there
+    private final ServerCursorStore cursorStore;
     
     // Connection tracking for debugging
     private long lastConnectionSuccessTime = 0;
@@ -93,15 +109,27 @@ public class WebsocketManager {
     public WebsocketManager(
             ActiveTimerRepository activeTimerRepository,
             OkHttpClient okHttpClient
+    ) {
+        this(activeTimerRepository, okHttpClient, new ServerCursorStore());
+    }
+
+    public WebsocketManager(
+            ActiveTimerRepository activeTimerRepository,
+            OkHttpClient okHttpClient,
+            ServerCursorStore cursorStore
     ) {
         this.okHttpClient = okHttpClient;
         this.webSocket = null;
         this.activeTimerRepository = activeTimerRepository;
+        this.cursorStore = cursorStore;
+        // Versions stored with the timers still count after a restart
+        this.patchTracker = new TimerPatchTracker(timerId -> activeTimerRepository.getById(timerId));
         
         // Initialize handlers
         this.queueCheckHandler = new Handler();
         this.pingHandler = new Handler();
         this.reconnectHandler = new Handler();
+        this.outboundHandler = new Handler();
 
         // Initialize queue check handler
         this.queueCheckRunnable = new Runnable() {
@@ -130,14 +158,7 @@ public class WebsocketManager {
                     try {
                         long timestamp = System.currentTimeMillis();
                         // Send ping as a direct WebSocket message with user info
-                        JSONObject pingMessage = new JSONObject()
-                                .put("action", "sendmessage")
-                                .put("data", new JSONObject()
-                                    .put("type", "ping")
-                                    .put("timestamp", timestamp)
-                                    .put("direct", true)
-                                );
-                        String pingMessageStr = pingMessage.toString();
+                        String pingMessageStr = WebsocketMessageCodec.encodePing(timestamp);
                         Log.d(TAG, "Sending ping message: " + pingMessageStr);
                         webSocket.send(pingMessageStr);
                         
@@ -191,8 +212,60 @@ public class WebsocketManager {
     }
 
     private void upsertLocalTimerList(Timer timer) {
-        List<Timer> timers = this.activeTimerRepository.getAllActiveTimers().getValue();
+        includeCreatorInSharedWith(timer);
+
+        // A resend of a timer we already have is neither written nor reported
+        if (this.activeTimerRepository.upsert(timer.copy()) == ActiveTimerRepository.UpsertResult.UNCHANGED) {
+            Log.d(TAG, "Ignoring unchanged timer " + timer.getId());
+            return;
+        }
+        messageListener.onTimerReceived(timer.copy());
+    }
+
+    /**
+     * Reconcile a full timer list from the websocket against the repository in one batch.
+     * The list is authoritative for the timers the server knows, so a shared timer that was
+     * synced before and is missing from it was stopped elsewhere and is removed. Local timers
+     * that were never shared or synced are kept, since the server can't know about them.
+     *
+     * @param listedIds every timer in the list, including ones dropped as stale, which are
+     *                  kept as they are
+     */
+    private void upsertLocalTimerList(List<Timer> receivedTimers, Set<String> listedIds) {
+        List<Timer> localTimers = new ArrayList<>(receivedTimers.size());
+        for (Timer timer : receivedTimers) {
+            includeCreatorInSharedWith(timer);
+            localTimers.add(timer.copy());
+        }
+
+        List<ActiveTimerChange> changes = this.activeTimerRepository.replaceAll(localTimers,
+                timer -> listedIds.contains(timer.getId()) || !isKnownToServer(timer));
+        Log.d(TAG, "Reconciled " + receivedTimers.size() + " timers, " + changes.size() + " changed");
+
+        for (ActiveTimerChange change : changes) {
+            if (change.getType() != ActiveTimerChange.Type.REMOVED) {
+                messageListener.onTimerReceived(change.getTimer().copy());
+                continue;
+            }
+            String timerId = change.getTimerId();
+            Log.i(TAG, "Timer " + timerId + " is no longer in the server's list, removing it");
+            // Stopped elsewhere, so its removal here isn't sent back as a stop
+            patchTracker.onStopped(timerId, patchTracker.getKnownVersion(timerId));
+            new android.os.Handler(android.os.Looper.getMainLooper()).post(() -> {
+                messageListener.onTimerRemoved(timerId);
+            });
+        }
+    }
 
+    /**
+     * @return whether the timer is shared and has been synced, so an authoritative list from
+     * the server would include it if it were still running
+     */
+    private static boolean isKnownToServer(Timer timer) {
+        return !timer.getSharedWith().isEmpty() && timer.getVersion() > 0;
+    }
+
+    private void includeCreatorInSharedWith(Timer timer) {
         // CRITICAL: Ensure creator is always included in sharedWith list
         // This fixes the WebSocket connection detection issue
         Set<String> sharedWith = new HashSet<>(timer.getSharedWith());
@@ -206,21 +279,110 @@ public class WebsocketManager {
                       ". Complete list: " + sharedWith);
             }
         }
+    }
 
-        int i=0;
-        for (; i<timers.size(); i++) {
-            Timer t = timers.get(i);
-            if (t.getId().equals(timer.getId())) {
-                this.activeTimerRepository.update(timer.copy());
-                messageListener.onTimerReceived(timer.copy());
-                break;
-            }
+    /**
+     * Apply a timer message, unless its version shows it's older than or the same as what's
+     * already applied. Those are dropped before the repository is touched.
+     */
+    private void handleTimerMessage(String type, WebsocketMessageCodec.Message message) {
+        switch (type) {
+            case WebsocketMessageCodec.TYPE_ACTIVE_TIMER_LIST:
+                if (message.getTimerList() == null) {
+                    Log.e(TAG, "Received timer list message without a timer list");
+                    return;
+                }
+                List<Timer> timers = new ArrayList<>(message.getTimerList().size());
+                Set<String> listedIds = new HashSet<>();
+                for (Timer timer : message.getTimerList()) {
+                    listedIds.add(timer.getId());
+                    if (admit(patchTracker.admitTimer(timer), timer.getId(), timer.getVersion())) {
+                        patchTracker.onFullTimerReceived(timer);
+                        timers.add(timer);
+                    }
+                }
+                upsertLocalTimerList(timers, listedIds);
+                return;
+
+            case WebsocketMessageCodec.TYPE_UPDATE_TIMER:
+                Timer timer = message.getTimer();
+                if (timer == null) {
+                    Log.e(TAG, "Received update timer message without a timer");
+                    return;
+                }
+                if (admit(patchTracker.admitTimer(timer), timer.getId(), timer.getVersion())) {
+                    patchTracker.onFullTimerReceived(timer);
+                    upsertLocalTimerList(timer);
+                }
+                return;
+
+            case WebsocketMessageCodec.TYPE_PATCH_TIMER:
+                TimerPatch patch = message.getPatch();
+                if (admit(patchTracker.admitPatch(patch), patch.getTimerId(), patch.getVersion())) {
+                    applyPatch(patch);
+                }
+                return;
+
+            case WebsocketMessageCodec.TYPE_STOP_TIMER:
+                String timerId = message.getTimerId();
+                if (timerId == null) {
+                    Log.e(TAG, "Received stop timer message without a timerId");
+                    return;
+                }
+                if (!admit(patchTracker.admitStop(timerId, message.getVersion()), timerId, message.getVersion())) {
+                    return;
+                }
+                Log.i(TAG, "Received stop timer message for timerId: " + timerId);
+                patchTracker.onStopped(timerId, message.getVersion());
+                removeTimerFromLocalTimerList(timerId);
+                Log.i(TAG, "Calling onTimerRemoved for timerId: " + timerId);
+                // Ensure callback is called on main thread
+                new android.os.Handler(android.os.Looper.getMainLooper()).post(() -> {
+                    messageListener.onTimerRemoved(timerId);
+                });
+                Log.i(TAG, "Completed stop timer handling for timerId: " + timerId);
+                return;
+
+            default:
+                Log.e(TAG, "Unsupported message type: " + type);
         }
+    }
 
-        // if we got to the end and didn't find it, add it
-        if (i == timers.size()) {
-            this.activeTimerRepository.insert(timer.copy());
-            messageListener.onTimerReceived(timer.copy());
+    /**
+     * @return whether a frame should be applied; a conflicting one resyncs its timer instead
+     */
+    private boolean admit(TimerPatchTracker.Admission admission, String timerId, long version) {
+        switch (admission) {
+            case APPLY:
+                return true;
+            case CONFLICT:
+                Log.w(TAG, "Timer " + timerId + " has another state at version " + version + ", resyncing");
+                if (patchTracker.requestResync(timerId)) {
+                    sendMessage(WebsocketMessageCodec.encodeResyncTimer(timerId));
+                }
+                return false;
+            default:
+                Log.d(TAG, "Dropping " + admission + " frame for timer " + timerId + " at version " + version
+                        + ", already at " + patchTracker.getKnownVersion(timerId));
+                return false;
+        }
+    }
+
+    /**
+     * Apply a patch to the timer's agreed state, or ask for the whole timer if the patch
+     * wasn't made against it.
+     */
+    private void applyPatch(TimerPatch patch) {
+        Timer patched = patchTracker.applyPatch(patch);
+        if (patched != null) {
+            upsertLocalTimerList(patched);
+            return;
+        }
+
+        Log.w(TAG, "Patch " + patch.getBaseVersion() + " -> " + patch.getVersion() + " for timer "
+                + patch.getTimerId() + " doesn't match the local copy, resyncing");
+        if (patchTracker.requestResync(patch.getTimerId())) {
+            sendMessage(WebsocketMessageCodec.encodeResyncTimer(patch.getTimerId()));
         }
     }
 
@@ -254,6 +416,13 @@ public class WebsocketManager {
         Log.i(TAG, "Final WebSocket endpoint: " + websocketEndpoint);
     }
 
+    /**
+     * Connect to another endpoint than the configured one, e.g. a local server.
+     */
+    public void setWebsocketEndpoint(String websocketEndpoint) {
+        this.websocketEndpoint = websocketEndpoint;
+    }
+
     public void initialize(String authToken, String deviceId, String cognitoUserName) {
         Log.i(TAG, "Initializing WebSocket with:");
         Log.i(TAG, "  authToken: " + (authToken != null ? authToken.substring(0, Math.min(20, authToken.length())) + "..." : "null"));
@@ -437,9 +606,6 @@ public class WebsocketManager {
         Log.i(TAG, "Current state: " + currentState);
         Log.i(TAG, "Is connecting: " + isConnecting.get());
         
-        // Test network connectivity first
-        testNetworkConnectivity();
-        
         if (isConnecting.get()) {
             Log.i(TAG, "Already connecting, skipping this connection attempt");
             return;
@@ -462,13 +628,18 @@ public class WebsocketManager {
             return;
         }
         
-        // Test if we can resolve the hostname before attempting connection
-        try {
-            java.net.InetAddress.getByName("zc4ahryh1l.execute-api.us-east-1.amazonaws.com");
-            Log.i(TAG, "Hostname resolution successful, proceeding with connection");
-        } catch (Exception e) {
-            Log.e(TAG, "Cannot resolve hostname, but will attempt connection anyway: " + e.getMessage());
-            // The SSL certificate fix should handle this now
+        // The diagnostics probe the production gateway, so they say nothing about other endpoints
+        if (websocketEndpoint.contains(PRODUCTION_HOST)) {
+            testNetworkConnectivity();
+
+            // Test if we can resolve the hostname before attempting connection
+            try {
+                java.net.InetAddress.getByName(PRODUCTION_HOST);
+                Log.i(TAG, "Hostname resolution successful, proceeding with connection");
+            } catch (Exception e) {
+                Log.e(TAG, "Cannot resolve hostname, but will attempt connection anyway: " + e.getMessage());
+                // The SSL certificate fix should handle this now
+            }
         }
 
         isConnecting.set(true);
@@ -504,12 +675,18 @@ public class WebsocketManager {
         long timeoutMs = isEmulator ? 30000 : 15000;
         timeoutHandler.postDelayed(timeoutRunnable, timeoutMs);
 
-        Request webSocketRequest = new Request.Builder()
+        Request.Builder requestBuilder = new Request.Builder()
                 .header("Authorization", authToken)
                 .header("DeviceId", deviceId)
                 .header("User-Agent", "BubbleTimer-Android/1.0")
-                .url(websocketEndpoint)
-                .build();
+                .url(websocketEndpoint);
+        // Only changes after the cursor are streamed; without one the server sends the full list
+        long resumeCursor = cursorStore.getResumeCursor(cognitoUserName, System.currentTimeMillis());
+        if (resumeCursor > 0) {
+            Log.i(TAG, "  Resuming from cursor: " + resumeCursor);
+            requestBuilder.header("ResumeCursor", Long.toString(resumeCursor));
+        }
+        Request webSocketRequest = requestBuilder.build();
 
         WebSocketListener webSocketListener = new WebSocketListener() {
             @Override
@@ -530,6 +707,12 @@ public class WebsocketManager {
                 
                 // Cancel timeout since connection succeeded
                 timeoutHandler.removeCallbacks(timeoutRunnable);
+
+                // Asked for on a connection that dropped before the answer came
+                for (String timerId : patchTracker.getPendingResyncs()) {
+                    Log.i(TAG, "Requesting pending resync for timer " + timerId);
+                    sendMessage(WebsocketMessageCodec.encodeResyncTimer(timerId));
+                }
             }
 
             @Override
@@ -593,82 +776,62 @@ public class WebsocketManager {
             public void onMessage(@NonNull WebSocket webSocket, @NonNull String text) {
                 Log.i(TAG, "Received message: " + text);
 
+                WebsocketMessageCodec.Message message;
                 try {
-                    JSONObject jsonData = new JSONObject(text);
-                    
-                    // Check if this is an error message from the server
-                    if (jsonData.has("message") && jsonData.has("connectionId")) {
-                        Log.e(TAG, "Received server error message: " + jsonData.toString(2));
-                        String errorMessage = jsonData.optString("message", "Unknown error");
-                        Log.e(TAG, "Server error: " + errorMessage);
-                        
-                        // Don't immediately fail the connection for server errors
-                        // Instead, log the error and continue
-                        Log.w(TAG, "Continuing connection despite server error");
-                        return;
-                    }
-                    
-                    // Check if message has a type field
-                    if (!jsonData.has("type")) {
-                        Log.w(TAG, "Received message without type field: " + jsonData.toString(2));
-                        return;
-                    }
-                    
-                    String type = jsonData.getString("type");
-                    Log.i(TAG, "Message type: " + type + ", full message: " + jsonData.toString(2));
-                    
-                    // Handle pong messages directly
-                    if (type.equals("pong")) {
-                        hasReceivedPong = true;
-                        lastPongTime = System.currentTimeMillis();
-                        Log.d(TAG, "Received pong response with timestamp: " + jsonData.optLong("timestamp", 0));
-                        return;
-                    }
-                    
-                    // Send acknowledgment for received messages
-                    try {
-                        JSONObject ackMessage = new JSONObject()
-                            .put("action", "sendmessage")
-                            .put("data", new JSONObject()
-                                .put("type", "acknowledge")
-                                .put("messageId", jsonData.optString("messageId", ""))
-                            );
-                        webSocket.send(ackMessage.toString());
-                        Log.d(TAG, "Sent acknowledgment: " + ackMessage.toString(2));
-                    } catch (Exception e) {
-                        Log.e(TAG, "Failed to send acknowledgment", e);
-                    }
-
-                    switch (type) {
-                        case "activeTimerList":
-                            JSONArray timerList = jsonData.getJSONArray("timerList");
-                            for (int i = 0; i < timerList.length(); i++) {
-                                upsertLocalTimerList(Timer.timerFromJson(timerList.getJSONObject(i)));
-                            }
-                            return;
-
-                        case "updateTimer":
-                            JSONObject timer = jsonData.getJSONObject("timer");
-                            upsertLocalTimerList(Timer.timerFromJson(timer));
-                            return;
-
-                        case "stopTimer":
-                            String timerId = jsonData.getString("timerId");
-                            Log.i(TAG, "Received stop timer message for timerId: " + timerId);
-                            removeTimerFromLocalTimerList(timerId);
-                            Log.i(TAG, "Calling onTimerRemoved for timerId: " + timerId);
-                            // Ensure callback is called on main thread
-                            new android.os.Handler(android.os.Looper.getMainLooper()).post(() -> {
-                                messageListener.onTimerRemoved(timerId);
-                            });
-                            Log.i(TAG, "Completed stop timer handling for timerId: " + timerId);
-                            return;
-
-                        default:
-                            Log.e(TAG, "Unsupported message type: " + type);
-                    }
-                } catch (JSONException e) {
+                    message = WebsocketMessageCodec.decode(text);
+                } catch (IOException e) {
                     Log.e(TAG, "Failed to parse message: ", e);
+                    return;
+                }
+
+                // Check if this is an error message from the server
+                if (message.isServerError()) {
+                    Log.e(TAG, "Server error: " + message.getErrorMessage());
+
+                    // Don't immediately fail the connection for server errors
+                    // Instead, log the error and continue
+                    Log.w(TAG, "Continuing connection despite server error");
+                    return;
+                }
+
+                // Check if message has a type field
+                String type = message.getType();
+                if (type == null) {
+                    Log.w(TAG, "Received message without type field");
+                    return;
+                }
+                Log.i(TAG, "Message type: " + type);
+
+                // Handle pong messages directly
+                if (type.equals(WebsocketMessageCodec.TYPE_PONG)) {
+                    hasReceivedPong = true;
+                    lastPongTime = System.currentTimeMillis();
+                    Log.d(TAG, "Received pong response with timestamp: " + message.getTimestamp());
+                    return;
+                }
+
+                // Ends the replay of changes since the cursor the connection was opened with
+                if (type.equals(WebsocketMessageCodec.TYPE_RESUMED)) {
+                    Log.i(TAG, "Resumed change stream at cursor: " + message.getCursor());
+                    recordCursor(type, message);
+                    return;
+                }
+
+                handleTimerMessage(type, message);
+                recordCursor(type, message);
+
+                // Acknowledged once handled, with the version now applied for the timer so the
+                // server can skip redelivering anything older
+                String timerId = message.getTimerId() != null ? message.getTimerId()
+                        : message.getTimer() != null ? message.getTimer().getId() : null;
+                long version = timerId != null ? patchTracker.getKnownVersion(timerId) : 0;
+                String ackMessage = version > 0
+                        ? WebsocketMessageCodec.encodeAcknowledge(message.getMessageId(), timerId, version)
+                        : WebsocketMessageCodec.encodeAcknowledge(message.getMessageId());
+                if (webSocket.send(ackMessage)) {
+                    Log.d(TAG, "Sent acknowledgment: " + ackMessage);
+                } else {
+                    Log.e(TAG, "Failed to send acknowledgment");
                 }
             }
         };
@@ -676,6 +839,31 @@ public class WebsocketManager {
         webSocket = okHttpClient.newWebSocket(webSocketRequest, webSocketListener);
     }
 
+    /**
+     * Record how far the change stream has been applied. A full timer list starts the stream
+     * over, so its cursor replaces the stored one. By then the list has replaced the local
+     * timers, removing the ones stopped while the stream couldn't be resumed.
+     *
+     * While a timer waits on a resync, a change to it was dropped rather than applied, so the
+     * cursor stays put until the full timer arrives. Otherwise a resume after a drop, or after
+     * the process was gone, would start past that change.
+     */
+    private void recordCursor(String type, WebsocketMessageCodec.Message message) {
+        if (cognitoUserName == null) {
+            return;
+        }
+        if (!patchTracker.getPendingResyncs().isEmpty()) {
+            Log.d(TAG, "Not recording cursor " + message.getCursor() + " until pending resyncs are answered");
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (type.equals(WebsocketMessageCodec.TYPE_ACTIVE_TIMER_LIST)) {
+            cursorStore.onFullList(cognitoUserName, message.getCursor(), now);
+        } else {
+            cursorStore.onApplied(cognitoUserName, message.getCursor(), now);
+        }
+    }
+
     private void attemptReconnect() {
         if (reconnectAttempts.incrementAndGet() <= MAX_RECONNECT_ATTEMPTS) {
             Log.i(TAG, "Attempting to reconnect (attempt " + reconnectAttempts.get() + ")");
@@ -687,25 +875,6 @@ public class WebsocketManager {
         }
     }
 
-    private JSONObject fixFrigginTimer(Timer timer) throws JSONException {
-        Log.i(TAG, "Fixing timer data for WebSocket transmission:");
-        Log.i(TAG, "  Timer ID: " + (timer != null ? timer.getId() : "null"));
-        Log.i(TAG, "  Timer userId: " + (timer != null ? timer.getUserId() : "null"));
-        Log.i(TAG, "  Timer name: " + (timer != null ? timer.getName() : "null"));
-        
-        JSONObject result = Timer.timerToJson(timer);
-
-        if (!result.has("userId")) {
-            Log.w(TAG, "userId is not set in timer JSON, adding placeholder");
-            result.put("userId", "whattheheck");
-        } else {
-            Log.i(TAG, "userId is set in timer JSON: " + result.getString("userId"));
-        }
-        
-        Log.i(TAG, "Final timer JSON: " + result.toString(2));
-        return result;
-    }
-
     public void sendUpdateTimerToWebsocket(Timer timer, String updateReason) {
         Log.i(TAG, "Attempting to send timer update:");
         Log.i(TAG, "  Current state: " + currentState);
@@ -722,26 +891,85 @@ public class WebsocketManager {
             return;
         }
 
-        JSONArray shareWithArray = new JSONArray();
-        timer.getSharedWith().forEach(shareWithArray::put);
+        // Sent with any other updates to the timer once the window closes, latest state wins
+        if (outboundUpdates.offer(timer.copy(), updateReason)) {
+            outboundHandler.postDelayed(flushUpdatesRunnable, UPDATE_COALESCE_WINDOW_MS);
+        }
+    }
 
-        String webSocketRequestString = null;
-        try {
-            Log.i(TAG, "Sending timer update");
-            webSocketRequestString = new JSONObject()
-                    .put("action", "sendmessage")
-                    .put("data", new JSONObject()
-                            .put("type", "updateTimer")
-                            .put("reason", updateReason)
-                            .put("shareWith", shareWithArray)
-                            .put("timer", fixFrigginTimer(timer))
-                    )
-                    .toString();
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to create update message", e);
+    /**
+     * Send every pending timer update now, as one frame per timer or in batches if the backend
+     * supports them.
+     */
+    private void flushPendingUpdates() {
+        outboundHandler.removeCallbacks(flushUpdatesRunnable);
+        List<OutboundUpdateCoalescer.Update> updates = outboundUpdates.drain();
+        if (updates.isEmpty()) {
+            return;
+        }
+
+        if (currentState != ConnectionState.CONNECTED) {
+            Log.w(TAG, "Dropping " + updates.size() + " timer updates: WebSocket not connected (state: " + currentState + ")");
+            return;
         }
 
-        sendMessage(webSocketRequestString);
+        Log.i(TAG, "Sending " + updates.size() + " timer updates (" + outboundUpdates.getLogicalUpdateCount()
+                + " updates so far, " + outboundUpdates.getFramesSavedCount() + " frames saved)");
+        if (batchedUpdatesSupported) {
+            for (int i = 0; i < updates.size(); i += MAX_UPDATES_PER_FRAME) {
+                List<OutboundUpdateCoalescer.Update> batch = new ArrayList<>();
+                for (OutboundUpdateCoalescer.Update update
+                        : updates.subList(i, Math.min(i + MAX_UPDATES_PER_FRAME, updates.size()))) {
+                    batch.add(new OutboundUpdateCoalescer.Update(
+                            patchTracker.stampFullUpdate(update.getTimer()), update.getReason()));
+                }
+                sendMessage(WebsocketMessageCodec.encodeUpdateTimers(batch));
+                outboundUpdates.onBatchSent(batch.size());
+            }
+        } else {
+            for (OutboundUpdateCoalescer.Update update : updates) {
+                String frame = patchTracker.encodeUpdate(update.getTimer(), update.getReason());
+                if (frame != null) {
+                    sendMessage(frame);
+                }
+            }
+        }
+
+        // Stored so frames older than these updates are still dropped after a restart
+        for (OutboundUpdateCoalescer.Update update : updates) {
+            String timerId = update.getTimer().getId();
+            activeTimerRepository.setSyncVersion(timerId, patchTracker.getKnownVersion(timerId));
+        }
+    }
+
+    /**
+     * Set whether the backend accepts batched updateTimers frames. Off by default, in which
+     * case coalesced updates still go out as one updateTimer frame per timer.
+     */
+    public void setBatchedUpdatesSupported(boolean batchedUpdatesSupported) {
+        this.batchedUpdatesSupported = batchedUpdatesSupported;
+    }
+
+    /**
+     * Set whether the backend accepts patchTimer frames. Off by default, in which case every
+     * update carries the whole timer. Batched updates always do.
+     */
+    public void setPatchUpdatesSupported(boolean patchUpdatesSupported) {
+        patchTracker.setPatchesEnabled(patchUpdatesSupported);
+    }
+
+    /**
+     * @return the number of timer updates asked for, each of which used to be a frame
+     */
+    public long getLogicalUpdateCount() {
+        return outboundUpdates.getLogicalUpdateCount();
+    }
+
+    /**
+     * @return the number of update frames coalescing and batching avoided sending
+     */
+    public long getFramesSavedCount() {
+        return outboundUpdates.getFramesSavedCount();
     }
 
     public void sendStopTimerToWebsocket(Timer timer) {
@@ -749,26 +977,18 @@ public class WebsocketManager {
             Log.w(TAG, "Cannot send stop: WebSocket not connected");
             return;
         }
-
-        JSONArray shareWithArray = new JSONArray();
-        timer.getSharedWith().forEach(shareWithArray::put);
-
-        String webSocketRequestString = null;
-        try {
-            webSocketRequestString = new JSONObject()
-                    .put("action", "sendmessage")
-                    .put("data", new JSONObject()
-                            .put("type", "stopTimer")
-                            .put("shareWith", shareWithArray)
-                            .put("timerId", timer.getId())
-                            .put("timer", fixFrigginTimer(timer))
-                    )
-                    .toString();
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to create stop message", e);
+        // Removing a timer stopped remotely, or already stopped here, would echo the stop
+        // under a new version that peers couldn't tell from another stop
+        if (patchTracker.isStopped(timer.getId())) {
+            Log.d(TAG, "Not sending stop for timer " + timer.getId() + ", it's already stopped");
+            return;
         }
 
-        sendMessage(webSocketRequestString);
+        // A stop goes out right away, after the updates queued before it; its own pending
+        // update is dropped since the stop carries the timer's final state
+        outboundUpdates.discard(timer.getId());
+        flushPendingUpdates();
+        sendMessage(WebsocketMessageCodec.encodeStopTimer(patchTracker.stampStop(timer)));
     }
 
 
@@ -787,13 +1007,7 @@ public class WebsocketManager {
             return;
         }
 
-        try {
-            // Log the message we're about to send
-            JSONObject messageJson = new JSONObject(message);
-            Log.d(TAG, "Sending message: " + messageJson.toString(2));
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to parse message for logging", e);
-        }
+        Log.d(TAG, "Sending message: " + message);
 
         if (!webSocket.send(message)) {
             Log.e(TAG, "Failed to send message");
@@ -818,6 +1032,8 @@ public class WebsocketManager {
         }
         queueCheckHandler.removeCallbacks(queueCheckRunnable);
         pingHandler.removeCallbacks(pingRunnable);
+        outboundHandler.removeCallbacks(flushUpdatesRunnable);
+        outboundUpdates.clear();
         setConnectionState(ConnectionState.DISCONNECTED);
     }
 
@@ -0,0 +1,594 @@
+package io.jhoyt.bubbletimer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.jhoyt.bubbletimer.utils.TimerSharingValidator;
+
+/**
+ * Reads and writes websocket frames with a streaming parser, so an incoming frame is decoded
+ * straight into timers in one pass and an outgoing one is written without building a JSON tree
+ * first.
+ *
+ * The wire format is the one the JSONObject based code produced: missing or null timer fields
+ * are left out, and outgoing messages are wrapped in {"action": "sendmessage", "data": ...}.
+ */
+public final class WebsocketMessageCodec {
+
+    public static final String TYPE_UPDATE_TIMER = "updateTimer";
+    public static final String TYPE_UPDATE_TIMERS = "updateTimers";
+    public static final String TYPE_PATCH_TIMER = "patchTimer";
+    public static final String TYPE_RESYNC_TIMER = "resyncTimer";
+    public static final String TYPE_STOP_TIMER = "stopTimer";
+    public static final String TYPE_ACTIVE_TIMER_LIST = "activeTimerList";
+    public static final String TYPE_PING = "ping";
+    public static final String TYPE_PONG = "pong";
+    public static final String TYPE_ACKNOWLEDGE = "acknowledge";
+    public static final String TYPE_RESUMED = "resumed";
+
+    // Sent when a timer has no user so the server still accepts it
+    private static final String MISSING_USER_ID = "whattheheck";
+
+    private WebsocketMessageCodec() {
+    }
+
+    /**
+     * A decoded incoming frame. Only the fields its type uses are set.
+     */
+    public static final class Message {
+        private String type;
+        private String messageId;
+        private String timerId;
+        private long timestamp;
+        private long version;
+        private long cursor;
+        private Timer timer;
+        private List<Timer> timerList;
+        private TimerPatch patch;
+        private String errorMessage;
+        private boolean hasConnectionId;
+
+        @Nullable
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * @return the id to acknowledge the message with, empty if it has none
+         */
+        @NonNull
+        public String getMessageId() {
+            return messageId != null ? messageId : "";
+        }
+
+        @Nullable
+        public String getTimerId() {
+            return timerId;
+        }
+
+        /**
+         * @return the pong's timestamp, 0 if it has none
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * @return the version a stopTimer stopped the timer at or a patch brings it to, 0 if the
+         * message has none
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return the position of the message in the server's change stream, 0 if it has none
+         */
+        public long getCursor() {
+            return cursor;
+        }
+
+        @Nullable
+        public Timer getTimer() {
+            return timer;
+        }
+
+        @Nullable
+        public List<Timer> getTimerList() {
+            return timerList;
+        }
+
+        /**
+         * @return the patch of a patchTimer message
+         */
+        @Nullable
+        public TimerPatch getPatch() {
+            return patch;
+        }
+
+        /**
+         * @return whether this is an error the server sent back instead of a message
+         */
+        public boolean isServerError() {
+            return errorMessage != null && hasConnectionId;
+        }
+
+        @Nullable
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+    }
+
+    /**
+     * Decode an incoming frame. Fields can come in any order; a timer or timer list the frame's
+     * type doesn't use is skipped rather than decoded if the type comes first.
+     * @throws IOException if the frame isn't valid JSON or a timer in it is incomplete
+     */
+    @NonNull
+    public static Message decode(@NonNull String text) throws IOException {
+        try (JsonReader reader = new JsonReader(new StringReader(text))) {
+            Message message = new Message();
+            TimerPatch changes = null;
+            long baseVersion = 0;
+            long version = 0;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "type":
+                        message.type = reader.nextString();
+                        break;
+                    case "messageId":
+                        message.messageId = reader.nextString();
+                        break;
+                    case "timerId":
+                        message.timerId = reader.nextString();
+                        break;
+                    case "timestamp":
+                        message.timestamp = reader.nextLong();
+                        break;
+                    case "cursor":
+                        message.cursor = reader.nextLong();
+                        break;
+                    case "message":
+                        message.errorMessage = reader.nextString();
+                        break;
+                    case "connectionId":
+                        message.hasConnectionId = true;
+                        reader.skipValue();
+                        break;
+                    case "timer":
+                        if (skips(message.type, TYPE_UPDATE_TIMER)) {
+                            reader.skipValue();
+                        } else {
+                            message.timer = readTimer(reader);
+                        }
+                        break;
+                    case "timerList":
+                        if (skips(message.type, TYPE_ACTIVE_TIMER_LIST)) {
+                            reader.skipValue();
+                        } else {
+                            message.timerList = readTimerList(reader);
+                        }
+                        break;
+                    case "baseVersion":
+                        baseVersion = reader.nextLong();
+                        break;
+                    case "version":
+                        version = reader.nextLong();
+                        break;
+                    case "changes":
+                        if (skips(message.type, TYPE_PATCH_TIMER)) {
+                            reader.skipValue();
+                        } else {
+                            changes = readChanges(reader);
+                        }
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            message.version = version;
+            if (TYPE_PATCH_TIMER.equals(message.type)) {
+                if (message.timerId == null || changes == null || version <= baseVersion) {
+                    throw new IOException("Patch is missing its timerId or changes, or has bad versions");
+                }
+                message.patch = changes.at(message.timerId, baseVersion, version);
+            }
+            return message;
+        } catch (IllegalStateException | NumberFormatException | DateTimeParseException e) {
+            // Thrown for a value of the wrong type or format
+            throw new IOException("Malformed message: " + e.getMessage(), e);
+        }
+    }
+
+    @NonNull
+    public static String encodeUpdateTimer(@NonNull Timer timer, @Nullable String reason) {
+        try {
+            StringWriter out = new StringWriter();
+            JsonWriter writer = beginMessage(out, TYPE_UPDATE_TIMER);
+            if (reason != null) {
+                writer.name("reason").value(reason);
+            }
+            writeStrings(writer.name("shareWith"), timer.getSharedWith());
+            writeTimer(writer.name("timer"), timer);
+            return endMessage(writer, out);
+        } catch (IOException e) {
+            // A StringWriter doesn't throw
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Encode several updates as one frame, each with the users it goes to. Only for backends
+     * that accept batched updates.
+     */
+    @NonNull
+    public static String encodeUpdateTimers(@NonNull List<OutboundUpdateCoalescer.Update> updates) {
+        try {
+            StringWriter out = new StringWriter();
+            JsonWriter writer = beginMessage(out, TYPE_UPDATE_TIMERS);
+            writer.name("updates").beginArray();
+            for (OutboundUpdateCoalescer.Update update : updates) {
+                writer.beginObject();
+                if (update.getReason() != null) {
+                    writer.name("reason").value(update.getReason());
+                }
+                writeStrings(writer.name("shareWith"), update.getTimer().getSharedWith());
+                writeTimer(writer.name("timer"), update.getTimer());
+                writer.endObject();
+            }
+            writer.endArray();
+            return endMessage(writer, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Encode only the fields a patch changes. Cleared fields are written as null, unlike in a
+     * full timer where they're left out.
+     */
+    @NonNull
+    public static String encodePatchTimer(@NonNull TimerPatch patch, @NonNull Set<String> shareWith) {
+        try {
+            StringWriter out = new StringWriter();
+            JsonWriter writer = beginMessage(out, TYPE_PATCH_TIMER);
+            writeStrings(writer.name("shareWith"), shareWith);
+            writer.name("timerId").value(patch.getTimerId());
+            writer.name("baseVersion").value(patch.getBaseVersion());
+            writer.name("version").value(patch.getVersion());
+            writer.name("changes").beginObject();
+            if (patch.has(TimerPatch.NAME)) {
+                writer.name("name").value(patch.getName());
+            }
+            if (patch.has(TimerPatch.TOTAL_DURATION)) {
+                writer.name("totalDuration").value(toStringOrNull(patch.getTotalDuration()));
+            }
+            if (patch.has(TimerPatch.REMAINING_DURATION)) {
+                writer.name("remainingDuration").value(toStringOrNull(patch.getRemainingDuration()));
+            }
+            if (patch.has(TimerPatch.TIMER_END)) {
+                writer.name("timerEnd").value(toStringOrNull(patch.getTimerEnd()));
+            }
+            if (patch.has(TimerPatch.SHARED_WITH)) {
+                writeStrings(writer.name("sharedWith"), patch.getSharedWith());
+            }
+            if (patch.has(TimerPatch.TAGS)) {
+                writeStrings(writer.name("tags"), patch.getTags());
+            }
+            writer.endObject();
+            return endMessage(writer, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Ask for the full state of a timer whose patches can't be applied. Answered with an
+     * updateTimer.
+     */
+    @NonNull
+    public static String encodeResyncTimer(@NonNull String timerId) {
+        try {
+            StringWriter out = new StringWriter();
+            JsonWriter writer = beginMessage(out, TYPE_RESYNC_TIMER);
+            writer.name("timerId").value(timerId);
+            return endMessage(writer, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @NonNull
+    public static String encodeStopTimer(@NonNull Timer timer) {
+        try {
+            StringWriter out = new StringWriter();
+            JsonWriter writer = beginMessage(out, TYPE_STOP_TIMER);
+            writeStrings(writer.name("shareWith"), timer.getSharedWith());
+            writer.name("timerId").value(timer.getId());
+            if (timer.getVersion() > 0) {
+                writer.name("version").value(timer.getVersion());
+            }
+            writeTimer(writer.name("timer"), timer);
+            return endMessage(writer, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @NonNull
+    public static String encodePing(long timestamp) {
+        try {
+            StringWriter out = new StringWriter();
+            JsonWriter writer = beginMessage(out, TYPE_PING);
+            writer.name("timestamp").value(timestamp);
+            writer.name("direct").value(true);
+            return endMessage(writer, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @NonNull
+    public static String encodeAcknowledge(@NonNull String messageId) {
+        try {
+            StringWriter out = new StringWriter();
+            JsonWriter writer = beginMessage(out, TYPE_ACKNOWLEDGE);
+            writer.name("messageId").value(messageId);
+            return endMessage(writer, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Acknowledge a message and, cumulatively, every message for the timer up to the version
+     * now applied, so the server can skip redelivering any of them.
+     */
+    @NonNull
+    public static String encodeAcknowledge(@NonNull String messageId, @NonNull String timerId, long version) {
+        try {
+            StringWriter out = new StringWriter();
+            JsonWriter writer = beginMessage(out, TYPE_ACKNOWLEDGE);
+            writer.name("messageId").value(messageId);
+            writer.name("timerId").value(timerId);
+            writer.name("version").value(version);
+            return endMessage(writer, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Whether a timer field can be skipped because the message's type, if already read, doesn't
+     * use it.
+     */
+    private static boolean skips(String type, String typeUsingField) {
+        return type != null && !type.equals(typeUsingField);
+    }
+
+    private static List<Timer> readTimerList(JsonReader reader) throws IOException {
+        List<Timer> timers = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            timers.add(readTimer(reader));
+        }
+        reader.endArray();
+        return timers;
+    }
+
+    private static Timer readTimer(JsonReader reader) throws IOException {
+        String id = null;
+        String userId = null;
+        String name = null;
+        Duration totalDuration = null;
+        Duration remainingDuration = null;
+        LocalDateTime timerEnd = null;
+        Set<String> tags = new HashSet<>();
+        List<String> sharedWith = Collections.emptyList();
+        long version = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (field) {
+                case "id":
+                    id = reader.nextString();
+                    break;
+                case "userId":
+                    userId = reader.nextString();
+                    break;
+                case "name":
+                    name = reader.nextString();
+                    break;
+                case "totalDuration":
+                    totalDuration = Duration.parse(reader.nextString());
+                    break;
+                case "remainingDuration":
+                    remainingDuration = Duration.parse(reader.nextString());
+                    break;
+                case "timerEnd":
+                    timerEnd = LocalDateTime.parse(reader.nextString());
+                    break;
+                case "tags":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        tags.add(reader.nextString());
+                    }
+                    reader.endArray();
+                    break;
+                case "sharedWith":
+                    sharedWith = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        sharedWith.add(reader.nextString());
+                    }
+                    reader.endArray();
+                    break;
+                case "version":
+                    version = reader.nextLong();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (id == null || userId == null || name == null) {
+            throw new IOException("Timer is missing its id, userId or name");
+        }
+        TimerData timerData = new TimerData(id, userId, name, totalDuration, remainingDuration, timerEnd, tags);
+        Timer timer = new Timer(timerData, sharedWith(sharedWith, userId));
+        timer.setVersion(version);
+        return timer;
+    }
+
+    /**
+     * Read a patch's changes, where unlike in a timer a null field is one that was cleared.
+     */
+    private static TimerPatch readChanges(JsonReader reader) throws IOException {
+        TimerPatch changes = new TimerPatch(null, 0, 0);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            boolean cleared = reader.peek() == JsonToken.NULL;
+            if (cleared) {
+                reader.nextNull();
+            }
+            switch (field) {
+                case "name":
+                    if (cleared) {
+                        throw new IOException("A timer's name can't be cleared");
+                    }
+                    changes.setName(reader.nextString());
+                    break;
+                case "totalDuration":
+                    changes.setTotalDuration(cleared ? null : Duration.parse(reader.nextString()));
+                    break;
+                case "remainingDuration":
+                    changes.setRemainingDuration(cleared ? null : Duration.parse(reader.nextString()));
+                    break;
+                case "timerEnd":
+                    changes.setTimerEnd(cleared ? null : LocalDateTime.parse(reader.nextString()));
+                    break;
+                case "sharedWith":
+                    changes.setSharedWith(cleared ? new HashSet<>() : readStrings(reader));
+                    break;
+                case "tags":
+                    changes.setTags(cleared ? new HashSet<>() : readStrings(reader));
+                    break;
+                default:
+                    if (!cleared) {
+                        reader.skipValue();
+                    }
+            }
+        }
+        reader.endObject();
+        return changes;
+    }
+
+    private static Set<String> readStrings(JsonReader reader) throws IOException {
+        Set<String> values = new HashSet<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            values.add(reader.nextString());
+        }
+        reader.endArray();
+        return values;
+    }
+
+    private static String toStringOrNull(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * The shares as Timer.shareWith would leave them: valid users trimmed, and the creator
+     * added if the timer is shared with anyone.
+     */
+    private static Set<String> sharedWith(List<String> userIds, String creatorId) {
+        Set<String> sharedWith = new HashSet<>();
+        for (String userId : userIds) {
+            if (TimerSharingValidator.isValidUserId(userId)) {
+                sharedWith.add(userId.trim());
+            }
+        }
+        if (sharedWith.isEmpty()) {
+            return sharedWith;
+        }
+        return Set.copyOf(TimerSharingValidator.ensureCreatorIncluded(sharedWith, creatorId));
+    }
+
+    private static JsonWriter beginMessage(StringWriter out, String type) throws IOException {
+        JsonWriter writer = new JsonWriter(out);
+        writer.beginObject();
+        writer.name("action").value("sendmessage");
+        writer.name("data").beginObject();
+        writer.name("type").value(type);
+        return writer;
+    }
+
+    private static String endMessage(JsonWriter writer, StringWriter out) throws IOException {
+        writer.endObject();
+        writer.endObject();
+        writer.close();
+        return out.toString();
+    }
+
+    private static void writeTimer(JsonWriter writer, Timer timer) throws IOException {
+        TimerData timerData = timer.getTimerData();
+        writer.beginObject();
+        writer.name("id").value(timerData.id);
+        writer.name("userId").value(timerData.userId != null ? timerData.userId : MISSING_USER_ID);
+        writer.name("name").value(timerData.name);
+        if (timerData.totalDuration != null) {
+            writer.name("totalDuration").value(timerData.totalDuration.toString());
+        }
+        if (timerData.remainingDurationWhenPaused != null) {
+            writer.name("remainingDuration").value(timerData.remainingDurationWhenPaused.toString());
+        }
+        if (timerData.timerEnd != null) {
+            writer.name("timerEnd").value(timerData.timerEnd.toString());
+        }
+        writeStrings(writer.name("sharedWith"), timer.getSharedWith());
+        writeStrings(writer.name("tags"), timer.getTags());
+        if (timer.getVersion() > 0) {
+            writer.name("version").value(timer.getVersion());
+        }
+        writer.endObject();
+    }
+
+    private static void writeStrings(JsonWriter writer, Set<String> values) throws IOException {
+        writer.beginArray();
+        for (String value : values) {
+            writer.value(value);
+        }
+        writer.endArray();
+    }
+}
@@ -0,0 +1,399 @@
+package io.jhoyt.bubbletimer.core.concurrency;
+
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs tasks serially per key and in parallel across keys.
+ *
+ * Every key hashes onto one of a fixed number of single-threaded stripes, so tasks submitted
+ * for the same key always run one at a time in submission order, while tasks for different
+ * keys usually land on different stripes and run concurrently. Delayed tasks wait on a shared
+ * scheduler thread and join their stripe's queue when they become due.
+ *
+ * Queue depth and how long tasks wait and run are tracked per executor, see {@link #getMetrics()}.
+ */
+public class KeyedSerialExecutor {
+
+    private final String name;
+    private final Stripe[] stripes;
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong totalRunNanos = new AtomicLong();
+    private final AtomicLong maxRunNanos = new AtomicLong();
+
+    public KeyedSerialExecutor(String name, int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("stripeCount must be at least 1, was " + stripeCount);
+        }
+        this.name = name;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(namedThreadFactory(name + "-" + i));
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(namedThreadFactory(name + "-scheduler"));
+    }
+
+    /**
+     * Run the task after every task already submitted for the same key.
+     */
+    public void execute(String key, Runnable task) {
+        Stripe stripe = stripeFor(key);
+        enqueue(stripe, new MeasuredTask(stripe, task));
+    }
+
+    /**
+     * Like {@link #execute(String, Runnable)}, but the returned future completes with the task
+     * and carries any exception it threw.
+     */
+    public Future<?> submit(String key, Runnable task) {
+        Objects.requireNonNull(task, "task");
+        return submit(key, Executors.callable(task, (Void) null));
+    }
+
+    /**
+     * Cancelling the returned future before the task starts takes it out of the stripe's queue
+     * depth right away, the stripe skips it when it comes up.
+     */
+    public <T> Future<T> submit(String key, Callable<T> task) {
+        Stripe stripe = stripeFor(key);
+        MeasuredFuture<T> future = new MeasuredFuture<>(stripe, new MeasuredCallable<>(task));
+        enqueue(stripe, future);
+        return future;
+    }
+
+    /**
+     * Queue the task for the key once the delay has passed. It runs after every task already
+     * queued for the key at that point. Cancelling the returned future before it is due keeps
+     * the task from being queued at all.
+     */
+    public ScheduledFuture<?> schedule(String key, Runnable task, long delay, TimeUnit unit) {
+        Stripe stripe = stripeFor(key);
+        return scheduler.schedule(() -> enqueue(stripe, new MeasuredTask(stripe, task)), delay, unit);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * @return the stripe tasks for the key run on, stable for the lifetime of the executor
+     */
+    public int stripeIndexFor(String key) {
+        Objects.requireNonNull(key, "key");
+        // Spread the hash so keys that differ only in their high bits still use every stripe
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return (hash & 0x7fffffff) % stripes.length;
+    }
+
+    /**
+     * @return the number of tasks queued or running on the stripe
+     */
+    public int getQueueDepth(int stripeIndex) {
+        return stripes[stripeIndex].depth.get();
+    }
+
+    /**
+     * @return the number of tasks queued or running across all stripes
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Stripe stripe : stripes) {
+            depth += stripe.depth.get();
+        }
+        return depth;
+    }
+
+    public Metrics getMetrics() {
+        return new Metrics(
+                submittedCount.get(),
+                completedCount.get(),
+                failedCount.get(),
+                getQueueDepth(),
+                maxQueueDepth.get(),
+                totalWaitNanos.get(),
+                maxWaitNanos.get(),
+                totalRunNanos.get(),
+                maxRunNanos.get());
+    }
+
+    /**
+     * Stop accepting tasks, let queued tasks finish and drop scheduled ones that are not due yet.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        for (Stripe stripe : stripes) {
+            stripe.executor.shutdown();
+        }
+    }
+
+    public void shutdownNow() {
+        scheduler.shutdownNow();
+        for (Stripe stripe : stripes) {
+            stripe.executor.shutdownNow();
+        }
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Stripe stripe : stripes) {
+            long remaining = deadline - System.nanoTime();
+            if (!stripe.executor.awaitTermination(Math.max(remaining, 0), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Stripe stripeFor(String key) {
+        return stripes[stripeIndexFor(key)];
+    }
+
+    private void enqueue(Stripe stripe, Runnable task) {
+        try {
+            stripe.executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Counted as queued when it was wrapped
+            stripe.depth.decrementAndGet();
+            submittedCount.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void onQueued(Stripe stripe) {
+        submittedCount.incrementAndGet();
+        int depth = stripe.depth.incrementAndGet();
+        maxQueueDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    private void onStarted(long waitNanos) {
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    private void onFinished(long runNanos, boolean failed) {
+        totalRunNanos.addAndGet(runNanos);
+        maxRunNanos.accumulateAndGet(runNanos, Math::max);
+        if (failed) {
+            failedCount.incrementAndGet();
+        } else {
+            completedCount.incrementAndGet();
+        }
+    }
+
+    private static ThreadFactory namedThreadFactory(String threadName) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Stripe {
+        final ThreadPoolExecutor executor;
+        final AtomicInteger depth = new AtomicInteger();
+
+        Stripe(ThreadFactory threadFactory) {
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), threadFactory);
+        }
+    }
+
+    private final class MeasuredTask implements Runnable {
+        private final Stripe stripe;
+        private final Runnable task;
+        private final long queuedAtNanos;
+
+        MeasuredTask(Stripe stripe, Runnable task) {
+            this.stripe = stripe;
+            this.task = Objects.requireNonNull(task, "task");
+            this.queuedAtNanos = System.nanoTime();
+            onQueued(stripe);
+        }
+
+        @Override
+        public void run() {
+            long startedAtNanos = System.nanoTime();
+            onStarted(startedAtNanos - queuedAtNanos);
+            boolean failed = true;
+            try {
+                task.run();
+                failed = false;
+            } finally {
+                stripe.depth.decrementAndGet();
+                onFinished(System.nanoTime() - startedAtNanos, failed);
+            }
+        }
+    }
+
+    /**
+     * A submitted task. It leaves its stripe's queue depth once, whether it finished, failed or
+     * was cancelled before it ever started. A result or failure is counted before the future
+     * completes, so a caller woken by {@link #get()} already sees the depth without it.
+     */
+    private final class MeasuredFuture<T> extends FutureTask<T> {
+        private final Stripe stripe;
+        private final AtomicBoolean dequeued = new AtomicBoolean();
+
+        MeasuredFuture(Stripe stripe, Callable<T> callable) {
+            super(callable);
+            this.stripe = stripe;
+            onQueued(stripe);
+        }
+
+        @Override
+        protected void set(T result) {
+            dequeue();
+            super.set(result);
+        }
+
+        @Override
+        protected void setException(Throwable failure) {
+            dequeue();
+            super.setException(failure);
+        }
+
+        @Override
+        protected void done() {
+            // Cancelled, possibly before it started
+            dequeue();
+        }
+
+        private void dequeue() {
+            if (dequeued.compareAndSet(false, true)) {
+                stripe.depth.decrementAndGet();
+            }
+        }
+    }
+
+    private final class MeasuredCallable<T> implements Callable<T> {
+        private final Callable<T> task;
+        private final long queuedAtNanos;
+
+        MeasuredCallable(Callable<T> task) {
+            this.task = Objects.requireNonNull(task, "task");
+            this.queuedAtNanos = System.nanoTime();
+        }
+
+        @Override
+        public T call() throws Exception {
+            long startedAtNanos = System.nanoTime();
+            onStarted(startedAtNanos - queuedAtNanos);
+            boolean failed = true;
+            try {
+                T result = task.call();
+                failed = false;
+                return result;
+            } finally {
+                onFinished(System.nanoTime() - startedAtNanos, failed);
+            }
+        }
+    }
+
+    /**
+     * Point-in-time counters for an executor. Latencies are in nanoseconds; wait is the time a
+     * task spent queued behind other tasks on its stripe, run is the time the task itself took.
+     */
+    public static final class Metrics {
+        private final long submittedCount;
+        private final long completedCount;
+        private final long failedCount;
+        private final int queueDepth;
+        private final int maxQueueDepth;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+        private final long totalRunNanos;
+        private final long maxRunNanos;
+
+        Metrics(long submittedCount, long completedCount, long failedCount, int queueDepth,
+                int maxQueueDepth, long totalWaitNanos, long maxWaitNanos, long totalRunNanos,
+                long maxRunNanos) {
+            this.submittedCount = submittedCount;
+            this.completedCount = completedCount;
+            this.failedCount = failedCount;
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.totalRunNanos = totalRunNanos;
+            this.maxRunNanos = maxRunNanos;
+        }
+
+        public long getSubmittedCount() {
+            return submittedCount;
+        }
+
+        public long getCompletedCount() {
+            return completedCount;
+        }
+
+        public long getFailedCount() {
+            return failedCount;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getMaxQueueDepth() {
+            return maxQueueDepth;
+        }
+
+        public long getAverageWaitNanos() {
+            long finished = completedCount + failedCount;
+            return finished > 0 ? totalWaitNanos / finished : 0;
+        }
+
+        public long getMaxWaitNanos() {
+            return maxWaitNanos;
+        }
+
+        public long getAverageRunNanos() {
+            long finished = completedCount + failedCount;
+            return finished > 0 ? totalRunNanos / finished : 0;
+        }
+
+        public long getMaxRunNanos() {
+            return maxRunNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Metrics{" +
+                    "submitted=" + submittedCount +
+                    ", completed=" + completedCount +
+                    ", failed=" + failedCount +
+                    ", queueDepth=" + queueDepth +
+                    ", maxQueueDepth=" + maxQueueDepth +
+                    ", avgWaitUs=" + TimeUnit.NANOSECONDS.toMicros(getAverageWaitNanos()) +
+                    ", maxWaitUs=" + TimeUnit.NANOSECONDS.toMicros(maxWaitNanos) +
+                    ", avgRunUs=" + TimeUnit.NANOSECONDS.toMicros(getAverageRunNanos()) +
+                    ", maxRunUs=" + TimeUnit.NANOSECONDS.toMicros(maxRunNanos) +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package io.jhoyt.bubbletimer.core.time;
+
+import android.os.SystemClock;
+
+import io.jhoyt.bubbletimer.domain.core.TimeSource;
+
+/**
+ * {@link TimeSource} backed by {@link SystemClock#elapsedRealtimeNanos()}, which keeps
+ * counting while the device sleeps and matches the ELAPSED_REALTIME alarm clock.
+ */
+public class AndroidTimeSource implements TimeSource {
+    @Override
+    public long monotonicNanos() {
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    @Override
+    public long wallClockMillis() {
+        return System.currentTimeMillis();
+    }
+}
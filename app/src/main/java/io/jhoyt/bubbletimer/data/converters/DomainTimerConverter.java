@@ -1,16 +1,21 @@
 package io.jhoyt.bubbletimer.data.converters;
 
+import io.jhoyt.bubbletimer.TimerData;
 import io.jhoyt.bubbletimer.domain.entities.TimerState;
 import io.jhoyt.bubbletimer.db.ActiveTimer;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Converts between domain Timer entities and existing Room database entities.
  * This bridge allows the domain layer to work with existing data models.
+ *
+ * The app's timers hold their state in an immutable TimerData, so converting between them and
+ * domain timers shares the strings, durations and sets instead of copying them. ActiveTimer
+ * rows are only built where timers are actually persisted.
  */
 public final class DomainTimerConverter {
     
@@ -18,6 +23,46 @@ public final class DomainTimerConverter {
         // Utility class - prevent instantiation
     }
     
+    /**
+     * Reads one of the app's timers as a domain Timer, sharing its data.
+     */
+    public static io.jhoyt.bubbletimer.domain.entities.Timer legacyTimerToDomainTimer(io.jhoyt.bubbletimer.Timer timer) {
+        if (timer == null || timer.getTimerData() == null) {
+            return null;
+        }
+        
+        TimerData timerData = timer.getTimerData();
+        LocalDateTime now = LocalDateTime.now();
+        return io.jhoyt.bubbletimer.domain.entities.Timer.fromData(
+            timerData.id,
+            timerData.name,
+            timerData.userId,
+            timerData.totalDuration,
+            timerData.remainingDurationWhenPaused,
+            timerData.timerEnd,
+            withCreator(timer.getSharedWith(), timerData.userId),
+            timerData.tags,
+            determineTimerState(timer),
+            now, // The app's timers don't have createdAt
+            now  // or updatedAt
+        );
+    }
+    
+    /**
+     * Converts a domain Timer to one of the app's timers, sharing its data.
+     */
+    public static io.jhoyt.bubbletimer.Timer domainTimerToLegacyTimer(io.jhoyt.bubbletimer.domain.entities.Timer domainTimer) {
+        return new io.jhoyt.bubbletimer.Timer(new TimerData(
+            domainTimer.getId(),
+            domainTimer.getUserId(),
+            domainTimer.getName(),
+            domainTimer.getTotalDuration(),
+            domainTimer.getRemainingDurationWhenPaused(),
+            domainTimer.getEndTime(),
+            domainTimer.getTags()
+        ), domainTimer.getSharedWith());
+    }
+    
     /**
      * Converts a domain Timer to an ActiveTimer for Room database storage.
      */
@@ -31,13 +76,12 @@ public final class DomainTimerConverter {
         activeTimer.remainingDurationWhenPaused = domainTimer.getRemainingDurationWhenPaused();
         activeTimer.timerEnd = domainTimer.getEndTime();
         
-        // Convert tags to string format
+        // Tags and shared users are stored in their own tables
         Set<String> tags = domainTimer.getTags();
-        activeTimer.tagsString = (tags == null || tags.isEmpty()) ? "" : String.join("#~#", tags);
+        activeTimer.tags = tags == null ? new HashSet<>() : new HashSet<>(tags);
         
-        // Convert shared users to string format
         Set<String> sharedWith = domainTimer.getSharedWith();
-        activeTimer.sharedWithString = (sharedWith == null || sharedWith.isEmpty()) ? "" : String.join("#~#", sharedWith);
+        activeTimer.sharedWith = sharedWith == null ? new HashSet<>() : new HashSet<>(sharedWith);
         
         return activeTimer;
     }
@@ -50,20 +94,8 @@ public final class DomainTimerConverter {
             return null;
         }
         
-        // Parse tags from string
-        Set<String> tags = Set.of();
-        if (activeTimer.tagsString != null && !activeTimer.tagsString.isEmpty()) {
-            tags = Set.of(activeTimer.tagsString.split("#~#"));
-        }
-        
-        // Parse shared users from string
-        Set<String> sharedWith = Set.of();
-        if (activeTimer.sharedWithString != null && !activeTimer.sharedWithString.isEmpty()) {
-            sharedWith = Set.of(activeTimer.sharedWithString.split("#~#"))
-                .stream()
-                .filter(s -> !s.isEmpty())
-                .collect(Collectors.toSet());
-        }
+        Set<String> tags = activeTimer.tags == null ? Set.of() : Set.copyOf(activeTimer.tags);
+        Set<String> sharedWith = activeTimer.sharedWith == null ? Set.of() : Set.copyOf(activeTimer.sharedWith);
         
         // Create domain timer with all data
         return io.jhoyt.bubbletimer.domain.entities.Timer.fromData(
@@ -73,9 +105,9 @@ public final class DomainTimerConverter {
             activeTimer.totalDuration,
             activeTimer.remainingDurationWhenPaused,
             activeTimer.timerEnd,
-            tags,
             sharedWith,
-            determineTimerState(activeTimer),
+            tags,
+            determineTimerState(activeTimer.timerEnd, LocalDateTime.now()),
             LocalDateTime.now(), // ActiveTimer doesn't have createdAt
             LocalDateTime.now()  // ActiveTimer doesn't have updatedAt
         );
@@ -91,9 +123,8 @@ public final class DomainTimerConverter {
         roomTimer.title = domainTimer.getName();
         roomTimer.duration = domainTimer.getTotalDuration();
         
-        // Convert tags to string format
         Set<String> tags = domainTimer.getTags();
-        roomTimer.tagsString = (tags == null || tags.isEmpty()) ? "" : String.join("#~#", tags);
+        roomTimer.tags = tags == null ? new HashSet<>() : new HashSet<>(tags);
         
         return roomTimer;
     }
@@ -106,32 +137,45 @@ public final class DomainTimerConverter {
             return null;
         }
         
-        // Parse tags from string
-        Set<String> tags = Set.of();
-        if (roomTimer.tagsString != null && !roomTimer.tagsString.isEmpty()) {
-            tags = Set.of(roomTimer.tagsString.split("#~#"));
-        }
+        Set<String> tags = roomTimer.tags == null ? Set.of() : Set.copyOf(roomTimer.tags);
         
-        // Create domain timer (Room Timer is for saved templates, not active timers)
-        return io.jhoyt.bubbletimer.domain.entities.Timer.create(
+        // Room Timer is a saved template, so it keeps its own id and hasn't been started
+        return io.jhoyt.bubbletimer.domain.entities.Timer.fromData(
+            String.valueOf(roomTimer.id),
             roomTimer.title,
             "unknown", // Room Timer doesn't have userId
             roomTimer.duration,
-            tags
+            roomTimer.duration,
+            null,
+            Set.of(),
+            tags,
+            TimerState.STOPPED,
+            LocalDateTime.now(), // Room Timer doesn't have createdAt
+            LocalDateTime.now()  // Room Timer doesn't have updatedAt
         );
     }
     
     /**
-     * Determines the TimerState based on ActiveTimer data.
+     * Determines the TimerState of one of the app's timers from its deadline on the monotonic
+     * clock, so it agrees with the remaining time the timer reports.
+     */
+    private static TimerState determineTimerState(io.jhoyt.bubbletimer.Timer timer) {
+        if (timer.getTimerData().timerEnd == null) {
+            return TimerState.PAUSED;
+        }
+        return timer.getRemainingNanos() <= 0 ? TimerState.EXPIRED : TimerState.RUNNING;
+    }
+
+    /**
+     * Determines the TimerState from a timer's end time.
      */
-    private static TimerState determineTimerState(ActiveTimer activeTimer) {
-        if (activeTimer.timerEnd == null) {
+    private static TimerState determineTimerState(LocalDateTime timerEnd, LocalDateTime now) {
+        if (timerEnd == null) {
             // No end time means timer is paused
             return TimerState.PAUSED;
         }
         
-        LocalDateTime now = LocalDateTime.now();
-        if (activeTimer.timerEnd.isBefore(now)) {
+        if (timerEnd.isBefore(now)) {
             // End time has passed
             return TimerState.EXPIRED;
         } else {
@@ -140,6 +184,22 @@ public final class DomainTimerConverter {
         }
     }
     
+    /**
+     * The creator always counts as shared with. Sets that already include them, which is
+     * every set validated on its way into a timer, are returned as they are.
+     */
+    private static Set<String> withCreator(Set<String> sharedWith, String userId) {
+        if (sharedWith == null) {
+            sharedWith = Set.of();
+        }
+        if (userId == null || sharedWith.contains(userId)) {
+            return sharedWith;
+        }
+        Set<String> result = new HashSet<>(sharedWith);
+        result.add(userId);
+        return result;
+    }
+    
     /**
      * Creates a new domain Timer from basic data.
      * This is used when creating new timers that don't exist in the database yet.
@@ -160,8 +220,8 @@ public final class DomainTimerConverter {
             duration,
             existingTimer.getRemainingDurationWhenPaused(),
             existingTimer.getEndTime(),
-            tags,
             existingTimer.getSharedWith(),
+            tags,
             existingTimer.getState(),
             existingTimer.getCreatedAt(),
             LocalDateTime.now() // Update timestamp
@@ -0,0 +1,152 @@
+package io.jhoyt.bubbletimer.data.repositories;
+
+import io.jhoyt.bubbletimer.domain.repositories.TimerRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * The live queries behind a repository's observables. Every observable for the same query
+ * shares one subscription, so a change runs each subscribed query once and hands the result to
+ * all of its observers, and only when the result differs from the last one they were given.
+ * A query is dropped once its last observer unsubscribes, so one that nobody is watching
+ * costs nothing.
+ */
+final class LiveTimerQueries {
+
+    /**
+     * A query with at least one observer, and what its observers were last given.
+     */
+    private static final class Subscription<T> {
+        final Supplier<T> query;
+        // Null if any change can affect the result
+        final Predicate<Set<String>> affectedBy;
+        final List<TimerRepository.Observer<T>> observers = new ArrayList<>();
+        T value;
+
+        Subscription(Supplier<T> query, Predicate<Set<String>> affectedBy) {
+            this.query = query;
+            this.affectedBy = affectedBy;
+            this.value = query.get();
+        }
+    }
+
+    /**
+     * A changed query's observers and its new value, collected under the lock and delivered
+     * outside it.
+     */
+    private static final class Delivery<T> {
+        final List<TimerRepository.Observer<T>> observers;
+        final T value;
+
+        Delivery(List<TimerRepository.Observer<T>> observers, T value) {
+            this.observers = observers;
+            this.value = value;
+        }
+
+        void deliver() {
+            for (TimerRepository.Observer<T> observer : observers) {
+                observer.onChanged(value);
+            }
+        }
+    }
+
+    // Guarded by this
+    private final Map<String, Subscription<?>> subscriptions = new HashMap<>();
+
+    /**
+     * @param key identifies the query; observables with the same key share a subscription
+     * @param affectedBy whether a change to the given timer ids can change the result, or null
+     *                   if any change can
+     * @param query reads the current result
+     */
+    <T> TimerRepository.Observable<T> observe(String key, Predicate<Set<String>> affectedBy, Supplier<T> query) {
+        return new TimerRepository.Observable<T>() {
+            @Override
+            public void subscribe(TimerRepository.Observer<T> observer) {
+                T value;
+                synchronized (LiveTimerQueries.this) {
+                    Subscription<T> subscription = get(key);
+                    if (subscription == null) {
+                        subscription = new Subscription<>(query, affectedBy);
+                        subscriptions.put(key, subscription);
+                    }
+                    subscription.observers.add(observer);
+                    value = subscription.value;
+                }
+                observer.onChanged(value);
+            }
+
+            @Override
+            public void unsubscribe(TimerRepository.Observer<T> observer) {
+                synchronized (LiveTimerQueries.this) {
+                    Subscription<T> subscription = get(key);
+                    if (subscription != null && subscription.observers.remove(observer)
+                            && subscription.observers.isEmpty()) {
+                        subscriptions.remove(key);
+                    }
+                }
+            }
+
+            @Override
+            public T getValue() {
+                synchronized (LiveTimerQueries.this) {
+                    Subscription<T> subscription = get(key);
+                    if (subscription != null) {
+                        return subscription.value;
+                    }
+                }
+                return query.get();
+            }
+        };
+    }
+
+    /**
+     * Run every subscribed query the changes can affect, and tell its observers if the result
+     * is different. Observers are called on the calling thread.
+     */
+    void onTimersChanged(Set<String> timerIds) {
+        List<Delivery<?>> deliveries = new ArrayList<>();
+        synchronized (this) {
+            for (Subscription<?> subscription : subscriptions.values()) {
+                Delivery<?> delivery = refresh(subscription, timerIds);
+                if (delivery != null) {
+                    deliveries.add(delivery);
+                }
+            }
+        }
+        for (Delivery<?> delivery : deliveries) {
+            delivery.deliver();
+        }
+    }
+
+    /**
+     * @return the number of queries with observers
+     */
+    synchronized int size() {
+        return subscriptions.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Subscription<T> get(String key) {
+        return (Subscription<T>) subscriptions.get(key);
+    }
+
+    private static <T> Delivery<T> refresh(Subscription<T> subscription, Set<String> timerIds) {
+        if (subscription.affectedBy != null && !subscription.affectedBy.test(timerIds)) {
+            return null;
+        }
+        T value = subscription.query.get();
+        if (Objects.equals(value, subscription.value)) {
+            return null;
+        }
+        subscription.value = value;
+        return new Delivery<>(new ArrayList<>(subscription.observers), value);
+    }
+}
@@ -4,13 +4,17 @@ import io.jhoyt.bubbletimer.domain.entities.Timer;
 import io.jhoyt.bubbletimer.domain.repositories.TimerRepository;
 import io.jhoyt.bubbletimer.db.ActiveTimerRepository;
 import io.jhoyt.bubbletimer.db.TimerDao;
+import io.jhoyt.bubbletimer.db.TimerSearchDao;
+import io.jhoyt.bubbletimer.db.TimerSearchResult;
+import io.jhoyt.bubbletimer.db.TimerWithTags;
 import io.jhoyt.bubbletimer.data.converters.DomainTimerConverter;
-import io.jhoyt.bubbletimer.db.ActiveTimer;
 
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -26,95 +30,105 @@ public class RoomTimerRepository implements TimerRepository {
     
     private final ActiveTimerRepository activeTimerRepository;
     private final TimerDao timerDao;
+    private final TimerSearchDao timerSearchDao;
+    // Domain timers for the active timers, kept current from the repository's changes
+    private final TimerQueryIndex index;
+    // The queries behind the observables, run again when the index applies a change
+    private final LiveTimerQueries liveQueries = new LiveTimerQueries();
     @Inject
     public RoomTimerRepository(ActiveTimerRepository activeTimerRepository,
-                             TimerDao timerDao) {
+                             TimerDao timerDao,
+                             TimerSearchDao timerSearchDao) {
         this.activeTimerRepository = activeTimerRepository;
         this.timerDao = timerDao;
+        this.timerSearchDao = timerSearchDao;
+        this.index = new TimerQueryIndex(activeTimerRepository, liveQueries::onTimersChanged);
     }
     
     @Override
     public List<Timer> getAllTimers() {
-        // Get all active timers from the existing repository
-        List<io.jhoyt.bubbletimer.Timer> existingTimers = activeTimerRepository.getAllActiveTimers().getValue();
-        if (existingTimers == null) {
-            return List.of();
-        }
-        
-        // Convert existing timers to domain timers
-        return existingTimers.stream()
-            .map(existingTimer -> {
-                // Convert existing Timer to ActiveTimer format first
-                ActiveTimer activeTimer = io.jhoyt.bubbletimer.TimerConverter.toActiveTimer(existingTimer);
-                return DomainTimerConverter.activeTimerToDomainTimer(activeTimer);
-            })
-            .filter(timer -> timer != null)
-            .collect(Collectors.toList());
+        return index.getAll();
     }
     
     @Override
     public List<Timer> getTimersByTag(String tag) {
-        // Get all timers and filter by tag
-        List<Timer> allTimers = getAllTimers();
-        return allTimers.stream()
-            .filter(timer -> timer.getTags().contains(tag))
-            .collect(Collectors.toList());
+        return index.getByTag(tag);
     }
     
     @Override
     public Timer getTimerById(String id) {
-        // Get all timers and find by ID
-        List<Timer> allTimers = getAllTimers();
-        return allTimers.stream()
-            .filter(timer -> timer.getId().equals(id))
-            .findFirst()
-            .orElse(null);
+        return index.get(id);
     }
     
     @Override
     public List<Timer> getActiveTimers() {
-        // Get all timers and filter for active ones
-        List<Timer> allTimers = getAllTimers();
-        return allTimers.stream()
-            .filter(Timer::isActive)
-            .collect(Collectors.toList());
+        return index.getActive();
     }
     
     @Override
     public List<Timer> getTimersByUserId(String userId) {
-        // Get all timers and filter by user ID
-        List<Timer> allTimers = getAllTimers();
-        return allTimers.stream()
-            .filter(timer -> timer.getUserId().equals(userId))
-            .collect(Collectors.toList());
+        return index.getByUserId(userId);
     }
     
     @Override
     public List<Timer> getTimersSharedWithUser(String userId) {
-        // Get all timers and filter by shared users
-        List<Timer> allTimers = getAllTimers();
-        return allTimers.stream()
-            .filter(timer -> timer.getSharedWith().contains(userId))
-            .collect(Collectors.toList());
+        return index.getSharedWith(userId);
+    }
+    
+    @Override
+    public List<Timer> searchTimers(String query, int limit) {
+        // Must be called off the main thread; the index lives in Room
+        List<TimerSearchResult> hits = timerSearchDao.search(query, limit);
+        
+        // Saved timers are read in one query, active ones come from the in-memory snapshot
+        List<Integer> savedIds = new ArrayList<>();
+        for (TimerSearchResult hit : hits) {
+            if (!hit.isActive()) {
+                savedIds.add(Integer.parseInt(hit.timerId));
+            }
+        }
+        Map<String, io.jhoyt.bubbletimer.db.Timer> savedById = new HashMap<>();
+        if (!savedIds.isEmpty()) {
+            for (TimerWithTags row : timerDao.getByIds(savedIds)) {
+                io.jhoyt.bubbletimer.db.Timer saved = row.toTimer();
+                savedById.put(String.valueOf(saved.id), saved);
+            }
+        }
+        
+        List<Timer> results = new ArrayList<>(hits.size());
+        for (TimerSearchResult hit : hits) {
+            Timer timer;
+            if (hit.isActive()) {
+                timer = index.get(hit.timerId);
+            } else {
+                timer = DomainTimerConverter.roomTimerToDomainTimer(savedById.get(hit.timerId));
+            }
+            // A hit can outlive its timer if the row was removed after the index was read
+            if (timer != null) {
+                results.add(timer);
+            }
+        }
+        return results;
     }
     
     @Override
     public void saveTimer(Timer timer) {
-        // Convert domain timer to ActiveTimer and save
-        ActiveTimer activeTimer = DomainTimerConverter.domainTimerToActiveTimer(timer);
-        activeTimerRepository.insert(io.jhoyt.bubbletimer.TimerConverter.fromActiveTimer(activeTimer));
+        // The row itself is written when the repository flushes
+        activeTimerRepository.insert(DomainTimerConverter.domainTimerToLegacyTimer(timer));
+        index.reindex(timer.getId());
     }
     
     @Override
     public void updateTimer(Timer timer) {
-        // Convert domain timer to ActiveTimer and update
-        ActiveTimer activeTimer = DomainTimerConverter.domainTimerToActiveTimer(timer);
-        activeTimerRepository.update(io.jhoyt.bubbletimer.TimerConverter.fromActiveTimer(activeTimer));
+        // The row itself is written when the repository flushes
+        activeTimerRepository.update(DomainTimerConverter.domainTimerToLegacyTimer(timer));
+        index.reindex(timer.getId());
     }
     
     @Override
     public void deleteTimer(String id) {
         activeTimerRepository.deleteById(id);
+        index.reindex(id);
     }
     
     @Override
@@ -211,61 +225,31 @@ public class RoomTimerRepository implements TimerRepository {
         }
     }
     
-    // Observable implementations - simplified for now
+    // Observers are called on the change stream's callback thread (the main thread in the app)
+    // once a change reaches the index. A running timer expiring isn't a change, so it's only
+    // seen with the next change or read.
     @Override
     public Observable<List<Timer>> observeAllTimers() {
-        // TODO: Implement with LiveData or RxJava
-        return new SimpleObservable<>(getAllTimers());
+        return liveQueries.observe("all", null, index::getAll);
     }
     
     @Override
     public Observable<List<Timer>> observeActiveTimers() {
-        // TODO: Implement with LiveData or RxJava
-        return new SimpleObservable<>(getActiveTimers());
+        return liveQueries.observe("active", null, index::getActive);
     }
     
     @Override
     public Observable<Timer> observeTimerById(String id) {
-        // TODO: Implement with LiveData or RxJava
-        return new SimpleObservable<>(getTimerById(id));
+        return liveQueries.observe("id:" + id, timerIds -> timerIds.contains(id), () -> index.get(id));
     }
     
     @Override
     public Observable<List<Timer>> observeTimersByUserId(String userId) {
-        // TODO: Implement with LiveData or RxJava
-        return new SimpleObservable<>(getTimersByUserId(userId));
+        return liveQueries.observe("user:" + userId, null, () -> index.getByUserId(userId));
     }
     
     @Override
     public Observable<List<Timer>> observeTimersSharedWithUser(String userId) {
-        // TODO: Implement with LiveData or RxJava
-        return new SimpleObservable<>(getTimersSharedWithUser(userId));
-    }
-    
-    /**
-     * Simple Observable implementation for now.
-     * TODO: Replace with proper LiveData or RxJava implementation
-     */
-    private static class SimpleObservable<T> implements Observable<T> {
-        private final T value;
-        
-        public SimpleObservable(T value) {
-            this.value = value;
-        }
-        
-        @Override
-        public void subscribe(Observer<T> observer) {
-            observer.onChanged(value);
-        }
-        
-        @Override
-        public void unsubscribe(Observer<T> observer) {
-            // No-op for simple implementation
-        }
-        
-        @Override
-        public T getValue() {
-            return value;
-        }
+        return liveQueries.observe("shared:" + userId, null, () -> index.getSharedWith(userId));
     }
 }
@@ -0,0 +1,231 @@
+package io.jhoyt.bubbletimer.data.repositories;
+
+import io.jhoyt.bubbletimer.data.converters.DomainTimerConverter;
+import io.jhoyt.bubbletimer.db.ActiveTimerChange;
+import io.jhoyt.bubbletimer.db.ActiveTimerRepository;
+import io.jhoyt.bubbletimer.domain.core.TimeSources;
+import io.jhoyt.bubbletimer.domain.entities.Timer;
+import io.jhoyt.bubbletimer.domain.entities.TimerState;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * The active timers as domain timers, indexed by id, user, tag, shared-with member and state.
+ * Built from the repository's snapshot and then kept current from its change stream, so a
+ * timer is converted once per change rather than on every read, and a filtered read only
+ * touches the timers it returns. Conversion shares the timer's immutable data, so a domain
+ * timer costs one object on top of it.
+ *
+ * Running timers are kept ordered by their deadline on the monotonic clock. They expire as time
+ * passes without a change being published, so whether one is still running is decided when it's
+ * read, against the same {@link TimeSources} clock the timers count down on.
+ *
+ * Once a change from the stream has been applied the listener is told which timers it touched,
+ * on the stream's callback thread and outside the index's lock. Writes reindexed directly aren't
+ * reported, they're reported when their change arrives.
+ */
+final class TimerQueryIndex implements ActiveTimerRepository.ChangeListener {
+
+    private static final class Entry {
+        // The repository's timer this entry was converted from
+        final io.jhoyt.bubbletimer.Timer source;
+        // The source's deadline when it was indexed, 0 if it wasn't running
+        final long deadlineNanos;
+        Timer timer;
+
+        Entry(io.jhoyt.bubbletimer.Timer source, Timer timer) {
+            this.source = source;
+            this.deadlineNanos = source.getDeadlineNanos();
+            this.timer = timer;
+        }
+    }
+
+    private final ActiveTimerRepository activeTimerRepository;
+    private final Consumer<Set<String>> listener;
+    // All guarded by this
+    private final Map<String, Entry> byId = new HashMap<>();
+    private final Map<String, Set<String>> byUserId = new HashMap<>();
+    private final Map<String, Set<String>> byTag = new HashMap<>();
+    private final Map<String, Set<String>> bySharedWith = new HashMap<>();
+    private final Set<String> paused = new HashSet<>();
+    private final TreeMap<Long, Set<String>> byDeadline = new TreeMap<>();
+
+    TimerQueryIndex(ActiveTimerRepository activeTimerRepository, Consumer<Set<String>> listener) {
+        this.activeTimerRepository = activeTimerRepository;
+        this.listener = listener;
+        synchronized (this) {
+            // Changes published after the snapshot are applied on top of it
+            ActiveTimerRepository.Snapshot snapshot = activeTimerRepository.addChangeListener(this);
+            for (io.jhoyt.bubbletimer.Timer timer : snapshot.getTimers()) {
+                add(timer);
+            }
+        }
+    }
+
+    @Override
+    public void onTimersChanged(List<ActiveTimerChange> changes) {
+        Set<String> timerIds = new HashSet<>();
+        synchronized (this) {
+            for (ActiveTimerChange change : changes) {
+                reindex(change.getTimerId());
+                timerIds.add(change.getTimerId());
+            }
+        }
+        listener.accept(timerIds);
+    }
+
+    /**
+     * Index the repository's current timer for {@code id} again. Called after a write so it
+     * can be read back before the change stream catches up; the change being delivered later
+     * just reads the same timer again.
+     */
+    synchronized void reindex(String id) {
+        remove(id);
+        io.jhoyt.bubbletimer.Timer timer = activeTimerRepository.getById(id);
+        if (timer != null) {
+            add(timer);
+        }
+    }
+
+    synchronized Timer get(String id) {
+        Entry entry = byId.get(id);
+        io.jhoyt.bubbletimer.Timer current = activeTimerRepository.getById(id);
+        if (entry == null ? current != null : entry.source != current) {
+            // Written by another component and not delivered yet
+            reindex(id);
+            entry = byId.get(id);
+        }
+        return entry == null ? null : view(entry, TimeSources.monotonicNanos());
+    }
+
+    synchronized List<Timer> getAll() {
+        return views(byId.keySet());
+    }
+
+    synchronized List<Timer> getByUserId(String userId) {
+        return views(byUserId.getOrDefault(userId, Set.of()));
+    }
+
+    synchronized List<Timer> getByTag(String tag) {
+        return views(byTag.getOrDefault(tag, Set.of()));
+    }
+
+    synchronized List<Timer> getSharedWith(String userId) {
+        return views(bySharedWith.getOrDefault(userId, Set.of()));
+    }
+
+    synchronized List<Timer> getByState(TimerState state) {
+        long now = TimeSources.monotonicNanos();
+        switch (state) {
+            case PAUSED:
+                return views(paused);
+            case RUNNING:
+                return views(flatten(byDeadline.tailMap(now, false).values()));
+            case EXPIRED:
+                return views(flatten(byDeadline.headMap(now, true).values()));
+            default:
+                // Active timers are never stopped, they're removed instead
+                return new ArrayList<>();
+        }
+    }
+
+    synchronized List<Timer> getActive() {
+        List<Timer> active = getByState(TimerState.PAUSED);
+        active.addAll(getByState(TimerState.RUNNING));
+        return active;
+    }
+
+    private void add(io.jhoyt.bubbletimer.Timer source) {
+        Timer timer = convert(source);
+        if (timer == null) {
+            return;
+        }
+        String id = timer.getId();
+        Entry entry = new Entry(source, timer);
+        byId.put(id, entry);
+        addKey(byUserId, timer.getUserId(), id);
+        for (String tag : timer.getTags()) {
+            addKey(byTag, tag, id);
+        }
+        for (String userId : timer.getSharedWith()) {
+            addKey(bySharedWith, userId, id);
+        }
+        if (timer.getEndTime() == null) {
+            paused.add(id);
+        } else {
+            addKey(byDeadline, entry.deadlineNanos, id);
+        }
+    }
+
+    private void remove(String id) {
+        Entry entry = byId.remove(id);
+        if (entry == null) {
+            return;
+        }
+        Timer timer = entry.timer;
+        removeKey(byUserId, timer.getUserId(), id);
+        for (String tag : timer.getTags()) {
+            removeKey(byTag, tag, id);
+        }
+        for (String userId : timer.getSharedWith()) {
+            removeKey(bySharedWith, userId, id);
+        }
+        if (timer.getEndTime() == null) {
+            paused.remove(id);
+        } else {
+            removeKey(byDeadline, entry.deadlineNanos, id);
+        }
+    }
+
+    private List<Timer> views(Collection<String> ids) {
+        long now = TimeSources.monotonicNanos();
+        List<Timer> timers = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            timers.add(view(byId.get(id), now));
+        }
+        return timers;
+    }
+
+    /**
+     * The entry's domain timer, converted again if it has run out since it was converted so
+     * its state reads expired.
+     */
+    private static Timer view(Entry entry, long now) {
+        Timer timer = entry.timer;
+        if (timer.getState() == TimerState.RUNNING && entry.deadlineNanos <= now) {
+            entry.timer = convert(entry.source);
+        }
+        return entry.timer;
+    }
+
+    private static Timer convert(io.jhoyt.bubbletimer.Timer timer) {
+        return DomainTimerConverter.legacyTimerToDomainTimer(timer);
+    }
+
+    private static List<String> flatten(Collection<Set<String>> idSets) {
+        List<String> ids = new ArrayList<>();
+        for (Set<String> idSet : idSets) {
+            ids.addAll(idSet);
+        }
+        return ids;
+    }
+
+    private static <K> void addKey(Map<K, Set<String>> index, K key, String id) {
+        index.computeIfAbsent(key, k -> new HashSet<>()).add(id);
+    }
+
+    private static <K> void removeKey(Map<K, Set<String>> index, K key, String id) {
+        Set<String> ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+}
@@ -3,12 +3,17 @@ package io.jhoyt.bubbletimer.db;
 import androidx.annotation.NonNull;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
 
-@Entity
+// timerEnd is indexed so the next expiring timers can be read without loading every row
+@Entity(indices = {@Index("timerEnd")})
 public class ActiveTimer {
     @PrimaryKey
     @NonNull
@@ -29,12 +34,18 @@ public class ActiveTimer {
     @ColumnInfo(name = "timerEnd")
     public LocalDateTime timerEnd;
 
-    @ColumnInfo(name = "sharedWithString", defaultValue = "")
-    public String sharedWithString;
-
-    @ColumnInfo(name = "tagsString", defaultValue = "")
-    public String tagsString;
-
     @ColumnInfo(name = "sharedBy", defaultValue = "")
     public String sharedBy;
+
+    // Version of the timer on the wire, 0 if it was never synced
+    @ColumnInfo(name = "version", defaultValue = "0")
+    public long version;
+
+    // Stored in timer_share, see ActiveTimerWithRelations
+    @Ignore
+    public Set<String> sharedWith = new HashSet<>();
+
+    // Stored in timer_tag, see ActiveTimerWithRelations
+    @Ignore
+    public Set<String> tags = new HashSet<>();
 }
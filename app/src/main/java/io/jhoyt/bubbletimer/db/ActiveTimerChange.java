@@ -0,0 +1,72 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.annotation.NonNull;
+
+import io.jhoyt.bubbletimer.Timer;
+
+/**
+ * One change to the set of active timers, as published by {@link ActiveTimerRepository}.
+ *
+ * Versions increase by one per change across all timers, so a consumer holding a
+ * {@link ActiveTimerRepository.Snapshot} can tell which changes it has already seen.
+ */
+public final class ActiveTimerChange {
+
+    public enum Type {
+        INSERTED,
+        UPDATED,
+        REMOVED
+    }
+
+    private final Type type;
+    private final String timerId;
+    private final Timer timer;
+    private final long version;
+
+    private ActiveTimerChange(Type type, String timerId, Timer timer, long version) {
+        this.type = type;
+        this.timerId = timerId;
+        this.timer = timer;
+        this.version = version;
+    }
+
+    static ActiveTimerChange inserted(Timer timer, long version) {
+        return new ActiveTimerChange(Type.INSERTED, timer.getId(), timer, version);
+    }
+
+    static ActiveTimerChange updated(Timer timer, long version) {
+        return new ActiveTimerChange(Type.UPDATED, timer.getId(), timer, version);
+    }
+
+    /**
+     * @param timer the timer as it was last known before it was removed
+     */
+    static ActiveTimerChange removed(Timer timer, long version) {
+        return new ActiveTimerChange(Type.REMOVED, timer.getId(), timer, version);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getTimerId() {
+        return timerId;
+    }
+
+    /**
+     * @return the timer after the change, or the last known timer for {@link Type#REMOVED}
+     */
+    public Timer getTimer() {
+        return timer;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "ActiveTimerChange{" + type + " " + timerId + " v" + version + '}';
+    }
+}
@@ -3,26 +3,176 @@ package io.jhoyt.bubbletimer.db;
 import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Dao
 public interface ActiveTimerDao {
+    @Transaction
     @Query("SELECT * FROM activeTimer WHERE id == :activeTimerId")
-    ActiveTimer get(String activeTimerId);
+    ActiveTimerWithRelations loadById(String activeTimerId);
 
+    @Transaction
     @Query("SELECT * FROM activeTimer")
-    LiveData<List<ActiveTimer>> getAll();
+    LiveData<List<ActiveTimerWithRelations>> getAll();
+
+    @Transaction
+    @Query("SELECT activeTimer.* FROM activeTimer " +
+            "INNER JOIN timer_tag ON timer_tag.timerId = activeTimer.id " +
+            "WHERE timer_tag.tag = :tag")
+    LiveData<List<ActiveTimerWithRelations>> getAllWithTag(String tag);
+
+    @Transaction
+    @Query("SELECT activeTimer.* FROM activeTimer " +
+            "INNER JOIN timer_share ON timer_share.timerId = activeTimer.id " +
+            "WHERE timer_share.userId = :userId")
+    LiveData<List<ActiveTimerWithRelations>> getAllSharedWith(String userId);
+
+    // Paused timers have no timerEnd; both queries walk the timerEnd index in order
+    @Transaction
+    @Query("SELECT * FROM activeTimer WHERE timerEnd IS NOT NULL ORDER BY timerEnd ASC LIMIT :limit")
+    List<ActiveTimerWithRelations> loadNextExpiring(int limit);
+
+    @Transaction
+    @Query("SELECT * FROM activeTimer WHERE timerEnd IS NOT NULL AND timerEnd <= :timerEnd ORDER BY timerEnd ASC")
+    List<ActiveTimerWithRelations> loadExpiringBefore(LocalDateTime timerEnd);
 
     @Insert
-    void insert(ActiveTimer activeTimer);
+    void insertRow(ActiveTimer activeTimer);
 
     @Update
-    void update(ActiveTimer activeTimer);
+    int updateRow(ActiveTimer activeTimer);
+
+    // REPLACE deletes the old row first, which cascades to its tags and shares
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertRows(List<ActiveTimer> activeTimers);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertTags(List<TimerTag> timerTags);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertShares(List<TimerShare> timerShares);
+
+    @Query("DELETE FROM timer_tag WHERE timerId IN (:activeTimerIds)")
+    void deleteTags(List<String> activeTimerIds);
+
+    @Query("DELETE FROM timer_share WHERE timerId IN (:activeTimerIds)")
+    void deleteShares(List<String> activeTimerIds);
 
     @Query("DELETE FROM activeTimer WHERE id == :activeTimerId")
     void deleteById(String activeTimerId);
 
+    default ActiveTimer get(String activeTimerId) {
+        ActiveTimerWithRelations activeTimer = loadById(activeTimerId);
+        return activeTimer != null ? activeTimer.toActiveTimer() : null;
+    }
+
+    /**
+     * @return up to {@code limit} running timers, soonest to end first
+     */
+    default List<ActiveTimer> getNextExpiring(int limit) {
+        return ActiveTimerWithRelations.toActiveTimers(loadNextExpiring(limit));
+    }
+
+    /**
+     * @return the running timers that end at or before {@code timerEnd}, soonest first
+     */
+    default List<ActiveTimer> getExpiringBefore(LocalDateTime timerEnd) {
+        return ActiveTimerWithRelations.toActiveTimers(loadExpiringBefore(timerEnd));
+    }
+
+    @Transaction
+    default void insert(ActiveTimer activeTimer) {
+        insertRow(activeTimer);
+        replaceRelations(List.of(activeTimer));
+    }
+
+    @Transaction
+    default void update(ActiveTimer activeTimer) {
+        if (updateRow(activeTimer) > 0) {
+            replaceRelations(List.of(activeTimer));
+        }
+    }
+
+    @Transaction
+    default void upsertAll(List<ActiveTimer> activeTimers) {
+        upsertRows(activeTimers);
+        replaceRelations(activeTimers);
+    }
+
+    /**
+     * Make the tag and share rows of the given timers match their in-memory sets. Only meant to
+     * be called from the transactional writes above.
+     */
+    default void replaceRelations(List<ActiveTimer> activeTimers) {
+        List<String> activeTimerIds = new ArrayList<>(activeTimers.size());
+        List<TimerTag> timerTags = new ArrayList<>();
+        List<TimerShare> timerShares = new ArrayList<>();
+        for (ActiveTimer activeTimer : activeTimers) {
+            activeTimerIds.add(activeTimer.id);
+            if (activeTimer.tags != null) {
+                for (String tag : activeTimer.tags) {
+                    timerTags.add(new TimerTag(activeTimer.id, tag));
+                }
+            }
+            if (activeTimer.sharedWith != null) {
+                for (String userId : activeTimer.sharedWith) {
+                    timerShares.add(new TimerShare(activeTimer.id, userId));
+                }
+            }
+        }
+
+        deleteTags(activeTimerIds);
+        deleteShares(activeTimerIds);
+        if (!timerTags.isEmpty()) {
+            insertTags(timerTags);
+        }
+        if (!timerShares.isEmpty()) {
+            insertShares(timerShares);
+        }
+    }
+
+    @Query("DELETE FROM activeTimer WHERE id IN (:activeTimerIds)")
+    void deleteByIds(List<String> activeTimerIds);
+
+    @Query("DELETE FROM activeTimer WHERE id NOT IN (:activeTimerIds)")
+    void deleteAllExcept(List<String> activeTimerIds);
+
+    @Query("DELETE FROM activeTimer")
+    void deleteAll();
+
+    @Transaction
+    default void applyWrites(List<ActiveTimer> upserts, List<String> deletedIds) {
+        if (!deletedIds.isEmpty()) {
+            deleteByIds(deletedIds);
+        }
+        if (!upserts.isEmpty()) {
+            upsertAll(upserts);
+        }
+    }
+
+    /**
+     * Make the table hold exactly the given timers: upsert every one of them and delete
+     * the rows that are not in the list.
+     */
+    @Transaction
+    default void replaceAll(List<ActiveTimer> activeTimers) {
+        if (activeTimers.isEmpty()) {
+            deleteAll();
+            return;
+        }
+
+        List<String> activeTimerIds = new ArrayList<>(activeTimers.size());
+        for (ActiveTimer activeTimer : activeTimers) {
+            activeTimerIds.add(activeTimer.id);
+        }
+        deleteAllExcept(activeTimerIds);
+        upsertAll(activeTimers);
+    }
 }
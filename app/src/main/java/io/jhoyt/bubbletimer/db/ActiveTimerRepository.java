@@ -1,46 +1,247 @@
 package io.jhoyt.bubbletimer.db;
 
 import android.app.Application;
+import android.os.Handler;
+import android.os.Looper;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.Observer;
 
-import java.util.HashMap;
+import java.io.File;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import io.jhoyt.bubbletimer.Timer;
 import io.jhoyt.bubbletimer.TimerConverter;
+import io.jhoyt.bubbletimer.TimerData;
+import io.jhoyt.bubbletimer.core.concurrency.KeyedSerialExecutor;
 
 public class ActiveTimerRepository {
+    // Upper bound on how long a changed timer stays unwritten
+    static final long FLUSH_DELAY_MS = 1000;
+    // Each flush is one transaction over many timers, so all of them share one lane
+    static final String WRITE_KEY = "active_timers";
+    static final String SNAPSHOT_FILE_NAME = "active_timers.snapshot";
+
+    public enum UpsertResult {
+        INSERTED,
+        UPDATED,
+        UNCHANGED
+    }
+
+    /**
+     * Receives every change to the active timers after the snapshot it was registered with,
+     * in order, on the repository's callback executor (the main thread in the app).
+     */
+    public interface ChangeListener {
+        void onTimersChanged(List<ActiveTimerChange> changes);
+    }
+
+    /**
+     * The active timers as of one version of the change stream.
+     */
+    public static final class Snapshot {
+        private final List<Timer> timers;
+        private final long version;
+
+        Snapshot(List<Timer> timers, long version) {
+            this.timers = timers;
+            this.version = version;
+        }
+
+        public List<Timer> getTimers() {
+            return timers;
+        }
+
+        /**
+         * @return the version of the last change included in the snapshot
+         */
+        public long getVersion() {
+            return version;
+        }
+    }
+
     private ActiveTimerDao activeTimerDao;
-    private LiveData<List<ActiveTimer>> allActiveTimersLiveData;
+    private LiveData<List<ActiveTimerWithRelations>> allActiveTimersLiveData;
     private final MutableLiveData<List<Timer>> timersLiveData;
-    private final ConcurrentHashMap<String, Timer> timersById;
-    private final Observer<List<ActiveTimer>> observer;
-    private final Map<String, Long> lastUpdateTime;
+    // Swapped as a whole when the full list is replaced
+    private volatile ConcurrentHashMap<String, Timer> timersById;
+    // Bumped on every accepted change to a timer, dropped when the timer goes away
+    private final ConcurrentHashMap<String, Long> versionsById;
+    private final Observer<List<ActiveTimerWithRelations>> observer;
+    private final ActiveTimerWriteJournal writeJournal;
+    private final KeyedSerialExecutor writeExecutor;
+    // Null if the timers are only ever loaded from Room
+    private final ActiveTimerSnapshotFile snapshotFile;
+    // Null if lifecycle events aren't recorded
+    private final TimerHistoryRecorder historyRecorder;
+    // Whether Room has emitted yet, guarded by this
+    private boolean loadedFromRoom;
+    // What the rows hold as far as this repository knows, as last flushed or read back, so an
+    // emission that only reads back its own flush can be skipped without converting any row
+    private final ConcurrentHashMap<String, ActiveTimer> persistedRows = new ConcurrentHashMap<>();
+    // Emissions skipped that way, guarded by this
+    private long skippedEchoCount;
+
+    private final Executor callbackExecutor;
+    private final List<ChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    // Version of the last published change, guarded by this
+    private long changeVersion;
 
     public ActiveTimerRepository(Application application) {
-        AppDatabase db = AppDatabase.getDatabase(application);
+        this(AppDatabase.getDatabase(application).activeTimerDao(),
+                AppDatabase.databaseWriteExecutor,
+                new Handler(Looper.getMainLooper())::post,
+                new ActiveTimerSnapshotFile(new File(application.getNoBackupFilesDir(), SNAPSHOT_FILE_NAME)),
+                TimerHistoryRecorder.getInstance(application));
+    }
+
+    ActiveTimerRepository(ActiveTimerDao activeTimerDao, KeyedSerialExecutor writeExecutor) {
+        this(activeTimerDao, writeExecutor, new Handler(Looper.getMainLooper())::post);
+    }
+
+    ActiveTimerRepository(ActiveTimerDao activeTimerDao, KeyedSerialExecutor writeExecutor,
+                          Executor callbackExecutor) {
+        this(activeTimerDao, writeExecutor, callbackExecutor, null);
+    }
+
+    /**
+     * @param snapshotFile if not null, the timers are loaded from it right away instead of
+     *                     only once Room has opened the database and run its first query, and
+     *                     it is rewritten after every write
+     */
+    ActiveTimerRepository(ActiveTimerDao activeTimerDao, KeyedSerialExecutor writeExecutor,
+                          Executor callbackExecutor, ActiveTimerSnapshotFile snapshotFile) {
+        this(activeTimerDao, writeExecutor, callbackExecutor, snapshotFile, null);
+    }
+
+    /**
+     * @param historyRecorder if not null, every change to the timers is also recorded as a
+     *                        lifecycle event
+     */
+    ActiveTimerRepository(ActiveTimerDao activeTimerDao, KeyedSerialExecutor writeExecutor,
+                          Executor callbackExecutor, ActiveTimerSnapshotFile snapshotFile,
+                          TimerHistoryRecorder historyRecorder) {
         this.timersById = new ConcurrentHashMap<>();
-        this.timersLiveData = new MutableLiveData<>(List.of());
-        this.lastUpdateTime = new ConcurrentHashMap<>();
+        this.versionsById = new ConcurrentHashMap<>();
+        this.callbackExecutor = callbackExecutor;
+        this.writeExecutor = writeExecutor;
+        this.snapshotFile = snapshotFile;
+        this.historyRecorder = historyRecorder;
+        this.timersLiveData = new MutableLiveData<List<Timer>>(List.of()) {
+            @Override
+            protected void onActive() {
+                // Emissions are skipped while nobody watches the full list
+                setValue(List.copyOf(timersById.values()));
+            }
+        };
+
+        this.activeTimerDao = activeTimerDao;
+        this.writeJournal = new ActiveTimerWriteJournal(new ActiveTimerWriteJournal.Sink() {
+            @Override
+            public void apply(List<ActiveTimer> upserts, List<String> deletedIds) {
+                activeTimerDao.applyWrites(upserts, deletedIds);
+                deletedIds.forEach(persistedRows::remove);
+                upserts.forEach(activeTimer -> persistedRows.put(activeTimer.id, activeTimer));
+                writeSnapshot();
+            }
 
-        this.activeTimerDao = db.activeTimerDao();
+            @Override
+            public void replaceAll(List<ActiveTimer> activeTimers) {
+                activeTimerDao.replaceAll(activeTimers);
+                persistedRows.clear();
+                activeTimers.forEach(activeTimer -> persistedRows.put(activeTimer.id, activeTimer));
+                writeSnapshot();
+            }
+        }, writeExecutor, WRITE_KEY, FLUSH_DELAY_MS);
         this.allActiveTimersLiveData = this.activeTimerDao.getAll();
-        
+
+        if (snapshotFile != null) {
+            // Nobody can be subscribed yet, they pick these up from getSnapshot()
+            for (ActiveTimer activeTimer : snapshotFile.read()) {
+                Timer timer = TimerConverter.fromActiveTimer(activeTimer);
+                timersById.put(timer.getId(), timer);
+                bumpVersion(timer.getId());
+                changeVersion++;
+                if (historyRecorder != null) {
+                    historyRecorder.track(timer);
+                }
+            }
+        }
+
         this.observer = activeTimers -> {
-            List<Timer> timers = activeTimers.stream()
-                    .map(TimerConverter::fromActiveTimer)
+            synchronized (this) {
+                // The cache already holds everything the repository flushed
+                if (loadedFromRoom && echoesPersistedRows(activeTimers)) {
+                    skippedEchoCount++;
+                    return;
+                }
+            }
+
+            List<Timer> persistedTimers = activeTimers.stream()
+                    .map(activeTimer -> TimerConverter.fromActiveTimer(activeTimer.toActiveTimer()))
                     .collect(Collectors.toList());
-            
-            // Update cache
-            timersById.clear();
-            timers.forEach(timer -> timersById.put(timer.getId(), timer));
-            timersLiveData.postValue(timers);
+            persistedRows.clear();
+            activeTimers.forEach(activeTimer -> persistedRows.put(activeTimer.activeTimer.id, activeTimer.activeTimer));
+
+            synchronized (this) {
+                // Writes that are not committed yet are newer than what was read back
+                List<Timer> timers = writeJournal.overlay(persistedTimers);
+
+                // Only rows that differ from the cache, e.g. written by another component,
+                // become changes; rows echoing the cache keep the cached instance
+                ConcurrentHashMap<String, Timer> replacement = new ConcurrentHashMap<>();
+                List<ActiveTimerChange> changes = new ArrayList<>();
+                for (Timer timer : timers) {
+                    Timer current = timersById.get(timer.getId());
+                    if (current == null) {
+                        replacement.put(timer.getId(), timer);
+                        changes.add(ActiveTimerChange.inserted(timer, ++changeVersion));
+                    } else if (current == timer || matchesPersisted(current, timer)) {
+                        replacement.put(timer.getId(), current);
+                    } else {
+                        replacement.put(timer.getId(), timer);
+                        changes.add(ActiveTimerChange.updated(timer, ++changeVersion));
+                    }
+                }
+                for (Timer current : timersById.values()) {
+                    if (!replacement.containsKey(current.getId())) {
+                        changes.add(ActiveTimerChange.removed(current, ++changeVersion));
+                    }
+                }
+                if (changes.isEmpty()) {
+                    loadedFromRoom = true;
+                    return;
+                }
+
+                // Update cache
+                timersById = replacement;
+                for (ActiveTimerChange change : changes) {
+                    if (change.getType() != ActiveTimerChange.Type.REMOVED) {
+                        bumpVersion(change.getTimerId());
+                    }
+                }
+                versionsById.keySet().retainAll(timersById.keySet());
+                publish(changes);
+                // The first load holds the timers that existed before this process started
+                recordHistory(changes, !loadedFromRoom);
+                loadedFromRoom = true;
+                if (snapshotFile != null) {
+                    // Rows written by another component aren't in the snapshot yet
+                    writeExecutor.execute(WRITE_KEY, this::writeSnapshot);
+                }
+            }
         };
 
         this.allActiveTimersLiveData.observeForever(observer);
@@ -50,55 +251,366 @@ public class ActiveTimerRepository {
         return timersById.get(id);
     }
 
+    /**
+     * The full list of active timers, re-emitted on every change. Consumers that only need to
+     * know what changed should use {@link #addChangeListener(ChangeListener)} instead.
+     */
     public LiveData<List<Timer>> getAllActiveTimers() {
         return this.timersLiveData;
     }
 
-    public void insert(Timer timer) {
+    /**
+     * @return the current timers and the version of the last change they include
+     */
+    public synchronized Snapshot getSnapshot() {
+        return new Snapshot(List.copyOf(timersById.values()), changeVersion);
+    }
+
+    /**
+     * Subscribe to changes made after the returned snapshot. A late subscriber builds its
+     * state from the snapshot and then applies each change as it arrives, so it never has to
+     * re-read the full list.
+     */
+    public synchronized Snapshot addChangeListener(ChangeListener listener) {
+        // Changes are published under the same lock, so none can fall between the two
+        changeListeners.add(listener);
+        return getSnapshot();
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * @return the number of accepted changes to the timer, or 0 if it is unknown
+     */
+    public long getVersion(String id) {
+        Long version = versionsById.get(id);
+        return version != null ? version : 0;
+    }
+
+    public synchronized void insert(Timer timer) {
+        keepSyncVersion(timer);
+        // Update cache immediately
+        Timer previous = timersById.put(timer.getId(), timer);
+        bumpVersion(timer.getId());
+        List<ActiveTimerChange> changes = List.of(previous == null
+                ? ActiveTimerChange.inserted(timer, ++changeVersion)
+                : ActiveTimerChange.updated(timer, ++changeVersion));
+        publish(changes);
+        recordHistory(changes, false);
+
+        // Written to the database by the next journal flush
+        writeJournal.recordUpsert(timer);
+    }
+
+    public synchronized void update(Timer timer) {
+        keepSyncVersion(timer);
+        // Update cache immediately, the latest update always wins
+        Timer previous = timersById.put(timer.getId(), timer);
+        bumpVersion(timer.getId());
+        List<ActiveTimerChange> changes = List.of(previous == null
+                ? ActiveTimerChange.inserted(timer, ++changeVersion)
+                : ActiveTimerChange.updated(timer, ++changeVersion));
+        publish(changes);
+        recordHistory(changes, false);
+
+        // Bursts of updates to the same timer coalesce into one row write
+        writeJournal.recordUpsert(timer);
+    }
+
+    public synchronized void deleteById(String id) {
         // Update cache immediately
+        Timer previous = timersById.remove(id);
+        versionsById.remove(id);
+        if (previous != null) {
+            List<ActiveTimerChange> changes = List.of(ActiveTimerChange.removed(previous, ++changeVersion));
+            publish(changes);
+            recordHistory(changes, false);
+        }
+
+        // Written to the database by the next journal flush
+        writeJournal.recordDelete(id);
+    }
+
+    /**
+     * Insert the timer if its id is unknown, update it if its contents changed, and skip it
+     * entirely otherwise. Decided in O(1) against the id-keyed cache, which unlike the
+     * LiveData value is current as soon as a write returns. Meant for timers received from
+     * elsewhere; a cached instance that was edited in place goes through {@link #update(Timer)}.
+     */
+    public synchronized UpsertResult upsert(Timer timer) {
+        UpsertResult result = reconcile(timer);
+        if (result == UpsertResult.UNCHANGED) {
+            // The contents are cached already, but a newer sync version is still kept
+            setSyncVersion(timer.getId(), timer.getVersion());
+            return result;
+        }
+        keepSyncVersion(timer);
+
         timersById.put(timer.getId(), timer);
-        updateTimersLiveData();
-        
-        // Update database in background
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            activeTimerDao.insert(TimerConverter.toActiveTimer(timer));
-        });
-    }
-
-    public void update(Timer timer) {
-        // Throttle updates to database (max once per second)
-        long currentTime = System.currentTimeMillis();
-        Long lastUpdate = lastUpdateTime.get(timer.getId());
-        if (lastUpdate != null && currentTime - lastUpdate < 1000) {
-            // Skip database update if too soon
+        bumpVersion(timer.getId());
+        List<ActiveTimerChange> changes = List.of(toChange(result, timer));
+        publish(changes);
+        recordHistory(changes, false);
+        writeJournal.recordUpsert(timer);
+        return result;
+    }
+
+    /**
+     * {@link #upsert(Timer)} a batch of timers with one emission for all of them. The changed
+     * timers are written by the next journal flush in a single transaction.
+     * @return the timers that were inserted or updated
+     */
+    public synchronized List<Timer> upsertAll(List<Timer> timers) {
+        List<Timer> changedTimers = new ArrayList<>();
+        List<ActiveTimerChange> changes = new ArrayList<>();
+        for (Timer timer : timers) {
+            UpsertResult result = reconcile(timer);
+            if (result == UpsertResult.UNCHANGED) {
+                setSyncVersion(timer.getId(), timer.getVersion());
+                continue;
+            }
+            keepSyncVersion(timer);
+            timersById.put(timer.getId(), timer);
+            bumpVersion(timer.getId());
+            writeJournal.recordUpsert(timer);
+            changedTimers.add(timer);
+            changes.add(toChange(result, timer));
+        }
+
+        if (!changes.isEmpty()) {
+            publish(changes);
+            recordHistory(changes, false);
+        }
+        return changedTimers;
+    }
+
+    /**
+     * Replace all active timers with the given list. The cache is swapped and observers
+     * notified once for the whole list, and the database is brought in line in a single
+     * transaction that also deletes missing timers.
+     * @return the changes applied, including a removal per deleted timer
+     */
+    public synchronized List<ActiveTimerChange> replaceAll(List<Timer> timers) {
+        return replaceAll(timers, timer -> false);
+    }
+
+    /**
+     * {@link #replaceAll(List)}, except that current timers missing from the list are kept
+     * if they match keepIfMissing, e.g. local timers an authoritative list can't know about.
+     * @return the changes applied, including a removal per deleted timer
+     */
+    public synchronized List<ActiveTimerChange> replaceAll(List<Timer> timers, Predicate<Timer> keepIfMissing) {
+        ConcurrentHashMap<String, Timer> replacement = indexById(timers);
+        List<ActiveTimerChange> changes = new ArrayList<>();
+        for (Timer timer : replacement.values()) {
+            keepSyncVersion(timer);
+            UpsertResult result = reconcile(timer);
+            if (result != UpsertResult.UNCHANGED) {
+                bumpVersion(timer.getId());
+                changes.add(toChange(result, timer));
+            }
+        }
+        for (Timer current : timersById.values()) {
+            if (replacement.containsKey(current.getId())) {
+                continue;
+            }
+            if (keepIfMissing.test(current)) {
+                replacement.put(current.getId(), current);
+            } else {
+                changes.add(ActiveTimerChange.removed(current, ++changeVersion));
+            }
+        }
+        timersById = replacement;
+        versionsById.keySet().retainAll(replacement.keySet());
+        // Observers of the full list hear about the replacement even if nothing changed
+        publish(changes);
+        recordHistory(changes, false);
+
+        writeJournal.recordReplaceAll(new ArrayList<>(replacement.values()));
+        return changes;
+    }
+
+    /**
+     * Record the version a timer was synced at without reporting a change, since its contents
+     * are the same. Versions only ever go up.
+     */
+    public synchronized void setSyncVersion(String id, long version) {
+        Timer current = timersById.get(id);
+        if (current == null || current.getVersion() >= version) {
             return;
         }
-        
-        // Update cache immediately
-        timersById.put(timer.getId(), timer);
-        updateTimersLiveData();
-        lastUpdateTime.put(timer.getId(), currentTime);
-        
-        // Update database in background
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            activeTimerDao.update(TimerConverter.toActiveTimer(timer));
-        });
+        current.setVersion(version);
+        writeJournal.recordUpsert(current);
     }
 
-    public void deleteById(String id) {
-        // Update cache immediately
-        timersById.remove(id);
-        lastUpdateTime.remove(id);
-        updateTimersLiveData();
-        
-        // Update database in background
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            activeTimerDao.deleteById(id);
-        });
-    }
-
-    private void updateTimersLiveData() {
-        List<Timer> timers = List.copyOf(timersById.values());
-        timersLiveData.postValue(timers);
+    /**
+     * Write all pending changes to the database now, e.g. before the service shuts down.
+     * @return completes once the pending changes are committed
+     */
+    public Future<?> flush() {
+        return writeJournal.flush();
+    }
+
+    ActiveTimerWriteJournal getWriteJournal() {
+        return writeJournal;
+    }
+
+    /**
+     * @return the number of Room emissions that only read back this repository's own flushes
+     */
+    synchronized long getSkippedEchoCount() {
+        return skippedEchoCount;
+    }
+
+    /**
+     * Rewrite the snapshot file with the cached timers. Runs on the write lane, after the
+     * journal has committed, so the file is never older than the database.
+     */
+    private void writeSnapshot() {
+        if (snapshotFile == null) {
+            return;
+        }
+        List<ActiveTimer> activeTimers;
+        synchronized (this) {
+            activeTimers = new ArrayList<>(timersById.size());
+            for (Timer timer : timersById.values()) {
+                activeTimers.add(TimerConverter.toActiveTimer(timer));
+            }
+        }
+        snapshotFile.write(activeTimers);
+    }
+
+    private UpsertResult reconcile(Timer timer) {
+        Timer current = timersById.get(timer.getId());
+        if (current == null) {
+            return UpsertResult.INSERTED;
+        }
+        return hasSameContents(current, timer) ? UpsertResult.UNCHANGED : UpsertResult.UPDATED;
+    }
+
+    /**
+     * A timer written without a sync version, e.g. edited locally, keeps the one it had.
+     */
+    private void keepSyncVersion(Timer timer) {
+        Timer current = timersById.get(timer.getId());
+        if (current != null && current.getVersion() > timer.getVersion()) {
+            timer.setVersion(current.getVersion());
+        }
+    }
+
+    private ActiveTimerChange toChange(UpsertResult result, Timer timer) {
+        return result == UpsertResult.INSERTED
+                ? ActiveTimerChange.inserted(timer, ++changeVersion)
+                : ActiveTimerChange.updated(timer, ++changeVersion);
+    }
+
+    /**
+     * @return whether an emission holds exactly the rows last flushed or read back, i.e. it only
+     * reads back this repository's own writes
+     */
+    private boolean echoesPersistedRows(List<ActiveTimerWithRelations> activeTimers) {
+        if (activeTimers.size() != persistedRows.size()) {
+            return false;
+        }
+        for (ActiveTimerWithRelations activeTimer : activeTimers) {
+            ActiveTimer written = persistedRows.get(activeTimer.activeTimer.id);
+            if (written == null || !activeTimer.isRowOf(written)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasSameContents(Timer current, Timer timer) {
+        // Timer.equals ignores tags and sharedBy
+        return current.equals(timer)
+                && Objects.equals(current.getTags(), timer.getTags())
+                && Objects.equals(current.getSharedBy(), timer.getSharedBy());
+    }
+
+    /**
+     * Rows keep durations to the second and timerEnd to the millisecond, so a row read back
+     * is compared with the cached timer it was written from at that precision.
+     */
+    private static boolean matchesPersisted(Timer current, Timer persisted) {
+        TimerData currentData = current.getTimerData();
+        TimerData persistedData = persisted.getTimerData();
+        return Objects.equals(currentData.userId, persistedData.userId)
+                && Objects.equals(currentData.name, persistedData.name)
+                && Objects.equals(toSeconds(currentData.totalDuration), toSeconds(persistedData.totalDuration))
+                && Objects.equals(toSeconds(currentData.remainingDurationWhenPaused),
+                        toSeconds(persistedData.remainingDurationWhenPaused))
+                && Objects.equals(toMillis(currentData.timerEnd), toMillis(persistedData.timerEnd))
+                && Objects.equals(current.getTags(), persisted.getTags())
+                && Objects.equals(current.getSharedWith(), persisted.getSharedWith())
+                && Objects.equals(emptyToNull(current.getSharedBy()), emptyToNull(persisted.getSharedBy()));
+    }
+
+    private static Long toSeconds(Duration duration) {
+        return duration != null ? duration.getSeconds() : null;
+    }
+
+    private static LocalDateTime toMillis(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.truncatedTo(ChronoUnit.MILLIS) : null;
+    }
+
+    private static String emptyToNull(String value) {
+        return (value == null || value.isEmpty()) ? null : value;
+    }
+
+    private void bumpVersion(String id) {
+        versionsById.merge(id, 1L, Long::sum);
+    }
+
+    private static ConcurrentHashMap<String, Timer> indexById(List<Timer> timers) {
+        ConcurrentHashMap<String, Timer> timersById = new ConcurrentHashMap<>();
+        timers.forEach(timer -> timersById.put(timer.getId(), timer));
+        return timersById;
+    }
+
+    /**
+     * @param existing true if the changes describe timers that already existed, which are
+     *                 followed from now on without recording events for them
+     */
+    private void recordHistory(List<ActiveTimerChange> changes, boolean existing) {
+        if (historyRecorder == null) {
+            return;
+        }
+        for (ActiveTimerChange change : changes) {
+            if (change.getType() == ActiveTimerChange.Type.REMOVED) {
+                if (existing) {
+                    historyRecorder.untrack(change.getTimerId());
+                } else {
+                    historyRecorder.onRemoved(change.getTimer());
+                }
+            } else if (existing) {
+                historyRecorder.track(change.getTimer());
+            } else {
+                historyRecorder.onSaved(change.getTimer());
+            }
+        }
+    }
+
+    /**
+     * Hand the changes to every listener and refresh the full-list LiveData. Called with the
+     * lock held so changes are queued on the callback executor in version order.
+     */
+    private void publish(List<ActiveTimerChange> changes) {
+        if (!changes.isEmpty()) {
+            for (ChangeListener listener : changeListeners) {
+                callbackExecutor.execute(() -> {
+                    // Don't call back a listener that was removed after the changes were queued
+                    if (changeListeners.contains(listener)) {
+                        listener.onTimersChanged(changes);
+                    }
+                });
+            }
+        }
+
+        if (timersLiveData.hasActiveObservers()) {
+            timersLiveData.postValue(List.copyOf(timersById.values()));
+        }
     }
 }
@@ -0,0 +1,218 @@
+package io.jhoyt.bubbletimer.db;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compact binary copy of the active timer rows, read before Room has opened the database.
+ *
+ * The file holds exactly what the ActiveTimer, timer_tag and timer_share tables would, at the
+ * same precision (durations in seconds, timerEnd in epoch millis), so rows read from it compare
+ * equal to rows later read back from Room. It is rewritten after every committed journal flush
+ * by writing a temporary file and renaming it over the old one, so a reader sees either the
+ * previous or the next complete snapshot and never a torn one. A missing, truncated or foreign
+ * file reads as empty and startup falls back to waiting for Room.
+ */
+class ActiveTimerSnapshotFile {
+    private static final String TAG = "ActiveTimerSnapshotFile";
+
+    private static final int MAGIC = 0x42545331; // "BTS1"
+    // Version 2 added the wire version; older files read as empty
+    private static final int FORMAT_VERSION = 2;
+    private static final long NULL_LONG = Long.MIN_VALUE;
+
+    private final File file;
+
+    ActiveTimerSnapshotFile(File file) {
+        this.file = file;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the rows of the last snapshot written, or an empty list if there is no usable one
+     */
+    List<ActiveTimer> read() {
+        if (!file.isFile()) {
+            return List.of();
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return decode(buffer);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            Log.w(TAG, "Ignoring unreadable timer snapshot " + file, e);
+            return List.of();
+        }
+    }
+
+    /**
+     * Replace the snapshot with the given rows. Only called from the database write lane, so
+     * writes never race each other.
+     * @return false if the snapshot could not be written; the previous one is left in place
+     */
+    boolean write(Collection<ActiveTimer> activeTimers) {
+        File temporary = new File(file.getPath() + ".tmp");
+        try {
+            ByteBuffer buffer = encode(activeTimers);
+            try (FileOutputStream output = new FileOutputStream(temporary)) {
+                output.getChannel().write(buffer);
+                output.getFD().sync();
+            }
+            Files.move(temporary.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write timer snapshot " + file, e);
+            temporary.delete();
+            return false;
+        }
+    }
+
+    static ByteBuffer encode(Collection<ActiveTimer> activeTimers) {
+        List<byte[]> strings = new ArrayList<>();
+        int size = 3 * Integer.BYTES;
+        for (ActiveTimer activeTimer : activeTimers) {
+            size += sizeOf(strings, activeTimer.id) + sizeOf(strings, activeTimer.name)
+                    + sizeOf(strings, activeTimer.userId) + sizeOf(strings, activeTimer.sharedBy)
+                    + 4 * Long.BYTES
+                    + sizeOf(strings, activeTimer.tags) + sizeOf(strings, activeTimer.sharedWith);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(activeTimers.size());
+        int next = 0;
+        for (ActiveTimer activeTimer : activeTimers) {
+            // Strings are written in the order sizeOf encoded them
+            next = putString(buffer, strings, next);
+            next = putString(buffer, strings, next);
+            next = putString(buffer, strings, next);
+            next = putString(buffer, strings, next);
+            buffer.putLong(orNull(Converters.durationToSeconds(activeTimer.totalDuration)));
+            buffer.putLong(orNull(Converters.durationToSeconds(activeTimer.remainingDurationWhenPaused)));
+            buffer.putLong(orNull(Converters.localDateTimeToEpochMillis(activeTimer.timerEnd)));
+            buffer.putLong(activeTimer.version);
+            next = putStrings(buffer, strings, next, activeTimer.tags);
+            next = putStrings(buffer, strings, next, activeTimer.sharedWith);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    static List<ActiveTimer> decode(ByteBuffer buffer) {
+        if (buffer.remaining() < 3 * Integer.BYTES
+                || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            return List.of();
+        }
+        int count = buffer.getInt();
+        if (count < 0) {
+            throw new IllegalArgumentException("Negative row count " + count);
+        }
+
+        List<ActiveTimer> activeTimers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ActiveTimer activeTimer = new ActiveTimer();
+            activeTimer.id = getString(buffer);
+            activeTimer.name = getString(buffer);
+            activeTimer.userId = getString(buffer);
+            activeTimer.sharedBy = getString(buffer);
+            activeTimer.totalDuration = Converters.fromSeconds(getNullableLong(buffer));
+            activeTimer.remainingDurationWhenPaused = Converters.fromSeconds(getNullableLong(buffer));
+            activeTimer.timerEnd = Converters.fromEpochMillis(getNullableLong(buffer));
+            activeTimer.version = buffer.getLong();
+            activeTimer.tags = getStrings(buffer);
+            activeTimer.sharedWith = getStrings(buffer);
+            if (activeTimer.id == null) {
+                throw new IllegalArgumentException("Row " + i + " has no id");
+            }
+            activeTimers.add(activeTimer);
+        }
+        return activeTimers;
+    }
+
+    private static int sizeOf(List<byte[]> strings, String value) {
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+        strings.add(bytes);
+        return Integer.BYTES + (bytes != null ? bytes.length : 0);
+    }
+
+    private static int sizeOf(List<byte[]> strings, Set<String> values) {
+        int size = Integer.BYTES;
+        if (values != null) {
+            for (String value : values) {
+                size += sizeOf(strings, value);
+            }
+        }
+        return size;
+    }
+
+    private static int putString(ByteBuffer buffer, List<byte[]> strings, int index) {
+        byte[] bytes = strings.get(index);
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+        return index + 1;
+    }
+
+    private static int putStrings(ByteBuffer buffer, List<byte[]> strings, int index, Set<String> values) {
+        int count = values != null ? values.size() : 0;
+        buffer.putInt(count);
+        for (int i = 0; i < count; i++) {
+            index = putString(buffer, strings, index);
+        }
+        return index;
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Set<String> getStrings(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / Integer.BYTES) {
+            throw new IllegalArgumentException("Bad set size " + count);
+        }
+        Set<String> values = new HashSet<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            values.add(getString(buffer));
+        }
+        return values;
+    }
+
+    private static long orNull(Long value) {
+        return value != null ? value : NULL_LONG;
+    }
+
+    private static Long getNullableLong(ByteBuffer buffer) {
+        long value = buffer.getLong();
+        return value != NULL_LONG ? value : null;
+    }
+}
@@ -0,0 +1,67 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.room.Embedded;
+import androidx.room.Relation;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An active timer row loaded together with its tags and shared users.
+ */
+public class ActiveTimerWithRelations {
+    @Embedded
+    public ActiveTimer activeTimer;
+
+    @Relation(parentColumn = "id", entityColumn = "timerId", entity = TimerTag.class, projection = {"tag"})
+    public List<String> tags;
+
+    @Relation(parentColumn = "id", entityColumn = "timerId", entity = TimerShare.class, projection = {"userId"})
+    public List<String> sharedWith;
+
+    /**
+     * @return the timer row with its tags and shared users filled in
+     */
+    public ActiveTimer toActiveTimer() {
+        activeTimer.tags = tags != null ? new HashSet<>(tags) : new HashSet<>();
+        activeTimer.sharedWith = sharedWith != null ? new HashSet<>(sharedWith) : new HashSet<>();
+        return activeTimer;
+    }
+
+    /**
+     * @return whether this row holds what was written for the given timer, compared at the
+     * precision the columns keep, without converting either
+     */
+    boolean isRowOf(ActiveTimer written) {
+        ActiveTimer row = activeTimer;
+        return row.id.equals(written.id)
+                && row.version == written.version
+                && Objects.equals(row.userId, written.userId)
+                && Objects.equals(row.name, written.name)
+                && Objects.equals(row.sharedBy, written.sharedBy)
+                && Objects.equals(Converters.durationToSeconds(row.totalDuration),
+                        Converters.durationToSeconds(written.totalDuration))
+                && Objects.equals(Converters.durationToSeconds(row.remainingDurationWhenPaused),
+                        Converters.durationToSeconds(written.remainingDurationWhenPaused))
+                && Objects.equals(Converters.localDateTimeToEpochMillis(row.timerEnd),
+                        Converters.localDateTimeToEpochMillis(written.timerEnd))
+                && sameElements(tags, written.tags)
+                && sameElements(sharedWith, written.sharedWith);
+    }
+
+    private static boolean sameElements(List<String> values, Set<String> written) {
+        // Both are keyed by (timerId, value), so the list holds no repeats
+        return values != null ? values.size() == written.size() && written.containsAll(values) : written.isEmpty();
+    }
+
+    public static List<ActiveTimer> toActiveTimers(List<ActiveTimerWithRelations> activeTimers) {
+        List<ActiveTimer> result = new ArrayList<>(activeTimers.size());
+        for (ActiveTimerWithRelations activeTimer : activeTimers) {
+            result.add(activeTimer.toActiveTimer());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,263 @@
+package io.jhoyt.bubbletimer.db;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.jhoyt.bubbletimer.Timer;
+import io.jhoyt.bubbletimer.TimerConverter;
+import io.jhoyt.bubbletimer.core.concurrency.KeyedSerialExecutor;
+
+/**
+ * Write-behind journal for active timer rows.
+ *
+ * Writes are coalesced per timer id so only the latest state of each dirty timer reaches the
+ * database. The first write after a flush schedules the next one, so a row is never dirty for
+ * longer than the flush delay no matter how bursty the input is, and every flush is applied
+ * as a single transaction. A full replacement of the table is journaled the same way and
+ * written with the writes that follow it in one transaction. Until a flush has committed,
+ * {@link #overlay(List)} layers the journal over rows read back from the database so readers
+ * never see a stale row.
+ *
+ * Flushes run on the executor's lane for the journal's key, so they never overlap each other
+ * and queue behind any other write submitted for the same key.
+ */
+class ActiveTimerWriteJournal {
+    private static final String TAG = "ActiveTimerWriteJournal";
+
+    interface Sink {
+        void apply(List<ActiveTimer> upserts, List<String> deletedIds);
+
+        void replaceAll(List<ActiveTimer> activeTimers);
+    }
+
+    // A null timer marks a pending delete
+    private static final class Write {
+        final String timerId;
+        final Timer timer;
+
+        Write(String timerId, Timer timer) {
+            this.timerId = timerId;
+            this.timer = timer;
+        }
+    }
+
+    private final Sink sink;
+    private final KeyedSerialExecutor executor;
+    private final String key;
+    private final long flushDelayMs;
+
+    private final Map<String, Write> pending = new LinkedHashMap<>();
+    private final Map<String, Write> inFlight = new LinkedHashMap<>();
+    // Full table contents to write instead of the current rows, null if there is none
+    private Map<String, Timer> pendingReplacement;
+    private Map<String, Timer> inFlightReplacement;
+    private ScheduledFuture<?> scheduledFlush;
+
+    private long recordedWriteCount;
+    private long flushedRowCount;
+    private long flushCount;
+
+    ActiveTimerWriteJournal(Sink sink, KeyedSerialExecutor executor, String key, long flushDelayMs) {
+        this.sink = sink;
+        this.executor = executor;
+        this.key = key;
+        this.flushDelayMs = flushDelayMs;
+    }
+
+    void recordUpsert(Timer timer) {
+        // Callers keep mutating their Timer, so the journal holds the state as of this write
+        record(new Write(timer.getId(), timer.copy()));
+    }
+
+    void recordDelete(String timerId) {
+        record(new Write(timerId, null));
+    }
+
+    /**
+     * Replace every row with the given timers. Supersedes all writes recorded before it.
+     */
+    synchronized void recordReplaceAll(List<Timer> timers) {
+        Map<String, Timer> replacement = new LinkedHashMap<>();
+        for (Timer timer : timers) {
+            replacement.put(timer.getId(), timer.copy());
+        }
+        pendingReplacement = replacement;
+        pending.clear();
+        recordedWriteCount += replacement.size();
+
+        if (scheduledFlush == null) {
+            scheduledFlush = executor.schedule(key, this::flushNow, flushDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void record(Write write) {
+        pending.put(write.timerId, write);
+        recordedWriteCount++;
+
+        if (scheduledFlush == null) {
+            scheduledFlush = executor.schedule(key, this::flushNow, flushDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write every dirty row now instead of waiting for the scheduled flush.
+     * @return completes once the rows dirty at the time of the call are committed
+     */
+    Future<?> flush() {
+        synchronized (this) {
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = null;
+            }
+        }
+        return executor.submit(key, this::flushNow);
+    }
+
+    /**
+     * Apply the writes that have not been committed yet on top of rows read from the database.
+     */
+    synchronized List<Timer> overlay(List<Timer> persistedTimers) {
+        if (pending.isEmpty() && inFlight.isEmpty()
+                && pendingReplacement == null && inFlightReplacement == null) {
+            return persistedTimers;
+        }
+
+        Map<String, Timer> timersById;
+        if (pendingReplacement != null) {
+            timersById = new LinkedHashMap<>(pendingReplacement);
+        } else {
+            if (inFlightReplacement != null) {
+                timersById = new LinkedHashMap<>(inFlightReplacement);
+            } else {
+                timersById = new LinkedHashMap<>();
+                for (Timer timer : persistedTimers) {
+                    timersById.put(timer.getId(), timer);
+                }
+            }
+            applyTo(timersById, inFlight.values());
+        }
+        applyTo(timersById, pending.values());
+        return new ArrayList<>(timersById.values());
+    }
+
+    private void flushNow() {
+        List<Write> batch;
+        Map<String, Timer> replacement;
+        synchronized (this) {
+            scheduledFlush = null;
+            if (pending.isEmpty() && pendingReplacement == null) {
+                return;
+            }
+            batch = new ArrayList<>(pending.values());
+            pending.clear();
+
+            replacement = pendingReplacement;
+            pendingReplacement = null;
+            if (replacement != null) {
+                // Writes recorded after the replacement are folded into it
+                applyTo(replacement, batch);
+                batch.clear();
+                inFlightReplacement = replacement;
+            } else {
+                for (Write write : batch) {
+                    inFlight.put(write.timerId, write);
+                }
+            }
+        }
+
+        boolean committed = false;
+        int rowCount;
+        try {
+            if (replacement != null) {
+                List<ActiveTimer> activeTimers = new ArrayList<>();
+                for (Timer timer : replacement.values()) {
+                    activeTimers.add(TimerConverter.toActiveTimer(timer));
+                }
+                rowCount = activeTimers.size();
+                sink.replaceAll(activeTimers);
+            } else {
+                List<ActiveTimer> upserts = new ArrayList<>();
+                List<String> deletedIds = new ArrayList<>();
+                for (Write write : batch) {
+                    if (write.timer == null) {
+                        deletedIds.add(write.timerId);
+                    } else {
+                        upserts.add(TimerConverter.toActiveTimer(write.timer));
+                    }
+                }
+                rowCount = batch.size();
+                sink.apply(upserts, deletedIds);
+            }
+            committed = true;
+        } catch (Exception e) {
+            rowCount = 0;
+            Log.e(TAG, "Failed to flush timer writes, retrying", e);
+        }
+
+        synchronized (this) {
+            if (replacement != null) {
+                inFlightReplacement = null;
+                if (!committed && pendingReplacement == null) {
+                    // Writes recorded meanwhile still apply on top of the restored replacement
+                    pendingReplacement = replacement;
+                }
+            }
+            for (Write write : batch) {
+                inFlight.remove(write.timerId, write);
+                if (!committed) {
+                    // Keep any newer write that arrived while this batch was in flight
+                    pending.putIfAbsent(write.timerId, write);
+                }
+            }
+
+            if (committed) {
+                flushedRowCount += rowCount;
+                flushCount++;
+            } else if (scheduledFlush == null) {
+                scheduledFlush = executor.schedule(key, this::flushNow, flushDelayMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private static void applyTo(Map<String, Timer> timersById, Collection<Write> writes) {
+        for (Write write : writes) {
+            if (write.timer == null) {
+                timersById.remove(write.timerId);
+            } else {
+                timersById.put(write.timerId, write.timer);
+            }
+        }
+    }
+
+    synchronized int getPendingCount() {
+        return pending.size() + inFlight.size()
+                + (pendingReplacement != null ? pendingReplacement.size() : 0)
+                + (inFlightReplacement != null ? inFlightReplacement.size() : 0);
+    }
+
+    /**
+     * @return the number of writes recorded by callers
+     */
+    synchronized long getRecordedWriteCount() {
+        return recordedWriteCount;
+    }
+
+    /**
+     * @return the number of rows actually written to the database
+     */
+    synchronized long getFlushedRowCount() {
+        return flushedRowCount;
+    }
+
+    synchronized long getFlushCount() {
+        return flushCount;
+    }
+}
@@ -8,15 +8,21 @@ import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
+import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import java.time.Duration;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+
+import io.jhoyt.bubbletimer.core.concurrency.KeyedSerialExecutor;
 
 @Database(
-    version = 8,
-    entities = {Timer.class, ActiveTimer.class, Tag.class, SharedTimer.class},
+    version = 16,
+    entities = {
+        Timer.class, ActiveTimer.class, Tag.class, SharedTimer.class,
+        TimerTag.class, TimerShare.class, SavedTimerTag.class, SharedTimerShare.class,
+        TimerEvent.class, TimerEventTag.class, TimerRollup.class, TimerHistoryCursor.class,
+        TimerSearchDoc.class, TimerSearchEntry.class
+    },
     autoMigrations = {
         @AutoMigration(from = 1, to = 2),
         @AutoMigration(from = 2, to = 3),
@@ -33,11 +39,37 @@ public abstract class AppDatabase extends RoomDatabase {
     public abstract ActiveTimerDao activeTimerDao();
     public abstract TagDao tagDao();
     public abstract SharedTimerDao sharedTimerDao();
+    public abstract TimerHistoryDao timerHistoryDao();
+    public abstract TimerSearchDao timerSearchDao();
+
+    // Moves the joined tag and sharedWith strings into junction tables
+    static final Migration MIGRATION_8_9 = new Migration8To9();
+    // Stores timestamps as epoch millis and indexes ActiveTimer.timerEnd
+    static final Migration MIGRATION_9_10 = new Migration9To10();
+    // Adds the timer history log and its rollups
+    static final Migration MIGRATION_10_11 = new Migration10To11();
+    // Adds Timer.lastUsed and the indices the saved timer pages are read through
+    static final Migration MIGRATION_11_12 = new Migration11To12();
+    // Adds the full-text index over timer names and tags
+    static final Migration MIGRATION_12_13 = new Migration12To13();
+    // Adds ActiveTimer.version, the timer's version on the wire
+    static final Migration MIGRATION_13_14 = new Migration13To14();
+    // Makes Timer.title NOT NULL so title-ordered pages can't skip untitled timers
+    static final Migration MIGRATION_14_15 = new Migration14To15();
+    // Moves the full-text index to the unicode61 tokenizer so non-ASCII names match any case
+    static final Migration MIGRATION_15_16 = new Migration15To16();
+    // Every manual migration, in order, for the database builder and the migration test
+    static final Migration[] MIGRATIONS = {
+        MIGRATION_8_9, MIGRATION_9_10, MIGRATION_10_11, MIGRATION_11_12, MIGRATION_12_13, MIGRATION_13_14,
+        MIGRATION_14_15, MIGRATION_15_16
+    };
 
     private static volatile AppDatabase INSTANCE;
     private static final int NUMBER_OF_THREADS = 4;
-    static final ExecutorService databaseWriteExecutor =
-            Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+    // Writes are keyed by the row they touch so writes to one row apply in submission order
+    public static final KeyedSerialExecutor databaseWriteExecutor =
+            new KeyedSerialExecutor("db-write", NUMBER_OF_THREADS);
+    static final String SEED_WRITE_KEY = "seed";
 
     public static AppDatabase getDatabase(final Context context) {
         if (INSTANCE == null) {
@@ -46,6 +78,8 @@ public abstract class AppDatabase extends RoomDatabase {
                     INSTANCE = Room.databaseBuilder(
                                     context.getApplicationContext(),
                                     AppDatabase.class, "timer_database")
+                            .addMigrations(MIGRATIONS)
+                            .addCallback(TIMER_SEARCH_CALLBACK)
                             .addCallback(roomDatabaseCallback)
                             .build();
                 }
@@ -54,12 +88,24 @@ public abstract class AppDatabase extends RoomDatabase {
         return INSTANCE;
     }
 
+    /**
+     * Room creates the search tables from the entities but knows nothing about the triggers that
+     * fill them, so they're added here. Any builder for this database needs it, tests included.
+     */
+    public static final RoomDatabase.Callback TIMER_SEARCH_CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onCreate(@NonNull SupportSQLiteDatabase db) {
+            super.onCreate(db);
+            TimerSearchIndex.createTriggers(db);
+        }
+    };
+
     static RoomDatabase.Callback roomDatabaseCallback = new RoomDatabase.Callback() {
         @Override
         public void onCreate(@NonNull SupportSQLiteDatabase db) {
             super.onCreate(db);
 
-            databaseWriteExecutor.execute(() -> {
+            databaseWriteExecutor.execute(SEED_WRITE_KEY, () -> {
                 TimerDao dao = INSTANCE.timerDao() ;
                 //dao.deleteAll();
 
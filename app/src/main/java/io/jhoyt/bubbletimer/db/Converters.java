@@ -3,8 +3,9 @@ package io.jhoyt.bubbletimer.db;
 import androidx.room.TypeConverter;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneId;
 
 public class Converters {
     @TypeConverter
@@ -17,13 +18,14 @@ public class Converters {
         return duration == null ? null : duration.getSeconds();
     }
 
+    // Stored as epoch millis so timestamp columns are INTEGER and can be indexed and compared in SQL
     @TypeConverter
-    public static LocalDateTime fromString(String value) {
-        return (value == null || value.isEmpty()) ? null : LocalDateTime.parse(value, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    public static LocalDateTime fromEpochMillis(Long value) {
+        return value == null ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(value), ZoneId.systemDefault());
     }
 
     @TypeConverter
-    public static String localDateTimeToString(LocalDateTime localDateTime) {
-        return localDateTime == null ? "" : localDateTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    public static Long localDateTimeToEpochMillis(LocalDateTime localDateTime) {
+        return localDateTime == null ? null : localDateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
 }
@@ -0,0 +1,38 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Adds the timer history tables: the timer_event log with its timer_event_tag rows, the
+ * timer_rollup buckets and the timer_history_cursor marking how far the log is compacted.
+ * Nothing existing changes, so the history simply starts empty.
+ */
+class Migration10To11 extends Migration {
+
+    Migration10To11() {
+        super(10, 11);
+    }
+
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS `timer_event` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                + "`timerId` TEXT NOT NULL, `type` TEXT NOT NULL, `at` INTEGER NOT NULL, "
+                + "`consumedSeconds` INTEGER NOT NULL, `runSeconds` INTEGER NOT NULL, `addedSeconds` INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_timer_event_timerId` ON `timer_event` (`timerId`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_timer_event_at` ON `timer_event` (`at`)");
+
+        db.execSQL("CREATE TABLE IF NOT EXISTS `timer_event_tag` (`eventId` INTEGER NOT NULL, `tag` TEXT NOT NULL, "
+                + "PRIMARY KEY(`eventId`, `tag`), FOREIGN KEY(`eventId`) REFERENCES `timer_event`(`id`) "
+                + "ON UPDATE NO ACTION ON DELETE CASCADE )");
+
+        db.execSQL("CREATE TABLE IF NOT EXISTS `timer_rollup` (`period` TEXT NOT NULL, `bucketStart` INTEGER NOT NULL, "
+                + "`tag` TEXT NOT NULL, `runSeconds` INTEGER NOT NULL, `starts` INTEGER NOT NULL, "
+                + "`extensions` INTEGER NOT NULL, `addedSeconds` INTEGER NOT NULL, `expirations` INTEGER NOT NULL, "
+                + "`stops` INTEGER NOT NULL, PRIMARY KEY(`period`, `bucketStart`, `tag`))");
+
+        db.execSQL("CREATE TABLE IF NOT EXISTS `timer_history_cursor` (`id` INTEGER NOT NULL, "
+                + "`compactedThroughEventId` INTEGER NOT NULL, PRIMARY KEY(`id`))");
+    }
+}
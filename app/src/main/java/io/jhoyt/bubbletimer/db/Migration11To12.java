@@ -0,0 +1,23 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Adds Timer.lastUsed and indexes it and Timer.title so the saved timer library can be read a
+ * page at a time in either order. Existing timers start out as never used.
+ */
+class Migration11To12 extends Migration {
+
+    Migration11To12() {
+        super(11, 12);
+    }
+
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL("ALTER TABLE `Timer` ADD COLUMN `lastUsed` INTEGER NOT NULL DEFAULT 0");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_Timer_title` ON `Timer` (`title`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_Timer_lastUsed` ON `Timer` (`lastUsed`)");
+    }
+}
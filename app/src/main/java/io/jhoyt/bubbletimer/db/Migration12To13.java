@@ -0,0 +1,30 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Adds the full-text index over saved and active timer names and tags, the triggers that keep
+ * it current, and indexes the timers that already exist.
+ */
+class Migration12To13 extends Migration {
+
+    Migration12To13() {
+        super(12, 13);
+    }
+
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS `timer_search_doc` ("
+                + "`docid` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                + "`source` TEXT NOT NULL, "
+                + "`timerId` TEXT NOT NULL)");
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_timer_search_doc_source_timerId` "
+                + "ON `timer_search_doc` (`source`, `timerId`)");
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `timer_search` USING FTS4(`name` TEXT, `tags` TEXT)");
+
+        TimerSearchIndex.createTriggers(db);
+        TimerSearchIndex.rebuild(db);
+    }
+}
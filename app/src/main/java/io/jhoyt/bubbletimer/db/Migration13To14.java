@@ -0,0 +1,21 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Adds the version each active timer was last synced at, so stale frames can still be told
+ * apart after a restart. Existing timers start unversioned.
+ */
+class Migration13To14 extends Migration {
+
+    Migration13To14() {
+        super(13, 14);
+    }
+
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL("ALTER TABLE `ActiveTimer` ADD COLUMN `version` INTEGER NOT NULL DEFAULT 0");
+    }
+}
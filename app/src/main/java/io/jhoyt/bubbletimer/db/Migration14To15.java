@@ -0,0 +1,32 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Makes Timer.title NOT NULL so the title-ordered pages, which seek on the title, can't skip
+ * an untitled timer. Untitled timers get the empty title and sort first. SQLite can't change a
+ * column's constraints in place, so the table is rebuilt along with its indices and the search
+ * triggers that dropping it takes with it.
+ */
+class Migration14To15 extends Migration {
+
+    Migration14To15() {
+        super(14, 15);
+    }
+
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS `Timer_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                + "`title` TEXT NOT NULL, `duration` INTEGER, `lastUsed` INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("INSERT INTO `Timer_new` (`id`, `title`, `duration`, `lastUsed`) "
+                + "SELECT `id`, COALESCE(`title`, ''), `duration`, `lastUsed` FROM `Timer`");
+        db.execSQL("DROP TABLE `Timer`");
+        db.execSQL("ALTER TABLE `Timer_new` RENAME TO `Timer`");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_Timer_title` ON `Timer` (`title`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_Timer_lastUsed` ON `Timer` (`lastUsed`)");
+
+        TimerSearchIndex.createTriggers(db);
+    }
+}
@@ -0,0 +1,25 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Switches the full-text index to the unicode61 tokenizer, which folds case and diacritics
+ * outside ASCII too, and indexes every timer again. A tokenizer can't be changed in place, so
+ * the index is recreated; the triggers that fill it live on the timer tables and are kept.
+ */
+class Migration15To16 extends Migration {
+
+    Migration15To16() {
+        super(15, 16);
+    }
+
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL("DROP TABLE IF EXISTS `timer_search`");
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `timer_search` USING FTS4("
+                + "`name` TEXT, `tags` TEXT, tokenize=unicode61)");
+        TimerSearchIndex.rebuild(db);
+    }
+}
@@ -0,0 +1,123 @@
+package io.jhoyt.bubbletimer.db;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Moves the '#~#'-joined tag and shared-user strings into the timer_tag, timer_share,
+ * saved_timer_tag and shared_timer_share tables and drops the string columns.
+ *
+ * The legacy values are read before the parent tables are rebuilt without their string
+ * columns, and the junction tables are created after the rebuild so their foreign keys point
+ * at the final tables.
+ */
+class Migration8To9 extends Migration {
+    static final String DELIMITER = "#~#";
+
+    Migration8To9() {
+        super(8, 9);
+    }
+
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase db) {
+        List<Object[]> activeTimerTags = readSplit(db, "SELECT `id`, `tagsString` FROM `ActiveTimer`");
+        List<Object[]> activeTimerShares = readSplit(db, "SELECT `id`, `sharedWithString` FROM `ActiveTimer`");
+        List<Object[]> savedTimerTags = readSplit(db, "SELECT `id`, `tagsString` FROM `Timer`");
+        List<Object[]> sharedTimerShares = readSplit(db, "SELECT `timerId`, `sharedWith` FROM `shared_timers`");
+
+        db.execSQL("CREATE TABLE IF NOT EXISTS `ActiveTimer_new` (`id` TEXT NOT NULL, `name` TEXT, `userId` TEXT, "
+                + "`totalDuration` INTEGER, `remainingDurationWhenPaused` INTEGER, `timerEnd` TEXT, "
+                + "`sharedBy` TEXT DEFAULT '', PRIMARY KEY(`id`))");
+        db.execSQL("INSERT INTO `ActiveTimer_new` (`id`, `name`, `userId`, `totalDuration`, "
+                + "`remainingDurationWhenPaused`, `timerEnd`, `sharedBy`) "
+                + "SELECT `id`, `name`, `userId`, `totalDuration`, `remainingDurationWhenPaused`, `timerEnd`, `sharedBy` "
+                + "FROM `ActiveTimer`");
+        db.execSQL("DROP TABLE `ActiveTimer`");
+        db.execSQL("ALTER TABLE `ActiveTimer_new` RENAME TO `ActiveTimer`");
+
+        db.execSQL("CREATE TABLE IF NOT EXISTS `Timer_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                + "`title` TEXT, `duration` INTEGER)");
+        db.execSQL("INSERT INTO `Timer_new` (`id`, `title`, `duration`) SELECT `id`, `title`, `duration` FROM `Timer`");
+        db.execSQL("DROP TABLE `Timer`");
+        db.execSQL("ALTER TABLE `Timer_new` RENAME TO `Timer`");
+
+        db.execSQL("CREATE TABLE IF NOT EXISTS `shared_timers_new` (`timerId` TEXT NOT NULL, `name` TEXT, "
+                + "`userId` TEXT, `totalDuration` INTEGER, `remainingDuration` INTEGER, `timerEnd` TEXT, "
+                + "`status` TEXT, `sharedBy` TEXT, `createdAt` TEXT, PRIMARY KEY(`timerId`))");
+        db.execSQL("INSERT INTO `shared_timers_new` (`timerId`, `name`, `userId`, `totalDuration`, "
+                + "`remainingDuration`, `timerEnd`, `status`, `sharedBy`, `createdAt`) "
+                + "SELECT `timerId`, `name`, `userId`, `totalDuration`, `remainingDuration`, `timerEnd`, "
+                + "`status`, `sharedBy`, `createdAt` FROM `shared_timers`");
+        db.execSQL("DROP TABLE `shared_timers`");
+        db.execSQL("ALTER TABLE `shared_timers_new` RENAME TO `shared_timers`");
+
+        db.execSQL("CREATE TABLE IF NOT EXISTS `timer_tag` (`timerId` TEXT NOT NULL, `tag` TEXT NOT NULL, "
+                + "PRIMARY KEY(`timerId`, `tag`), FOREIGN KEY(`timerId`) REFERENCES `ActiveTimer`(`id`) "
+                + "ON UPDATE NO ACTION ON DELETE CASCADE )");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_timer_tag_tag` ON `timer_tag` (`tag`)");
+
+        db.execSQL("CREATE TABLE IF NOT EXISTS `timer_share` (`timerId` TEXT NOT NULL, `userId` TEXT NOT NULL, "
+                + "PRIMARY KEY(`timerId`, `userId`), FOREIGN KEY(`timerId`) REFERENCES `ActiveTimer`(`id`) "
+                + "ON UPDATE NO ACTION ON DELETE CASCADE )");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_timer_share_userId` ON `timer_share` (`userId`)");
+
+        db.execSQL("CREATE TABLE IF NOT EXISTS `saved_timer_tag` (`timerId` INTEGER NOT NULL, `tag` TEXT NOT NULL, "
+                + "PRIMARY KEY(`timerId`, `tag`), FOREIGN KEY(`timerId`) REFERENCES `Timer`(`id`) "
+                + "ON UPDATE NO ACTION ON DELETE CASCADE )");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_saved_timer_tag_tag` ON `saved_timer_tag` (`tag`)");
+
+        db.execSQL("CREATE TABLE IF NOT EXISTS `shared_timer_share` (`timerId` TEXT NOT NULL, `userId` TEXT NOT NULL, "
+                + "PRIMARY KEY(`timerId`, `userId`), FOREIGN KEY(`timerId`) REFERENCES `shared_timers`(`timerId`) "
+                + "ON UPDATE NO ACTION ON DELETE CASCADE )");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_shared_timer_share_userId` ON `shared_timer_share` (`userId`)");
+
+        insertAll(db, "INSERT OR IGNORE INTO `timer_tag` (`timerId`, `tag`) VALUES (?, ?)", activeTimerTags);
+        insertAll(db, "INSERT OR IGNORE INTO `timer_share` (`timerId`, `userId`) VALUES (?, ?)", activeTimerShares);
+        insertAll(db, "INSERT OR IGNORE INTO `saved_timer_tag` (`timerId`, `tag`) VALUES (?, ?)", savedTimerTags);
+        insertAll(db, "INSERT OR IGNORE INTO `shared_timer_share` (`timerId`, `userId`) VALUES (?, ?)", sharedTimerShares);
+    }
+
+    /**
+     * @return one (row key, value) pair per non-blank element of each row's joined string
+     */
+    private static List<Object[]> readSplit(SupportSQLiteDatabase db, String query) {
+        List<Object[]> pairs = new ArrayList<>();
+        try (Cursor cursor = db.query(query)) {
+            while (cursor.moveToNext()) {
+                Object key = cursor.getType(0) == Cursor.FIELD_TYPE_INTEGER ? cursor.getLong(0) : cursor.getString(0);
+                for (String value : split(cursor.getString(1))) {
+                    pairs.add(new Object[]{key, value});
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private static void insertAll(SupportSQLiteDatabase db, String sql, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            db.execSQL(sql, row);
+        }
+    }
+
+    static Set<String> split(String joined) {
+        Set<String> values = new LinkedHashSet<>();
+        if (joined == null || joined.isEmpty()) {
+            return values;
+        }
+        for (String value : joined.split(DELIMITER)) {
+            String trimmed = value.trim();
+            if (!trimmed.isEmpty()) {
+                values.add(trimmed);
+            }
+        }
+        return values;
+    }
+}
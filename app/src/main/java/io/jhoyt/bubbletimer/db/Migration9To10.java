@@ -0,0 +1,99 @@
+package io.jhoyt.bubbletimer.db;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns the ISO-8601 text timestamps in ActiveTimer.timerEnd, shared_timers.timerEnd and
+ * shared_timers.createdAt into INTEGER epoch-millis columns and indexes ActiveTimer.timerEnd.
+ *
+ * SQLite can't change a column's type in place, so both tables are rebuilt and the converted
+ * values written back by key. Room only turns foreign keys on once the database is open, so
+ * dropping the old tables leaves the rows in timer_tag, timer_share and shared_timer_share
+ * alone.
+ */
+class Migration9To10 extends Migration {
+
+    Migration9To10() {
+        super(9, 10);
+    }
+
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase db) {
+        List<Object[]> activeTimerEnds = readEpochMillis(db, "SELECT `id`, `timerEnd` FROM `ActiveTimer`");
+        List<Object[]> sharedTimerEnds = readEpochMillis(db, "SELECT `timerId`, `timerEnd` FROM `shared_timers`");
+        List<Object[]> sharedTimerCreatedAts = readEpochMillis(db, "SELECT `timerId`, `createdAt` FROM `shared_timers`");
+
+        db.execSQL("CREATE TABLE IF NOT EXISTS `ActiveTimer_new` (`id` TEXT NOT NULL, `name` TEXT, `userId` TEXT, "
+                + "`totalDuration` INTEGER, `remainingDurationWhenPaused` INTEGER, `timerEnd` INTEGER, "
+                + "`sharedBy` TEXT DEFAULT '', PRIMARY KEY(`id`))");
+        db.execSQL("INSERT INTO `ActiveTimer_new` (`id`, `name`, `userId`, `totalDuration`, "
+                + "`remainingDurationWhenPaused`, `sharedBy`) "
+                + "SELECT `id`, `name`, `userId`, `totalDuration`, `remainingDurationWhenPaused`, `sharedBy` "
+                + "FROM `ActiveTimer`");
+        db.execSQL("DROP TABLE `ActiveTimer`");
+        db.execSQL("ALTER TABLE `ActiveTimer_new` RENAME TO `ActiveTimer`");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_ActiveTimer_timerEnd` ON `ActiveTimer` (`timerEnd`)");
+
+        db.execSQL("CREATE TABLE IF NOT EXISTS `shared_timers_new` (`timerId` TEXT NOT NULL, `name` TEXT, "
+                + "`userId` TEXT, `totalDuration` INTEGER, `remainingDuration` INTEGER, `timerEnd` INTEGER, "
+                + "`status` TEXT, `sharedBy` TEXT, `createdAt` INTEGER, PRIMARY KEY(`timerId`))");
+        db.execSQL("INSERT INTO `shared_timers_new` (`timerId`, `name`, `userId`, `totalDuration`, "
+                + "`remainingDuration`, `status`, `sharedBy`) "
+                + "SELECT `timerId`, `name`, `userId`, `totalDuration`, `remainingDuration`, `status`, `sharedBy` "
+                + "FROM `shared_timers`");
+        db.execSQL("DROP TABLE `shared_timers`");
+        db.execSQL("ALTER TABLE `shared_timers_new` RENAME TO `shared_timers`");
+
+        updateAll(db, "UPDATE `ActiveTimer` SET `timerEnd` = ? WHERE `id` = ?", activeTimerEnds);
+        updateAll(db, "UPDATE `shared_timers` SET `timerEnd` = ? WHERE `timerId` = ?", sharedTimerEnds);
+        updateAll(db, "UPDATE `shared_timers` SET `createdAt` = ? WHERE `timerId` = ?", sharedTimerCreatedAts);
+    }
+
+    /**
+     * @return one (epoch millis, row key) pair per row whose timestamp parses
+     */
+    private static List<Object[]> readEpochMillis(SupportSQLiteDatabase db, String query) {
+        List<Object[]> values = new ArrayList<>();
+        try (Cursor cursor = db.query(query)) {
+            while (cursor.moveToNext()) {
+                Long epochMillis = toEpochMillis(cursor.isNull(1) ? null : cursor.getString(1));
+                if (epochMillis != null) {
+                    values.add(new Object[]{epochMillis, cursor.getString(0)});
+                }
+            }
+        }
+        return values;
+    }
+
+    private static void updateAll(SupportSQLiteDatabase db, String sql, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            db.execSQL(sql, row);
+        }
+    }
+
+    /**
+     * @return the stored ISO-8601 local date-time as epoch millis, or null if it is blank or
+     * unreadable; null timestamps were written as empty strings
+     */
+    static Long toEpochMillis(String isoLocalDateTime) {
+        if (isoLocalDateTime == null || isoLocalDateTime.isEmpty()) {
+            return null;
+        }
+        try {
+            return Converters.localDateTimeToEpochMillis(
+                    LocalDateTime.parse(isoLocalDateTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package io.jhoyt.bubbletimer.db;
+
+/**
+ * Orders the saved timer library can be paged in. Each is a keyset order over an indexed
+ * column with the id as tie breaker, so a page is found by seeking to the last row shown.
+ */
+public enum SavedTimerOrder {
+    // Alphabetical by title
+    TITLE,
+    // Most recently started first, then the newest never-started timers
+    LAST_USED
+}
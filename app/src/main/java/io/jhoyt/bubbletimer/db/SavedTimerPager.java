@@ -0,0 +1,180 @@
+package io.jhoyt.bubbletimer.db;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.room.InvalidationTracker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+import io.jhoyt.bubbletimer.core.concurrency.KeyedSerialExecutor;
+
+/**
+ * Loads the saved timer library a page at a time, optionally only the timers with one tag.
+ *
+ * Each page is read with a keyset query that seeks to the last timer already loaded, so a page
+ * costs the same however far down the list it is. The adapter reports which position it binds
+ * through {@link #loadAround(int)} and the next page is read before the user scrolls to it.
+ * When the timer or tag tables change, the loaded range is read again in one query and
+ * published as a whole; pages that were never shown are never read.
+ *
+ * All reads, and registering for changes, run in order on one lane of the database executor.
+ */
+public class SavedTimerPager {
+    private static final String TAG = "SavedTimerPager";
+    public static final int DEFAULT_PAGE_SIZE = 30;
+    // Start reading the next page when this close to the end of what is loaded
+    static final int PREFETCH_DISTANCE = 10;
+
+    private final TimerDao timerDao;
+    private final InvalidationTracker invalidationTracker;
+    private final KeyedSerialExecutor executor;
+    private final SavedTimerOrder order;
+    @Nullable
+    private final String tag;
+    private final int pageSize;
+    private final String readKey;
+    private final InvalidationTracker.Observer invalidationObserver;
+
+    private final MutableLiveData<List<Timer>> timers = new MutableLiveData<>();
+    // Only touched on the lane
+    private List<Timer> loaded = Collections.emptyList();
+    private volatile int loadedCount;
+    private volatile boolean endReached;
+    private Future<?> pendingLoad;
+
+    SavedTimerPager(TimerDao timerDao, InvalidationTracker invalidationTracker, KeyedSerialExecutor executor,
+                    SavedTimerOrder order, @Nullable String tag, int pageSize) {
+        this.timerDao = timerDao;
+        this.invalidationTracker = invalidationTracker;
+        this.executor = executor;
+        this.order = order;
+        this.tag = tag;
+        this.pageSize = pageSize;
+        this.readKey = readKey(order, tag);
+        this.invalidationObserver = new InvalidationTracker.Observer("Timer", "saved_timer_tag") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                refresh();
+            }
+        };
+        // Registering syncs Room's triggers, which is database work
+        executor.execute(readKey, () -> invalidationTracker.addObserver(invalidationObserver));
+        loadMore();
+    }
+
+    /**
+     * @return the timers loaded so far, in order, republished whenever a page is added or the
+     * loaded range is read again
+     */
+    public LiveData<List<Timer>> getTimers() {
+        return timers;
+    }
+
+    /**
+     * Note that the item at {@code position} is being shown, reading the next page if it is
+     * close to the end of what is loaded.
+     */
+    public void loadAround(int position) {
+        if (!endReached && position >= loadedCount - PREFETCH_DISTANCE) {
+            loadMore();
+        }
+    }
+
+    /**
+     * Read the page after the last loaded timer, unless one is already being read.
+     * @return completes once the page is published
+     */
+    synchronized Future<?> loadMore() {
+        if (pendingLoad == null || pendingLoad.isDone()) {
+            pendingLoad = executor.submit(readKey, this::loadNextPage);
+        }
+        return pendingLoad;
+    }
+
+    /**
+     * Read the loaded range again, at least one page of it.
+     * @return completes once the range is published
+     */
+    Future<?> refresh() {
+        return executor.submit(readKey, this::reloadLoadedRange);
+    }
+
+    /**
+     * Stop following database changes. Pages already published stay as they are.
+     */
+    public void close() {
+        executor.execute(readKey, () -> invalidationTracker.removeObserver(invalidationObserver));
+    }
+
+    static String readKey(SavedTimerOrder order, @Nullable String tag) {
+        return "saved_timer_pages:" + order + ":" + (tag != null ? tag : "");
+    }
+
+    private void loadNextPage() {
+        if (endReached) {
+            return;
+        }
+        Timer last = loaded.isEmpty() ? null : loaded.get(loaded.size() - 1);
+        List<Timer> page = loadPage(last, pageSize);
+        List<Timer> next = new ArrayList<>(loaded.size() + page.size());
+        next.addAll(loaded);
+        next.addAll(page);
+        publish(next, page.size() < pageSize);
+    }
+
+    private void reloadLoadedRange() {
+        int limit = Math.max(loaded.size(), pageSize);
+        List<Timer> range = loadPage(null, limit);
+        publish(range, range.size() < limit);
+    }
+
+    private void publish(List<Timer> next, boolean end) {
+        loaded = Collections.unmodifiableList(next);
+        loadedCount = loaded.size();
+        endReached = end;
+        Log.d(TAG, "Loaded " + loadedCount + " saved timers for " + readKey + (end ? ", end reached" : ""));
+        timers.postValue(loaded);
+    }
+
+    /**
+     * @return up to {@code limit} timers after {@code after} in this pager's order, or from the
+     * start if it is null
+     */
+    private List<Timer> loadPage(@Nullable Timer after, int limit) {
+        List<TimerWithTags> rows;
+        switch (order) {
+            case TITLE: {
+                // Titles are never null; the empty string sorts first
+                String title = after != null ? after.title : "";
+                int id = after != null ? after.id : -1;
+                rows = tag == null
+                        ? timerDao.getPageByTitle(title, id, limit)
+                        : timerDao.getPageWithTagByTitle(tag, title, id, limit);
+                break;
+            }
+            case LAST_USED:
+            default: {
+                long lastUsed = after != null ? after.lastUsed : Long.MAX_VALUE;
+                int id = after != null ? after.id : Integer.MAX_VALUE;
+                rows = tag == null
+                        ? timerDao.getPageByLastUsed(lastUsed, id, limit)
+                        : timerDao.getPageWithTagByLastUsed(tag, lastUsed, id, limit);
+                break;
+            }
+        }
+
+        List<Timer> page = new ArrayList<>(rows.size());
+        for (TimerWithTags row : rows) {
+            page.add(row.toTimer());
+        }
+        return page;
+    }
+}
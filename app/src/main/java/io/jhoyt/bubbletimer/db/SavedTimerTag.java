@@ -0,0 +1,35 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+/**
+ * A tag on a saved timer template.
+ */
+@Entity(
+    tableName = "saved_timer_tag",
+    primaryKeys = {"timerId", "tag"},
+    foreignKeys = @ForeignKey(
+        entity = Timer.class,
+        parentColumns = "id",
+        childColumns = "timerId",
+        onDelete = ForeignKey.CASCADE
+    ),
+    indices = {@Index("tag")}
+)
+public class SavedTimerTag {
+    @ColumnInfo(name = "timerId")
+    public int timerId;
+
+    @ColumnInfo(name = "tag")
+    @NonNull
+    public String tag;
+
+    public SavedTimerTag(int timerId, @NonNull String tag) {
+        this.timerId = timerId;
+        this.tag = tag;
+    }
+}
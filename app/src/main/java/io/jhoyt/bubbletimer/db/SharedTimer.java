@@ -4,10 +4,13 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Ignore;
 import androidx.room.PrimaryKey;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
 
 @Entity(tableName = "shared_timers")
 public class SharedTimer {
@@ -43,9 +46,9 @@ public class SharedTimer {
     @Nullable
     public String sharedBy;
     
-    @ColumnInfo(name = "sharedWith")
-    @Nullable
-    public String sharedWith; // Comma-separated list of all users this timer is shared with
+    // All users this timer is shared with, stored in shared_timer_share
+    @Ignore
+    public Set<String> sharedWith = new HashSet<>();
     
     @ColumnInfo(name = "createdAt")
     @Nullable
@@ -6,32 +6,53 @@ import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Dao
 public interface SharedTimerDao {
+    @Transaction
     @Query("SELECT * FROM shared_timers ORDER BY createdAt DESC")
-    LiveData<List<SharedTimer>> getAllSharedTimers();
+    LiveData<List<SharedTimerWithShares>> getAllSharedTimers();
     
+    @Transaction
     @Query("SELECT * FROM shared_timers ORDER BY createdAt DESC")
-    List<SharedTimer> getAllSharedTimersSync();
+    List<SharedTimerWithShares> loadAllSharedTimersSync();
     
+    @Transaction
     @Query("SELECT * FROM shared_timers WHERE status = :status ORDER BY createdAt DESC")
-    LiveData<List<SharedTimer>> getSharedTimersByStatus(String status);
+    LiveData<List<SharedTimerWithShares>> getSharedTimersByStatus(String status);
     
+    @Transaction
+    @Query("SELECT shared_timers.* FROM shared_timers " +
+            "INNER JOIN shared_timer_share ON shared_timer_share.timerId = shared_timers.timerId " +
+            "WHERE shared_timer_share.userId = :userId ORDER BY createdAt DESC")
+    LiveData<List<SharedTimerWithShares>> getSharedTimersSharedWith(String userId);
+    
+    @Transaction
     @Query("SELECT * FROM shared_timers WHERE timerId = :timerId")
-    SharedTimer getSharedTimerById(String timerId);
+    SharedTimerWithShares loadSharedTimerById(String timerId);
     
+    // REPLACE deletes the old row first, which cascades to its shares
     @Insert(onConflict = OnConflictStrategy.REPLACE)
-    void insert(SharedTimer sharedTimer);
+    void insertRows(List<SharedTimer> sharedTimers);
+    
+    @Update
+    int updateRow(SharedTimer sharedTimer);
     
     @Insert(onConflict = OnConflictStrategy.REPLACE)
-    void insertAll(List<SharedTimer> sharedTimers);
+    void insertShares(List<SharedTimerShare> sharedTimerShares);
     
-    @Update
-    void update(SharedTimer sharedTimer);
+    @Query("DELETE FROM shared_timer_share WHERE timerId IN (:timerIds)")
+    void deleteShares(List<String> timerIds);
     
     @Delete
     void delete(SharedTimer sharedTimer);
@@ -42,9 +63,139 @@ public interface SharedTimerDao {
     @Query("UPDATE shared_timers SET status = :status WHERE timerId = :timerId")
     void updateStatus(String timerId, String status);
     
+    @Query("DELETE FROM shared_timers WHERE timerId IN (:timerIds)")
+    int deleteByIds(List<String> timerIds);
+    
     @Query("DELETE FROM shared_timers WHERE status = :status")
     void deleteByStatus(String status);
     
     @Query("DELETE FROM shared_timers")
     void deleteAll();
-} 
\ No newline at end of file
+    
+    default List<SharedTimer> getAllSharedTimersSync() {
+        return SharedTimerWithShares.toSharedTimers(loadAllSharedTimersSync());
+    }
+    
+    default SharedTimer getSharedTimerById(String timerId) {
+        SharedTimerWithShares sharedTimer = loadSharedTimerById(timerId);
+        return sharedTimer != null ? sharedTimer.toSharedTimer() : null;
+    }
+    
+    @Transaction
+    default void insert(SharedTimer sharedTimer) {
+        insertAll(List.of(sharedTimer));
+    }
+    
+    @Transaction
+    default void insertAll(List<SharedTimer> sharedTimers) {
+        insertRows(sharedTimers);
+        replaceShares(sharedTimers);
+    }
+    
+    @Transaction
+    default void update(SharedTimer sharedTimer) {
+        if (updateRow(sharedTimer) > 0) {
+            replaceShares(List.of(sharedTimer));
+        }
+    }
+    
+    /**
+     * Make the table match the invitations the server returned, writing only what differs.
+     * New invitations are inserted as given; invitations already stored keep their local
+     * status and createdAt and are only written if a server-owned field changed; stored
+     * invitations the server no longer returns are deleted. An unchanged list writes nothing,
+     * so observers of the table aren't woken up.
+     */
+    @Transaction
+    default SharedTimerMergeResult merge(List<SharedTimer> sharedTimers) {
+        Map<String, SharedTimer> existingById = new HashMap<>();
+        for (SharedTimer existing : getAllSharedTimersSync()) {
+            existingById.put(existing.timerId, existing);
+        }
+        Map<String, SharedTimer> incomingById = new LinkedHashMap<>();
+        for (SharedTimer sharedTimer : sharedTimers) {
+            incomingById.put(sharedTimer.timerId, sharedTimer);
+        }
+        
+        List<SharedTimer> inserts = new ArrayList<>();
+        List<SharedTimer> shareChanges = new ArrayList<>();
+        int updated = 0;
+        for (SharedTimer incoming : incomingById.values()) {
+            SharedTimer existing = existingById.remove(incoming.timerId);
+            if (existing == null) {
+                inserts.add(incoming);
+                continue;
+            }
+            boolean rowChanged = !sameServerFields(existing, incoming);
+            boolean sharesChanged = !sameShares(existing, incoming);
+            if (!rowChanged && !sharesChanged) {
+                continue;
+            }
+            incoming.status = existing.status;
+            incoming.createdAt = existing.createdAt;
+            if (rowChanged) {
+                updateRow(incoming);
+            }
+            if (sharesChanged) {
+                shareChanges.add(incoming);
+            }
+            updated++;
+        }
+        
+        if (!inserts.isEmpty()) {
+            insertAll(inserts);
+        }
+        if (!shareChanges.isEmpty()) {
+            replaceShares(shareChanges);
+        }
+        int deleted = existingById.isEmpty() ? 0 : deleteByIds(new ArrayList<>(existingById.keySet()));
+        return new SharedTimerMergeResult(inserts.size(), updated, deleted);
+    }
+    
+    /**
+     * Compares the columns the server owns at the precision they are stored with, so a value
+     * read back from the table matches the one that was written. The remaining duration of a
+     * running timer follows from timerEnd and is recomputed on every response, so it is only
+     * compared for paused ones.
+     */
+    static boolean sameServerFields(SharedTimer stored, SharedTimer incoming) {
+        return Objects.equals(stored.name, incoming.name)
+                && Objects.equals(stored.userId, incoming.userId)
+                && Objects.equals(stored.sharedBy, incoming.sharedBy)
+                && Objects.equals(Converters.durationToSeconds(stored.totalDuration),
+                        Converters.durationToSeconds(incoming.totalDuration))
+                && Objects.equals(Converters.localDateTimeToEpochMillis(stored.timerEnd),
+                        Converters.localDateTimeToEpochMillis(incoming.timerEnd))
+                && (incoming.timerEnd != null
+                        || Objects.equals(Converters.durationToSeconds(stored.remainingDuration),
+                                Converters.durationToSeconds(incoming.remainingDuration)));
+    }
+    
+    static boolean sameShares(SharedTimer stored, SharedTimer incoming) {
+        Set<String> storedShares = stored.sharedWith != null ? stored.sharedWith : Set.of();
+        Set<String> incomingShares = incoming.sharedWith != null ? incoming.sharedWith : Set.of();
+        return storedShares.equals(incomingShares);
+    }
+    
+    /**
+     * Make the share rows of the given invitations match their in-memory sets. Only meant to
+     * be called from the transactional writes above.
+     */
+    default void replaceShares(List<SharedTimer> sharedTimers) {
+        List<String> timerIds = new ArrayList<>(sharedTimers.size());
+        List<SharedTimerShare> sharedTimerShares = new ArrayList<>();
+        for (SharedTimer sharedTimer : sharedTimers) {
+            timerIds.add(sharedTimer.timerId);
+            if (sharedTimer.sharedWith != null) {
+                for (String userId : sharedTimer.sharedWith) {
+                    sharedTimerShares.add(new SharedTimerShare(sharedTimer.timerId, userId));
+                }
+            }
+        }
+        
+        deleteShares(timerIds);
+        if (!sharedTimerShares.isEmpty()) {
+            insertShares(sharedTimerShares);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.annotation.NonNull;
+
+/**
+ * What a {@link SharedTimerDao#merge(java.util.List)} changed in the shared_timers table.
+ */
+public final class SharedTimerMergeResult {
+    private final int inserted;
+    private final int updated;
+    private final int deleted;
+
+    SharedTimerMergeResult(int inserted, int updated, int deleted) {
+        this.inserted = inserted;
+        this.updated = updated;
+        this.deleted = deleted;
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public int getDeleted() {
+        return deleted;
+    }
+
+    /**
+     * @return false if the merge wrote nothing, in which case observers are not notified
+     */
+    public boolean hasChanges() {
+        return inserted + updated + deleted > 0;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "inserted=" + inserted + ", updated=" + updated + ", deleted=" + deleted;
+    }
+}
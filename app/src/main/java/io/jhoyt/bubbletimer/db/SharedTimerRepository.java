@@ -5,16 +5,16 @@ import android.util.Log;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
 
 import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.ArrayList;
 
 import io.jhoyt.bubbletimer.Timer;
@@ -27,9 +27,10 @@ import retrofit2.converter.gson.GsonConverterFactory;
 
 public class SharedTimerRepository {
     private static final String TAG = "SharedTimerRepository";
+    // A refresh merges into the whole table, so per-row lanes would not be ordered against it
+    static final String WRITE_KEY = "shared_timers";
     private final SharedTimerDao sharedTimerDao;
     private final ApiService apiService;
-    private final ExecutorService executorService;
     private final Application application;
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
     private final MutableLiveData<String> error = new MutableLiveData<>();
@@ -43,7 +44,6 @@ public class SharedTimerRepository {
         this.application = application;
         AppDatabase db = AppDatabase.getDatabase(application);
         this.sharedTimerDao = db.sharedTimerDao();
-        this.executorService = Executors.newFixedThreadPool(4);
 
         // Initialize Retrofit for API calls
         Retrofit retrofit = new Retrofit.Builder()
@@ -54,7 +54,7 @@ public class SharedTimerRepository {
     }
 
     public LiveData<List<SharedTimer>> getAllSharedTimers() {
-        return sharedTimerDao.getAllSharedTimers();
+        return Transformations.map(sharedTimerDao.getAllSharedTimers(), SharedTimerWithShares::toSharedTimers);
     }
 
     public List<SharedTimer> getAllSharedTimersSync() {
@@ -67,7 +67,7 @@ public class SharedTimerRepository {
     }
 
     public LiveData<List<SharedTimer>> getPendingSharedTimers() {
-        return sharedTimerDao.getSharedTimersByStatus("PENDING");
+        return Transformations.map(sharedTimerDao.getSharedTimersByStatus("PENDING"), SharedTimerWithShares::toSharedTimers);
     }
 
     public LiveData<Boolean> getIsLoading() {
@@ -122,7 +122,7 @@ public class SharedTimerRepository {
                 
                 if (response.isSuccessful() && response.body() != null) {
                     Log.i(TAG, "API call successful, processing " + response.body().size() + " timers");
-                    executorService.execute(() -> {
+                    AppDatabase.databaseWriteExecutor.execute(WRITE_KEY, () -> {
                         // Convert Timer objects to SharedTimer entities
                         List<SharedTimer> sharedTimers = response.body().stream()
                                 .filter(timer -> timer.getId() != null) // Only process timers with valid IDs
@@ -139,36 +139,28 @@ public class SharedTimerRepository {
                                     sharedTimer.totalDuration = timer.getTotalDuration() != null ? timer.getTotalDuration() : Duration.ZERO;
                                     sharedTimer.remainingDuration = timer.getRemainingDuration();
                                     sharedTimer.timerEnd = timer.getTimerEnd();
-                                    sharedTimer.status = "PENDING"; // Default status for new shared timers
+                                    sharedTimer.status = "PENDING"; // Only used if the invitation is new
                                     sharedTimer.sharedBy = timer.getUserId() != null ? timer.getUserId() : "unknown"; // The user who shared the timer
                                     
-                                    // Store the complete sharedWith list using #~# delimiter (consistent with TimerConverter)
+                                    // Store the complete sharedWith list, written to shared_timer_share with the row
                                     Set<String> sharedWithSet = timer.getSharedWith();
                                     if (sharedWithSet != null && !sharedWithSet.isEmpty()) {
-                                        sharedTimer.sharedWith = String.join("#~#", sharedWithSet);
+                                        sharedTimer.sharedWith = new HashSet<>(sharedWithSet);
                                         Log.d(TAG, "Stored sharedWith: " + sharedTimer.sharedWith + " for timer " + timer.getId());
                                     } else {
-                                        sharedTimer.sharedWith = "";
+                                        sharedTimer.sharedWith = new HashSet<>();
                                     }
                                     
-                                    sharedTimer.createdAt = LocalDateTime.now();
+                                    sharedTimer.createdAt = LocalDateTime.now(); // Only used if the invitation is new
                                     return sharedTimer;
                                 })
                                 .toList();
                         
                         Log.i(TAG, "Filtered to " + sharedTimers.size() + " valid shared timers out of " + response.body().size() + " total");
                         
-                        // Delete all existing shared timers before inserting new ones (aggressive cleanup)
-                        sharedTimerDao.deleteAll();
-                        Log.i(TAG, "Deleted all existing shared timers for aggressive cleanup");
-                        
-                        if (!sharedTimers.isEmpty()) {
-                            // Insert into local database
-                            sharedTimerDao.insertAll(sharedTimers);
-                            Log.i(TAG, "Refreshed " + sharedTimers.size() + " shared timers");
-                        } else {
-                            Log.w(TAG, "No valid shared timers to insert");
-                        }
+                        // Only rows that differ are written, and local status and createdAt are kept
+                        SharedTimerMergeResult result = sharedTimerDao.merge(sharedTimers);
+                        Log.i(TAG, "Merged " + sharedTimers.size() + " shared timers: " + result);
                         
                         // Execute callback on main thread if provided
                         if (onComplete != null) {
@@ -231,7 +223,7 @@ public class SharedTimerRepository {
     }
 
     public void acceptSharedTimer(String timerId) {
-        executorService.execute(() -> {
+        AppDatabase.databaseWriteExecutor.execute(WRITE_KEY, () -> {
             sharedTimerDao.updateStatus(timerId, "ACCEPTED");
             Log.i(TAG, "Accepted shared timer: " + timerId);
         });
@@ -256,7 +248,7 @@ public class SharedTimerRepository {
                 if (response.isSuccessful()) {
                     Log.i(TAG, "Successfully rejected shared timer: " + timerId);
                     // Update local database status
-                    executorService.execute(() -> {
+                    AppDatabase.databaseWriteExecutor.execute(WRITE_KEY, () -> {
                         sharedTimerDao.updateStatus(timerId, "REJECTED");
                         Log.i(TAG, "Updated local status to REJECTED for timer: " + timerId);
                     });
@@ -281,21 +273,21 @@ public class SharedTimerRepository {
     }
 
     public void deleteSharedTimer(String timerId) {
-        executorService.execute(() -> {
+        AppDatabase.databaseWriteExecutor.execute(WRITE_KEY, () -> {
             sharedTimerDao.deleteById(timerId);
             Log.i(TAG, "Deleted shared timer: " + timerId);
         });
     }
 
     public void clearRejectedTimers() {
-        executorService.execute(() -> {
+        AppDatabase.databaseWriteExecutor.execute(WRITE_KEY, () -> {
             sharedTimerDao.deleteByStatus("REJECTED");
             Log.i(TAG, "Cleared rejected shared timers");
         });
     }
     
     public void deleteAllSharedTimers() {
-        executorService.execute(() -> {
+        AppDatabase.databaseWriteExecutor.execute(WRITE_KEY, () -> {
             sharedTimerDao.deleteAll();
             Log.i(TAG, "Deleted all shared timers");
         });
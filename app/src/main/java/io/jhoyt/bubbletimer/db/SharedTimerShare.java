@@ -0,0 +1,36 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+/**
+ * A user a pending shared timer invitation is shared with.
+ */
+@Entity(
+    tableName = "shared_timer_share",
+    primaryKeys = {"timerId", "userId"},
+    foreignKeys = @ForeignKey(
+        entity = SharedTimer.class,
+        parentColumns = "timerId",
+        childColumns = "timerId",
+        onDelete = ForeignKey.CASCADE
+    ),
+    indices = {@Index("userId")}
+)
+public class SharedTimerShare {
+    @ColumnInfo(name = "timerId")
+    @NonNull
+    public String timerId;
+
+    @ColumnInfo(name = "userId")
+    @NonNull
+    public String userId;
+
+    public SharedTimerShare(@NonNull String timerId, @NonNull String userId) {
+        this.timerId = timerId;
+        this.userId = userId;
+    }
+}
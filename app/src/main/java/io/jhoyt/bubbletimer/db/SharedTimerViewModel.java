@@ -28,13 +28,11 @@ public class SharedTimerViewModel extends AndroidViewModel {
     private static final String TAG = "SharedTimerViewModel";
     private final SharedTimerRepository repository;
     private final MutableLiveData<String> authToken = new MutableLiveData<>();
-    private ActiveTimerRepository activeTimerRepository;
 
     @Inject
     public SharedTimerViewModel(@NonNull Application application) {
         super(application);
         this.repository = new SharedTimerRepository(application);
-        this.activeTimerRepository = new ActiveTimerRepository(application);
     }
 
     public LiveData<List<SharedTimer>> getSharedTimers() {
@@ -107,7 +105,7 @@ public class SharedTimerViewModel extends AndroidViewModel {
         Log.i(TAG, "Accepting shared timer: " + timerId);
         
         // Move database operations to background thread
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        AppDatabase.databaseWriteExecutor.execute(SharedTimerRepository.WRITE_KEY, () -> {
             // First, let's check what shared timers are available in the database
             List<SharedTimer> allSharedTimers = repository.getAllSharedTimersSync();
             Log.i(TAG, "Available shared timers in database: " + allSharedTimers.size());
@@ -157,12 +155,10 @@ public class SharedTimerViewModel extends AndroidViewModel {
                 tags
             );
             
-            // Parse the stored sharedWith list to preserve sharing relationships
-            // Use the #~# delimiter that TimerConverter expects
+            // Copy the stored sharedWith list to preserve sharing relationships
             Set<String> sharedWithSet = new HashSet<>();
-            if (sharedTimer.sharedWith != null && !sharedTimer.sharedWith.trim().isEmpty()) {
-                String[] sharedWithArray = sharedTimer.sharedWith.split("#~#");
-                for (String user : sharedWithArray) {
+            if (sharedTimer.sharedWith != null && !sharedTimer.sharedWith.isEmpty()) {
+                for (String user : sharedTimer.sharedWith) {
                     String trimmedUser = user.trim();
                     if (!trimmedUser.isEmpty()) {
                         sharedWithSet.add(trimmedUser);
@@ -233,13 +229,13 @@ public class SharedTimerViewModel extends AndroidViewModel {
             // Preserve the sharedWith information for WebSocket connection detection
             // Use the reconstructed sharedWith set with proper user list
             if (!sharedWithSet.isEmpty()) {
-                directActiveTimer.sharedWithString = String.join("#~#", sharedWithSet);
-                Log.i(TAG, "Set sharedWithString from reconstructed set: '" + directActiveTimer.sharedWithString + "' for timer " + timerId);
+                directActiveTimer.sharedWith = new HashSet<>(sharedWithSet);
+                Log.i(TAG, "Set sharedWith from reconstructed set: " + directActiveTimer.sharedWith + " for timer " + timerId);
             } else {
-                directActiveTimer.sharedWithString = "";
-                Log.w(TAG, "sharedWithSet is empty, setting sharedWithString to empty for timer " + timerId);
+                directActiveTimer.sharedWith = new HashSet<>();
+                Log.w(TAG, "sharedWithSet is empty, setting sharedWith to empty for timer " + timerId);
             }
-            directActiveTimer.tagsString = "";
+            directActiveTimer.tags = new HashSet<>();
             directActiveTimer.sharedBy = sharedTimer.sharedBy != null ? sharedTimer.sharedBy : "";
             
             Log.i(TAG, "Created direct ActiveTimer:");
@@ -249,11 +245,11 @@ public class SharedTimerViewModel extends AndroidViewModel {
             Log.i(TAG, "  TotalDuration: " + directActiveTimer.totalDuration);
             Log.i(TAG, "  RemainingDurationWhenPaused: " + directActiveTimer.remainingDurationWhenPaused + " (null=unpaused)");
             Log.i(TAG, "  TimerEnd: " + directActiveTimer.timerEnd);
-            Log.i(TAG, "  SharedWithString: '" + directActiveTimer.sharedWithString + "'");
-            Log.i(TAG, "  TagsString: '" + directActiveTimer.tagsString + "'");
+            Log.i(TAG, "  SharedWith: " + directActiveTimer.sharedWith);
+            Log.i(TAG, "  Tags: " + directActiveTimer.tags);
             
             // Add to active timers using direct ActiveTimer
-            AppDatabase.databaseWriteExecutor.execute(() -> {
+            AppDatabase.databaseWriteExecutor.execute(ActiveTimerRepository.WRITE_KEY, () -> {
                 AppDatabase.getDatabase(getApplication()).activeTimerDao().insert(directActiveTimer);
             });
             
@@ -0,0 +1,35 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.room.Embedded;
+import androidx.room.Relation;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * A shared timer invitation loaded together with the users it is shared with.
+ */
+public class SharedTimerWithShares {
+    @Embedded
+    public SharedTimer sharedTimer;
+
+    @Relation(parentColumn = "timerId", entityColumn = "timerId", entity = SharedTimerShare.class, projection = {"userId"})
+    public List<String> sharedWith;
+
+    /**
+     * @return the invitation row with its shared users filled in
+     */
+    public SharedTimer toSharedTimer() {
+        sharedTimer.sharedWith = sharedWith != null ? new HashSet<>(sharedWith) : new HashSet<>();
+        return sharedTimer;
+    }
+
+    public static List<SharedTimer> toSharedTimers(List<SharedTimerWithShares> sharedTimers) {
+        List<SharedTimer> result = new ArrayList<>(sharedTimers.size());
+        for (SharedTimerWithShares sharedTimer : sharedTimers) {
+            result.add(sharedTimer.toSharedTimer());
+        }
+        return result;
+    }
+}
@@ -24,14 +24,18 @@ public class TagRepository {
     }
 
     public void insert(Tag tag) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        AppDatabase.databaseWriteExecutor.execute(writeKey(tag), () -> {
             tagDao.insert(tag);
         });
     }
 
     public void delete(Tag tag) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        AppDatabase.databaseWriteExecutor.execute(writeKey(tag), () -> {
             tagDao.delete(tag);
         });
     }
+
+    private static String writeKey(Tag tag) {
+        return "tag:" + tag.name;
+    }
 }
@@ -1,41 +1,57 @@
 package io.jhoyt.bubbletimer.db;
 
+import androidx.annotation.NonNull;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
 
-@Entity
+// Both orderings of the saved timer library are read a page at a time through these indices
+@Entity(indices = {@Index("title"), @Index("lastUsed")})
 public class Timer {
     @PrimaryKey(autoGenerate = true)
     public int id;
 
+    // Never null, so the title-ordered pages can seek past every timer; untitled timers sort first
+    @NonNull
     @ColumnInfo(name = "title")
-    public String title;
+    public String title = "";
 
     @ColumnInfo(name = "duration")
     public Duration duration;
 
-    @ColumnInfo(name = "tagsString", defaultValue = "")
-    public String tagsString;
+    // Epoch millis of the last time the timer was started, 0 if never
+    @ColumnInfo(name = "lastUsed", defaultValue = "0")
+    public long lastUsed;
+
+    // Stored in saved_timer_tag, see TimerWithTags
+    @Ignore
+    public Set<String> tags = new HashSet<>();
 
     public Timer() {
     }
 
-    public Timer(int id, String title, Duration duration, String tagsString) {
-        this(title, duration, tagsString);
+    @Ignore
+    public Timer(int id, String title, Duration duration, Set<String> tags) {
+        this(title, duration, tags);
         this.id = id;
     }
 
+    @Ignore
     public Timer(String title, Duration duration) {
-        this(title, duration, "");
+        this(title, duration, new HashSet<>());
     }
 
-    public Timer(String title, Duration duration, String tagsString) {
-        this.title = title;
+    @Ignore
+    public Timer(String title, Duration duration, Set<String> tags) {
+        this.title = title != null ? title : "";
         this.duration = duration;
-        this.tagsString = tagsString;
+        this.tags = new HashSet<>(tags);
     }
 
 }
@@ -4,31 +4,114 @@ import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Dao
 public interface TimerDao {
+    @Transaction
     @Query("SELECT * FROM timer")
-    LiveData<List<Timer>> getAll();
+    LiveData<List<TimerWithTags>> getAll();
 
-    @Query("SELECT * FROM timer WHERE tagsString LIKE :tagsString")
-    LiveData<List<Timer>> getAllWithTag(String tagsString);
+    @Transaction
+    @Query("SELECT timer.* FROM timer " +
+            "INNER JOIN saved_timer_tag ON saved_timer_tag.timerId = timer.id " +
+            "WHERE saved_timer_tag.tag = :tag")
+    LiveData<List<TimerWithTags>> getAllWithTag(String tag);
 
+    /**
+     * The page of saved timers after the given title and id in title order. The range on the
+     * indexed title column lets SQLite seek straight to the page instead of skipping rows.
+     */
+    @Transaction
+    @Query("SELECT * FROM timer WHERE title >= :title AND (title > :title OR id > :id) " +
+            "ORDER BY title, id LIMIT :limit")
+    List<TimerWithTags> getPageByTitle(String title, int id, int limit);
+
+    /**
+     * The page of saved timers after the given lastUsed and id, most recently used first.
+     */
+    @Transaction
+    @Query("SELECT * FROM timer WHERE lastUsed <= :lastUsed AND (lastUsed < :lastUsed OR id < :id) " +
+            "ORDER BY lastUsed DESC, id DESC LIMIT :limit")
+    List<TimerWithTags> getPageByLastUsed(long lastUsed, int id, int limit);
+
+    @Transaction
+    @Query("SELECT timer.* FROM timer " +
+            "INNER JOIN saved_timer_tag ON saved_timer_tag.timerId = timer.id " +
+            "WHERE saved_timer_tag.tag = :tag AND timer.title >= :title AND (timer.title > :title OR timer.id > :id) " +
+            "ORDER BY timer.title, timer.id LIMIT :limit")
+    List<TimerWithTags> getPageWithTagByTitle(String tag, String title, int id, int limit);
+
+    @Transaction
+    @Query("SELECT timer.* FROM timer " +
+            "INNER JOIN saved_timer_tag ON saved_timer_tag.timerId = timer.id " +
+            "WHERE saved_timer_tag.tag = :tag AND timer.lastUsed <= :lastUsed " +
+            "AND (timer.lastUsed < :lastUsed OR timer.id < :id) " +
+            "ORDER BY timer.lastUsed DESC, timer.id DESC LIMIT :limit")
+    List<TimerWithTags> getPageWithTagByLastUsed(String tag, long lastUsed, int id, int limit);
+
+    @Transaction
     @Query("SELECT * FROM timer WHERE id = :id")
-    LiveData<Timer> getById(int id);
+    LiveData<TimerWithTags> getById(int id);
+
+    @Transaction
+    @Query("SELECT * FROM timer WHERE id IN (:ids)")
+    List<TimerWithTags> getByIds(List<Integer> ids);
 
     @Insert
-    void insert(Timer timer);
+    long insertRow(Timer timer);
 
     @Update
-    void update(Timer timer);
+    int updateRow(Timer timer);
 
     @Delete
     void delete(Timer timer);
 
     @Query("DELETE FROM timer WHERE id == :timerId")
     void deleteById(int timerId);
+
+    @Query("UPDATE timer SET lastUsed = :lastUsed WHERE id = :timerId")
+    void setLastUsed(int timerId, long lastUsed);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertTags(List<SavedTimerTag> savedTimerTags);
+
+    @Query("DELETE FROM saved_timer_tag WHERE timerId = :timerId")
+    void deleteTags(int timerId);
+
+    @Transaction
+    default void insert(Timer timer) {
+        int id = (int) insertRow(timer);
+        replaceTags(id, timer);
+    }
+
+    @Transaction
+    default void update(Timer timer) {
+        if (updateRow(timer) > 0) {
+            replaceTags(timer.id, timer);
+        }
+    }
+
+    /**
+     * Make the tag rows of a saved timer match its in-memory set. Only meant to be called from
+     * the transactional writes above.
+     */
+    default void replaceTags(int timerId, Timer timer) {
+        deleteTags(timerId);
+        if (timer.tags == null || timer.tags.isEmpty()) {
+            return;
+        }
+
+        List<SavedTimerTag> savedTimerTags = new ArrayList<>(timer.tags.size());
+        for (String tag : timer.tags) {
+            savedTimerTags.add(new SavedTimerTag(timerId, tag));
+        }
+        insertTags(savedTimerTags);
+    }
 }
@@ -0,0 +1,80 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * One lifecycle event of an active timer. Rows are only ever appended; they are folded into
+ * {@link TimerRollup} buckets by {@link TimerHistoryDao#compact} and pruned once they are
+ * both compacted and older than the retention window.
+ *
+ * The timerId index serves the lookup of a timer's previous event when a new one is appended,
+ * the at index serves pruning.
+ */
+@Entity(
+    tableName = "timer_event",
+    indices = {@Index("timerId"), @Index("at")}
+)
+public class TimerEvent {
+    public enum Type {
+        START,
+        PAUSE,
+        RESUME,
+        ADD_TIME,
+        EXPIRE,
+        STOP
+    }
+
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+
+    @ColumnInfo(name = "timerId")
+    @NonNull
+    public String timerId;
+
+    @ColumnInfo(name = "type")
+    @NonNull
+    public Type type;
+
+    @ColumnInfo(name = "at")
+    @NonNull
+    public LocalDateTime at;
+
+    // Running time the timer had used up at this event, total minus remaining
+    @ColumnInfo(name = "consumedSeconds")
+    public long consumedSeconds;
+
+    // Running time since the timer's previous event, filled in when the event is appended
+    @ColumnInfo(name = "runSeconds")
+    public long runSeconds;
+
+    // Time added by an ADD_TIME event
+    @ColumnInfo(name = "addedSeconds")
+    public long addedSeconds;
+
+    // Stored in timer_event_tag
+    @Ignore
+    public Set<String> tags = new HashSet<>();
+
+    public TimerEvent() {
+    }
+
+    @Ignore
+    public TimerEvent(@NonNull String timerId, @NonNull Type type, @NonNull LocalDateTime at,
+                      long consumedSeconds, long addedSeconds, Set<String> tags) {
+        this.timerId = timerId;
+        this.type = type;
+        this.at = at;
+        this.consumedSeconds = consumedSeconds;
+        this.addedSeconds = addedSeconds;
+        this.tags = new HashSet<>(tags);
+    }
+}
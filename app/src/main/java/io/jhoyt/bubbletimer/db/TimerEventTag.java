@@ -0,0 +1,33 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+
+/**
+ * A tag the timer had when a {@link TimerEvent} was recorded.
+ */
+@Entity(
+    tableName = "timer_event_tag",
+    primaryKeys = {"eventId", "tag"},
+    foreignKeys = @ForeignKey(
+        entity = TimerEvent.class,
+        parentColumns = "id",
+        childColumns = "eventId",
+        onDelete = ForeignKey.CASCADE
+    )
+)
+public class TimerEventTag {
+    @ColumnInfo(name = "eventId")
+    public long eventId;
+
+    @ColumnInfo(name = "tag")
+    @NonNull
+    public String tag;
+
+    public TimerEventTag(long eventId, @NonNull String tag) {
+        this.eventId = eventId;
+        this.tag = tag;
+    }
+}
@@ -0,0 +1,24 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * The single row recording how far timer_event has been folded into timer_rollup.
+ */
+@Entity(tableName = "timer_history_cursor")
+public class TimerHistoryCursor {
+    static final int ID = 0;
+
+    @PrimaryKey
+    public int id = ID;
+
+    // Events with an id up to and including this one are in the rollups
+    @ColumnInfo(name = "compactedThroughEventId")
+    public long compactedThroughEventId;
+
+    public TimerHistoryCursor(long compactedThroughEventId) {
+        this.compactedThroughEventId = compactedThroughEventId;
+    }
+}
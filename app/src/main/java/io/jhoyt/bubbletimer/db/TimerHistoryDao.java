@@ -0,0 +1,119 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Dao
+public interface TimerHistoryDao {
+    @Insert
+    long insertEvent(TimerEvent event);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertEventTags(List<TimerEventTag> eventTags);
+
+    @Query("SELECT consumedSeconds FROM timer_event WHERE timerId = :timerId ORDER BY id DESC LIMIT 1")
+    Long getLastConsumedSeconds(String timerId);
+
+    @Query("SELECT * FROM timer_event WHERE id > :afterId ORDER BY id")
+    List<TimerEvent> loadEventsAfter(long afterId);
+
+    @Query("SELECT * FROM timer_event_tag WHERE eventId > :afterId")
+    List<TimerEventTag> loadEventTagsAfter(long afterId);
+
+    @Query("SELECT COUNT(*) FROM timer_event")
+    int getEventCount();
+
+    @Query("DELETE FROM timer_event WHERE id <= :eventId AND at < :before")
+    int pruneEvents(long eventId, LocalDateTime before);
+
+    @Query("SELECT * FROM timer_history_cursor WHERE id = 0")
+    TimerHistoryCursor getCursor();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void setCursor(TimerHistoryCursor cursor);
+
+    @Query("SELECT * FROM timer_rollup WHERE period = :period AND bucketStart = :bucketStart AND tag = :tag")
+    TimerRollup getRollup(TimerRollup.Period period, LocalDateTime bucketStart, String tag);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertRollups(List<TimerRollup> rollups);
+
+    @Query("SELECT * FROM timer_rollup WHERE period = :period AND bucketStart >= :from AND bucketStart < :to "
+            + "ORDER BY bucketStart, tag")
+    List<TimerRollup> getRollups(TimerRollup.Period period, LocalDateTime from, LocalDateTime to);
+
+    @Query("SELECT tag, SUM(runSeconds) AS runSeconds, SUM(starts) AS starts, SUM(extensions) AS extensions, "
+            + "SUM(addedSeconds) AS addedSeconds, SUM(expirations) AS expirations, SUM(stops) AS stops "
+            + "FROM timer_rollup WHERE period = :period AND bucketStart >= :from AND bucketStart < :to "
+            + "GROUP BY tag ORDER BY runSeconds DESC")
+    List<TimerTagTotal> getTotalsByTag(TimerRollup.Period period, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Append events in order. Each event's run time is the time its timer used up since the
+     * timer's previous event, looked up in the log, so intervals survive process restarts.
+     */
+    @Transaction
+    default void append(List<TimerEvent> events) {
+        Map<String, Long> lastConsumedById = new HashMap<>();
+        List<TimerEventTag> eventTags = new ArrayList<>();
+        for (TimerEvent event : events) {
+            Long lastConsumed = lastConsumedById.containsKey(event.timerId)
+                    ? lastConsumedById.get(event.timerId)
+                    : getLastConsumedSeconds(event.timerId);
+            event.runSeconds = event.type != TimerEvent.Type.START && lastConsumed != null
+                    ? Math.max(0, event.consumedSeconds - lastConsumed)
+                    : 0;
+            lastConsumedById.put(event.timerId, event.consumedSeconds);
+
+            event.id = insertEvent(event);
+            for (String tag : event.tags) {
+                eventTags.add(new TimerEventTag(event.id, tag));
+            }
+        }
+        if (!eventTags.isEmpty()) {
+            insertEventTags(eventTags);
+        }
+    }
+
+    /**
+     * Fold every event appended since the last compaction into the daily and weekly rollups,
+     * then drop compacted events recorded before the given time.
+     * @return the number of events folded in
+     */
+    @Transaction
+    default int compact(LocalDateTime pruneBefore) {
+        TimerHistoryCursor cursor = getCursor();
+        long compactedThrough = cursor != null ? cursor.compactedThroughEventId : 0;
+
+        List<TimerEvent> events = loadEventsAfter(compactedThrough);
+        if (!events.isEmpty()) {
+            Map<Long, Set<String>> tagsByEventId = new HashMap<>();
+            for (TimerEventTag eventTag : loadEventTagsAfter(compactedThrough)) {
+                tagsByEventId.computeIfAbsent(eventTag.eventId, id -> new HashSet<>()).add(eventTag.tag);
+            }
+
+            TimerRollupBuilder builder = new TimerRollupBuilder(this::getRollup);
+            for (TimerEvent event : events) {
+                builder.add(event, tagsByEventId.getOrDefault(event.id, Set.of()));
+            }
+            upsertRollups(builder.getRollups());
+
+            compactedThrough = events.get(events.size() - 1).id;
+            setCursor(new TimerHistoryCursor(compactedThrough));
+        }
+
+        pruneEvents(compactedThrough, pruneBefore);
+        return events.size();
+    }
+}
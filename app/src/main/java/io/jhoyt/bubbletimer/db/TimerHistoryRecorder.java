@@ -0,0 +1,227 @@
+package io.jhoyt.bubbletimer.db;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.jhoyt.bubbletimer.Timer;
+import io.jhoyt.bubbletimer.core.concurrency.KeyedSerialExecutor;
+import io.jhoyt.bubbletimer.domain.core.TimeSources;
+
+/**
+ * Turns changes to the active timers into {@link TimerEvent}s and appends them to the history
+ * log in batches off the calling thread.
+ *
+ * Events are derived by comparing each saved timer with the state last seen for its id, so
+ * every path that saves a timer (local edits, websocket updates, rows written by another
+ * component) is covered without the callers knowing about history. One recorder is shared by
+ * every {@link ActiveTimerRepository} in the process, so a change seen by several of them is
+ * recorded once.
+ *
+ * The log is compacted into {@link TimerRollup}s at most once per {@link #COMPACT_INTERVAL_MS}
+ * and before every query, so queries only read rollups.
+ */
+public class TimerHistoryRecorder {
+    private static final String TAG = "TimerHistoryRecorder";
+    // Appends and compactions run in order on their own lane
+    static final String WRITE_KEY = "timer_history";
+    static final long FLUSH_DELAY_MS = 1000;
+    static final long COMPACT_INTERVAL_MS = 60 * 60 * 1000;
+    // Compacted events are kept this long for debugging before they are pruned
+    static final int RAW_RETENTION_DAYS = 30;
+
+    private static volatile TimerHistoryRecorder INSTANCE;
+
+    private static final class TimerState {
+        boolean paused;
+        long totalSeconds;
+
+        TimerState(boolean paused, long totalSeconds) {
+            this.paused = paused;
+            this.totalSeconds = totalSeconds;
+        }
+    }
+
+    private final TimerHistoryDao timerHistoryDao;
+    private final KeyedSerialExecutor executor;
+    private final long flushDelayMs;
+
+    private final Map<String, TimerState> statesById = new HashMap<>();
+    private final List<TimerEvent> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+    // Only touched on the lane; zero so the first flush compacts whatever a previous process left
+    private long lastCompactionMillis;
+
+    public static TimerHistoryRecorder getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (TimerHistoryRecorder.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new TimerHistoryRecorder(
+                            AppDatabase.getDatabase(context).timerHistoryDao(),
+                            AppDatabase.databaseWriteExecutor, FLUSH_DELAY_MS);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    TimerHistoryRecorder(TimerHistoryDao timerHistoryDao, KeyedSerialExecutor executor, long flushDelayMs) {
+        this.timerHistoryDao = timerHistoryDao;
+        this.executor = executor;
+        this.flushDelayMs = flushDelayMs;
+    }
+
+    /**
+     * Start following a timer that already existed, e.g. one loaded at startup, without
+     * recording an event for it.
+     */
+    synchronized void track(Timer timer) {
+        statesById.putIfAbsent(timer.getId(),
+                new TimerState(timer.isPaused(), totalSeconds(timer)));
+    }
+
+    /**
+     * Stop following a timer without recording an event for it.
+     */
+    synchronized void untrack(String timerId) {
+        statesById.remove(timerId);
+    }
+
+    /**
+     * Record what changed since the timer was last seen: a start for a new timer, added
+     * time, and a pause or resume.
+     */
+    synchronized void onSaved(Timer timer) {
+        long totalSeconds = totalSeconds(timer);
+        boolean paused = timer.isPaused();
+        TimerState state = statesById.get(timer.getId());
+        if (state == null) {
+            statesById.put(timer.getId(), new TimerState(paused, totalSeconds));
+            record(timer, TimerEvent.Type.START, 0);
+            return;
+        }
+
+        if (totalSeconds > state.totalSeconds) {
+            record(timer, TimerEvent.Type.ADD_TIME, totalSeconds - state.totalSeconds);
+        }
+        if (paused != state.paused) {
+            record(timer, paused ? TimerEvent.Type.PAUSE : TimerEvent.Type.RESUME, 0);
+        }
+        state.paused = paused;
+        state.totalSeconds = totalSeconds;
+    }
+
+    /**
+     * Record the end of a timer: an expiry if it was running and had no time left, a stop
+     * otherwise.
+     */
+    synchronized void onRemoved(Timer timer) {
+        if (statesById.remove(timer.getId()) == null) {
+            // Already recorded by whoever removed it first
+            return;
+        }
+        boolean expired = !timer.isPaused() && timer.getRemainingNanos() <= 0;
+        record(timer, expired ? TimerEvent.Type.EXPIRE : TimerEvent.Type.STOP, 0);
+    }
+
+    /**
+     * Per-tag totals over whole buckets from {@code from} up to but excluding {@code to}. Use
+     * {@link TimerRollup.Period#DAY} for calendar ranges such as a month, since weeks straddle
+     * month boundaries; week ranges should start on a Monday.
+     * @return completes on the history lane once pending events are compacted and read
+     */
+    public Future<List<TimerTagTotal>> getTotalsByTag(TimerRollup.Period period, LocalDate from, LocalDate to) {
+        return executor.submit(WRITE_KEY, () -> {
+            flushNow();
+            compactNow();
+            return timerHistoryDao.getTotalsByTag(period, from.atStartOfDay(), to.atStartOfDay());
+        });
+    }
+
+    /**
+     * Append every pending event now.
+     * @return completes once the events are committed
+     */
+    Future<?> flush() {
+        return executor.submit(WRITE_KEY, this::flushNow);
+    }
+
+    private void record(Timer timer, TimerEvent.Type type, long addedSeconds) {
+        pending.add(new TimerEvent(timer.getId(), type, now(), consumedSeconds(timer), addedSeconds,
+                timer.getTags()));
+        if (scheduledFlush == null) {
+            scheduledFlush = executor.schedule(WRITE_KEY, this::flushNow, flushDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushNow() {
+        List<TimerEvent> batch;
+        synchronized (this) {
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = null;
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pending);
+            pending.clear();
+        }
+
+        try {
+            timerHistoryDao.append(batch);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to append " + batch.size() + " timer events, retrying", e);
+            synchronized (this) {
+                pending.addAll(0, batch);
+                if (scheduledFlush == null) {
+                    scheduledFlush = executor.schedule(WRITE_KEY, this::flushNow, flushDelayMs, TimeUnit.MILLISECONDS);
+                }
+            }
+            return;
+        }
+
+        if (TimeSources.get().wallClockMillis() - lastCompactionMillis >= COMPACT_INTERVAL_MS) {
+            compactNow();
+        }
+    }
+
+    private void compactNow() {
+        try {
+            int compacted = timerHistoryDao.compact(now().minusDays(RAW_RETENTION_DAYS));
+            lastCompactionMillis = TimeSources.get().wallClockMillis();
+            Log.d(TAG, "Compacted " + compacted + " timer events");
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to compact timer events", e);
+        }
+    }
+
+    private static LocalDateTime now() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(TimeSources.get().wallClockMillis()),
+                ZoneId.systemDefault());
+    }
+
+    private static long totalSeconds(Timer timer) {
+        return timer.getTotalDuration() != null ? timer.getTotalDuration().getSeconds() : 0;
+    }
+
+    /**
+     * @return the running time the timer has used up, between zero and its total
+     */
+    private static long consumedSeconds(Timer timer) {
+        long totalSeconds = totalSeconds(timer);
+        long remainingSeconds = Math.max(0, TimeUnit.NANOSECONDS.toSeconds(timer.getRemainingNanos()));
+        return Math.max(0, totalSeconds - Math.min(totalSeconds, remainingSeconds));
+    }
+}
@@ -1,129 +1,73 @@
 package io.jhoyt.bubbletimer.db;
 
 import android.app.Application;
+import android.util.Log;
+
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MutableLiveData;
-import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.ArrayList;
-import java.util.stream.Collectors;
+import androidx.lifecycle.Transformations;
+
+import io.jhoyt.bubbletimer.domain.core.TimeSources;
 
 public class TimerRepository {
-    private TimerDao timerDao;
-    private LiveData<List<Timer>> allTimers;
-    private final ConcurrentHashMap<Integer, Timer> timerCache = new ConcurrentHashMap<>();
-    private final MutableLiveData<List<Timer>> cachedTimers = new MutableLiveData<>();
-    private final ConcurrentHashMap<String, MutableLiveData<List<Timer>>> tagCaches = new ConcurrentHashMap<>();
+    private static final String TAG = "TimerRepository";
+
+    private final AppDatabase db;
+    private final TimerDao timerDao;
 
     TimerRepository(Application application) {
-        AppDatabase db = AppDatabase.getDatabase(application);
+        this.db = AppDatabase.getDatabase(application);
         this.timerDao = db.timerDao();
-        this.allTimers = this.timerDao.getAll();
-        
-        // Observe database changes and update cache
-        this.allTimers.observeForever(timers -> {
-            if (timers != null) {
-                timerCache.clear();
-                for (Timer timer : timers) {
-                    timerCache.put(timer.id, timer);
-                }
-                List<Timer> timerList = new ArrayList<>(timerCache.values());
-                cachedTimers.postValue(timerList);
-            }
-        });
     }
 
-    public LiveData<List<Timer>> getAllTimers() {
-        return cachedTimers;
-    }
-
-    public LiveData<List<Timer>> getAllTimersWithTag(String tagsString) {
-        return tagCaches.computeIfAbsent(tagsString, tag -> {
-            MutableLiveData<List<Timer>> liveData = new MutableLiveData<>();
-            updateTaggedTimers(tag, liveData);
-            return liveData;
-        });
-    }
-
-    private void updateTaggedTimers(String tag, MutableLiveData<List<Timer>> liveData) {
-        List<Timer> filteredTimers = timerCache.values().stream()
-            .filter(timer -> timer.tagsString != null && timer.tagsString.contains(tag))
-            .collect(Collectors.toList());
-        liveData.postValue(filteredTimers);
+    /**
+     * Page through the saved timers in the given order, only those with {@code tag} if it isn't
+     * null. The caller closes the pager when it no longer needs it.
+     */
+    public SavedTimerPager getPager(SavedTimerOrder order, String tag) {
+        return new SavedTimerPager(timerDao, db.getInvalidationTracker(), AppDatabase.databaseWriteExecutor,
+                order, tag, SavedTimerPager.DEFAULT_PAGE_SIZE);
     }
 
     public LiveData<Timer> getById(int id) {
-        Timer cachedTimer = timerCache.get(id);
-        if (cachedTimer != null) {
-            MutableLiveData<Timer> result = new MutableLiveData<>();
-            result.setValue(cachedTimer);
-            return result;
-        }
-        return this.timerDao.getById(id);
+        return Transformations.map(this.timerDao.getById(id),
+                timer -> timer != null ? timer.toTimer() : null);
     }
 
     public void insert(Timer timer) {
-        // Update cache immediately
-        timerCache.put(timer.id, timer);
-        List<Timer> timers = new ArrayList<>(timerCache.values());
-        cachedTimers.postValue(timers);
-        
-        // Update tag caches in background
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            tagCaches.forEach((tag, liveData) -> updateTaggedTimers(tag, liveData));
-        });
-        
-        // Update database in background
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        // Open pagers pick the new row up through Room's invalidation tracker
+        AppDatabase.databaseWriteExecutor.execute(writeKey(timer.id), () -> {
             timerDao.insert(timer);
         });
     }
 
     public void update(Timer timer) {
-        // Update cache immediately
-        timerCache.put(timer.id, timer);
-        List<Timer> timers = new ArrayList<>(timerCache.values());
-        cachedTimers.postValue(timers);
-        
-        // Update tag caches in background
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            tagCaches.forEach((tag, liveData) -> updateTaggedTimers(tag, liveData));
-        });
-        
-        // Update database in background
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        AppDatabase.databaseWriteExecutor.execute(writeKey(timer.id), () -> {
             timerDao.update(timer);
         });
     }
 
+    /**
+     * Record that the timer was just started, moving it to the front of the last used order.
+     */
+    public void markUsed(int id) {
+        long now = TimeSources.get().wallClockMillis();
+        AppDatabase.databaseWriteExecutor.execute(writeKey(id), () -> {
+            timerDao.setLastUsed(id, now);
+        });
+    }
+
     public void deleteById(int id) {
-        // Update cache immediately
-        Timer removedTimer = timerCache.remove(id);
-        if (removedTimer != null) {
-            // Update main cache immediately
-            List<Timer> timers = new ArrayList<>(timerCache.values());
-            cachedTimers.postValue(timers);
-            
-            // Update tag caches in background
-            AppDatabase.databaseWriteExecutor.execute(() -> {
-                tagCaches.forEach((tag, liveData) -> updateTaggedTimers(tag, liveData));
-            });
-        }
-        
-        // Update database in background
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        AppDatabase.databaseWriteExecutor.execute(writeKey(id), () -> {
             try {
                 timerDao.deleteById(id);
             } catch (Exception e) {
-                // If database operation fails, restore the cache
-                if (removedTimer != null) {
-                    timerCache.put(id, removedTimer);
-                    List<Timer> timers = new ArrayList<>(timerCache.values());
-                    cachedTimers.postValue(timers);
-                }
+                Log.e(TAG, "Failed to delete saved timer " + id, e);
             }
         });
     }
 
-
+    private static String writeKey(int id) {
+        // Unsaved timers all have id 0 and share a lane until Room assigns them one
+        return "timer:" + id;
+    }
 }
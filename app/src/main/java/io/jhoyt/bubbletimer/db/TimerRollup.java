@@ -0,0 +1,67 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+
+import java.time.LocalDateTime;
+
+/**
+ * Totals of the timer events of one tag in one day or week. Timers without tags are counted
+ * under {@link #UNTAGGED}. The primary key orders rows by period and bucket, so range queries
+ * over a period read only the buckets in the range.
+ */
+@Entity(
+    tableName = "timer_rollup",
+    primaryKeys = {"period", "bucketStart", "tag"}
+)
+public class TimerRollup {
+    public static final String UNTAGGED = "";
+
+    public enum Period {
+        DAY,
+        // Weeks start on Monday
+        WEEK
+    }
+
+    @ColumnInfo(name = "period")
+    @NonNull
+    public Period period;
+
+    @ColumnInfo(name = "bucketStart")
+    @NonNull
+    public LocalDateTime bucketStart;
+
+    @ColumnInfo(name = "tag")
+    @NonNull
+    public String tag;
+
+    @ColumnInfo(name = "runSeconds")
+    public long runSeconds;
+
+    @ColumnInfo(name = "starts")
+    public int starts;
+
+    @ColumnInfo(name = "extensions")
+    public int extensions;
+
+    @ColumnInfo(name = "addedSeconds")
+    public long addedSeconds;
+
+    @ColumnInfo(name = "expirations")
+    public int expirations;
+
+    @ColumnInfo(name = "stops")
+    public int stops;
+
+    public TimerRollup() {
+    }
+
+    @Ignore
+    public TimerRollup(@NonNull Period period, @NonNull LocalDateTime bucketStart, @NonNull String tag) {
+        this.period = period;
+        this.bucketStart = bucketStart;
+        this.tag = tag;
+    }
+}
@@ -0,0 +1,97 @@
+package io.jhoyt.bubbletimer.db;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adds timer events into daily and weekly {@link TimerRollup} buckets per tag, starting from
+ * the stored rollups so compaction can run incrementally.
+ *
+ * Counts go to the bucket the event happened in. Run time is spread over the buckets the run
+ * covered, ending at the event, so a timer running over midnight counts toward both days.
+ */
+final class TimerRollupBuilder {
+
+    interface Loader {
+        TimerRollup load(TimerRollup.Period period, LocalDateTime bucketStart, String tag);
+    }
+
+    private final Loader loader;
+    private final Map<List<Object>, TimerRollup> rollups = new LinkedHashMap<>();
+
+    TimerRollupBuilder(Loader loader) {
+        this.loader = loader;
+    }
+
+    void add(TimerEvent event, Collection<String> tags) {
+        Collection<String> bucketTags = tags.isEmpty() ? List.of(TimerRollup.UNTAGGED) : tags;
+        for (String tag : bucketTags) {
+            for (TimerRollup.Period period : TimerRollup.Period.values()) {
+                TimerRollup rollup = get(period, bucketStart(period, event.at), tag);
+                switch (event.type) {
+                    case START:
+                        rollup.starts++;
+                        break;
+                    case ADD_TIME:
+                        rollup.extensions++;
+                        rollup.addedSeconds += event.addedSeconds;
+                        break;
+                    case EXPIRE:
+                        rollup.expirations++;
+                        break;
+                    case STOP:
+                        rollup.stops++;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            addRunTime(event.at, event.runSeconds, tag);
+        }
+    }
+
+    List<TimerRollup> getRollups() {
+        return new ArrayList<>(rollups.values());
+    }
+
+    static LocalDateTime bucketStart(TimerRollup.Period period, LocalDateTime at) {
+        switch (period) {
+            case WEEK:
+                return at.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+            case DAY:
+            default:
+                return at.toLocalDate().atStartOfDay();
+        }
+    }
+
+    private void addRunTime(LocalDateTime end, long runSeconds, String tag) {
+        LocalDateTime start = end.minusSeconds(runSeconds);
+        long remaining = runSeconds;
+        while (remaining > 0) {
+            LocalDateTime dayStart = start.toLocalDate().atStartOfDay();
+            LocalDateTime nextDay = dayStart.plusDays(1);
+            // The last piece takes what is left so sub-second offsets don't lose a second
+            long seconds = nextDay.isBefore(end)
+                    ? Math.min(remaining, Duration.between(start, nextDay).getSeconds())
+                    : remaining;
+            get(TimerRollup.Period.DAY, dayStart, tag).runSeconds += seconds;
+            get(TimerRollup.Period.WEEK, bucketStart(TimerRollup.Period.WEEK, dayStart), tag).runSeconds += seconds;
+            remaining -= seconds;
+            start = nextDay;
+        }
+    }
+
+    private TimerRollup get(TimerRollup.Period period, LocalDateTime bucketStart, String tag) {
+        return rollups.computeIfAbsent(List.of(period, bucketStart, tag), key -> {
+            TimerRollup stored = loader.load(period, bucketStart, tag);
+            return stored != null ? stored : new TimerRollup(period, bucketStart, tag);
+        });
+    }
+}
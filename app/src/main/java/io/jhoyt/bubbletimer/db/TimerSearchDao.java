@@ -0,0 +1,26 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import java.util.List;
+
+@Dao
+public interface TimerSearchDao {
+    @Query("SELECT d.source AS source, d.timerId AS timerId FROM timer_search " +
+            "INNER JOIN timer_search_doc AS d ON d.docid = timer_search.rowid " +
+            "WHERE timer_search MATCH :matchExpression LIMIT :limit")
+    List<TimerSearchResult> match(String matchExpression, int limit);
+
+    /**
+     * Saved and active timers whose name or tags contain every word of the query, each word
+     * matched as a prefix, in the order they were first indexed.
+     */
+    default List<TimerSearchResult> search(String query, int limit) {
+        String matchExpression = TimerSearchIndex.toMatchExpression(query);
+        if (matchExpression == null || limit <= 0) {
+            return List.of();
+        }
+        return match(matchExpression, limit);
+    }
+}
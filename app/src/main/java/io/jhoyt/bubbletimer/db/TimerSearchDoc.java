@@ -0,0 +1,30 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Maps a saved or active timer to its row in the timer_search index. Active timers have text
+ * ids, so the index is keyed by this table's docid instead of the timer's own id. Rows are
+ * written by the triggers in {@link TimerSearchIndex}, never by the app.
+ */
+@Entity(
+    tableName = "timer_search_doc",
+    indices = {@Index(value = {"source", "timerId"}, unique = true)}
+)
+public class TimerSearchDoc {
+    @PrimaryKey(autoGenerate = true)
+    public long docid;
+
+    // TimerSearchResult.SAVED or TimerSearchResult.ACTIVE
+    @ColumnInfo(name = "source")
+    @NonNull
+    public String source = "";
+
+    @ColumnInfo(name = "timerId")
+    @NonNull
+    public String timerId = "";
+}
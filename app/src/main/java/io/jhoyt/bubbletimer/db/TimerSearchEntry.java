@@ -0,0 +1,26 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+import androidx.room.PrimaryKey;
+
+/**
+ * Full-text index over the names and tags of saved and active timers. The rowid is the docid
+ * of the timer's {@link TimerSearchDoc}; tags are stored space separated. The unicode61
+ * tokenizer folds case beyond ASCII, so "Ärger" and "ärger" index and match alike.
+ */
+@Fts4(tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "timer_search")
+public class TimerSearchEntry {
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    public long rowid;
+
+    @ColumnInfo(name = "name")
+    public String name;
+
+    @ColumnInfo(name = "tags")
+    public String tags;
+}
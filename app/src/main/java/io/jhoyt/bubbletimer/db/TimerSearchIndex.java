@@ -0,0 +1,135 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+
+/**
+ * Keeps the timer_search full-text index in step with the saved and active timers using
+ * triggers, so every write path (DAO methods, bulk replaces, cascading deletes) updates it in
+ * the same transaction without the app knowing about it.
+ *
+ * Each trigger recomputes the affected timer's row from the current tables instead of patching
+ * it, so the order in which SQLite fires them doesn't matter. Inserts also replace any existing
+ * row, since REPLACE conflict resolution removes the old timer row without firing its delete
+ * trigger. The trigger bodies avoid conflict clauses of their own because the outer statement's
+ * clause overrides them, which would let a REPLACE give the timer a new docid.
+ */
+final class TimerSearchIndex {
+
+    private TimerSearchIndex() {
+    }
+
+    /**
+     * Create the triggers if they don't exist yet. Called when the database is created and
+     * from the migration that adds the index.
+     */
+    static void createTriggers(@NonNull SupportSQLiteDatabase db) {
+        createTriggers(db, TimerSearchResult.SAVED, "Timer", "title", "saved_timer_tag", true);
+        createTriggers(db, TimerSearchResult.ACTIVE, "ActiveTimer", "name", "timer_tag", false);
+    }
+
+    /**
+     * Index every existing timer again from scratch.
+     */
+    static void rebuild(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL("DELETE FROM `timer_search`");
+        db.execSQL("DELETE FROM `timer_search_doc`");
+        rebuild(db, TimerSearchResult.SAVED, "Timer", "title", "saved_timer_tag", true);
+        rebuild(db, TimerSearchResult.ACTIVE, "ActiveTimer", "name", "timer_tag", false);
+    }
+
+    /**
+     * Turn what the user typed into an FTS match expression: every word must match, each as a
+     * prefix. Punctuation is dropped and ASCII is lowercased so user input can't form FTS query
+     * syntax or operators like OR. Other letters are left to the tokenizer, which folds their
+     * case the same way it did when indexing.
+     * @return null if the query has no words
+     */
+    @Nullable
+    static String toMatchExpression(@Nullable String query) {
+        if (query == null) {
+            return null;
+        }
+
+        StringBuilder expression = new StringBuilder();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= query.length(); i++) {
+            char c = i < query.length() ? query.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+            } else if (word.length() > 0) {
+                if (expression.length() > 0) {
+                    expression.append(' ');
+                }
+                expression.append(word).append('*');
+                word.setLength(0);
+            }
+        }
+        return expression.length() > 0 ? expression.toString() : null;
+    }
+
+    /**
+     * @param integerIds whether the timer table has integer ids, which the doc table stores as
+     *                   text; the tag table is always queried with the raw id so its index is used
+     */
+    private static void createTriggers(SupportSQLiteDatabase db, String source, String table, String nameColumn,
+                                       String tagTable, boolean integerIds) {
+        String prefix = "timer_search_" + source;
+        String newKey = key("NEW.id", integerIds);
+        String oldKey = key("OLD.id", integerIds);
+        String newTagKey = key("NEW.timerId", integerIds);
+        String oldTagKey = key("OLD.timerId", integerIds);
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `" + prefix + "_insert` AFTER INSERT ON `" + table + "` BEGIN "
+                + "INSERT INTO `timer_search_doc` (`source`, `timerId`) SELECT '" + source + "', " + newKey
+                + " WHERE " + docid(source, newKey) + " IS NULL; "
+                + "DELETE FROM `timer_search` WHERE rowid = " + docid(source, newKey) + "; "
+                + "INSERT INTO `timer_search` (rowid, `name`, `tags`) VALUES ("
+                + docid(source, newKey) + ", NEW.`" + nameColumn + "`, " + tags(tagTable, "NEW.id") + "); "
+                + "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `" + prefix + "_update` AFTER UPDATE OF `" + nameColumn
+                + "` ON `" + table + "` BEGIN "
+                + "UPDATE `timer_search` SET `name` = NEW.`" + nameColumn + "` WHERE rowid = " + docid(source, newKey) + "; "
+                + "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `" + prefix + "_delete` AFTER DELETE ON `" + table + "` BEGIN "
+                + "DELETE FROM `timer_search` WHERE rowid = " + docid(source, oldKey) + "; "
+                + "DELETE FROM `timer_search_doc` WHERE `source` = '" + source + "' AND `timerId` = " + oldKey + "; "
+                + "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `" + prefix + "_tag_insert` AFTER INSERT ON `" + tagTable + "` BEGIN "
+                + "UPDATE `timer_search` SET `tags` = " + tags(tagTable, "NEW.timerId")
+                + " WHERE rowid = " + docid(source, newTagKey) + "; "
+                + "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `" + prefix + "_tag_delete` AFTER DELETE ON `" + tagTable + "` BEGIN "
+                + "UPDATE `timer_search` SET `tags` = " + tags(tagTable, "OLD.timerId")
+                + " WHERE rowid = " + docid(source, oldTagKey) + "; "
+                + "END");
+    }
+
+    private static void rebuild(SupportSQLiteDatabase db, String source, String table, String nameColumn,
+                                String tagTable, boolean integerIds) {
+        String key = key("t.id", integerIds);
+        db.execSQL("INSERT INTO `timer_search_doc` (`source`, `timerId`) SELECT '" + source + "', " + key
+                + " FROM `" + table + "` AS t");
+        db.execSQL("INSERT INTO `timer_search` (rowid, `name`, `tags`) SELECT d.docid, t.`" + nameColumn + "`, "
+                + tags(tagTable, "t.id") + " FROM `" + table + "` AS t "
+                + "INNER JOIN `timer_search_doc` AS d ON d.`source` = '" + source + "' AND d.`timerId` = " + key);
+    }
+
+    private static String key(String id, boolean integerIds) {
+        return integerIds ? "CAST(" + id + " AS TEXT)" : id;
+    }
+
+    private static String docid(String source, String timerId) {
+        return "(SELECT docid FROM `timer_search_doc` WHERE `source` = '" + source + "' AND `timerId` = " + timerId + ")";
+    }
+
+    private static String tags(String tagTable, String timerId) {
+        return "(SELECT IFNULL(group_concat(`tag`, ' '), '') FROM `" + tagTable + "` WHERE `timerId` = " + timerId + ")";
+    }
+}
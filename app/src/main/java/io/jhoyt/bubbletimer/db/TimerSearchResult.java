@@ -0,0 +1,18 @@
+package io.jhoyt.bubbletimer.db;
+
+/**
+ * A timer matching a search, identified by where it lives and its id there.
+ */
+public class TimerSearchResult {
+    // A saved timer in the Timer table; the id is its integer id as text
+    public static final String SAVED = "saved";
+    // A running or paused timer in the ActiveTimer table
+    public static final String ACTIVE = "active";
+
+    public String source;
+    public String timerId;
+
+    public boolean isActive() {
+        return ACTIVE.equals(source);
+    }
+}
@@ -0,0 +1,36 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+/**
+ * A user an active timer is shared with, the creator included.
+ */
+@Entity(
+    tableName = "timer_share",
+    primaryKeys = {"timerId", "userId"},
+    foreignKeys = @ForeignKey(
+        entity = ActiveTimer.class,
+        parentColumns = "id",
+        childColumns = "timerId",
+        onDelete = ForeignKey.CASCADE
+    ),
+    indices = {@Index("userId")}
+)
+public class TimerShare {
+    @ColumnInfo(name = "timerId")
+    @NonNull
+    public String timerId;
+
+    @ColumnInfo(name = "userId")
+    @NonNull
+    public String userId;
+
+    public TimerShare(@NonNull String timerId, @NonNull String userId) {
+        this.timerId = timerId;
+        this.userId = userId;
+    }
+}
@@ -0,0 +1,37 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+/**
+ * A tag on an active timer. The primary key doubles as the index for loading a timer's tags,
+ * the tag index serves lookups of every timer with a tag.
+ */
+@Entity(
+    tableName = "timer_tag",
+    primaryKeys = {"timerId", "tag"},
+    foreignKeys = @ForeignKey(
+        entity = ActiveTimer.class,
+        parentColumns = "id",
+        childColumns = "timerId",
+        onDelete = ForeignKey.CASCADE
+    ),
+    indices = {@Index("tag")}
+)
+public class TimerTag {
+    @ColumnInfo(name = "timerId")
+    @NonNull
+    public String timerId;
+
+    @ColumnInfo(name = "tag")
+    @NonNull
+    public String tag;
+
+    public TimerTag(@NonNull String timerId, @NonNull String tag) {
+        this.timerId = timerId;
+        this.tag = tag;
+    }
+}
@@ -0,0 +1,29 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * Rollup totals of one tag over a range of buckets.
+ */
+public class TimerTagTotal {
+    @ColumnInfo(name = "tag")
+    public String tag;
+
+    @ColumnInfo(name = "runSeconds")
+    public long runSeconds;
+
+    @ColumnInfo(name = "starts")
+    public int starts;
+
+    @ColumnInfo(name = "extensions")
+    public int extensions;
+
+    @ColumnInfo(name = "addedSeconds")
+    public long addedSeconds;
+
+    @ColumnInfo(name = "expirations")
+    public int expirations;
+
+    @ColumnInfo(name = "stops")
+    public int stops;
+}
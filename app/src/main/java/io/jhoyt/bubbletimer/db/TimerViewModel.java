@@ -6,26 +6,26 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MutableLiveData;
 
-import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.HashMap;
+import java.util.Map;
 
 public class TimerViewModel extends AndroidViewModel {
     private final TimerRepository repository;
-    // Removed unnecessary deletion tracking - UI updates immediately via repository cache
+    // One pager per tab, kept across configuration changes; the all tab uses the null tag
+    private final Map<String, SavedTimerPager> pagers = new HashMap<>();
 
     public TimerViewModel(@NonNull Application application) {
         super(application);
         repository = new TimerRepository(application);
     }
 
-    public LiveData<List<Timer>> getAllTimers() {
-        return repository.getAllTimers();
-    }
-
-    public LiveData<List<Timer>> getAllTimersWithTag(String tag) {
-        return repository.getAllTimersWithTag(tag);
+    /**
+     * @return the saved timers most recently used first, only those with {@code tag} if it
+     * isn't null, loaded a page at a time as the list is scrolled
+     */
+    public SavedTimerPager getSavedTimers(String tag) {
+        return pagers.computeIfAbsent(tag, key -> repository.getPager(SavedTimerOrder.LAST_USED, key));
     }
 
     public LiveData<Timer> getById(int id) {
@@ -44,9 +44,22 @@ public class TimerViewModel extends AndroidViewModel {
         repository.update(timer);
     }
 
+    public void markUsed(int id) {
+        repository.markUsed(id);
+    }
+
     public void deleteById(int id) {
         Log.d("TimerViewModel", "Deleting timer with id: " + id);
-        // Repository handles background execution and immediate UI updates
+        // Repository handles background execution; open pagers reload once the row is gone
         repository.deleteById(id);
     }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        for (SavedTimerPager pager : pagers.values()) {
+            pager.close();
+        }
+        pagers.clear();
+    }
 }
@@ -0,0 +1,26 @@
+package io.jhoyt.bubbletimer.db;
+
+import androidx.room.Embedded;
+import androidx.room.Relation;
+
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * A saved timer row loaded together with its tags.
+ */
+public class TimerWithTags {
+    @Embedded
+    public Timer timer;
+
+    @Relation(parentColumn = "id", entityColumn = "timerId", entity = SavedTimerTag.class, projection = {"tag"})
+    public List<String> tags;
+
+    /**
+     * @return the timer row with its tags filled in
+     */
+    public Timer toTimer() {
+        timer.tags = tags != null ? new HashSet<>(tags) : new HashSet<>();
+        return timer;
+    }
+}
@@ -8,6 +8,10 @@ import dagger.hilt.InstallIn;
 import dagger.hilt.components.SingletonComponent;
 import io.jhoyt.bubbletimer.db.ActiveTimerRepository;
 import io.jhoyt.bubbletimer.db.AppDatabase;
+import io.jhoyt.bubbletimer.db.TimerDao;
+import io.jhoyt.bubbletimer.db.TimerSearchDao;
+
+import javax.inject.Singleton;
 
 @Module
 @InstallIn(SingletonComponent.class)
@@ -19,6 +23,17 @@ public class DatabaseModule {
     }
 
     @Provides
+    public TimerDao provideTimerDao(AppDatabase database) {
+        return database.timerDao();
+    }
+
+    @Provides
+    public TimerSearchDao provideTimerSearchDao(AppDatabase database) {
+        return database.timerSearchDao();
+    }
+
+    @Provides
+    @Singleton
     public ActiveTimerRepository provideActiveTimerRepository(Application application) {
         return new ActiveTimerRepository(application);
     }
@@ -1,9 +1,13 @@
 package io.jhoyt.bubbletimer.di;
 
+import android.content.Context;
+
 import dagger.Module;
 import dagger.Provides;
 import dagger.hilt.InstallIn;
+import dagger.hilt.android.qualifiers.ApplicationContext;
 import dagger.hilt.components.SingletonComponent;
+import io.jhoyt.bubbletimer.ServerCursorStore;
 import io.jhoyt.bubbletimer.WebsocketManager;
 import io.jhoyt.bubbletimer.db.ActiveTimerRepository;
 import okhttp3.OkHttpClient;
@@ -36,8 +40,11 @@ public class WebsocketModule {
     @Provides
     public WebsocketManager provideWebsocketManager(
             ActiveTimerRepository activeTimerRepository,
-            OkHttpClient okHttpClient
+            OkHttpClient okHttpClient,
+            @ApplicationContext Context context
     ) {
-        return new WebsocketManager(activeTimerRepository, okHttpClient);
+        ServerCursorStore cursorStore = new ServerCursorStore(
+                context.getSharedPreferences("websocket_sync", Context.MODE_PRIVATE));
+        return new WebsocketManager(activeTimerRepository, okHttpClient, cursorStore);
     }
 } 
\ No newline at end of file
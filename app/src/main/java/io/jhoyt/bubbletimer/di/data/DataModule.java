@@ -12,6 +12,7 @@ import io.jhoyt.bubbletimer.data.repositories.RoomUserRepository;
 import io.jhoyt.bubbletimer.data.repositories.RoomSharedTimerRepository;
 import io.jhoyt.bubbletimer.db.ActiveTimerRepository;
 import io.jhoyt.bubbletimer.db.TimerDao;
+import io.jhoyt.bubbletimer.db.TimerSearchDao;
 import io.jhoyt.bubbletimer.data.converters.DomainTimerConverter;
 
 import javax.inject.Singleton;
@@ -34,14 +35,15 @@ public class DataModule {
      * Provide TimerRepository implementation
      * @param activeTimerRepository ActiveTimer repository
      * @param timerDao Timer DAO
-     * @param timerConverter Timer converter
+     * @param timerSearchDao Timer search DAO
      * @return TimerRepository implementation
      */
     @Provides
     @Singleton
     public TimerRepository provideTimerRepository(ActiveTimerRepository activeTimerRepository,
-                                               TimerDao timerDao) {
-        return new RoomTimerRepository(activeTimerRepository, timerDao);
+                                               TimerDao timerDao,
+                                               TimerSearchDao timerSearchDao) {
+        return new RoomTimerRepository(activeTimerRepository, timerDao, timerSearchDao);
     }
     
     /**
@@ -0,0 +1,35 @@
+package io.jhoyt.bubbletimer.domain.core;
+
+/**
+ * Source of time for timer deadlines.
+ *
+ * Running timers keep their deadline on the monotonic clock so that remaining time is
+ * unaffected by the user or the network changing the wall clock. The wall clock is only
+ * needed when a deadline crosses a persistence or wire boundary as a date-time.
+ */
+public interface TimeSource {
+    /**
+     * @return nanoseconds on a clock that never goes backwards; only differences are meaningful
+     */
+    long monotonicNanos();
+
+    /**
+     * @return current wall-clock time in milliseconds since the epoch
+     */
+    long wallClockMillis();
+
+    /**
+     * Time source backed by the JVM clocks.
+     */
+    TimeSource SYSTEM = new TimeSource() {
+        @Override
+        public long monotonicNanos() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public long wallClockMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+}
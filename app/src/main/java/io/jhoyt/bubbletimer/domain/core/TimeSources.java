@@ -0,0 +1,58 @@
+package io.jhoyt.bubbletimer.domain.core;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Holds the process-wide {@link TimeSource} and converts deadlines between the monotonic
+ * clock and wall-clock {@link LocalDateTime} values.
+ */
+public final class TimeSources {
+    private static volatile TimeSource current = TimeSource.SYSTEM;
+
+    private TimeSources() {
+        // Utility class - prevent instantiation
+    }
+
+    public static TimeSource get() {
+        return current;
+    }
+
+    /**
+     * Replace the process-wide time source. The application installs a clock that keeps
+     * counting through device sleep; tests install a fake one.
+     */
+    public static void set(TimeSource timeSource) {
+        current = timeSource != null ? timeSource : TimeSource.SYSTEM;
+    }
+
+    public static long monotonicNanos() {
+        return current.monotonicNanos();
+    }
+
+    /**
+     * Convert a wall-clock end time into a deadline on the monotonic clock.
+     * @param endTime End time in the system default zone
+     * @return Deadline in monotonic nanoseconds
+     */
+    public static long toDeadlineNanos(LocalDateTime endTime) {
+        TimeSource timeSource = current;
+        Instant end = endTime.atZone(ZoneId.systemDefault()).toInstant();
+        long endEpochNanos = end.getEpochSecond() * 1_000_000_000L + end.getNano();
+        long nowEpochNanos = timeSource.wallClockMillis() * 1_000_000L;
+        return timeSource.monotonicNanos() + (endEpochNanos - nowEpochNanos);
+    }
+
+    /**
+     * Convert a monotonic deadline into a wall-clock end time for storage or the wire.
+     * @param deadlineNanos Deadline in monotonic nanoseconds
+     * @return End time in the system default zone
+     */
+    public static LocalDateTime toLocalDateTime(long deadlineNanos) {
+        TimeSource timeSource = current;
+        long remainingNanos = deadlineNanos - timeSource.monotonicNanos();
+        Instant end = Instant.ofEpochMilli(timeSource.wallClockMillis()).plusNanos(remainingNanos);
+        return LocalDateTime.ofInstant(end, ZoneId.systemDefault());
+    }
+}
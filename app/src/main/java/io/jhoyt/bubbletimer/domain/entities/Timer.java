@@ -1,5 +1,7 @@
 package io.jhoyt.bubbletimer.domain.entities;
 
+import io.jhoyt.bubbletimer.domain.core.TimeSources;
+
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Collections;
@@ -25,6 +27,8 @@ public class Timer {
     private final TimerState state;
     private final LocalDateTime createdAt;
     private final LocalDateTime updatedAt;
+    // Deadline on the monotonic clock while running; endTime is its wall-clock equivalent
+    private final long deadlineNanos;
 
     /**
      * Private constructor to enforce immutability and ensure valid state
@@ -33,14 +37,27 @@ public class Timer {
                   Duration remainingDurationWhenPaused, LocalDateTime endTime,
                   Set<String> sharedWith, Set<String> tags, TimerState state,
                   LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, name, userId, totalDuration, remainingDurationWhenPaused, endTime,
+             endTime != null ? TimeSources.toDeadlineNanos(endTime) : 0,
+             sharedWith, tags, state, createdAt, updatedAt);
+    }
+
+    /**
+     * Private constructor for transitions that already know the monotonic deadline
+     */
+    private Timer(String id, String name, String userId, Duration totalDuration,
+                  Duration remainingDurationWhenPaused, LocalDateTime endTime, long deadlineNanos,
+                  Set<String> sharedWith, Set<String> tags, TimerState state,
+                  LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.deadlineNanos = deadlineNanos;
         this.id = id;
         this.name = name;
         this.userId = userId;
         this.totalDuration = totalDuration;
         this.remainingDurationWhenPaused = remainingDurationWhenPaused;
         this.endTime = endTime;
-        this.sharedWith = Collections.unmodifiableSet(new HashSet<>(sharedWith));
-        this.tags = Collections.unmodifiableSet(new HashSet<>(tags));
+        this.sharedWith = immutableSet(sharedWith);
+        this.tags = immutableSet(tags);
         this.state = state;
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
@@ -58,13 +75,15 @@ public class Timer {
      */
     public static Timer create(String name, String userId, Duration duration, Set<String> tags) {
         LocalDateTime now = LocalDateTime.now();
+        long deadlineNanos = TimeSources.monotonicNanos() + duration.toNanos();
         return new Timer(
             UUID.randomUUID().toString(),
             name,
             userId,
             duration,
             null, // remainingDurationWhenPaused is null for running timers
-            now.plus(duration),
+            TimeSources.toLocalDateTime(deadlineNanos),
+            deadlineNanos,
             new HashSet<>(),
             tags != null ? tags : new HashSet<>(),
             TimerState.RUNNING,
@@ -121,7 +140,7 @@ public class Timer {
      * @return true if the timer has expired
      */
     public boolean isExpired() {
-        return state == TimerState.EXPIRED || getRemainingDuration().isNegative() || getRemainingDuration().isZero();
+        return state == TimerState.EXPIRED || getRemainingNanos() <= 0;
     }
 
     /**
@@ -155,11 +174,22 @@ public class Timer {
     public Duration getRemainingDuration() {
         if (isPaused()) {
             return remainingDurationWhenPaused != null ? remainingDurationWhenPaused : Duration.ZERO;
+        }
+        long remainingNanos = getRemainingNanos();
+        return remainingNanos > 0 ? Duration.ofNanos(remainingNanos) : Duration.ZERO;
+    }
+
+    /**
+     * Get the current remaining time without allocating, measured on the monotonic clock
+     * @return Remaining nanoseconds, never negative
+     */
+    public long getRemainingNanos() {
+        if (isPaused()) {
+            return remainingDurationWhenPaused != null ? remainingDurationWhenPaused.toNanos() : 0;
         } else if (isRunning() && endTime != null) {
-            Duration remaining = Duration.between(LocalDateTime.now(), endTime);
-            return remaining.isNegative() ? Duration.ZERO : remaining;
+            return Math.max(0, deadlineNanos - TimeSources.monotonicNanos());
         } else {
-            return Duration.ZERO;
+            return 0;
         }
     }
 
@@ -196,7 +226,8 @@ public class Timer {
      * @return true if the timer is shared with the user
      */
     public boolean isSharedWith(String userId) {
-        return sharedWith.contains(userId);
+        // Immutable sets throw on null lookups
+        return userId != null && sharedWith.contains(userId);
     }
 
     /**
@@ -205,7 +236,7 @@ public class Timer {
      * @return true if the timer has the tag
      */
     public boolean hasTag(String tag) {
-        return tags.contains(tag);
+        return tag != null && tags.contains(tag);
     }
 
     /**
@@ -258,11 +289,12 @@ public class Timer {
         
         LocalDateTime now = LocalDateTime.now();
         Duration remaining = remainingDurationWhenPaused != null ? remainingDurationWhenPaused : Duration.ZERO;
+        long newDeadlineNanos = TimeSources.monotonicNanos() + remaining.toNanos();
         
         return new Timer(
             id, name, userId, totalDuration,
             null, // Clear remaining duration when running
-            now.plus(remaining),
+            TimeSources.toLocalDateTime(newDeadlineNanos), newDeadlineNanos,
             sharedWith, tags, TimerState.RUNNING,
             createdAt, now
         );
@@ -298,10 +330,12 @@ public class Timer {
         
         if (isRunning()) {
             // For running timers, extend the end time
+            long newDeadlineNanos = (endTime != null ? deadlineNanos : TimeSources.monotonicNanos())
+                + additionalDuration.toNanos();
             LocalDateTime newEndTime = endTime != null ? endTime.plus(additionalDuration) : now.plus(additionalDuration);
             return new Timer(
                 id, name, userId, newTotalDuration,
-                null, newEndTime,
+                null, newEndTime, newDeadlineNanos,
                 sharedWith, tags, TimerState.RUNNING,
                 createdAt, now
             );
@@ -319,7 +353,7 @@ public class Timer {
             // For stopped/expired timers, just update total duration
             return new Timer(
                 id, name, userId, newTotalDuration,
-                remainingDurationWhenPaused, endTime,
+                remainingDurationWhenPaused, endTime, deadlineNanos,
                 sharedWith, tags, state,
                 createdAt, now
             );
@@ -342,7 +376,7 @@ public class Timer {
         LocalDateTime now = LocalDateTime.now();
         return new Timer(
             id, name, userId, totalDuration,
-            remainingDurationWhenPaused, endTime,
+            remainingDurationWhenPaused, endTime, deadlineNanos,
             newSharedWith, tags, state,
             createdAt, now
         );
@@ -366,7 +400,7 @@ public class Timer {
         LocalDateTime now = LocalDateTime.now();
         return new Timer(
             id, name, userId, totalDuration,
-            remainingDurationWhenPaused, endTime,
+            remainingDurationWhenPaused, endTime, deadlineNanos,
             newSharedWith, tags, state,
             createdAt, now
         );
@@ -388,7 +422,7 @@ public class Timer {
         LocalDateTime now = LocalDateTime.now();
         return new Timer(
             id, name, userId, totalDuration,
-            remainingDurationWhenPaused, endTime,
+            remainingDurationWhenPaused, endTime, deadlineNanos,
             sharedWith, newTags, state,
             createdAt, now
         );
@@ -406,12 +440,27 @@ public class Timer {
         LocalDateTime now = LocalDateTime.now();
         return new Timer(
             id, name, userId, totalDuration,
-            remainingDurationWhenPaused, endTime,
+            remainingDurationWhenPaused, endTime, deadlineNanos,
             sharedWith, newTags, state,
             createdAt, now
         );
     }
 
+    /**
+     * Sets that are already immutable, like those of the timer this one was derived from or
+     * of the data layer's timers, are shared rather than copied.
+     */
+    private static Set<String> immutableSet(Set<String> set) {
+        // Set.copyOf rejects null elements, which a caller-built set may contain. They're looked
+        // for by iterating, since sets like Set.of() throw on contains(null) instead.
+        for (String element : set) {
+            if (element == null) {
+                return Collections.unmodifiableSet(new HashSet<>(set));
+            }
+        }
+        return Set.copyOf(set);
+    }
+
     // Getters (immutable)
 
     public String getId() { return id; }
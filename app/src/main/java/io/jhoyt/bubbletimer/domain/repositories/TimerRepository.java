@@ -53,6 +53,14 @@ public interface TimerRepository {
      */
     List<Timer> getTimersSharedWithUser(String userId);
     
+    /**
+     * Search saved and active timers by name and tags
+     * @param query Words to search for; each must prefix a word of the name or a tag
+     * @param limit Maximum number of timers to return
+     * @return Matching timers, saved timers in the stopped state
+     */
+    List<Timer> searchTimers(String query, int limit);
+    
     // Command methods
     
     /**
@@ -0,0 +1,141 @@
+package io.jhoyt.bubbletimer.scheduling;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import io.jhoyt.bubbletimer.Timer;
+
+/**
+ * Running timers ordered by deadline on the monotonic clock, keyed by timer id.
+ *
+ * Inserting, moving or removing a deadline costs O(log n), and {@link #pollExpired(long)} only
+ * touches the timers that crossed their deadline, so the cost of expiry detection is per
+ * transition rather than per timer. A polled timer stays known as expired until it is removed
+ * or its deadline moves, which keeps repeated emissions of the same timer from re-reporting it.
+ */
+public class ExpiryIndex {
+
+    // Deadlines recomputed from a timer's wall-clock end drift by a few millis between emissions
+    static final long DEADLINE_TOLERANCE_NANOS = 50_000_000L;
+
+    private static final class Entry {
+        final String timerId;
+        long atNanos;
+        Timer timer;
+
+        Entry(String timerId) {
+            this.timerId = timerId;
+        }
+    }
+
+    private final TreeSet<Entry> pending = new TreeSet<>(
+            Comparator.<Entry>comparingLong(entry -> entry.atNanos)
+                    .thenComparing(entry -> entry.timerId));
+    private final Map<String, Entry> entriesByTimerId = new HashMap<>();
+    private final Set<String> expiredTimerIds = new HashSet<>();
+
+    /**
+     * Track the timer's current deadline. Paused timers have none and are dropped.
+     */
+    public void upsert(Timer timer, long nowNanos) {
+        if (timer.isPaused()) {
+            remove(timer.getId());
+            return;
+        }
+
+        // Not clamped: an expired timer maps back onto the deadline it already crossed
+        long atNanos = nowNanos + timer.getRemainingNanos();
+
+        Entry entry = entriesByTimerId.get(timer.getId());
+        if (entry == null) {
+            entry = new Entry(timer.getId());
+            entry.atNanos = atNanos;
+            entry.timer = timer;
+            entriesByTimerId.put(entry.timerId, entry);
+            pending.add(entry);
+            return;
+        }
+
+        entry.timer = timer;
+        if (Math.abs(atNanos - entry.atNanos) <= DEADLINE_TOLERANCE_NANOS) {
+            return;
+        }
+
+        if (!expiredTimerIds.remove(entry.timerId)) {
+            pending.remove(entry);
+        }
+        entry.atNanos = atNanos;
+        pending.add(entry);
+    }
+
+    /**
+     * @return true if the timer was tracked
+     */
+    public boolean remove(String timerId) {
+        Entry entry = entriesByTimerId.remove(timerId);
+        if (entry == null) {
+            return false;
+        }
+        if (!expiredTimerIds.remove(timerId)) {
+            pending.remove(entry);
+        }
+        return true;
+    }
+
+    /**
+     * Mark every timer whose deadline is at or before {@code nowNanos} as expired.
+     * @return the newly expired timers in deadline order
+     */
+    public List<Timer> pollExpired(long nowNanos) {
+        List<Timer> expired = new ArrayList<>();
+        while (!pending.isEmpty() && pending.first().atNanos <= nowNanos) {
+            Entry entry = pending.pollFirst();
+            expiredTimerIds.add(entry.timerId);
+            expired.add(entry.timer);
+        }
+        return expired;
+    }
+
+    /**
+     * @return the earliest pending deadline, or -1 if no timer is pending
+     */
+    public long getNextDeadlineNanos() {
+        return pending.isEmpty() ? -1 : pending.first().atNanos;
+    }
+
+    public boolean isExpired(String timerId) {
+        return expiredTimerIds.contains(timerId);
+    }
+
+    public Set<String> getExpiredTimerIds() {
+        return new HashSet<>(expiredTimerIds);
+    }
+
+    public Set<String> getTimerIds() {
+        return new HashSet<>(entriesByTimerId.keySet());
+    }
+
+    public int getExpiredCount() {
+        return expiredTimerIds.size();
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public int size() {
+        return entriesByTimerId.size();
+    }
+
+    public void clear() {
+        pending.clear();
+        entriesByTimerId.clear();
+        expiredTimerIds.clear();
+    }
+}
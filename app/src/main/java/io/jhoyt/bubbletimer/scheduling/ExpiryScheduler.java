@@ -0,0 +1,106 @@
+package io.jhoyt.bubbletimer.scheduling;
+
+import android.util.Log;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.jhoyt.bubbletimer.Timer;
+import io.jhoyt.bubbletimer.domain.core.TimeSources;
+
+/**
+ * Deadline-driven expiry detection for running timers.
+ *
+ * Keeps an {@link ExpiryIndex} of timer deadlines on the monotonic clock that is updated per
+ * timer as the set of active timers changes; paused timers have no deadline and are skipped.
+ * It does no scheduling of its own: {@link TimerAlarmScheduler} wakes the service at each
+ * deadline and the service then calls {@link #evaluate()}, which reports every timer that
+ * crossed its deadline since the last evaluation as one batch.
+ */
+public class ExpiryScheduler {
+    private static final String TAG = "ExpiryScheduler";
+
+    public interface Listener {
+        void onTimersExpired(List<Timer> timers);
+    }
+
+    private final Listener listener;
+    private final ExpiryIndex index = new ExpiryIndex();
+
+    public ExpiryScheduler(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Make the tracked deadlines match the given timers. Unchanged timers cost a lookup,
+     * moved, added or removed deadlines O(log n) each. Timers that are already past their
+     * deadline are reported on the next {@link #evaluate()}, once per expiry.
+     */
+    public void sync(List<Timer> timers) {
+        long now = TimeSources.monotonicNanos();
+        Set<String> timerIds = new HashSet<>();
+        for (Timer timer : timers) {
+            timerIds.add(timer.getId());
+            index.upsert(timer, now);
+        }
+
+        for (String timerId : index.getTimerIds()) {
+            if (!timerIds.contains(timerId)) {
+                index.remove(timerId);
+            }
+        }
+    }
+
+    public void update(Timer timer) {
+        index.upsert(timer, TimeSources.monotonicNanos());
+    }
+
+    public void remove(String timerId) {
+        index.remove(timerId);
+    }
+
+    /**
+     * Report every tracked timer whose deadline has passed since the last evaluation in a
+     * single call to the listener.
+     * @return the number of timers reported
+     */
+    public int evaluate() {
+        List<Timer> expired = index.pollExpired(TimeSources.monotonicNanos());
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            listener.onTimersExpired(expired);
+        } catch (Exception e) {
+            Log.e(TAG, "Error handling expiry for " + expired.size() + " timers", e);
+        }
+        return expired.size();
+    }
+
+    /**
+     * @return true while any tracked timer is past its deadline
+     */
+    public boolean hasExpired() {
+        return index.getExpiredCount() > 0;
+    }
+
+    public Set<String> getExpiredTimerIds() {
+        return index.getExpiredTimerIds();
+    }
+
+    /**
+     * Drop all deadlines.
+     */
+    public void clear() {
+        index.clear();
+    }
+
+    /**
+     * @return the number of running timers that have not expired yet
+     */
+    public int size() {
+        return index.getPendingCount();
+    }
+}
@@ -0,0 +1,182 @@
+package io.jhoyt.bubbletimer.scheduling;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.jhoyt.bubbletimer.Timer;
+import io.jhoyt.bubbletimer.service.TimerExpiryReceiver;
+
+/**
+ * Arms one exact {@link AlarmManager} alarm per running timer so expiry is delivered even
+ * when the service's process is idle or the device is dozing.
+ *
+ * Alarms are keyed by timer id and re-armed whenever the set of active timers changes:
+ * pausing or stopping a timer cancels its alarm, and resuming or adding time moves it.
+ * Alarms outlive the process, so the ids of the armed timers are kept in SharedPreferences.
+ * After a restart they count as armed, at an unknown time, and the first {@link #sync(List)}
+ * cancels the ones whose timers aren't running anymore by rebuilding their PendingIntents.
+ */
+public class TimerAlarmScheduler {
+    private static final String TAG = "TimerAlarmScheduler";
+
+    // Re-arming for a sub-tolerance change would only churn AlarmManager
+    private static final long RESCHEDULE_TOLERANCE_MS = 50;
+    // Trigger of an alarm armed by an earlier process
+    private static final long UNKNOWN_TRIGGER_AT = 0;
+
+    private static final String PREFERENCES_NAME = "timer_alarms";
+    private static final String KEY_ARMED_TIMER_IDS = "armedTimerIds";
+
+    private final Context context;
+    private final AlarmManager alarmManager;
+    private final SharedPreferences preferences;
+    private final Map<String, Long> armedTriggerAtByTimerId = new HashMap<>();
+
+    public TimerAlarmScheduler(Context context) {
+        this.context = context.getApplicationContext();
+        this.alarmManager = (AlarmManager) this.context.getSystemService(Context.ALARM_SERVICE);
+        this.preferences = this.context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+        for (String timerId : preferences.getStringSet(KEY_ARMED_TIMER_IDS, Set.of())) {
+            armedTriggerAtByTimerId.put(timerId, UNKNOWN_TRIGGER_AT);
+        }
+    }
+
+    /**
+     * Make the armed alarms match the given active timers: one alarm per running timer that
+     * has not expired yet, none for paused, expired or removed timers.
+     */
+    public void sync(List<Timer> timers) {
+        Set<String> runningTimerIds = new HashSet<>();
+        long now = SystemClock.elapsedRealtime();
+
+        for (Timer timer : timers) {
+            if (armIfRunning(timer, now)) {
+                runningTimerIds.add(timer.getId());
+            }
+        }
+
+        for (String timerId : new HashSet<>(armedTriggerAtByTimerId.keySet())) {
+            if (!runningTimerIds.contains(timerId)) {
+                cancel(timerId);
+            }
+        }
+    }
+
+    /**
+     * Re-arm or cancel the alarm for one timer that was added or changed, leaving every other
+     * alarm alone. Removed timers go through {@link #cancel(String)}.
+     */
+    public void update(Timer timer) {
+        if (!armIfRunning(timer, SystemClock.elapsedRealtime())
+                && armedTriggerAtByTimerId.containsKey(timer.getId())) {
+            cancel(timer.getId());
+        }
+    }
+
+    /**
+     * Cancel the alarm for a timer, e.g. when it is stopped remotely.
+     */
+    public void cancel(String timerId) {
+        if (armedTriggerAtByTimerId.remove(timerId) != null) {
+            storeArmedTimerIds();
+        }
+
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(
+                context, 0, createIntent(timerId),
+                PendingIntent.FLAG_NO_CREATE | PendingIntent.FLAG_IMMUTABLE);
+        if (pendingIntent != null) {
+            alarmManager.cancel(pendingIntent);
+            pendingIntent.cancel();
+            Log.d(TAG, "Cancelled expiry alarm for timer " + timerId);
+        }
+    }
+
+    /**
+     * Forget a delivered alarm so the next {@link #sync(List)} re-arms it if the timer is still
+     * running, e.g. after it was extended while the alarm was in flight.
+     */
+    public void onAlarmDelivered(String timerId) {
+        if (armedTriggerAtByTimerId.remove(timerId) != null) {
+            storeArmedTimerIds();
+        }
+    }
+
+    /**
+     * @return the elapsed-realtime trigger of the armed alarm, 0 if it was armed before the
+     * process restarted, or -1 if none is armed
+     */
+    public long getArmedTriggerAt(String timerId) {
+        Long triggerAt = armedTriggerAtByTimerId.get(timerId);
+        return triggerAt != null ? triggerAt : -1;
+    }
+
+    public int getArmedCount() {
+        return armedTriggerAtByTimerId.size();
+    }
+
+    /**
+     * @return true if the timer is running and not expired, i.e. its alarm is armed
+     */
+    private boolean armIfRunning(Timer timer, long now) {
+        if (timer.isPaused()) {
+            return false;
+        }
+        long remainingNanos = timer.getRemainingNanos();
+        if (remainingNanos <= 0) {
+            return false;
+        }
+
+        // Round up so the alarm never lands before the deadline
+        long triggerAt = now + (remainingNanos + 999_999L) / 1_000_000L;
+
+        Long armedTriggerAt = armedTriggerAtByTimerId.get(timer.getId());
+        if (armedTriggerAt == null || Math.abs(armedTriggerAt - triggerAt) > RESCHEDULE_TOLERANCE_MS) {
+            arm(timer.getId(), triggerAt);
+        }
+        return true;
+    }
+
+    private void arm(String timerId, long triggerAt) {
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(
+                context, 0, createIntent(timerId),
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+
+        if (alarmManager.canScheduleExactAlarms()) {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.ELAPSED_REALTIME_WAKEUP, triggerAt, pendingIntent);
+        } else {
+            Log.w(TAG, "Exact alarms not permitted, expiry for timer " + timerId + " may be delayed");
+            alarmManager.setAndAllowWhileIdle(AlarmManager.ELAPSED_REALTIME_WAKEUP, triggerAt, pendingIntent);
+        }
+
+        if (armedTriggerAtByTimerId.put(timerId, triggerAt) == null) {
+            storeArmedTimerIds();
+        }
+        Log.d(TAG, "Armed expiry alarm for timer " + timerId + " at " + triggerAt);
+    }
+
+    private void storeArmedTimerIds() {
+        preferences.edit()
+                .putStringSet(KEY_ARMED_TIMER_IDS, new HashSet<>(armedTriggerAtByTimerId.keySet()))
+                .apply();
+    }
+
+    private Intent createIntent(String timerId) {
+        // The data URI makes each timer's PendingIntent distinct
+        return new Intent(context, TimerExpiryReceiver.class)
+                .setAction(TimerExpiryReceiver.ACTION_TIMER_EXPIRED)
+                .setData(Uri.parse("bubbletimer://timer/" + timerId))
+                .putExtra(TimerExpiryReceiver.EXTRA_TIMER_ID, timerId);
+    }
+}
@@ -0,0 +1,40 @@
+package io.jhoyt.bubbletimer.service;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import io.jhoyt.bubbletimer.ForegroundService;
+
+/**
+ * Receives the exact expiry alarms armed by TimerAlarmScheduler and hands them to
+ * ForegroundService, starting it if the process was idle.
+ */
+public class TimerExpiryReceiver extends BroadcastReceiver {
+    private static final String TAG = "TimerExpiryReceiver";
+
+    public static final String ACTION_TIMER_EXPIRED = "io.jhoyt.bubbletimer.TIMER_EXPIRED";
+    public static final String EXTRA_TIMER_ID = "timer_id";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (intent == null || !ACTION_TIMER_EXPIRED.equals(intent.getAction())) {
+            Log.w(TAG, "Ignoring unexpected intent: " + intent);
+            return;
+        }
+
+        String timerId = intent.getStringExtra(EXTRA_TIMER_ID);
+        Log.i(TAG, "Expiry alarm delivered for timer: " + timerId);
+
+        Intent serviceIntent = new Intent(context, ForegroundService.class)
+                .setAction(ACTION_TIMER_EXPIRED)
+                .putExtra(EXTRA_TIMER_ID, timerId);
+        try {
+            // Exact alarms allow starting a foreground service from the background
+            context.startForegroundService(serviceIntent);
+        } catch (Exception e) {
+            Log.e(TAG, "Could not deliver expiry to ForegroundService", e);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package io.jhoyt.bubbletimer;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Looper;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+
+import java.time.Duration;
+import java.util.HashSet;
+
+import io.jhoyt.bubbletimer.core.time.AndroidTimeSource;
+import io.jhoyt.bubbletimer.domain.core.TimeSources;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(AndroidJUnit4.class)
+public class RenderTickerTest {
+
+    private Activity activity;
+    private RenderTicker renderTicker;
+
+    @Before
+    public void setUp() {
+        // Robolectric's SystemClock drives both the looper and the timers
+        TimeSources.set(new AndroidTimeSource());
+        activity = Robolectric.buildActivity(Activity.class).setup().get();
+        renderTicker = new RenderTicker();
+    }
+
+    @After
+    public void tearDown() {
+        TimeSources.set(null);
+    }
+
+    @Test
+    public void testInvalidatesExactlyOnSecondBoundary() {
+        CountingTimerView view = showTimerView(runningTimer(Duration.ofSeconds(10)));
+
+        renderTicker.subscribe(view);
+        idleFor(0);
+        assertEquals("First tick should draw the view", 1, view.invalidations);
+
+        idleFor(999);
+        assertEquals("Nothing should change before the boundary", 1, view.invalidations);
+
+        idleFor(1);
+        assertEquals("Displayed second should flip on the boundary", 2, view.invalidations);
+
+        idleFor(3000);
+        assertEquals("One redraw per elapsed second", 5, view.invalidations);
+    }
+
+    @Test
+    public void testPausedTimerDoesNotKeepTicking() {
+        Timer timer = new Timer("user", "Paused", Duration.ofSeconds(30), new HashSet<>());
+        CountingTimerView view = showTimerView(timer);
+
+        renderTicker.subscribe(view);
+        idleFor(0);
+        assertEquals("Paused timer should be drawn once", 1, view.invalidations);
+        assertEquals("No further tick should be scheduled", -1, renderTicker.getScheduledTickAt());
+
+        idleFor(5000);
+        assertEquals("Paused timer should not be redrawn", 1, view.invalidations);
+    }
+
+    @Test
+    public void testResumeReschedulesTicks() {
+        Timer timer = new Timer("user", "Paused", Duration.ofSeconds(30), new HashSet<>());
+        CountingTimerView view = showTimerView(timer);
+        renderTicker.subscribe(view);
+        idleFor(0);
+
+        view.unpause();
+        idleFor(0);
+        assertEquals("Resuming should redraw right away", 2, view.invalidations);
+
+        idleFor(1000);
+        assertEquals("Resumed timer should redraw on its next boundary", 3, view.invalidations);
+    }
+
+    @Test
+    public void testViewsWithoutOpenWindowAreSkipped() {
+        CountingTimerView view = new CountingTimerView(activity);
+        view.setTimer(runningTimer(Duration.ofSeconds(10)));
+
+        renderTicker.subscribe(view);
+        idleFor(5000);
+
+        assertEquals("Detached view should never be invalidated", 0, view.invalidations);
+        assertEquals("Ticker should go idle", -1, renderTicker.getScheduledTickAt());
+    }
+
+    @Test
+    public void testUnsubscribeStopsTicks() {
+        CountingTimerView view = showTimerView(runningTimer(Duration.ofSeconds(10)));
+        renderTicker.subscribe(view);
+        idleFor(0);
+
+        renderTicker.unsubscribe(view);
+        idleFor(5000);
+
+        assertEquals("Unsubscribed view should not be redrawn", 1, view.invalidations);
+        assertEquals("No subscribers should remain", 0, renderTicker.getSubscriberCount());
+    }
+
+    @Test
+    public void testMillisUntilNextSecond() {
+        assertEquals(500, RenderTicker.getMillisUntilNextSecond(4500));
+        assertEquals(1000, RenderTicker.getMillisUntilNextSecond(4000));
+        assertEquals(1, RenderTicker.getMillisUntilNextSecond(4001));
+        assertEquals("Expired timers keep counting up", 700, RenderTicker.getMillisUntilNextSecond(-300));
+    }
+
+    @Test
+    public void testArcBucket() {
+        assertEquals(RenderTicker.ARC_BUCKETS, RenderTicker.getArcBucket(10_000, 10_000));
+        assertEquals(RenderTicker.ARC_BUCKETS / 2, RenderTicker.getArcBucket(5_000, 10_000));
+        assertEquals(0, RenderTicker.getArcBucket(-1_000, 10_000));
+        assertEquals(0, RenderTicker.getArcBucket(1_000, 0));
+    }
+
+    private CountingTimerView showTimerView(Timer timer) {
+        CountingTimerView view = new CountingTimerView(activity);
+        view.setTimer(timer);
+        activity.setContentView(view);
+        idleFor(0);
+        view.invalidations = 0;
+        return view;
+    }
+
+    private static void idleFor(long millis) {
+        if (millis == 0) {
+            shadowOf(Looper.getMainLooper()).idle();
+        } else {
+            shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(millis));
+        }
+    }
+
+    private static Timer runningTimer(Duration duration) {
+        Timer timer = new Timer("user", "Timer", duration, new HashSet<>());
+        timer.unpause();
+        return timer;
+    }
+
+    private static class CountingTimerView extends TimerView {
+        int invalidations = 0;
+
+        CountingTimerView(Context context) {
+            super(context, null);
+        }
+
+        @Override
+        public void invalidate() {
+            invalidations++;
+            super.invalidate();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package io.jhoyt.bubbletimer.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+import io.jhoyt.bubbletimer.Timer;
+import io.jhoyt.bubbletimer.domain.core.TimeSources;
+import io.jhoyt.bubbletimer.util.FakeTimeSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TimerMonotonicClockTest {
+
+    private FakeTimeSource timeSource;
+
+    @Before
+    public void setUp() {
+        timeSource = new FakeTimeSource();
+        TimeSources.set(timeSource);
+    }
+
+    @After
+    public void tearDown() {
+        TimeSources.set(null);
+    }
+
+    @Test
+    public void testLegacyTimerCountsDownOnMonotonicClock() {
+        Timer timer = new Timer("user", "Timer", Duration.ofMinutes(5), new HashSet<>());
+        timer.unpause();
+
+        timeSource.advance(Duration.ofSeconds(30));
+
+        assertEquals("Remaining should drop by elapsed time",
+                Duration.ofSeconds(270).toNanos(), timer.getRemainingNanos());
+        assertEquals("Duration view should match primitive view",
+                Duration.ofSeconds(270), timer.getRemainingDuration());
+    }
+
+    @Test
+    public void testLegacyTimerIgnoresWallClockJump() {
+        Timer timer = new Timer("user", "Timer", Duration.ofMinutes(5), new HashSet<>());
+        timer.unpause();
+
+        timeSource.jumpWallClock(Duration.ofHours(-2));
+
+        assertEquals("Wall-clock jump should not change remaining time",
+                Duration.ofMinutes(5).toMillis(), timer.getRemainingMillis());
+    }
+
+    @Test
+    public void testLegacyTimerPauseAndAddTimeKeepDeadline() {
+        Timer timer = new Timer("user", "Timer", Duration.ofMinutes(1), new HashSet<>());
+        timer.unpause();
+        timeSource.advance(Duration.ofSeconds(10));
+
+        timer.addTime(Duration.ofMinutes(1));
+        assertEquals("Added time should extend the deadline",
+                Duration.ofSeconds(110).toMillis(), timer.getRemainingMillis());
+
+        timer.pause();
+        timeSource.advance(Duration.ofMinutes(10));
+        assertEquals("Paused timer should not count down",
+                Duration.ofSeconds(110), timer.getRemainingDuration());
+    }
+
+    @Test
+    public void testLegacyTimerGoesNegativeAfterDeadline() {
+        Timer timer = new Timer("user", "Timer", Duration.ofSeconds(5), new HashSet<>());
+        timer.unpause();
+
+        timeSource.advance(Duration.ofSeconds(6));
+
+        assertEquals("Remaining should be negative past the deadline", -1000, timer.getRemainingMillis());
+    }
+
+    @Test
+    public void testDomainTimerIgnoresWallClockJump() {
+        io.jhoyt.bubbletimer.domain.entities.Timer timer =
+                io.jhoyt.bubbletimer.domain.entities.Timer.create("Timer", "user", Duration.ofMinutes(5), Set.of());
+
+        timeSource.jumpWallClock(Duration.ofHours(3));
+        timeSource.advance(Duration.ofMinutes(1));
+
+        assertEquals("Only elapsed monotonic time should count",
+                Duration.ofMinutes(4).toNanos(), timer.getRemainingNanos());
+        assertTrue("Timer should not be expired", !timer.isExpired());
+    }
+
+    @Test
+    public void testDomainTimerExpiresAtDeadline() {
+        io.jhoyt.bubbletimer.domain.entities.Timer timer =
+                io.jhoyt.bubbletimer.domain.entities.Timer.create("Timer", "user", Duration.ofSeconds(10), Set.of());
+
+        timeSource.advance(Duration.ofSeconds(10));
+
+        assertTrue("Timer should be expired at its deadline", timer.isExpired());
+        assertEquals("Remaining should clamp to zero", Duration.ZERO, timer.getRemainingDuration());
+    }
+
+    @Test
+    public void testWallClockBoundaryRoundTrip() {
+        LocalDateTime endTime = LocalDateTime.of(2030, 1, 1, 12, 0, 0, 123_000_000);
+
+        long deadlineNanos = TimeSources.toDeadlineNanos(endTime);
+
+        assertEquals("Deadline should convert back to the same end time",
+                endTime, TimeSources.toLocalDateTime(deadlineNanos));
+    }
+}
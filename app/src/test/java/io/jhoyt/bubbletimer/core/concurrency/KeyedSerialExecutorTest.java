@@ -0,0 +1,189 @@
+package io.jhoyt.bubbletimer.core.concurrency;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class KeyedSerialExecutorTest {
+
+    private KeyedSerialExecutor executor;
+
+    @Before
+    public void setUp() {
+        executor = new KeyedSerialExecutor("test", 4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSameKeyRunsInSubmissionOrder() throws Exception {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        Future<?> last = null;
+        for (int i = 0; i < 1000; i++) {
+            int index = i;
+            last = executor.submit("timer-1", () -> order.add(index));
+        }
+        last.get(5, TimeUnit.SECONDS);
+
+        assertEquals("Every task should have run", 1000, order.size());
+        for (int i = 0; i < order.size(); i++) {
+            assertEquals("Tasks for one key should run in submission order", i, (int) order.get(i));
+        }
+    }
+
+    @Test
+    public void testDifferentStripesRunInParallel() throws Exception {
+        String blockedKey = "timer-1";
+        String otherKey = keyOnOtherStripe(blockedKey);
+        CountDownLatch otherRan = new CountDownLatch(1);
+        AtomicBoolean sawOther = new AtomicBoolean();
+
+        Future<?> blocked = executor.submit(blockedKey, () -> {
+            try {
+                sawOther.set(otherRan.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(otherKey, otherRan::countDown);
+        blocked.get(10, TimeUnit.SECONDS);
+
+        assertTrue("A task on another stripe should run while the first one is busy", sawOther.get());
+    }
+
+    @Test
+    public void testQueueDepthAndLatencyMetrics() throws Exception {
+        String key = "timer-1";
+        int stripe = executor.stripeIndexFor(key);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.execute(key, () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Future<?> last = null;
+        for (int i = 0; i < 5; i++) {
+            last = executor.submit(key, () -> { });
+        }
+
+        assertEquals("Blocked task and everything behind it should be queued", 6, executor.getQueueDepth(stripe));
+        assertEquals("Only the blocked key's stripe should have queued tasks", 6, executor.getQueueDepth());
+
+        Thread.sleep(20);
+        release.countDown();
+        last.get(5, TimeUnit.SECONDS);
+
+        KeyedSerialExecutor.Metrics metrics = executor.getMetrics();
+        System.out.println("Keyed executor metrics: " + metrics);
+        assertEquals("All tasks should be counted", 6, metrics.getSubmittedCount());
+        assertEquals("All tasks should complete", 6, metrics.getCompletedCount());
+        assertEquals("Queue should drain", 0, metrics.getQueueDepth());
+        assertEquals("Peak depth should be recorded", 6, metrics.getMaxQueueDepth());
+        assertTrue("Tasks behind the blocked one should have waited",
+                metrics.getMaxWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue("Blocked task's run time should be recorded",
+                metrics.getMaxRunNanos() >= TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    public void testFailedTaskDoesNotStallItsKey() throws Exception {
+        Future<?> failing = executor.submit("timer-1", () -> {
+            throw new IllegalStateException("boom");
+        });
+        Future<String> next = executor.submit("timer-1", () -> "ran");
+
+        try {
+            failing.get(5, TimeUnit.SECONDS);
+            fail("Failure should be reported through the future");
+        } catch (ExecutionException e) {
+            assertTrue("Original exception should be kept", e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals("Later tasks for the key should still run", "ran", next.get(5, TimeUnit.SECONDS));
+        assertEquals("Failure should be counted", 1, executor.getMetrics().getFailedCount());
+    }
+
+    @Test
+    public void testTaskCancelledBeforeItRunsLeavesTheQueue() throws Exception {
+        String key = "timer-1";
+        int stripe = executor.stripeIndexFor(key);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        executor.execute(key, () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Future<?> cancelled = executor.submit(key, () -> ran.set(true));
+        assertEquals(2, executor.getQueueDepth(stripe));
+
+        assertTrue(cancelled.cancel(false));
+        assertEquals("Cancelled task should leave the queue depth right away", 1, executor.getQueueDepth(stripe));
+
+        release.countDown();
+        executor.submit(key, () -> { }).get(5, TimeUnit.SECONDS);
+        assertFalse("Cancelled task should not run", ran.get());
+        assertEquals("Queue should drain", 0, executor.getQueueDepth(stripe));
+        assertEquals("Only the tasks that ran should complete", 2, executor.getMetrics().getCompletedCount());
+    }
+
+    @Test
+    public void testScheduledTaskQueuesBehindEarlierWork() throws Exception {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+
+        executor.schedule("timer-1", () -> {
+            order.add("scheduled");
+            done.countDown();
+        }, 50, TimeUnit.MILLISECONDS);
+        executor.execute("timer-1", () -> order.add("immediate"));
+
+        assertTrue("Scheduled task should run", done.await(5, TimeUnit.SECONDS));
+        assertEquals("Immediate task should run before the delayed one", List.of("immediate", "scheduled"), order);
+    }
+
+    @Test
+    public void testCancelledScheduledTaskNeverQueues() throws Exception {
+        AtomicBoolean ran = new AtomicBoolean();
+
+        ScheduledFuture<?> scheduled = executor.schedule("timer-1", () -> ran.set(true), 1, TimeUnit.HOURS);
+        scheduled.cancel(false);
+        executor.submit("timer-1", () -> { }).get(5, TimeUnit.SECONDS);
+
+        assertFalse("Cancelled task should not run", ran.get());
+        assertEquals("Cancelled task should not be counted", 1, executor.getMetrics().getSubmittedCount());
+    }
+
+    private String keyOnOtherStripe(String key) {
+        int stripe = executor.stripeIndexFor(key);
+        for (int i = 0; ; i++) {
+            String candidate = "timer-other-" + i;
+            if (executor.stripeIndexFor(candidate) != stripe) {
+                return candidate;
+            }
+        }
+    }
+}
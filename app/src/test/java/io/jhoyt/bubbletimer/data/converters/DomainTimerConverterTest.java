@@ -0,0 +1,72 @@
+package io.jhoyt.bubbletimer.data.converters;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import io.jhoyt.bubbletimer.TimerData;
+import io.jhoyt.bubbletimer.domain.entities.Timer;
+import io.jhoyt.bubbletimer.domain.entities.TimerState;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class DomainTimerConverterTest {
+
+    @Test
+    public void testReadingAnAppTimerSharesItsData() {
+        io.jhoyt.bubbletimer.Timer appTimer = new io.jhoyt.bubbletimer.Timer(new TimerData("a", "alice", "Tea",
+                Duration.ofMinutes(3), Duration.ofMinutes(2), null, Set.of("kitchen")), Set.of("alice", "bob"));
+
+        Timer timer = DomainTimerConverter.legacyTimerToDomainTimer(appTimer);
+        assertSame(appTimer.getTimerData().name, timer.getName());
+        assertSame(appTimer.getTimerData().totalDuration, timer.getTotalDuration());
+        assertSame("Immutable tags should be shared", appTimer.getTags(), timer.getTags());
+        assertSame("Immutable shares should be shared", appTimer.getSharedWith(), timer.getSharedWith());
+        assertEquals(TimerState.PAUSED, timer.getState());
+    }
+
+    @Test
+    public void testCreatorIsAlwaysSharedWith() {
+        io.jhoyt.bubbletimer.Timer appTimer = new io.jhoyt.bubbletimer.Timer(new TimerData("a", "alice", "Tea",
+                Duration.ofMinutes(3), null, LocalDateTime.now().plusMinutes(3), Set.of()), new HashSet<>(Set.of("bob")));
+
+        Timer timer = DomainTimerConverter.legacyTimerToDomainTimer(appTimer);
+        assertEquals(Set.of("alice", "bob"), timer.getSharedWith());
+        assertEquals("The app timer shouldn't be touched", Set.of("bob"), appTimer.getSharedWith());
+        assertEquals(TimerState.RUNNING, timer.getState());
+    }
+
+    @Test
+    public void testSetsHoldingNullAreCopied() {
+        Set<String> tags = new HashSet<>(Arrays.asList("kitchen", null));
+        io.jhoyt.bubbletimer.Timer appTimer = new io.jhoyt.bubbletimer.Timer(new TimerData("a", "alice", "Tea",
+                Duration.ofMinutes(3), Duration.ofMinutes(2), null, tags), Set.of("alice"));
+
+        Timer timer = DomainTimerConverter.legacyTimerToDomainTimer(appTimer);
+        assertEquals(tags, timer.getTags());
+        tags.add("hot");
+        assertEquals("The timer should hold a copy", 2, timer.getTags().size());
+    }
+
+    @Test
+    public void testWritingADomainTimerSharesItsData() {
+        Timer timer = Timer.create("Tea", "alice", Duration.ofMinutes(3), Set.of("kitchen")).shareWith("bob");
+
+        io.jhoyt.bubbletimer.Timer appTimer = DomainTimerConverter.domainTimerToLegacyTimer(timer);
+        assertSame(timer.getTags(), appTimer.getTags());
+        assertSame(timer.getSharedWith(), appTimer.getSharedWith());
+        assertEquals(timer.getEndTime(), appTimer.getTimerEnd());
+        assertNull(appTimer.getTimerData().remainingDurationWhenPaused);
+
+        Timer readBack = DomainTimerConverter.legacyTimerToDomainTimer(appTimer);
+        assertEquals(timer.getId(), readBack.getId());
+        assertEquals(timer.getTags(), readBack.getTags());
+        assertEquals(timer.getSharedWith(), readBack.getSharedWith());
+    }
+}
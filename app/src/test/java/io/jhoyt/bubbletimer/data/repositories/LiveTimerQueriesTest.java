@@ -0,0 +1,93 @@
+package io.jhoyt.bubbletimer.data.repositories;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.jhoyt.bubbletimer.domain.repositories.TimerRepository;
+
+import static org.junit.Assert.assertEquals;
+
+public class LiveTimerQueriesTest {
+
+    private final LiveTimerQueries liveQueries = new LiveTimerQueries();
+    private final AtomicReference<String> result = new AtomicReference<>("a");
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @Test
+    public void testObserversOfTheSameQueryShareOneRun() {
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        observe().subscribe(first::add);
+        observe().subscribe(second::add);
+        assertEquals("Subscribing to a live query shouldn't run it again", 1, runs.get());
+
+        result.set("b");
+        liveQueries.onTimersChanged(Set.of("1"));
+        assertEquals(2, runs.get());
+        assertEquals(List.of("a", "b"), first);
+        assertEquals(List.of("a", "b"), second);
+        assertEquals(1, liveQueries.size());
+    }
+
+    @Test
+    public void testUnchangedResultsAreNotDelivered() {
+        List<String> values = new ArrayList<>();
+        TimerRepository.Observable<String> observable = observe();
+        observable.subscribe(values::add);
+
+        liveQueries.onTimersChanged(Set.of("1"));
+        result.set("b");
+        liveQueries.onTimersChanged(Set.of("1"));
+        liveQueries.onTimersChanged(Set.of("2"));
+        assertEquals(List.of("a", "b"), values);
+        assertEquals("b", observable.getValue());
+    }
+
+    @Test
+    public void testOnlyAffectedQueriesRun() {
+        List<String> values = new ArrayList<>();
+        liveQueries.observe("id:1", timerIds -> timerIds.contains("1"), this::run).subscribe(values::add);
+
+        result.set("b");
+        liveQueries.onTimersChanged(Set.of("2"));
+        assertEquals(1, runs.get());
+        liveQueries.onTimersChanged(Set.of("1", "2"));
+        assertEquals(List.of("a", "b"), values);
+    }
+
+    @Test
+    public void testLastUnsubscribeDropsTheQuery() {
+        List<String> values = new ArrayList<>();
+        TimerRepository.Observer<String> first = values::add;
+        TimerRepository.Observer<String> second = values::add;
+        observe().subscribe(first);
+        observe().subscribe(second);
+
+        observe().unsubscribe(first);
+        assertEquals(1, liveQueries.size());
+        observe().unsubscribe(second);
+        assertEquals(0, liveQueries.size());
+
+        result.set("b");
+        liveQueries.onTimersChanged(Set.of("1"));
+        assertEquals("A dropped query shouldn't run", 1, runs.get());
+        assertEquals(List.of("a", "a"), values);
+
+        // Without observers the value is read when asked for
+        assertEquals("b", observe().getValue());
+    }
+
+    private TimerRepository.Observable<String> observe() {
+        return liveQueries.observe("all", null, this::run);
+    }
+
+    private String run() {
+        runs.incrementAndGet();
+        return result.get();
+    }
+}
@@ -0,0 +1,234 @@
+package io.jhoyt.bubbletimer.data.repositories;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import io.jhoyt.bubbletimer.TimerConverter;
+import io.jhoyt.bubbletimer.TimerData;
+import io.jhoyt.bubbletimer.db.ActiveTimerChange;
+import io.jhoyt.bubbletimer.db.ActiveTimerRepository;
+import io.jhoyt.bubbletimer.domain.core.TimeSources;
+import io.jhoyt.bubbletimer.domain.entities.Timer;
+import io.jhoyt.bubbletimer.domain.entities.TimerState;
+import io.jhoyt.bubbletimer.util.FakeTimeSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RoomTimerRepositoryIndexTest {
+
+    // What the mocked ActiveTimerRepository holds
+    private final Map<String, io.jhoyt.bubbletimer.Timer> stored = new LinkedHashMap<>();
+    private ActiveTimerRepository activeTimerRepository;
+    private ActiveTimerRepository.ChangeListener listener;
+    private FakeTimeSource timeSource;
+
+    @Before
+    public void setUp() {
+        timeSource = new FakeTimeSource();
+        TimeSources.set(timeSource);
+        activeTimerRepository = mock(ActiveTimerRepository.class);
+        when(activeTimerRepository.addChangeListener(any())).thenAnswer(invocation -> {
+            listener = invocation.getArgument(0);
+            ActiveTimerRepository.Snapshot snapshot = mock(ActiveTimerRepository.Snapshot.class);
+            when(snapshot.getTimers()).thenReturn(List.copyOf(stored.values()));
+            return snapshot;
+        });
+        when(activeTimerRepository.getById(anyString())).thenAnswer(invocation -> stored.get(invocation.getArgument(0)));
+        doAnswer(invocation -> {
+            io.jhoyt.bubbletimer.Timer timer = invocation.getArgument(0);
+            stored.put(timer.getId(), timer);
+            return null;
+        }).when(activeTimerRepository).update(any());
+        doAnswer(invocation -> stored.remove(invocation.<String>getArgument(0)))
+                .when(activeTimerRepository).deleteById(anyString());
+    }
+
+    @After
+    public void tearDown() {
+        TimeSources.set(null);
+    }
+
+    @Test
+    public void testLookupsComeFromTheIndex() {
+        store(paused("a", "alice", Set.of("kitchen"), Set.of("bob")));
+        store(running("b", "bob", Set.of("work"), LocalDateTime.now().plusMinutes(10)));
+        store(running("c", "alice", Set.of("kitchen"), LocalDateTime.now().minusMinutes(1)));
+        RoomTimerRepository repository = newRepository();
+
+        Timer a = repository.getTimerById("a");
+        assertEquals("Tags shouldn't come back as shared users", Set.of("kitchen"), a.getTags());
+        assertTrue(a.getSharedWith().contains("bob"));
+        assertNull(repository.getTimerById("missing"));
+
+        assertEquals(Set.of("a", "c"), ids(repository.getTimersByTag("kitchen")));
+        assertEquals(Set.of("a", "c"), ids(repository.getTimersByUserId("alice")));
+        assertEquals(Set.of("a", "b"), ids(repository.getTimersSharedWithUser("bob")));
+        assertEquals("The expired timer isn't active", Set.of("a", "b"), ids(repository.getActiveTimers()));
+        assertEquals(TimerState.EXPIRED, repository.getTimerById("c").getState());
+        assertEquals(3, repository.getAllTimers().size());
+    }
+
+    @Test
+    public void testOwnWritesCanBeReadBackRightAway() {
+        store(running("b", "bob", Set.of("work"), LocalDateTime.now().plusMinutes(10)));
+        RoomTimerRepository repository = newRepository();
+
+        repository.pauseTimer("b");
+        assertEquals(TimerState.PAUSED, repository.getTimerById("b").getState());
+
+        repository.addTagToTimer("b", "focus");
+        assertEquals(Set.of("b"), ids(repository.getTimersByTag("focus")));
+
+        repository.deleteTimer("b");
+        assertNull(repository.getTimerById("b"));
+        assertEquals(Set.of(), ids(repository.getTimersByTag("work")));
+    }
+
+    @Test
+    public void testChangesFromElsewhereAreApplied() {
+        store(paused("a", "alice", Set.of("kitchen"), Set.of()));
+        store(paused("c", "alice", Set.of("kitchen"), Set.of()));
+        RoomTimerRepository repository = newRepository();
+
+        store(paused("a", "alice", Set.of("garden"), Set.of()));
+        stored.remove("c");
+        deliver("a", "c");
+        assertEquals(Set.of(), ids(repository.getTimersByTag("kitchen")));
+        assertEquals(Set.of("a"), ids(repository.getTimersByTag("garden")));
+        assertEquals(Set.of("a"), ids(repository.getTimersByUserId("alice")));
+
+        // A point lookup doesn't wait for the change to be delivered
+        store(paused("d", "dana", Set.of(), Set.of()));
+        assertNotNull(repository.getTimerById("d"));
+        assertEquals(Set.of("d"), ids(repository.getTimersByUserId("dana")));
+    }
+
+    @Test
+    public void testObserversSeeChangesOnceTheyArrive() {
+        store(paused("a", "alice", Set.of("kitchen"), Set.of()));
+        RoomTimerRepository repository = newRepository();
+        List<Set<String>> aliceTimers = new ArrayList<>();
+        List<TimerState> states = new ArrayList<>();
+        repository.observeTimersByUserId("alice").subscribe(timers -> aliceTimers.add(ids(timers)));
+        repository.observeTimerById("a").subscribe(timer -> states.add(timer.getState()));
+
+        repository.resumeTimer("a");
+        assertEquals("Observers hear about writes from the change stream", List.of(TimerState.PAUSED), states);
+        deliver("a");
+        assertEquals(List.of(TimerState.PAUSED, TimerState.RUNNING), states);
+        assertEquals(2, aliceTimers.size());
+
+        store(paused("b", "bob", Set.of(), Set.of()));
+        deliver("b");
+        assertEquals("Bob's timer doesn't change Alice's", 2, aliceTimers.size());
+        assertEquals(2, states.size());
+
+        store(paused("c", "alice", Set.of(), Set.of()));
+        deliver("c");
+        assertEquals(List.of(Set.of("a"), Set.of("a"), Set.of("a", "c")), aliceTimers);
+    }
+
+    @Test
+    public void testRunningTimerExpiresWithoutAChange() {
+        store(running("b", "bob", Set.of(), LocalDateTime.now().plusSeconds(5)));
+        RoomTimerRepository repository = newRepository();
+        assertEquals(Set.of("b"), ids(repository.getActiveTimers()));
+
+        timeSource.jumpWallClock(Duration.ofMinutes(1));
+        assertEquals("Changing the wall clock doesn't expire it", Set.of("b"), ids(repository.getActiveTimers()));
+        assertEquals(TimerState.RUNNING, repository.getTimerById("b").getState());
+
+        timeSource.advance(Duration.ofSeconds(5));
+        assertEquals(Set.of(), ids(repository.getActiveTimers()));
+        assertEquals(TimerState.EXPIRED, repository.getTimerById("b").getState());
+    }
+
+    @Test
+    public void testFilteredLookupOnlyTouchesItsResults() {
+        int timerCount = 5000;
+        for (int i = 0; i < timerCount; i++) {
+            store(paused("timer-" + i, "user-" + (i % 100), Set.of("tag-" + (i % 500)), Set.of()));
+        }
+        RoomTimerRepository repository = newRepository();
+
+        for (int i = 0; i < 100; i++) {
+            String tag = "tag-" + i;
+            List<Timer> matches = repository.getTimersByTag(tag);
+            assertEquals(10, matches.size());
+            for (Timer timer : matches) {
+                assertEquals(Set.of(tag), timer.getTags());
+                assertSame("A lookup should return the indexed timer, not convert it again",
+                        timer, repository.getTimerById(timer.getId()));
+            }
+        }
+    }
+
+    @Test
+    public void testReadingEveryTimerConvertsNone() {
+        for (int i = 0; i < 100; i++) {
+            // As read back from Room, with the creator in sharedWith
+            store(TimerConverter.fromActiveTimer(TimerConverter.toActiveTimer(
+                    paused("timer-" + i, "user-" + (i % 10), Set.of("tag-" + (i % 5)), Set.of("friend")))));
+        }
+        RoomTimerRepository repository = newRepository();
+
+        List<Timer> all = repository.getAllTimers();
+        assertEquals(100, all.size());
+        List<Timer> again = repository.getAllTimers();
+        for (int i = 0; i < all.size(); i++) {
+            assertSame("Reading every timer shouldn't convert any", all.get(i), again.get(i));
+        }
+    }
+
+    private RoomTimerRepository newRepository() {
+        return new RoomTimerRepository(activeTimerRepository, null, null);
+    }
+
+    private void store(io.jhoyt.bubbletimer.Timer timer) {
+        stored.put(timer.getId(), timer);
+    }
+
+    private void deliver(String... ids) {
+        List<ActiveTimerChange> changes = new ArrayList<>();
+        for (String id : ids) {
+            ActiveTimerChange change = mock(ActiveTimerChange.class);
+            when(change.getTimerId()).thenReturn(id);
+            changes.add(change);
+        }
+        listener.onTimersChanged(changes);
+    }
+
+    private static io.jhoyt.bubbletimer.Timer paused(String id, String userId, Set<String> tags, Set<String> sharedWith) {
+        return new io.jhoyt.bubbletimer.Timer(new TimerData(id, userId, "Timer " + id,
+                Duration.ofMinutes(10), Duration.ofMinutes(5), null, tags), new HashSet<>(sharedWith));
+    }
+
+    private static io.jhoyt.bubbletimer.Timer running(String id, String userId, Set<String> tags, LocalDateTime end) {
+        return new io.jhoyt.bubbletimer.Timer(new TimerData(id, userId, "Timer " + id,
+                Duration.ofMinutes(10), null, end, tags), new HashSet<>());
+    }
+
+    private static Set<String> ids(List<Timer> timers) {
+        return timers.stream().map(Timer::getId).collect(Collectors.toSet());
+    }
+}
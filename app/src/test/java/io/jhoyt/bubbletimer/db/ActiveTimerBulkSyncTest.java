@@ -0,0 +1,126 @@
+package io.jhoyt.bubbletimer.db;
+
+import android.content.Context;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.jhoyt.bubbletimer.Timer;
+import io.jhoyt.bubbletimer.TimerConverter;
+import io.jhoyt.bubbletimer.core.concurrency.KeyedSerialExecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Compares applying a full 500 timer list one row at a time, as activeTimerList used to be
+ * handled, against the bulk replaceAll path. How long each takes is measured by
+ * ActiveTimerBulkSyncPerformanceTest.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ActiveTimerBulkSyncTest {
+
+    private static final int TIMER_COUNT = 500;
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private AppDatabase database;
+    private ActiveTimerDao activeTimerDao;
+    private KeyedSerialExecutor flushExecutor;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        activeTimerDao = database.activeTimerDao();
+        flushExecutor = new KeyedSerialExecutor("test-write", 1);
+    }
+
+    @After
+    public void tearDown() {
+        flushExecutor.shutdownNow();
+        database.close();
+    }
+
+    @Test
+    public void testBulkReplaceEmitsAndWritesOnce() throws Exception {
+        List<Timer> timers = createTimers();
+
+        // Per-row path: one cache update and emission plus one write transaction per timer
+        KeyedSerialExecutor unusedFlushExecutor = new KeyedSerialExecutor("test-write", 1);
+        ActiveTimerRepository perRowRepository = new ActiveTimerRepository(activeTimerDao, unusedFlushExecutor);
+        AtomicInteger perRowEmissions = new AtomicInteger();
+        perRowRepository.getAllActiveTimers().observeForever(emitted -> perRowEmissions.incrementAndGet());
+        perRowEmissions.set(0);
+
+        for (Timer timer : timers) {
+            perRowRepository.insert(timer);
+            activeTimerDao.insert(TimerConverter.toActiveTimer(timer));
+        }
+
+        unusedFlushExecutor.shutdownNow();
+        activeTimerDao.deleteAll();
+
+        // Bulk path: one cache swap, one emission and one transaction
+        ActiveTimerRepository repository = new ActiveTimerRepository(activeTimerDao, flushExecutor);
+        AtomicInteger bulkEmissions = new AtomicInteger();
+        repository.getAllActiveTimers().observeForever(emitted -> bulkEmissions.incrementAndGet());
+        bulkEmissions.set(0);
+
+        repository.replaceAll(timers);
+        repository.flush().get(30, TimeUnit.SECONDS);
+
+        assertEquals("Per-row path should emit per timer", TIMER_COUNT, perRowEmissions.get());
+        assertEquals("Bulk path should emit once", 1, bulkEmissions.get());
+        assertEquals("Bulk path should write in one transaction", 1, repository.getWriteJournal().getFlushCount());
+        assertEquals("Every timer should be in the cache", TIMER_COUNT, repository.getAllActiveTimers().getValue().size());
+        assertEquals("Every timer should be written", timers.get(TIMER_COUNT - 1).getName(),
+                activeTimerDao.get(timers.get(TIMER_COUNT - 1).getId()).name);
+    }
+
+    @Test
+    public void testBulkReplaceDeletesMissingRows() throws Exception {
+        List<Timer> timers = createTimers();
+        ActiveTimerRepository repository = new ActiveTimerRepository(activeTimerDao, flushExecutor);
+        repository.replaceAll(timers);
+        repository.flush().get(30, TimeUnit.SECONDS);
+
+        repository.replaceAll(timers.subList(0, TIMER_COUNT / 2));
+        repository.flush().get(30, TimeUnit.SECONDS);
+
+        assertNull("Rows missing from the list should be deleted",
+                activeTimerDao.get(timers.get(TIMER_COUNT - 1).getId()));
+        assertEquals("Rows in the list should be kept", timers.get(0).getName(),
+                activeTimerDao.get(timers.get(0).getId()).name);
+    }
+
+    private static List<Timer> createTimers() {
+        List<Timer> timers = new ArrayList<>(TIMER_COUNT);
+        for (int i = 0; i < TIMER_COUNT; i++) {
+            Timer timer = new Timer("user", "Bulk Timer " + i, Duration.ofMinutes(1 + i % 30), new HashSet<>());
+            if (i % 2 == 0) {
+                timer.unpause();
+            }
+            timers.add(timer);
+        }
+        return timers;
+    }
+}
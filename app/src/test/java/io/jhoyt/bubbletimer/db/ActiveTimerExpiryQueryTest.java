@@ -0,0 +1,110 @@
+package io.jhoyt.bubbletimer.db;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class ActiveTimerExpiryQueryTest {
+
+    private AppDatabase database;
+    private ActiveTimerDao activeTimerDao;
+    private LocalDateTime now;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        activeTimerDao = database.activeTimerDao();
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void testNextExpiringIsOrderedByEnd() {
+        activeTimerDao.insert(activeTimer("late", now.plusMinutes(30)));
+        activeTimerDao.insert(activeTimer("paused", null));
+        activeTimerDao.insert(activeTimer("soon", now.plusMinutes(1)));
+        activeTimerDao.insert(activeTimer("middle", now.plusMinutes(10)));
+
+        assertEquals("Running timers should come back soonest first, without paused ones",
+                List.of("soon", "middle", "late"), ids(activeTimerDao.getNextExpiring(10)));
+        assertEquals("Limit should cap the result",
+                List.of("soon"), ids(activeTimerDao.getNextExpiring(1)));
+    }
+
+    @Test
+    public void testExpiringBeforeIsInclusive() {
+        activeTimerDao.insert(activeTimer("expired", now.minusSeconds(5)));
+        activeTimerDao.insert(activeTimer("now", now));
+        activeTimerDao.insert(activeTimer("later", now.plusMinutes(5)));
+        activeTimerDao.insert(activeTimer("paused", null));
+
+        assertEquals("Timers ending at or before the cutoff should match",
+                List.of("expired", "now"), ids(activeTimerDao.getExpiringBefore(now)));
+        assertTrue("Nothing should end before the earliest timer",
+                activeTimerDao.getExpiringBefore(now.minusMinutes(1)).isEmpty());
+    }
+
+    @Test
+    public void testTimerEndRoundTripsAtMillisecondPrecision() {
+        LocalDateTime timerEnd = now.plusSeconds(90);
+        activeTimerDao.insert(activeTimer("timer", timerEnd));
+
+        assertEquals("timerEnd should round trip", timerEnd, activeTimerDao.get("timer").timerEnd);
+        assertEquals("Stored value should be the epoch millis of the instant",
+                timerEnd.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                (long) Converters.localDateTimeToEpochMillis(timerEnd));
+    }
+
+    @Test
+    public void testLegacyTimestampConversion() {
+        LocalDateTime timerEnd = LocalDateTime.of(2025, 3, 1, 12, 30, 15, 123_000_000);
+
+        assertEquals("ISO text should convert to the same instant",
+                Converters.localDateTimeToEpochMillis(timerEnd),
+                Migration9To10.toEpochMillis("2025-03-01T12:30:15.123"));
+        assertNull("Empty text stood for a missing timestamp", Migration9To10.toEpochMillis(""));
+        assertNull("Unreadable text should be dropped", Migration9To10.toEpochMillis("not a date"));
+    }
+
+    private static ActiveTimer activeTimer(String id, LocalDateTime timerEnd) {
+        ActiveTimer activeTimer = new ActiveTimer();
+        activeTimer.id = id;
+        activeTimer.name = id;
+        activeTimer.userId = "user";
+        activeTimer.totalDuration = Duration.ofMinutes(30);
+        activeTimer.remainingDurationWhenPaused = timerEnd == null ? Duration.ofMinutes(5) : null;
+        activeTimer.timerEnd = timerEnd;
+        activeTimer.sharedBy = "";
+        return activeTimer;
+    }
+
+    private static List<String> ids(List<ActiveTimer> activeTimers) {
+        return activeTimers.stream().map(activeTimer -> activeTimer.id).collect(Collectors.toList());
+    }
+}
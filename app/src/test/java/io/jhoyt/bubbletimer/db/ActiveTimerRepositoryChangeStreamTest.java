@@ -0,0 +1,212 @@
+package io.jhoyt.bubbletimer.db;
+
+import android.content.Context;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import io.jhoyt.bubbletimer.Timer;
+import io.jhoyt.bubbletimer.TimerConverter;
+import io.jhoyt.bubbletimer.core.concurrency.KeyedSerialExecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class ActiveTimerRepositoryChangeStreamTest {
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private AppDatabase database;
+    private KeyedSerialExecutor flushExecutor;
+    private ActiveTimerRepository repository;
+    private final List<ActiveTimerChange> received = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        flushExecutor = new KeyedSerialExecutor("test-write", 1);
+        // Deliver changes on the calling thread so the test sees them right away
+        repository = new ActiveTimerRepository(database.activeTimerDao(), flushExecutor, Runnable::run);
+    }
+
+    @After
+    public void tearDown() {
+        flushExecutor.shutdownNow();
+        database.close();
+    }
+
+    @Test
+    public void testLocalWritesPublishOneChangeEach() {
+        repository.addChangeListener(received::addAll);
+        Timer timer = newTimer("Timer");
+
+        repository.insert(timer);
+        timer.addTime(Duration.ofMinutes(1));
+        repository.update(timer);
+        repository.deleteById(timer.getId());
+
+        assertEquals("Each write should publish its own change",
+                List.of(ActiveTimerChange.Type.INSERTED, ActiveTimerChange.Type.UPDATED, ActiveTimerChange.Type.REMOVED),
+                types(received));
+        assertEquals("Versions should count every change", List.of(1L, 2L, 3L),
+                received.stream().map(ActiveTimerChange::getVersion).collect(Collectors.toList()));
+        assertSame("Removal should carry the last known timer", timer, received.get(2).getTimer());
+    }
+
+    @Test
+    public void testBatchPublishesOnlyChangedTimers() {
+        List<Timer> timers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            timers.add(newTimer("Timer " + i));
+        }
+        repository.upsertAll(copies(timers));
+
+        List<List<ActiveTimerChange>> batches = new ArrayList<>();
+        repository.addChangeListener(batches::add);
+
+        List<Timer> resent = copies(timers);
+        resent.get(3).addTime(Duration.ofMinutes(1));
+        repository.upsertAll(resent);
+
+        assertEquals("One batch should be published", 1, batches.size());
+        assertEquals("Only the changed timer should be in it", 1, batches.get(0).size());
+        assertEquals(timers.get(3).getId(), batches.get(0).get(0).getTimerId());
+        assertEquals(ActiveTimerChange.Type.UPDATED, batches.get(0).get(0).getType());
+
+        repository.upsertAll(copies(resent));
+        assertEquals("Unchanged batch should publish nothing", 1, batches.size());
+    }
+
+    @Test
+    public void testLateSubscriberStartsFromSnapshot() {
+        Timer first = newTimer("First");
+        Timer second = newTimer("Second");
+        repository.insert(first);
+        repository.insert(second);
+
+        ActiveTimerRepository.Snapshot snapshot = repository.addChangeListener(received::addAll);
+        assertEquals("Snapshot should hold the existing timers", 2, snapshot.getTimers().size());
+        assertEquals("Snapshot should be at the last change", 2, snapshot.getVersion());
+        assertTrue("Earlier changes should not be replayed", received.isEmpty());
+
+        repository.deleteById(first.getId());
+        assertEquals("Only later changes should arrive", 1, received.size());
+        assertTrue("Later changes should be newer than the snapshot",
+                received.get(0).getVersion() > snapshot.getVersion());
+    }
+
+    @Test
+    public void testReplaceAllPublishesRemovals() {
+        Timer kept = newTimer("Kept");
+        Timer removed = newTimer("Removed");
+        repository.upsertAll(List.of(kept, removed));
+        repository.addChangeListener(received::addAll);
+
+        Timer added = newTimer("Added");
+        repository.replaceAll(List.of(kept.copy(), added));
+
+        assertEquals("Only the added and missing timers should change",
+                List.of(ActiveTimerChange.Type.INSERTED, ActiveTimerChange.Type.REMOVED), types(received));
+        assertEquals(added.getId(), received.get(0).getTimerId());
+        assertEquals(removed.getId(), received.get(1).getTimerId());
+    }
+
+    @Test
+    public void testReplaceAllKeepsMissingTimersItIsToldTo() throws Exception {
+        Timer local = newTimer("Local");
+        Timer stoppedElsewhere = newTimer("Stopped elsewhere");
+        repository.upsertAll(List.of(local, stoppedElsewhere));
+        repository.addChangeListener(received::addAll);
+
+        List<ActiveTimerChange> changes = repository.replaceAll(List.of(),
+                timer -> timer.getId().equals(local.getId()));
+
+        assertEquals(received, changes);
+        assertEquals(List.of(ActiveTimerChange.Type.REMOVED), types(changes));
+        assertEquals(stoppedElsewhere.getId(), changes.get(0).getTimerId());
+        assertSame("The kept timer should stay cached", local, repository.getById(local.getId()));
+
+        repository.flush().get(5, TimeUnit.SECONDS);
+        assertNotNull(database.activeTimerDao().loadById(local.getId()));
+        assertNull("The missing timer should be deleted",
+                database.activeTimerDao().loadById(stoppedElsewhere.getId()));
+    }
+
+    @Test
+    public void testRemovedListenerHearsNothing() {
+        ActiveTimerRepository.ChangeListener listener = received::addAll;
+        repository.addChangeListener(listener);
+        repository.removeChangeListener(listener);
+
+        repository.insert(newTimer("Timer"));
+
+        assertTrue("Removed listener should not be called", received.isEmpty());
+    }
+
+    @Test
+    public void testRowsWrittenElsewhereArriveAsChangesAndEchoesDoNot() throws Exception {
+        Timer own = newTimer("Own");
+        repository.insert(own);
+        repository.addChangeListener(received::addAll);
+
+        // Reading back our own flushed write is not a change
+        repository.flush().get(5, TimeUnit.SECONDS);
+        assertTrue("Echo of a flushed write should not publish: " + received, received.isEmpty());
+        assertEquals("Echo should be skipped without converting its rows", 1, repository.getSkippedEchoCount());
+
+        // Rows written by another component, e.g. an accepted share, are
+        Timer external = newTimer("External");
+        database.activeTimerDao().insert(TimerConverter.toActiveTimer(external));
+
+        assertEquals("External row should arrive as an insert",
+                List.of(ActiveTimerChange.Type.INSERTED), types(received));
+        assertEquals(external.getId(), received.get(0).getTimerId());
+        assertEquals("A row nobody here flushed isn't an echo", 1, repository.getSkippedEchoCount());
+
+        // Once read back, the external row is part of what later echoes hold
+        received.clear();
+        own.addTime(Duration.ofMinutes(1));
+        repository.update(own);
+        repository.flush().get(5, TimeUnit.SECONDS);
+        assertEquals("Only the local update itself should publish",
+                List.of(ActiveTimerChange.Type.UPDATED), types(received));
+        assertEquals(2, repository.getSkippedEchoCount());
+    }
+
+    private static Timer newTimer(String name) {
+        Timer timer = new Timer("user", name, Duration.ofMinutes(5), new HashSet<>());
+        timer.unpause();
+        return timer;
+    }
+
+    private static List<Timer> copies(List<Timer> timers) {
+        return timers.stream().map(Timer::copy).collect(Collectors.toList());
+    }
+
+    private static List<ActiveTimerChange.Type> types(List<ActiveTimerChange> changes) {
+        return changes.stream().map(ActiveTimerChange::getType).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,159 @@
+package io.jhoyt.bubbletimer.db;
+
+import android.content.Context;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.jhoyt.bubbletimer.Timer;
+import io.jhoyt.bubbletimer.TimerData;
+import io.jhoyt.bubbletimer.core.concurrency.KeyedSerialExecutor;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(AndroidJUnit4.class)
+public class ActiveTimerRepositoryReconcileTest {
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private AppDatabase database;
+    private KeyedSerialExecutor flushExecutor;
+    private ActiveTimerRepository repository;
+    private final AtomicInteger emissions = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        flushExecutor = new KeyedSerialExecutor("test-write", 1);
+        repository = new ActiveTimerRepository(database.activeTimerDao(), flushExecutor);
+        repository.getAllActiveTimers().observeForever(timers -> emissions.incrementAndGet());
+        emissions.set(0);
+    }
+
+    @After
+    public void tearDown() {
+        flushExecutor.shutdownNow();
+        database.close();
+    }
+
+    @Test
+    public void testUpsertInsertsThenUpdates() {
+        Timer timer = new Timer("user", "Timer", Duration.ofMinutes(5), new HashSet<>());
+
+        assertEquals("Unknown timer should be inserted",
+                ActiveTimerRepository.UpsertResult.INSERTED, repository.upsert(timer.copy()));
+        assertEquals("Insert should be version 1", 1, repository.getVersion(timer.getId()));
+
+        timer.addTime(Duration.ofMinutes(1));
+        assertEquals("Changed timer should be updated",
+                ActiveTimerRepository.UpsertResult.UPDATED, repository.upsert(timer.copy()));
+        assertEquals("Update should bump the version", 2, repository.getVersion(timer.getId()));
+    }
+
+    @Test
+    public void testResentTimerIsSkipped() {
+        Timer timer = new Timer("user", "Timer", Duration.ofMinutes(5), Set.of("kitchen"));
+        repository.upsert(timer.copy());
+        long writesBefore = repository.getWriteJournal().getRecordedWriteCount();
+        emissions.set(0);
+
+        assertEquals("Identical resend should be a no-op",
+                ActiveTimerRepository.UpsertResult.UNCHANGED, repository.upsert(timer.copy()));
+
+        assertEquals("No-op resend should not emit", 0, emissions.get());
+        assertEquals("No-op resend should not be written", writesBefore,
+                repository.getWriteJournal().getRecordedWriteCount());
+        assertEquals("No-op resend should keep the version", 1, repository.getVersion(timer.getId()));
+    }
+
+    @Test
+    public void testTagChangeIsNotSkipped() {
+        Timer timer = new Timer("user", "Timer", Duration.ofMinutes(5), Set.of("kitchen"));
+        repository.upsert(timer.copy());
+
+        TimerData timerData = timer.getTimerData();
+        Timer incoming = new Timer(new TimerData(
+                timerData.id, timerData.userId, timerData.name, timerData.totalDuration,
+                timerData.remainingDurationWhenPaused, timerData.timerEnd,
+                Set.of("garden")), new HashSet<>());
+
+        assertEquals("Tag change should be an update",
+                ActiveTimerRepository.UpsertResult.UPDATED, repository.upsert(incoming));
+    }
+
+    @Test
+    public void testUpsertAllReportsOnlyChangedTimersWithOneEmission() {
+        List<Timer> existing = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            existing.add(new Timer("user", "Existing " + i, Duration.ofMinutes(5), new HashSet<>()));
+        }
+        repository.upsertAll(copies(existing));
+        emissions.set(0);
+
+        List<Timer> received = copies(existing);
+        for (int i = 0; i < 50; i++) {
+            received.add(new Timer("user", "New " + i, Duration.ofMinutes(5), new HashSet<>()));
+        }
+        List<Timer> changed = repository.upsertAll(received);
+
+        assertEquals("Only new timers should be reported", 50, changed.size());
+        assertEquals("Batch should emit once", 1, emissions.get());
+        assertEquals("All timers should be cached", 100, repository.getAllActiveTimers().getValue().size());
+
+        emissions.set(0);
+        assertEquals("Resending the whole list should change nothing", 0, repository.upsertAll(copies(received)).size());
+        assertEquals("Unchanged list should not emit", 0, emissions.get());
+    }
+
+    @Test
+    public void testSyncVersionOnlyGoesUp() {
+        Timer timer = new Timer("user", "Timer", Duration.ofMinutes(5), new HashSet<>());
+        timer.setVersion(3);
+        repository.upsert(timer.copy());
+        emissions.set(0);
+        long writesBefore = repository.getWriteJournal().getRecordedWriteCount();
+
+        timer.setVersion(5);
+        assertEquals("A newer version of the same timer is still no change",
+                ActiveTimerRepository.UpsertResult.UNCHANGED, repository.upsert(timer.copy()));
+        assertEquals("A version alone should not emit", 0, emissions.get());
+        assertEquals("The newer version should be stored", 5, repository.getById(timer.getId()).getVersion());
+        assertEquals(writesBefore + 1, repository.getWriteJournal().getRecordedWriteCount());
+
+        Timer edited = timer.copy();
+        edited.setVersion(0);
+        edited.addTime(Duration.ofMinutes(1));
+        repository.update(edited);
+        assertEquals("A local edit keeps the version", 5, repository.getById(timer.getId()).getVersion());
+
+        repository.setSyncVersion(timer.getId(), 4);
+        assertEquals(5, repository.getById(timer.getId()).getVersion());
+        repository.setSyncVersion(timer.getId(), 6);
+        assertEquals(6, repository.getById(timer.getId()).getVersion());
+    }
+
+    private static List<Timer> copies(List<Timer> timers) {
+        List<Timer> copies = new ArrayList<>();
+        timers.forEach(timer -> copies.add(timer.copy()));
+        return copies;
+    }
+}
@@ -0,0 +1,129 @@
+package io.jhoyt.bubbletimer.db;
+
+import android.content.Context;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.jhoyt.bubbletimer.Timer;
+import io.jhoyt.bubbletimer.core.concurrency.KeyedSerialExecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(AndroidJUnit4.class)
+public class ActiveTimerRepositoryWriteBehindTest {
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private AppDatabase database;
+    private ActiveTimerDao activeTimerDao;
+    private KeyedSerialExecutor flushExecutor;
+    private ActiveTimerRepository repository;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        activeTimerDao = database.activeTimerDao();
+        flushExecutor = new KeyedSerialExecutor("test-write", 1);
+        repository = new ActiveTimerRepository(activeTimerDao, flushExecutor);
+    }
+
+    @After
+    public void tearDown() {
+        flushExecutor.shutdownNow();
+        database.close();
+    }
+
+    @Test
+    public void testRapidUpdatesKeepLatestState() throws Exception {
+        Timer timer = new Timer("user", "Timer", Duration.ofMinutes(1), new HashSet<>());
+        repository.insert(timer);
+
+        // Rapid +1 min taps used to be dropped inside the one second throttle window
+        for (int i = 0; i < 10; i++) {
+            timer.addTime(Duration.ofMinutes(1));
+            repository.update(timer);
+        }
+
+        assertEquals("Cache should hold the latest state immediately", Duration.ofMinutes(11),
+                repository.getById(timer.getId()).getRemainingDuration());
+
+        repository.flush().get(5, TimeUnit.SECONDS);
+
+        assertEquals("Database should hold the latest state", Duration.ofMinutes(11),
+                activeTimerDao.get(timer.getId()).remainingDurationWhenPaused);
+        assertEquals("Insert and updates should coalesce into one row write", 1,
+                repository.getWriteJournal().getFlushedRowCount());
+    }
+
+    @Test
+    public void testDeleteIsFlushed() throws Exception {
+        Timer timer = new Timer("user", "Timer", Duration.ofMinutes(1), new HashSet<>());
+        repository.insert(timer);
+        repository.flush().get(5, TimeUnit.SECONDS);
+
+        timer.addTime(Duration.ofMinutes(1));
+        repository.update(timer);
+        repository.deleteById(timer.getId());
+        repository.flush().get(5, TimeUnit.SECONDS);
+
+        assertNull("Deleted timer should not be in the cache", repository.getById(timer.getId()));
+        assertNull("Deleted timer should not be in the database", activeTimerDao.get(timer.getId()));
+    }
+
+    @Test
+    public void testManyTimersAreFlushedInOneTransaction() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            repository.insert(new Timer("user", "Timer " + i, Duration.ofMinutes(1), new HashSet<>()));
+        }
+
+        repository.flush().get(5, TimeUnit.SECONDS);
+
+        assertEquals("Every timer should be written", 50, repository.getWriteJournal().getFlushedRowCount());
+        assertEquals("Timers should be written in a single flush", 1, repository.getWriteJournal().getFlushCount());
+    }
+
+    @Test
+    public void testReplaceAllDeletesMissingTimersInOneTransaction() throws Exception {
+        Timer kept = new Timer("user", "Kept", Duration.ofMinutes(1), new HashSet<>());
+        Timer removed = new Timer("user", "Removed", Duration.ofMinutes(1), new HashSet<>());
+        repository.insert(kept);
+        repository.insert(removed);
+        repository.flush().get(5, TimeUnit.SECONDS);
+
+        Timer added = new Timer("user", "Added", Duration.ofMinutes(1), new HashSet<>());
+        List<Integer> emissionSizes = new ArrayList<>();
+        repository.getAllActiveTimers().observeForever(timers -> emissionSizes.add(timers.size()));
+        emissionSizes.clear();
+
+        repository.replaceAll(List.of(kept, added));
+
+        assertEquals("Replacing the list should emit once", List.of(2), emissionSizes);
+        assertNull("Missing timer should leave the cache", repository.getById(removed.getId()));
+
+        repository.flush().get(5, TimeUnit.SECONDS);
+
+        assertNull("Missing timer should be deleted", activeTimerDao.get(removed.getId()));
+        assertEquals("Added timer should be written", "Added", activeTimerDao.get(added.getId()).name);
+        assertEquals("Replacement should be one flush", 2, repository.getWriteJournal().getFlushCount());
+    }
+}
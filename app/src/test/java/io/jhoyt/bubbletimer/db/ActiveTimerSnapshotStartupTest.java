@@ -0,0 +1,230 @@
+package io.jhoyt.bubbletimer.db;
+
+import android.content.Context;
+import android.os.Looper;
+
+import androidx.lifecycle.MutableLiveData;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import io.jhoyt.bubbletimer.Timer;
+import io.jhoyt.bubbletimer.TimerConverter;
+import io.jhoyt.bubbletimer.core.concurrency.KeyedSerialExecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * The snapshot file a repository reads its first active timers from after a process restart,
+ * before Room has opened the database, and how Room's rows are reconciled against it. Each
+ * database is closed and reopened as it would be by a restart.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ActiveTimerSnapshotStartupTest {
+
+    private static final int TIMER_COUNT = 200;
+    private static final String DATABASE_NAME = "snapshot-startup-test.db";
+
+    private Context context;
+    private KeyedSerialExecutor writeExecutor;
+    private ActiveTimerSnapshotFile snapshotFile;
+    private final List<AppDatabase> databases = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DATABASE_NAME);
+        writeExecutor = new KeyedSerialExecutor("test-write", 1);
+        snapshotFile = new ActiveTimerSnapshotFile(new File(context.getNoBackupFilesDir(), "test.snapshot"));
+        snapshotFile.getFile().delete();
+    }
+
+    @After
+    public void tearDown() {
+        writeExecutor.shutdownNow();
+        for (AppDatabase database : databases) {
+            database.close();
+        }
+        context.deleteDatabase(DATABASE_NAME);
+        snapshotFile.getFile().delete();
+    }
+
+    @Test
+    public void testSnapshotRoundTripsRows() {
+        ActiveTimer running = activeTimer("running", Set.of("work"), Set.of("user", "alice"));
+        running.timerEnd = LocalDateTime.now().plusMinutes(5).truncatedTo(ChronoUnit.MILLIS);
+        running.version = 12;
+        ActiveTimer paused = activeTimer("paused", Set.of(), Set.of());
+        paused.remainingDurationWhenPaused = Duration.ofSeconds(90);
+        paused.name = "Pausé ⏸";
+        paused.sharedBy = null;
+
+        assertTrue(snapshotFile.write(List.of(running, paused)));
+        List<ActiveTimer> read = snapshotFile.read();
+
+        assertEquals(2, read.size());
+        assertEquals(running.timerEnd, read.get(0).timerEnd);
+        assertNull("Running timer has no paused duration", read.get(0).remainingDurationWhenPaused);
+        assertEquals(Set.of("work"), read.get(0).tags);
+        assertEquals(Set.of("user", "alice"), read.get(0).sharedWith);
+        assertEquals(12, read.get(0).version);
+        assertEquals("Pausé ⏸", read.get(1).name);
+        assertEquals(Duration.ofSeconds(90), read.get(1).remainingDurationWhenPaused);
+        assertNull(read.get(1).timerEnd);
+        assertNull(read.get(1).sharedBy);
+    }
+
+    @Test
+    public void testUnreadableSnapshotReadsAsEmpty() throws Exception {
+        assertTrue("Missing file should read as empty", snapshotFile.read().isEmpty());
+
+        try (FileOutputStream output = new FileOutputStream(snapshotFile.getFile())) {
+            output.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13});
+        }
+        assertTrue("Foreign file should read as empty", snapshotFile.read().isEmpty());
+
+        assertTrue(snapshotFile.write(List.of(activeTimer("timer", Set.of(), Set.of()))));
+        try (RandomAccessFile file = new RandomAccessFile(snapshotFile.getFile(), "rw")) {
+            file.setLength(file.length() - 3);
+        }
+        assertTrue("Truncated file should read as empty", snapshotFile.read().isEmpty());
+    }
+
+    @Test
+    public void testFirstTimersComeFromTheSnapshotWithoutQueryingRoom() throws Exception {
+        List<Timer> timers = createTimers();
+        ActiveTimerRepository seeding = new ActiveTimerRepository(
+                openDatabase().activeTimerDao(), writeExecutor, Runnable::run, snapshotFile);
+        seeding.replaceAll(timers);
+        seeding.flush().get(30, TimeUnit.SECONDS);
+        assertEquals("Flush should write the snapshot", TIMER_COUNT, snapshotFile.read().size());
+        closeDatabases();
+
+        // Room hasn't answered yet, as right after a process restart
+        ActiveTimerDao activeTimerDao = mock(ActiveTimerDao.class);
+        when(activeTimerDao.getAll()).thenReturn(new MutableLiveData<>());
+
+        ActiveTimerRepository fromSnapshot = new ActiveTimerRepository(
+                activeTimerDao, writeExecutor, Runnable::run, snapshotFile);
+        assertEquals("Every timer should be there as soon as the constructor returns",
+                ids(timers), ids(fromSnapshot.getSnapshot().getTimers()));
+        verify(activeTimerDao).getAll();
+        verifyNoMoreInteractions(activeTimerDao);
+
+        ActiveTimerRepository fromRoom = new ActiveTimerRepository(
+                activeTimerDao, writeExecutor, Runnable::run, null);
+        assertTrue("Without a snapshot nothing is known until Room answers",
+                fromRoom.getSnapshot().getTimers().isEmpty());
+    }
+
+    @Test
+    public void testRoomReconcilesSnapshot() throws Exception {
+        List<Timer> timers = createTimers().subList(0, 3);
+        ActiveTimerRepository seeding = new ActiveTimerRepository(
+                openDatabase().activeTimerDao(), writeExecutor, Runnable::run, snapshotFile);
+        seeding.replaceAll(timers);
+        seeding.flush().get(30, TimeUnit.SECONDS);
+
+        // The snapshot knows a timer the database doesn't, e.g. after a failed write
+        Timer stale = new Timer("user", "Stale", Duration.ofMinutes(1), new HashSet<>());
+        List<ActiveTimer> rows = new ArrayList<>(snapshotFile.read());
+        rows.add(TimerConverter.toActiveTimer(stale));
+        snapshotFile.write(rows);
+        closeDatabases();
+
+        ActiveTimerRepository repository = new ActiveTimerRepository(
+                openDatabase().activeTimerDao(), writeExecutor, Runnable::run, snapshotFile);
+        List<ActiveTimerChange> received = new ArrayList<>();
+        assertEquals(4, repository.addChangeListener(received::addAll).getTimers().size());
+        Timer fromSnapshot = repository.getById(timers.get(0).getId());
+
+        awaitMainLooper(() -> repository.getById(stale.getId()) == null);
+
+        assertEquals("Only the stale timer should change", 1, received.size());
+        assertEquals(ActiveTimerChange.Type.REMOVED, received.get(0).getType());
+        assertEquals(stale.getId(), received.get(0).getTimerId());
+        assertSame("Matching rows should keep the snapshot's timer",
+                fromSnapshot, repository.getById(timers.get(0).getId()));
+        assertEquals(3, repository.getSnapshot().getTimers().size());
+    }
+
+    private AppDatabase openDatabase() {
+        AppDatabase database = Room.databaseBuilder(context, AppDatabase.class, DATABASE_NAME)
+                .allowMainThreadQueries()
+                .build();
+        databases.add(database);
+        return database;
+    }
+
+    private void closeDatabases() {
+        for (AppDatabase database : databases) {
+            database.close();
+        }
+        databases.clear();
+    }
+
+    private static void awaitMainLooper(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue("Timed out waiting for Room", System.nanoTime() < deadline);
+            // Room queries on its own executor and posts the result to the main thread
+            shadowOf(Looper.getMainLooper()).idle();
+            Thread.sleep(1);
+        }
+    }
+
+    private static List<Timer> createTimers() {
+        List<Timer> timers = new ArrayList<>(TIMER_COUNT);
+        for (int i = 0; i < TIMER_COUNT; i++) {
+            Timer timer = new Timer("user", "Startup Timer " + i, Duration.ofMinutes(1 + i % 30), new HashSet<>());
+            if (i % 2 == 0) {
+                timer.unpause();
+            }
+            timers.add(timer);
+        }
+        return timers;
+    }
+
+    private static Set<String> ids(List<Timer> timers) {
+        return timers.stream().map(Timer::getId).collect(Collectors.toSet());
+    }
+
+    private static ActiveTimer activeTimer(String id, Set<String> tags, Set<String> sharedWith) {
+        ActiveTimer activeTimer = new ActiveTimer();
+        activeTimer.id = id;
+        activeTimer.name = id;
+        activeTimer.userId = "user";
+        activeTimer.totalDuration = Duration.ofMinutes(10);
+        activeTimer.sharedBy = "";
+        activeTimer.tags = new HashSet<>(tags);
+        activeTimer.sharedWith = new HashSet<>(sharedWith);
+        return activeTimer;
+    }
+}
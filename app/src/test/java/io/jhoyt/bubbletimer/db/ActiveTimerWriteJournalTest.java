@@ -0,0 +1,193 @@
+package io.jhoyt.bubbletimer.db;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.jhoyt.bubbletimer.Timer;
+import io.jhoyt.bubbletimer.core.concurrency.KeyedSerialExecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ActiveTimerWriteJournalTest {
+
+    private static final String KEY = "active_timers";
+    private static final long NEVER_MS = TimeUnit.HOURS.toMillis(1);
+
+    private final List<List<ActiveTimer>> upsertBatches = new ArrayList<>();
+    private final List<List<String>> deleteBatches = new ArrayList<>();
+    private final List<List<ActiveTimer>> replacements = new ArrayList<>();
+    private final ActiveTimerWriteJournal.Sink recordingSink = new ActiveTimerWriteJournal.Sink() {
+        @Override
+        public void apply(List<ActiveTimer> upserts, List<String> deletedIds) {
+            upsertBatches.add(upserts);
+            deleteBatches.add(deletedIds);
+        }
+
+        @Override
+        public void replaceAll(List<ActiveTimer> activeTimers) {
+            replacements.add(activeTimers);
+        }
+    };
+    private KeyedSerialExecutor executor;
+
+    @Before
+    public void setUp() {
+        executor = new KeyedSerialExecutor("test-write", 1);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testBurstOfUpdatesFlushesLatestStateOnce() throws Exception {
+        ActiveTimerWriteJournal journal = new ActiveTimerWriteJournal(recordingSink, executor, KEY, NEVER_MS);
+        Timer timer = new Timer("user", "Timer", Duration.ofMinutes(1), new HashSet<>());
+
+        for (int i = 0; i < 100; i++) {
+            timer.addTime(Duration.ofMinutes(1));
+            journal.recordUpsert(timer);
+        }
+        journal.flush().get(5, TimeUnit.SECONDS);
+
+        assertEquals("Burst should be written in one transaction", 1, upsertBatches.size());
+        assertEquals("Burst should coalesce into one row", 1, upsertBatches.get(0).size());
+        assertEquals("Row should hold the last update", Duration.ofMinutes(101),
+                upsertBatches.get(0).get(0).remainingDurationWhenPaused);
+        assertEquals("All writes should have been recorded", 100, journal.getRecordedWriteCount());
+        assertEquals("Only one row should reach the database", 1, journal.getFlushedRowCount());
+    }
+
+    @Test
+    public void testJournalHoldsStateAsOfEachWrite() throws Exception {
+        ActiveTimerWriteJournal journal = new ActiveTimerWriteJournal(recordingSink, executor, KEY, NEVER_MS);
+        Timer timer = new Timer("user", "Timer", Duration.ofMinutes(1), new HashSet<>());
+
+        journal.recordUpsert(timer);
+        // Mutated after the write without telling the repository
+        timer.addTime(Duration.ofMinutes(5));
+        journal.flush().get(5, TimeUnit.SECONDS);
+
+        assertEquals("Row should hold the recorded state", Duration.ofMinutes(1),
+                upsertBatches.get(0).get(0).remainingDurationWhenPaused);
+    }
+
+    @Test
+    public void testDeleteSupersedesPendingUpdates() throws Exception {
+        ActiveTimerWriteJournal journal = new ActiveTimerWriteJournal(recordingSink, executor, KEY, NEVER_MS);
+        Timer timer = new Timer("user", "Timer", Duration.ofMinutes(1), new HashSet<>());
+
+        journal.recordUpsert(timer);
+        journal.recordUpsert(timer);
+        journal.recordDelete(timer.getId());
+        journal.flush().get(5, TimeUnit.SECONDS);
+
+        assertTrue("Deleted timer should not be written", upsertBatches.get(0).isEmpty());
+        assertEquals("Only the delete should be written", List.of(timer.getId()), deleteBatches.get(0));
+    }
+
+    @Test
+    public void testOverlayHidesStaleRows() {
+        ActiveTimerWriteJournal journal = new ActiveTimerWriteJournal(recordingSink, executor, KEY, NEVER_MS);
+        Timer stale = new Timer("user", "Stale", Duration.ofMinutes(1), new HashSet<>());
+        Timer deleted = new Timer("user", "Deleted", Duration.ofMinutes(1), new HashSet<>());
+        Timer untouched = new Timer("user", "Untouched", Duration.ofMinutes(1), new HashSet<>());
+
+        Timer latest = stale.copy();
+        latest.addTime(Duration.ofMinutes(1));
+        journal.recordUpsert(latest);
+        journal.recordDelete(deleted.getId());
+
+        List<Timer> timers = journal.overlay(List.of(stale, deleted, untouched));
+
+        assertEquals("Deleted timer should be hidden", 2, timers.size());
+        assertEquals("Pending update should replace the stale row", latest, timers.get(0));
+        assertEquals("Untouched timer should pass through", untouched, timers.get(1));
+    }
+
+    @Test
+    public void testFailedFlushIsRetried() throws Exception {
+        List<Integer> attempts = new ArrayList<>();
+        ActiveTimerWriteJournal journal = new ActiveTimerWriteJournal(new ActiveTimerWriteJournal.Sink() {
+            @Override
+            public void apply(List<ActiveTimer> upserts, List<String> deletedIds) {
+                attempts.add(upserts.size());
+                if (attempts.size() == 1) {
+                    throw new IllegalStateException("database is locked");
+                }
+            }
+
+            @Override
+            public void replaceAll(List<ActiveTimer> activeTimers) {
+            }
+        }, executor, KEY, NEVER_MS);
+
+        journal.recordUpsert(new Timer("user", "Timer", Duration.ofMinutes(1), new HashSet<>()));
+        journal.flush().get(5, TimeUnit.SECONDS);
+        assertEquals("Failed write should stay pending", 1, journal.getPendingCount());
+
+        journal.flush().get(5, TimeUnit.SECONDS);
+        assertEquals("Retry should write the row", 2, attempts.size());
+        assertEquals("Nothing should be pending after the retry", 0, journal.getPendingCount());
+    }
+
+    @Test
+    public void testDirtyRowsAreFlushedWithinTheDelay() throws Exception {
+        CountDownLatch flushed = new CountDownLatch(1);
+        ActiveTimerWriteJournal journal = new ActiveTimerWriteJournal(new ActiveTimerWriteJournal.Sink() {
+            @Override
+            public void apply(List<ActiveTimer> upserts, List<String> deletedIds) {
+                flushed.countDown();
+            }
+
+            @Override
+            public void replaceAll(List<ActiveTimer> activeTimers) {
+            }
+        }, executor, KEY, 50);
+
+        journal.recordUpsert(new Timer("user", "Timer", Duration.ofMinutes(1), new HashSet<>()));
+
+        assertTrue("Scheduled flush should write the row", flushed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testReplaceAllSupersedesEarlierWrites() throws Exception {
+        ActiveTimerWriteJournal journal = new ActiveTimerWriteJournal(recordingSink, executor, KEY, NEVER_MS);
+        Timer dropped = new Timer("user", "Dropped", Duration.ofMinutes(1), new HashSet<>());
+        Timer kept = new Timer("user", "Kept", Duration.ofMinutes(1), new HashSet<>());
+        Timer addedAfter = new Timer("user", "Added after", Duration.ofMinutes(1), new HashSet<>());
+
+        journal.recordUpsert(dropped);
+        journal.recordReplaceAll(List.of(kept));
+        journal.recordUpsert(addedAfter);
+        journal.flush().get(5, TimeUnit.SECONDS);
+
+        assertTrue("Per-row writes should be folded into the replacement", upsertBatches.isEmpty());
+        assertEquals("Replacement should be written once", 1, replacements.size());
+        assertEquals("Replacement should hold the list and later writes", 2, replacements.get(0).size());
+        assertEquals("Replaced timer should come first", kept.getId(), replacements.get(0).get(0).id);
+        assertEquals("Later write should be included", addedAfter.getId(), replacements.get(0).get(1).id);
+    }
+
+    @Test
+    public void testOverlayUsesPendingReplacement() {
+        ActiveTimerWriteJournal journal = new ActiveTimerWriteJournal(recordingSink, executor, KEY, NEVER_MS);
+        Timer persisted = new Timer("user", "Persisted", Duration.ofMinutes(1), new HashSet<>());
+        Timer replacement = new Timer("user", "Replacement", Duration.ofMinutes(1), new HashSet<>());
+
+        journal.recordReplaceAll(List.of(replacement));
+
+        assertEquals("Rows read back before the replacement commits should be ignored",
+                List.of(replacement), journal.overlay(List.of(persisted)));
+    }
+}
@@ -0,0 +1,103 @@
+package io.jhoyt.bubbletimer.db;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Upgrades a version 8 database, the last one with '#~#'-joined strings and text timestamps,
+ * through every manual migration and checks both the schema Room expects and the rows.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AppDatabaseMigrationTest {
+
+    private static final String DATABASE = "migration-test";
+    private static final int LATEST_VERSION = 16;
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(), AppDatabase.class);
+
+    @Test
+    public void testVersion8DataSurvivesEveryMigration() throws IOException {
+        try (SupportSQLiteDatabase db = helper.createDatabase(DATABASE, 8)) {
+            db.execSQL("INSERT INTO `Timer` (`id`, `title`, `duration`, `tagsString`) VALUES "
+                    + "(1, 'Tea', 180, 'kitchen#~# hot #~##~#kitchen'), (2, 'Nap', 1200, ''), (3, NULL, 60, '')");
+            db.execSQL("INSERT INTO `ActiveTimer` (`id`, `name`, `userId`, `totalDuration`, "
+                    + "`remainingDurationWhenPaused`, `timerEnd`, `sharedWithString`, `tagsString`, `sharedBy`) VALUES "
+                    + "('a-1', 'Tea', 'alice', 180, NULL, '2024-05-06T07:08:09', 'alice#~#bob', 'kitchen', 'bob'), "
+                    + "('a-2', 'Nap', 'alice', 1200, 600, '', '', '', '')");
+            db.execSQL("INSERT INTO `shared_timers` (`timerId`, `name`, `userId`, `totalDuration`, "
+                    + "`remainingDuration`, `timerEnd`, `status`, `sharedBy`, `sharedWith`, `createdAt`) VALUES "
+                    + "('s-1', 'Pizza', 'bob', 900, 900, '2024-05-06T08:00:00', 'PENDING', 'bob', "
+                    + "'alice#~#carol', '2024-05-06T07:00:00')");
+        }
+
+        // Checks the result against 16.json, and that no table the schema doesn't know is left
+        SupportSQLiteDatabase migrated = helper.runMigrationsAndValidate(
+                DATABASE, LATEST_VERSION, true, AppDatabase.MIGRATIONS);
+        try (Cursor cursor = migrated.query("SELECT rowid FROM `timer_search` WHERE `timer_search` MATCH 'kitchen'")) {
+            assertEquals("Existing timers should be indexed for search", 2, cursor.getCount());
+        }
+        migrated.close();
+
+        // Room checks the migrated schema against the entities as compiled when it opens
+        Context context = ApplicationProvider.getApplicationContext();
+        AppDatabase database = Room.databaseBuilder(context, AppDatabase.class, DATABASE)
+                .addMigrations(AppDatabase.MIGRATIONS)
+                .allowMainThreadQueries()
+                .build();
+        helper.closeWhenFinished(database);
+
+        List<TimerWithTags> savedTimers = database.timerDao().getByIds(List.of(1, 2));
+        assertEquals(2, savedTimers.size());
+        TimerWithTags tea = savedTimers.get(0).timer.id == 1 ? savedTimers.get(0) : savedTimers.get(1);
+        assertEquals("Tea", tea.timer.title);
+        assertEquals(Duration.ofMinutes(3), tea.timer.duration);
+        assertEquals("Saved timers start out as never used", 0, tea.timer.lastUsed);
+        assertEquals("Tags should be split, trimmed and deduplicated",
+                Set.of("kitchen", "hot"), new HashSet<>(tea.tags));
+        TimerWithTags untitled = database.timerDao().getPageByTitle("", -1, 1).get(0);
+        assertEquals("An untitled timer gets the empty title and pages first", 3, untitled.timer.id);
+        assertEquals("", untitled.timer.title);
+
+        ActiveTimer running = database.activeTimerDao().loadById("a-1").toActiveTimer();
+        assertEquals(LocalDateTime.of(2024, 5, 6, 7, 8, 9), running.timerEnd);
+        assertEquals(Set.of("kitchen"), running.tags);
+        assertEquals(Set.of("alice", "bob"), running.sharedWith);
+        assertEquals("bob", running.sharedBy);
+        assertEquals("Existing timers start unversioned", 0, running.version);
+
+        ActiveTimer paused = database.activeTimerDao().loadById("a-2").toActiveTimer();
+        assertNull("An empty timestamp stood for none", paused.timerEnd);
+        assertEquals(Duration.ofMinutes(10), paused.remainingDurationWhenPaused);
+        assertEquals(Set.of(), paused.tags);
+
+        List<SharedTimer> sharedTimers = database.sharedTimerDao().getAllSharedTimersSync();
+        assertEquals(1, sharedTimers.size());
+        SharedTimer pizza = sharedTimers.get(0);
+        assertEquals(LocalDateTime.of(2024, 5, 6, 8, 0), pizza.timerEnd);
+        assertEquals(LocalDateTime.of(2024, 5, 6, 7, 0), pizza.createdAt);
+        assertEquals(Set.of("alice", "carol"), pizza.sharedWith);
+    }
+}
@@ -0,0 +1,195 @@
+package io.jhoyt.bubbletimer.db;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import io.jhoyt.bubbletimer.core.concurrency.KeyedSerialExecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class SavedTimerPagingTest {
+
+    private static final int TIMER_COUNT = 2000;
+    private static final int PAGE_SIZE = 50;
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private AppDatabase database;
+    private TimerDao timerDao;
+    private KeyedSerialExecutor executor;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        timerDao = database.timerDao();
+        executor = new KeyedSerialExecutor("test-pages", 1);
+
+        database.runInTransaction(() -> {
+            for (int i = 0; i < TIMER_COUNT; i++) {
+                // Titles repeat so the id has to break ties
+                Set<String> tags = i % 4 == 0 ? Set.of("kitchen") : Set.of();
+                timerDao.insert(new Timer("Preset " + (i % 500), Duration.ofMinutes(1 + i % 60), tags));
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        database.close();
+    }
+
+    @Test
+    public void testTitlePagesCoverEveryTimerInOrder() {
+        List<Timer> paged = new ArrayList<>();
+        String title = "";
+        int id = -1;
+        List<TimerWithTags> page;
+        do {
+            page = timerDao.getPageByTitle(title, id, PAGE_SIZE);
+            for (TimerWithTags row : page) {
+                paged.add(row.toTimer());
+            }
+            if (!page.isEmpty()) {
+                title = paged.get(paged.size() - 1).title;
+                id = paged.get(paged.size() - 1).id;
+            }
+        } while (page.size() == PAGE_SIZE);
+
+        assertEquals("Every timer should be on exactly one page", TIMER_COUNT,
+                paged.stream().map(timer -> timer.id).distinct().count());
+        List<Timer> sorted = new ArrayList<>(paged);
+        sorted.sort(Comparator.comparing((Timer timer) -> timer.title).thenComparingInt(timer -> timer.id));
+        assertEquals(ids(sorted), ids(paged));
+    }
+
+    @Test
+    public void testUntitledTimerIsOnTheFirstTitlePage() {
+        timerDao.insert(new Timer(null, Duration.ofMinutes(1)));
+
+        List<TimerWithTags> firstPage = timerDao.getPageByTitle("", -1, PAGE_SIZE);
+        Timer untitled = firstPage.get(0).toTimer();
+        assertEquals("An untitled timer is stored with the empty title", "", untitled.title);
+        assertEquals(TIMER_COUNT + 1, untitled.id);
+        assertEquals("Paging on from it should reach the titled timers", "Preset 0",
+                timerDao.getPageByTitle(untitled.title, untitled.id, 1).get(0).timer.title);
+    }
+
+    @Test
+    public void testLastUsedPagesPutRecentTimersFirst() {
+        List<TimerWithTags> firstPage = timerDao.getPageByLastUsed(Long.MAX_VALUE, Integer.MAX_VALUE, PAGE_SIZE);
+        int newest = firstPage.get(0).timer.id;
+        int older = firstPage.get(1).timer.id;
+        assertTrue("Never used timers should be newest first", newest > older);
+
+        timerDao.setLastUsed(7, 1_000);
+        timerDao.setLastUsed(3, 2_000);
+        firstPage = timerDao.getPageByLastUsed(Long.MAX_VALUE, Integer.MAX_VALUE, PAGE_SIZE);
+        assertEquals(3, firstPage.get(0).timer.id);
+        assertEquals(7, firstPage.get(1).timer.id);
+        assertEquals(newest, firstPage.get(2).timer.id);
+
+        Timer last = firstPage.get(PAGE_SIZE - 1).toTimer();
+        List<TimerWithTags> secondPage = timerDao.getPageByLastUsed(last.lastUsed, last.id, PAGE_SIZE);
+        assertEquals("The next page should carry on after the last row", last.id - 1, secondPage.get(0).timer.id);
+    }
+
+    @Test
+    public void testTagPagesOnlyHoldTaggedTimers() {
+        List<TimerWithTags> page = timerDao.getPageWithTagByTitle("kitchen", "", -1, TIMER_COUNT);
+        assertEquals(TIMER_COUNT / 4, page.size());
+        for (TimerWithTags row : page) {
+            assertTrue(row.toTimer().tags.contains("kitchen"));
+        }
+
+        Timer last = page.get(9).toTimer();
+        List<TimerWithTags> after = timerDao.getPageWithTagByTitle("kitchen", last.title, last.id, 5);
+        assertEquals(ids(toTimers(page.subList(10, 15))), ids(toTimers(after)));
+    }
+
+    @Test
+    public void testPagerLoadsAroundTheBoundPositionAndRefreshes() throws Exception {
+        SavedTimerPager pager = new SavedTimerPager(timerDao, database.getInvalidationTracker(), executor,
+                SavedTimerOrder.LAST_USED, null, 20);
+        awaitReads();
+        assertEquals("Only the first page should be read", 20, pager.getTimers().getValue().size());
+
+        pager.loadAround(5);
+        awaitReads();
+        assertEquals("Binding near the top shouldn't read ahead", 20, pager.getTimers().getValue().size());
+
+        pager.loadAround(15);
+        awaitReads();
+        assertEquals("Binding near the end should read the next page", 40, pager.getTimers().getValue().size());
+
+        timerDao.setLastUsed(1, 5_000);
+        pager.refresh().get(5, TimeUnit.SECONDS);
+        List<Timer> refreshed = pager.getTimers().getValue();
+        assertEquals("The loaded range should be read again", 40, refreshed.size());
+        assertEquals("The used timer should move to the top", 1, refreshed.get(0).id);
+        pager.close();
+    }
+
+    @Test
+    public void testDeepPageSeeksThroughTheTitleIndex() {
+        List<TimerWithTags> all = timerDao.getPageByTitle("", -1, TIMER_COUNT);
+        Timer deep = all.get(TIMER_COUNT - PAGE_SIZE - 1).toTimer();
+        assertEquals("The last page should follow on from its key",
+                ids(toTimers(all.subList(TIMER_COUNT - PAGE_SIZE, TIMER_COUNT))),
+                ids(toTimers(timerDao.getPageByTitle(deep.title, deep.id, PAGE_SIZE))));
+
+        // The same query as getPageByTitle; a page costs the same at any depth as long as SQLite
+        // seeks on the index and reads rows in its order instead of sorting them
+        String plan;
+        try (Cursor cursor = database.query("EXPLAIN QUERY PLAN SELECT * FROM timer WHERE title >= ? "
+                + "AND (title > ? OR id > ?) ORDER BY title, id LIMIT ?",
+                new Object[] {deep.title, deep.title, deep.id, PAGE_SIZE})) {
+            StringBuilder details = new StringBuilder();
+            while (cursor.moveToNext()) {
+                details.append(cursor.getString(cursor.getColumnIndexOrThrow("detail"))).append('\n');
+            }
+            plan = details.toString();
+        }
+        assertTrue("The page should seek on the title index: " + plan, plan.contains("USING INDEX index_Timer_title"));
+        assertFalse("The page shouldn't be sorted: " + plan, plan.contains("TEMP B-TREE"));
+    }
+
+    private void awaitReads() throws Exception {
+        executor.submit(SavedTimerPager.readKey(SavedTimerOrder.LAST_USED, null), () -> { })
+                .get(5, TimeUnit.SECONDS);
+    }
+
+    private static List<Timer> toTimers(List<TimerWithTags> rows) {
+        return rows.stream().map(TimerWithTags::toTimer).collect(Collectors.toList());
+    }
+
+    private static List<Integer> ids(List<Timer> timers) {
+        return timers.stream().map(timer -> timer.id).collect(Collectors.toList());
+    }
+}
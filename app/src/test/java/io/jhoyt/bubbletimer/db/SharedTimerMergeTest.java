@@ -0,0 +1,129 @@
+package io.jhoyt.bubbletimer.db;
+
+import android.content.Context;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+@RunWith(AndroidJUnit4.class)
+public class SharedTimerMergeTest {
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private AppDatabase database;
+    private SharedTimerDao sharedTimerDao;
+    private LocalDateTime createdAt;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        sharedTimerDao = database.sharedTimerDao();
+        createdAt = LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void testMergeInsertsUpdatesAndDeletes() {
+        SharedTimerMergeResult first = sharedTimerDao.merge(List.of(
+                sharedTimer("kept", "Kept", Set.of("alice")),
+                sharedTimer("renamed", "Old name", Set.of("alice")),
+                sharedTimer("gone", "Gone", Set.of("alice"))));
+        assertEquals("All rows should be new", 3, first.getInserted());
+
+        SharedTimerMergeResult second = sharedTimerDao.merge(List.of(
+                sharedTimer("kept", "Kept", Set.of("alice")),
+                sharedTimer("renamed", "New name", Set.of("alice")),
+                sharedTimer("added", "Added", Set.of("bob"))));
+
+        assertEquals("One invitation is new", 1, second.getInserted());
+        assertEquals("Only the renamed invitation changed", 1, second.getUpdated());
+        assertEquals("The missing invitation should be deleted", 1, second.getDeleted());
+        assertEquals("New name", sharedTimerDao.getSharedTimerById("renamed").name);
+        assertNull("Missing invitation should be gone", sharedTimerDao.getSharedTimerById("gone"));
+        assertEquals(3, sharedTimerDao.getAllSharedTimersSync().size());
+    }
+
+    @Test
+    public void testMergeKeepsLocalStatusAndCreatedAt() {
+        sharedTimerDao.merge(List.of(sharedTimer("timer", "Timer", Set.of("alice"))));
+        sharedTimerDao.updateStatus("timer", "ACCEPTED");
+
+        SharedTimer refreshed = sharedTimer("timer", "Timer", Set.of("alice", "bob"));
+        refreshed.createdAt = createdAt.plusDays(1);
+        SharedTimerMergeResult result = sharedTimerDao.merge(List.of(refreshed));
+
+        SharedTimer stored = sharedTimerDao.getSharedTimerById("timer");
+        assertEquals("Share change should count as an update", 1, result.getUpdated());
+        assertEquals("Local status should survive a refresh", "ACCEPTED", stored.status);
+        assertEquals("createdAt should survive a refresh", createdAt, stored.createdAt);
+        assertEquals(Set.of("alice", "bob"), stored.sharedWith);
+    }
+
+    @Test
+    public void testUnchangedMergeWritesNothing() {
+        LocalDateTime timerEnd = LocalDateTime.now().plusMinutes(5);
+        SharedTimer running = sharedTimer("running", "Running", Set.of("alice"));
+        running.timerEnd = timerEnd;
+        sharedTimerDao.merge(List.of(running, sharedTimer("paused", "Paused", Set.of())));
+
+        List<List<SharedTimer>> emissions = new ArrayList<>();
+        LiveData<List<SharedTimerWithShares>> liveData = sharedTimerDao.getAllSharedTimers();
+        Observer<List<SharedTimerWithShares>> observer = rows -> emissions.add(SharedTimerWithShares.toSharedTimers(rows));
+        liveData.observeForever(observer);
+        int emissionsBefore = emissions.size();
+
+        // Same invitations as the server would send them again, with a fresh remaining time
+        SharedTimer resent = sharedTimer("running", "Running", Set.of("alice"));
+        resent.timerEnd = timerEnd;
+        resent.remainingDuration = Duration.ofMinutes(4);
+        SharedTimerMergeResult result = sharedTimerDao.merge(List.of(resent, sharedTimer("paused", "Paused", Set.of())));
+        liveData.removeObserver(observer);
+
+        assertFalse("Nothing should be written: " + result, result.hasChanges());
+        assertEquals("Observers should not be woken up", emissionsBefore, emissions.size());
+    }
+
+    private SharedTimer sharedTimer(String timerId, String name, Set<String> sharedWith) {
+        SharedTimer sharedTimer = new SharedTimer();
+        sharedTimer.timerId = timerId;
+        sharedTimer.name = name;
+        sharedTimer.userId = "owner";
+        sharedTimer.totalDuration = Duration.ofMinutes(10);
+        sharedTimer.remainingDuration = Duration.ofMinutes(10);
+        sharedTimer.status = "PENDING";
+        sharedTimer.sharedBy = "owner";
+        sharedTimer.sharedWith = new HashSet<>(sharedWith);
+        sharedTimer.createdAt = createdAt;
+        return sharedTimer;
+    }
+}
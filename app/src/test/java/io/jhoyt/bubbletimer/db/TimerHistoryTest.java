@@ -0,0 +1,175 @@
+package io.jhoyt.bubbletimer.db;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import io.jhoyt.bubbletimer.Timer;
+import io.jhoyt.bubbletimer.core.concurrency.KeyedSerialExecutor;
+import io.jhoyt.bubbletimer.domain.core.TimeSources;
+import io.jhoyt.bubbletimer.util.FakeTimeSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class TimerHistoryTest {
+
+    // A Monday, ten minutes before midnight
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 3, 23, 50);
+
+    private AppDatabase database;
+    private TimerHistoryDao timerHistoryDao;
+    private KeyedSerialExecutor executor;
+    private FakeTimeSource timeSource;
+    private TimerHistoryRecorder recorder;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        timerHistoryDao = database.timerHistoryDao();
+        executor = new KeyedSerialExecutor("test-history", 1);
+        timeSource = new FakeTimeSource();
+        timeSource.jumpWallClock(Duration.ofMillis(
+                START.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() - timeSource.wallClockMillis()));
+        TimeSources.set(timeSource);
+        recorder = new TimerHistoryRecorder(timerHistoryDao, executor, TimerHistoryRecorder.FLUSH_DELAY_MS);
+    }
+
+    @After
+    public void tearDown() {
+        TimeSources.set(null);
+        executor.shutdownNow();
+        database.close();
+    }
+
+    @Test
+    public void testLifecycleIsRecordedAsEvents() throws Exception {
+        Timer timer = runLifecycle();
+        recorder.flush().get(5, TimeUnit.SECONDS);
+
+        List<TimerEvent> events = timerHistoryDao.loadEventsAfter(0);
+        assertEquals(List.of(TimerEvent.Type.START, TimerEvent.Type.PAUSE, TimerEvent.Type.RESUME,
+                        TimerEvent.Type.ADD_TIME, TimerEvent.Type.EXPIRE),
+                events.stream().map(event -> event.type).collect(Collectors.toList()));
+        assertEquals("Pause should close the first run", 20 * 60, events.get(1).runSeconds);
+        assertEquals("Nothing runs while paused", 0, events.get(2).runSeconds);
+        assertEquals(5 * 60, events.get(3).addedSeconds);
+        assertEquals("Expiry should close the second run", 15 * 60, events.get(4).runSeconds);
+        assertEquals(timer.getId(), events.get(4).timerId);
+    }
+
+    @Test
+    public void testRollupsSplitRunTimeAtMidnight() throws Exception {
+        runLifecycle();
+
+        List<TimerTagTotal> totals = recorder.getTotalsByTag(TimerRollup.Period.DAY,
+                LocalDate.of(2025, 3, 1), LocalDate.of(2025, 4, 1)).get(5, TimeUnit.SECONDS);
+        assertEquals(1, totals.size());
+        TimerTagTotal work = totals.get(0);
+        assertEquals("work", work.tag);
+        assertEquals("Minutes this month", 35, work.runSeconds / 60);
+        assertEquals(1, work.starts);
+        assertEquals(1, work.extensions);
+        assertEquals(5 * 60, work.addedSeconds);
+        assertEquals(1, work.expirations);
+        assertEquals(0, work.stops);
+
+        List<TimerRollup> days = timerHistoryDao.getRollups(TimerRollup.Period.DAY,
+                START.minusDays(1), START.plusDays(2));
+        assertEquals("The run crossed midnight", 2, days.size());
+        assertEquals("Ten minutes before midnight", 10 * 60, days.get(0).runSeconds);
+        assertEquals("The rest after midnight", 25 * 60, days.get(1).runSeconds);
+
+        List<TimerRollup> weeks = timerHistoryDao.getRollups(TimerRollup.Period.WEEK,
+                START.minusDays(7), START.plusDays(7));
+        assertEquals("Both days are in the same week", 1, weeks.size());
+        assertEquals(START.toLocalDate().atStartOfDay(), weeks.get(0).bucketStart);
+        assertEquals(35 * 60, weeks.get(0).runSeconds);
+    }
+
+    @Test
+    public void testCompactionIsIncrementalAndPrunesOldEvents() throws Exception {
+        runLifecycle();
+        recorder.getTotalsByTag(TimerRollup.Period.DAY, START.toLocalDate(), START.toLocalDate().plusDays(2))
+                .get(5, TimeUnit.SECONDS);
+        assertEquals("Recent events are kept after compaction", 5, timerHistoryDao.getEventCount());
+
+        // A second, untagged timer a month later
+        timeSource.advance(Duration.ofDays(TimerHistoryRecorder.RAW_RETENTION_DAYS + 1));
+        Timer later = new Timer("user", "Later", Duration.ofMinutes(10), new HashSet<>());
+        later.unpause();
+        recorder.onSaved(later);
+        timeSource.advance(Duration.ofMinutes(4));
+        recorder.onRemoved(later);
+
+        List<TimerTagTotal> totals = recorder.getTotalsByTag(TimerRollup.Period.DAY,
+                START.toLocalDate(), START.toLocalDate().plusDays(60)).get(5, TimeUnit.SECONDS);
+        assertEquals("Old rollups should not be counted twice", 35 * 60, total(totals, "work").runSeconds);
+        assertEquals(4 * 60, total(totals, TimerRollup.UNTAGGED).runSeconds);
+        assertEquals(1, total(totals, TimerRollup.UNTAGGED).stops);
+        assertEquals("Events past the retention window should be pruned", 2, timerHistoryDao.getEventCount());
+    }
+
+    @Test
+    public void testExistingTimersAreFollowedWithoutEvents() throws Exception {
+        Timer timer = new Timer("user", "Existing", Duration.ofMinutes(10), new HashSet<>());
+        recorder.track(timer);
+        recorder.onSaved(timer);
+        recorder.onRemoved(timer);
+        recorder.onRemoved(timer);
+        recorder.flush().get(5, TimeUnit.SECONDS);
+
+        List<TimerEvent> events = timerHistoryDao.loadEventsAfter(0);
+        assertEquals("Only the stop should be recorded, once", 1, events.size());
+        assertEquals(TimerEvent.Type.STOP, events.get(0).type);
+        assertTrue(events.get(0).tags.isEmpty());
+    }
+
+    /**
+     * Start a 30 minute timer, run it 20 minutes across midnight, pause, resume, add five
+     * minutes and let it run out 15 minutes later.
+     */
+    private Timer runLifecycle() {
+        Timer timer = new Timer("user", "Focus", Duration.ofMinutes(30), new HashSet<>(Set.of("work")));
+        timer.unpause();
+        recorder.onSaved(timer);
+
+        timeSource.advance(Duration.ofMinutes(20));
+        timer.pause();
+        recorder.onSaved(timer);
+
+        timer.unpause();
+        recorder.onSaved(timer);
+        timer.addTime(Duration.ofMinutes(5));
+        recorder.onSaved(timer);
+
+        timeSource.advance(Duration.ofMinutes(15));
+        recorder.onRemoved(timer);
+        return timer;
+    }
+
+    private static TimerTagTotal total(List<TimerTagTotal> totals, String tag) {
+        return totals.stream().filter(total -> tag.equals(total.tag)).findFirst().orElseThrow();
+    }
+}
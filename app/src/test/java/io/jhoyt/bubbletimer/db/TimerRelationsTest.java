@@ -0,0 +1,173 @@
+package io.jhoyt.bubbletimer.db;
+
+import android.content.Context;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.jhoyt.bubbletimer.TimerConverter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class TimerRelationsTest {
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private AppDatabase database;
+    private ActiveTimerDao activeTimerDao;
+    private TimerDao timerDao;
+    private SharedTimerDao sharedTimerDao;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        activeTimerDao = database.activeTimerDao();
+        timerDao = database.timerDao();
+        sharedTimerDao = database.sharedTimerDao();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void testActiveTimerRelationsRoundTrip() {
+        activeTimerDao.insert(activeTimer("timer-1", Set.of("work", "focus"), Set.of("alice", "bob")));
+
+        ActiveTimer loaded = activeTimerDao.get("timer-1");
+        assertNotNull("Timer should be stored", loaded);
+        assertEquals("Tags should round trip", Set.of("work", "focus"), loaded.tags);
+        assertEquals("Shares should round trip", Set.of("alice", "bob"), loaded.sharedWith);
+    }
+
+    @Test
+    public void testActiveTimerQueriesByTagAndShare() {
+        activeTimerDao.insert(activeTimer("timer-1", Set.of("work"), Set.of("alice")));
+        activeTimerDao.insert(activeTimer("timer-2", Set.of("home"), Set.of("alice", "bob")));
+        activeTimerDao.insert(activeTimer("timer-3", Set.of(), Set.of()));
+
+        List<ActiveTimerWithRelations> work = getValue(activeTimerDao.getAllWithTag("work"));
+        assertEquals("Only the tagged timer should match", 1, work.size());
+        assertEquals("timer-1", work.get(0).activeTimer.id);
+        assertEquals("Matched timer should carry all its tags", List.of("work"), work.get(0).tags);
+
+        assertEquals("Both timers shared with alice should match",
+                2, getValue(activeTimerDao.getAllSharedWith("alice")).size());
+        assertEquals("Only the timer shared with bob should match",
+                1, getValue(activeTimerDao.getAllSharedWith("bob")).size());
+        assertEquals("All timers should load",
+                3, getValue(activeTimerDao.getAll()).size());
+    }
+
+    @Test
+    public void testUpdateReplacesRelations() {
+        ActiveTimer activeTimer = activeTimer("timer-1", Set.of("work"), Set.of("alice"));
+        activeTimerDao.insert(activeTimer);
+
+        activeTimer.tags = Set.of("home");
+        activeTimer.sharedWith = Set.of();
+        activeTimerDao.update(activeTimer);
+
+        ActiveTimer loaded = activeTimerDao.get("timer-1");
+        assertEquals("Old tags should be replaced", Set.of("home"), loaded.tags);
+        assertTrue("Removed shares should be gone", loaded.sharedWith.isEmpty());
+        assertTrue("Old tag should no longer match", getValue(activeTimerDao.getAllWithTag("work")).isEmpty());
+    }
+
+    @Test
+    public void testDeletingTimerCascadesToRelations() {
+        activeTimerDao.insert(activeTimer("timer-1", Set.of("work"), Set.of("alice")));
+        activeTimerDao.upsertAll(List.of(activeTimer("timer-2", Set.of("work"), Set.of("bob"))));
+
+        activeTimerDao.deleteById("timer-1");
+        activeTimerDao.deleteAll();
+
+        assertTrue("No tag rows should outlive their timers",
+                getValue(activeTimerDao.getAllWithTag("work")).isEmpty());
+        assertTrue("No share rows should outlive their timers",
+                getValue(activeTimerDao.getAllSharedWith("bob")).isEmpty());
+    }
+
+    @Test
+    public void testSavedTimerTagsRoundTrip() {
+        timerDao.insert(new Timer(0, "Tea", Duration.ofMinutes(3), Set.of("kitchen", "break")));
+        timerDao.insert(new Timer(0, "Run", Duration.ofMinutes(30), Set.of("fitness")));
+
+        List<TimerWithTags> kitchen = getValue(timerDao.getAllWithTag("kitchen"));
+        assertEquals("Only the tagged saved timer should match", 1, kitchen.size());
+        Timer tea = kitchen.get(0).toTimer();
+        assertEquals("Tea", tea.title);
+        assertEquals("Saved tags should round trip", Set.of("kitchen", "break"), tea.tags);
+
+        timerDao.deleteById(tea.id);
+        assertTrue("Deleting a saved timer should drop its tags",
+                getValue(timerDao.getAllWithTag("kitchen")).isEmpty());
+    }
+
+    @Test
+    public void testSharedTimerSharesRoundTrip() {
+        SharedTimer sharedTimer = new SharedTimer();
+        sharedTimer.timerId = "shared-1";
+        sharedTimer.name = "Shared";
+        sharedTimer.userId = "me";
+        sharedTimer.totalDuration = Duration.ofMinutes(5);
+        sharedTimer.remainingDuration = Duration.ofMinutes(5);
+        sharedTimer.status = "PENDING";
+        sharedTimer.sharedBy = "alice";
+        sharedTimer.sharedWith = Set.of("me", "bob");
+        sharedTimer.createdAt = LocalDateTime.now();
+        sharedTimerDao.insert(sharedTimer);
+
+        SharedTimer loaded = sharedTimerDao.getSharedTimerById("shared-1");
+        assertNotNull("Shared timer should be stored", loaded);
+        assertEquals("Shares should round trip", Set.of("me", "bob"), loaded.sharedWith);
+    }
+
+    @Test
+    public void testLegacyStringSplitting() {
+        assertEquals("Values should be trimmed and blanks dropped",
+                Set.of("work", "focus"), Migration8To9.split(" work #~##~#focus "));
+        assertTrue("Null column should have no values", Migration8To9.split(null).isEmpty());
+    }
+
+    private static ActiveTimer activeTimer(String id, Set<String> tags, Set<String> sharedWith) {
+        io.jhoyt.bubbletimer.Timer timer = new io.jhoyt.bubbletimer.Timer(
+                "user", "Timer " + id, Duration.ofMinutes(5), tags);
+        ActiveTimer activeTimer = TimerConverter.toActiveTimer(timer);
+        activeTimer.id = id;
+        activeTimer.sharedWith = sharedWith;
+        return activeTimer;
+    }
+
+    private static <T> T getValue(LiveData<T> liveData) {
+        AtomicReference<T> value = new AtomicReference<>();
+        Observer<T> observer = value::set;
+        liveData.observeForever(observer);
+        liveData.removeObserver(observer);
+        return value.get();
+    }
+}
@@ -0,0 +1,163 @@
+package io.jhoyt.bubbletimer.db;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class TimerSearchTest {
+
+    private static final int SEARCH_TIMER_COUNT = 10_000;
+    private static final String[] WORDS = {
+            "tea", "pasta", "laundry", "workout", "nap", "pizza", "bread", "meeting", "study", "plank"
+    };
+
+    private AppDatabase database;
+    private TimerDao timerDao;
+    private ActiveTimerDao activeTimerDao;
+    private TimerSearchDao timerSearchDao;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .addCallback(AppDatabase.TIMER_SEARCH_CALLBACK)
+                .allowMainThreadQueries()
+                .build();
+        timerDao = database.timerDao();
+        activeTimerDao = database.activeTimerDao();
+        timerSearchDao = database.timerSearchDao();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void testSavedTimersAreFoundByNameAndTagPrefixes() {
+        timerDao.insert(new Timer("Green tea", Duration.ofMinutes(3), Set.of("kitchen")));
+        timerDao.insert(new Timer("Pasta", Duration.ofMinutes(11), Set.of("kitchen", "dinner")));
+        timerDao.insert(new Timer("Plank", Duration.ofMinutes(1), Set.of("workout")));
+
+        assertEquals(List.of("1"), timerIds(timerSearchDao.search("gre", 10)));
+        assertEquals(List.of("1", "2"), timerIds(timerSearchDao.search("KITCH", 10)));
+        assertEquals("Every word has to match", List.of("2"), timerIds(timerSearchDao.search("kit din", 10)));
+        assertEquals("Words only match from their start", List.of(), timerIds(timerSearchDao.search("ank", 10)));
+        assertEquals("FTS syntax should be treated as text", List.of("3"),
+                timerIds(timerSearchDao.search("\"plank*\" (", 10)));
+        assertEquals(List.of(), timerSearchDao.search("  ", 10));
+        assertEquals(1, timerSearchDao.search("kitchen", 1).size());
+    }
+
+    @Test
+    public void testNonAsciiNamesMatchInAnyCase() {
+        timerDao.insert(new Timer("Ärger", Duration.ofMinutes(5), Set.of("Küche")));
+        timerDao.insert(new Timer("ärger im Büro", Duration.ofMinutes(10), Set.of()));
+
+        assertEquals(List.of("1", "2"), timerIds(timerSearchDao.search("Ärger", 10)));
+        assertEquals(List.of("1", "2"), timerIds(timerSearchDao.search("ärg", 10)));
+        assertEquals(List.of("1"), timerIds(timerSearchDao.search("KÜCH", 10)));
+        assertEquals(List.of("2"), timerIds(timerSearchDao.search("ÄRGER büro", 10)));
+    }
+
+    @Test
+    public void testIndexFollowsRenamesRetagsAndDeletes() {
+        timerDao.insert(new Timer("Green tea", Duration.ofMinutes(3), Set.of("kitchen")));
+        Timer timer = timerDao.getPageByTitle("", -1, 1).get(0).toTimer();
+
+        timer.title = "Black coffee";
+        timer.tags = Set.of("morning");
+        timerDao.update(timer);
+        assertEquals("The old name shouldn't match", List.of(), timerSearchDao.search("green", 10));
+        assertEquals("The old tag shouldn't match", List.of(), timerSearchDao.search("kitchen", 10));
+        assertEquals(List.of("1"), timerIds(timerSearchDao.search("coffee morn", 10)));
+
+        timerDao.deleteById(timer.id);
+        assertEquals(List.of(), timerSearchDao.search("coffee", 10));
+        try (Cursor cursor = database.query("SELECT * FROM timer_search_doc", null)) {
+            assertEquals("The doc row should go with the timer", 0, cursor.getCount());
+        }
+    }
+
+    @Test
+    public void testActiveTimersStayIndexedThroughReplaces() {
+        ActiveTimer activeTimer = new ActiveTimer();
+        activeTimer.id = "abc-123";
+        activeTimer.name = "Laundry";
+        activeTimer.userId = "user";
+        activeTimer.totalDuration = Duration.ofMinutes(40);
+        activeTimer.remainingDurationWhenPaused = Duration.ofMinutes(40);
+        activeTimer.tags = Set.of("chores");
+        activeTimerDao.insert(activeTimer);
+        timerDao.insert(new Timer("Laundry", Duration.ofMinutes(40), Set.of()));
+
+        List<TimerSearchResult> results = timerSearchDao.search("laundry", 10);
+        assertEquals(2, results.size());
+        assertTrue(results.get(0).isActive());
+        assertEquals("abc-123", results.get(0).timerId);
+
+        // Bulk sync replaces the row, which doesn't fire the delete trigger
+        activeTimer.name = "Dishes";
+        activeTimerDao.upsertAll(List.of(activeTimer));
+        assertEquals(List.of("abc-123"), timerIds(timerSearchDao.search("dish chores", 10)));
+        assertEquals(List.of("1"), timerIds(timerSearchDao.search("laundry", 10)));
+
+        activeTimerDao.deleteById("abc-123");
+        assertEquals(List.of(), timerSearchDao.search("dishes", 10));
+    }
+
+    @Test
+    public void testRebuildIndexesExistingTimers() {
+        timerDao.insert(new Timer("Green tea", Duration.ofMinutes(3), Set.of("kitchen")));
+        database.getOpenHelper().getWritableDatabase().execSQL("DELETE FROM timer_search");
+        assertEquals(List.of(), timerSearchDao.search("tea", 10));
+
+        TimerSearchIndex.rebuild(database.getOpenHelper().getWritableDatabase());
+        assertEquals(List.of("1"), timerIds(timerSearchDao.search("tea kitchen", 10)));
+    }
+
+    @Test
+    public void testPrefixSearchOverTenThousandTimers() {
+        database.runInTransaction(() -> {
+            for (int i = 0; i < SEARCH_TIMER_COUNT; i++) {
+                String name = WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i;
+                timerDao.insert(new Timer(name, Duration.ofMinutes(1 + i % 60),
+                        Set.of(WORDS[(i / 100) % WORDS.length])));
+            }
+        });
+
+        for (String word : WORDS) {
+            List<TimerSearchResult> results = timerSearchDao.search(word.substring(0, 3), 20);
+            assertEquals("Every word matches far more timers than the limit", 20, results.size());
+        }
+
+        List<TimerSearchResult> results = timerSearchDao.search("pas lau", 20);
+        assertEquals(20, results.size());
+        List<Integer> ids = results.stream().map(result -> Integer.parseInt(result.timerId)).collect(Collectors.toList());
+        for (TimerWithTags timer : timerDao.getByIds(ids)) {
+            String text = timer.timer.title + " " + String.join(" ", timer.tags);
+            assertTrue(text + " should match both words", text.contains("pasta") && text.contains("laundry"));
+        }
+    }
+
+    private static List<String> timerIds(List<TimerSearchResult> results) {
+        return results.stream().map(result -> result.timerId).collect(Collectors.toList());
+    }
+}
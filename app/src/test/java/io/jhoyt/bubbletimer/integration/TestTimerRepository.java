@@ -64,6 +64,27 @@ public class TestTimerRepository implements TimerRepository {
                 .collect(Collectors.toList());
     }
     
+    @Override
+    public List<Timer> searchTimers(String query, int limit) {
+        String[] words = query == null ? new String[0] : query.toLowerCase().trim().split("\\W+");
+        if (words.length == 0 || words[0].isEmpty()) {
+            return new ArrayList<>();
+        }
+        return timersById.values().stream()
+                .filter(timer -> {
+                    List<String> indexed = new ArrayList<>(List.of(timer.getName().toLowerCase().split("\\W+")));
+                    timer.getTags().forEach(tag -> indexed.add(tag.toLowerCase()));
+                    for (String word : words) {
+                        if (indexed.stream().noneMatch(candidate -> candidate.startsWith(word))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                })
+                .limit(Math.max(limit, 0))
+                .collect(Collectors.toList());
+    }
+    
     @Override
     public void saveTimer(Timer timer) {
         timersById.put(timer.getId(), timer);
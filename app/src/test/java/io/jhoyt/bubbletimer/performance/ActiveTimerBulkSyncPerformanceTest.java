@@ -0,0 +1,110 @@
+package io.jhoyt.bubbletimer.performance;
+
+import android.app.Application;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import io.jhoyt.bubbletimer.Timer;
+import io.jhoyt.bubbletimer.TimerConverter;
+import io.jhoyt.bubbletimer.db.ActiveTimerDao;
+import io.jhoyt.bubbletimer.db.ActiveTimerRepository;
+import io.jhoyt.bubbletimer.db.AppDatabase;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Time of applying a full 500 timer list one row at a time, as activeTimerList used to be
+ * handled, against the bulk replaceAll path. That the bulk path emits and writes once is
+ * covered by ActiveTimerBulkSyncTest.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ActiveTimerBulkSyncPerformanceTest {
+
+    private static final int TIMER_COUNT = 500;
+    // Where ActiveTimerRepository keeps its snapshot
+    private static final String SNAPSHOT_FILE_NAME = "active_timers.snapshot";
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private Application application;
+    private ActiveTimerDao activeTimerDao;
+    // The app's database refuses queries on the main thread
+    private ExecutorService worker;
+
+    @Before
+    public void setUp() throws Exception {
+        application = ApplicationProvider.getApplicationContext();
+        activeTimerDao = AppDatabase.getDatabase(application).activeTimerDao();
+        worker = Executors.newSingleThreadExecutor();
+        worker.submit(activeTimerDao::deleteAll).get(30, TimeUnit.SECONDS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        worker.submit(activeTimerDao::deleteAll).get(30, TimeUnit.SECONDS);
+        worker.shutdownNow();
+        new File(application.getNoBackupFilesDir(), SNAPSHOT_FILE_NAME).delete();
+    }
+
+    @Test
+    public void testBulkReplaceAgainstPerRowWrites() throws Exception {
+        List<Timer> timers = createTimers();
+
+        // Per-row path: one cache update and emission plus one write transaction per timer
+        ActiveTimerRepository perRowRepository = new ActiveTimerRepository(application);
+        long perRowMs = worker.submit(() -> {
+            long start = System.nanoTime();
+            for (Timer timer : timers) {
+                perRowRepository.insert(timer);
+                activeTimerDao.insert(TimerConverter.toActiveTimer(timer));
+            }
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }).get(60, TimeUnit.SECONDS);
+
+        perRowRepository.flush().get(30, TimeUnit.SECONDS);
+        worker.submit(activeTimerDao::deleteAll).get(30, TimeUnit.SECONDS);
+
+        // Bulk path: one cache swap, one emission and one transaction. The per-row repository
+        // still observes the table, so its read of the new rows counts against this path.
+        ActiveTimerRepository repository = new ActiveTimerRepository(application);
+        long bulkStart = System.nanoTime();
+        repository.replaceAll(timers);
+        repository.flush().get(30, TimeUnit.SECONDS);
+        long bulkMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - bulkStart);
+
+        System.out.println("Per-row sync of " + TIMER_COUNT + " timers: " + perRowMs + "ms");
+        System.out.println("Bulk sync of " + TIMER_COUNT + " timers: " + bulkMs + "ms");
+        assertTrue("Bulk path (" + bulkMs + "ms) should beat per-row writes (" + perRowMs + "ms)",
+                bulkMs < perRowMs);
+    }
+
+    private static List<Timer> createTimers() {
+        List<Timer> timers = new ArrayList<>(TIMER_COUNT);
+        for (int i = 0; i < TIMER_COUNT; i++) {
+            Timer timer = new Timer("user", "Bulk Timer " + i, Duration.ofMinutes(1 + i % 30), new HashSet<>());
+            if (i % 2 == 0) {
+                timer.unpause();
+            }
+            timers.add(timer);
+        }
+        return timers;
+    }
+}
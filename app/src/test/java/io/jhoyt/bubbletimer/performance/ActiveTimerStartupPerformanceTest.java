@@ -0,0 +1,100 @@
+package io.jhoyt.bubbletimer.performance;
+
+import android.app.Application;
+import android.os.Looper;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.jhoyt.bubbletimer.Timer;
+import io.jhoyt.bubbletimer.db.ActiveTimerRepository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Measures how long a freshly constructed repository takes to know about the first active
+ * timer, waiting for Room's first query against reading the snapshot file first. That the
+ * snapshot is read without querying Room is covered by ActiveTimerSnapshotStartupTest.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ActiveTimerStartupPerformanceTest {
+
+    private static final int TIMER_COUNT = 200;
+    // Where ActiveTimerRepository keeps its snapshot
+    private static final String SNAPSHOT_FILE_NAME = "active_timers.snapshot";
+
+    private Application application;
+    private File snapshotFile;
+
+    @Before
+    public void setUp() {
+        application = ApplicationProvider.getApplicationContext();
+        snapshotFile = new File(application.getNoBackupFilesDir(), SNAPSHOT_FILE_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        snapshotFile.delete();
+    }
+
+    @Test
+    public void testTimeToFirstActiveTimer() throws Exception {
+        ActiveTimerRepository seeding = new ActiveTimerRepository(application);
+        seeding.replaceAll(createTimers());
+        seeding.flush().get(30, TimeUnit.SECONDS);
+        assertTrue("Flush should write the snapshot", snapshotFile.exists());
+
+        // Snapshot first: the timers are there as soon as the constructor returns
+        long snapshotStart = System.nanoTime();
+        ActiveTimerRepository fromSnapshot = new ActiveTimerRepository(application);
+        int snapshotTimers = fromSnapshot.getSnapshot().getTimers().size();
+        long snapshotNanos = System.nanoTime() - snapshotStart;
+
+        // Database only: nothing is known until Room has queried and emitted
+        assertTrue(snapshotFile.delete());
+        long roomStart = System.nanoTime();
+        ActiveTimerRepository fromRoom = new ActiveTimerRepository(application);
+        long deadline = roomStart + TimeUnit.SECONDS.toNanos(10);
+        while (fromRoom.getSnapshot().getTimers().isEmpty()) {
+            assertTrue("Timed out waiting for Room", System.nanoTime() < deadline);
+            // Room queries on its own executor and posts the result to the main thread
+            shadowOf(Looper.getMainLooper()).idle();
+            Thread.sleep(1);
+        }
+        long roomNanos = System.nanoTime() - roomStart;
+
+        System.out.println("Time to first active timer from Room: "
+                + TimeUnit.NANOSECONDS.toMicros(roomNanos) + "us");
+        System.out.println("Time to first active timer from snapshot: "
+                + TimeUnit.NANOSECONDS.toMicros(snapshotNanos) + "us");
+        assertEquals("Every timer should come from the snapshot", TIMER_COUNT, snapshotTimers);
+        assertTrue("Snapshot start (" + snapshotNanos / 1000 + "us) should beat waiting for Room ("
+                + roomNanos / 1000 + "us)", snapshotNanos < roomNanos);
+    }
+
+    private static List<Timer> createTimers() {
+        List<Timer> timers = new ArrayList<>(TIMER_COUNT);
+        for (int i = 0; i < TIMER_COUNT; i++) {
+            Timer timer = new Timer("user", "Startup Timer " + i, Duration.ofMinutes(1 + i % 30), new HashSet<>());
+            if (i % 2 == 0) {
+                timer.unpause();
+            }
+            timers.add(timer);
+        }
+        return timers;
+    }
+}
@@ -0,0 +1,85 @@
+package io.jhoyt.bubbletimer.performance;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import io.jhoyt.bubbletimer.db.AppDatabase;
+import io.jhoyt.bubbletimer.db.Timer;
+import io.jhoyt.bubbletimer.db.TimerDao;
+import io.jhoyt.bubbletimer.db.TimerWithTags;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Timing of keyset pages through the saved timers. Which rows a page holds, and that it seeks
+ * on the title index, is covered by SavedTimerPagingTest.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SavedTimerPagingPerformanceTest {
+
+    private static final int TIMER_COUNT = 2000;
+    private static final int PAGE_SIZE = 50;
+
+    private AppDatabase database;
+    private TimerDao timerDao;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        timerDao = database.timerDao();
+
+        database.runInTransaction(() -> {
+            for (int i = 0; i < TIMER_COUNT; i++) {
+                Set<String> tags = i % 4 == 0 ? Set.of("kitchen") : Set.of();
+                timerDao.insert(new Timer("Preset " + (i % 500), Duration.ofMinutes(1 + i % 60), tags));
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void testDeepPageCostsTheSameAsTheFirst() {
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            timerDao.getPageByTitle("", -1, PAGE_SIZE);
+        }
+        long firstPageNanos = (System.nanoTime() - start) / 20;
+
+        List<TimerWithTags> all = timerDao.getPageByTitle("", -1, TIMER_COUNT);
+        Timer deep = all.get(TIMER_COUNT - PAGE_SIZE - 1).toTimer();
+        start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            timerDao.getPageByTitle(deep.title, deep.id, PAGE_SIZE);
+        }
+        long deepPageNanos = (System.nanoTime() - start) / 20;
+
+        start = System.nanoTime();
+        timerDao.getPageByTitle("", -1, TIMER_COUNT);
+        long wholeTableNanos = System.nanoTime() - start;
+
+        System.out.println("First page of " + PAGE_SIZE + ": " + TimeUnit.NANOSECONDS.toMicros(firstPageNanos) + "us");
+        System.out.println("Last page of " + PAGE_SIZE + ": " + TimeUnit.NANOSECONDS.toMicros(deepPageNanos) + "us");
+        System.out.println("Whole table of " + TIMER_COUNT + ": " + TimeUnit.NANOSECONDS.toMicros(wholeTableNanos) + "us");
+        assertTrue("A page should be cheaper than loading every timer", deepPageNanos < wholeTableNanos);
+    }
+}
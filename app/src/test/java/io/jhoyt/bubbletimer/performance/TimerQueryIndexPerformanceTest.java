@@ -0,0 +1,162 @@
+package io.jhoyt.bubbletimer.performance;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import io.jhoyt.bubbletimer.TimerConverter;
+import io.jhoyt.bubbletimer.TimerData;
+import io.jhoyt.bubbletimer.data.converters.DomainTimerConverter;
+import io.jhoyt.bubbletimer.data.repositories.RoomTimerRepository;
+import io.jhoyt.bubbletimer.db.ActiveTimerRepository;
+import io.jhoyt.bubbletimer.domain.entities.Timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Time and allocations of reading the active timers through RoomTimerRepository's index,
+ * against converting every timer on each read as it used to. What the reads return, and that
+ * they share the timers' data, is covered by RoomTimerRepositoryIndexTest.
+ */
+public class TimerQueryIndexPerformanceTest {
+
+    // What the mocked ActiveTimerRepository holds
+    private final Map<String, io.jhoyt.bubbletimer.Timer> stored = new LinkedHashMap<>();
+    private ActiveTimerRepository activeTimerRepository;
+
+    @Before
+    public void setUp() {
+        activeTimerRepository = mock(ActiveTimerRepository.class);
+        when(activeTimerRepository.addChangeListener(any())).thenAnswer(invocation -> {
+            ActiveTimerRepository.Snapshot snapshot = mock(ActiveTimerRepository.Snapshot.class);
+            when(snapshot.getTimers()).thenReturn(List.copyOf(stored.values()));
+            return snapshot;
+        });
+        when(activeTimerRepository.getById(anyString())).thenAnswer(invocation -> stored.get(invocation.getArgument(0)));
+    }
+
+    @Test
+    public void testFilteredLookupAgainstConvertingEveryTimer() {
+        int timerCount = 5000;
+        for (int i = 0; i < timerCount; i++) {
+            store(paused("timer-" + i, "user-" + (i % 100), Set.of("tag-" + (i % 500)), Set.of()));
+        }
+        RoomTimerRepository repository = newRepository();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(10, repository.getTimersByTag("tag-" + i).size());
+        }
+        long indexedNanos = (System.nanoTime() - start) / 100;
+
+        // What every read used to cost: convert every timer, then filter
+        start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            String tag = "tag-" + i;
+            List<Timer> matches = stored.values().stream()
+                    .map(timer -> DomainTimerConverter.activeTimerToDomainTimer(TimerConverter.toActiveTimer(timer)))
+                    .filter(timer -> timer.getTags().contains(tag))
+                    .collect(Collectors.toList());
+            assertEquals(10, matches.size());
+        }
+        long scanNanos = (System.nanoTime() - start) / 10;
+
+        System.out.println("Tag lookup over " + timerCount + " timers, indexed: "
+                + TimeUnit.NANOSECONDS.toMicros(indexedNanos) + "us");
+        System.out.println("Tag lookup over " + timerCount + " timers, converted and scanned: "
+                + TimeUnit.NANOSECONDS.toMicros(scanNanos) + "us");
+        assertTrue("The index should beat converting every timer", indexedNanos < scanNanos);
+    }
+
+    @Test
+    public void testGetAllTimersAllocations() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+
+        int timerCount = 1000;
+        for (int i = 0; i < timerCount; i++) {
+            // As read back from Room, with the creator in sharedWith
+            store(TimerConverter.fromActiveTimer(TimerConverter.toActiveTimer(
+                    paused("timer-" + i, "user-" + (i % 100), Set.of("tag-" + (i % 50)), Set.of("friend")))));
+        }
+        RoomTimerRepository repository = newRepository();
+        int runs = 20;
+
+        // Warm up both paths so class loading isn't counted
+        for (int i = 0; i < runs; i++) {
+            repository.getAllTimers();
+            convertThroughActiveTimers();
+        }
+
+        long start = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < runs; i++) {
+            convertThroughActiveTimers();
+        }
+        long beforeBytes = (threads.getCurrentThreadAllocatedBytes() - start) / runs;
+
+        start = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < runs; i++) {
+            repository.getAllTimers();
+        }
+        long afterBytes = (threads.getCurrentThreadAllocatedBytes() - start) / runs;
+
+        // What each change costs now that conversions share the timer's data
+        start = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < runs; i++) {
+            for (io.jhoyt.bubbletimer.Timer timer : stored.values()) {
+                DomainTimerConverter.legacyTimerToDomainTimer(timer);
+            }
+        }
+        long directBytes = (threads.getCurrentThreadAllocatedBytes() - start) / runs;
+
+        System.out.println("getAllTimers over " + timerCount + " timers, converted through ActiveTimer: "
+                + beforeBytes + " bytes (" + beforeBytes / timerCount + " per timer)");
+        System.out.println("getAllTimers over " + timerCount + " timers, indexed: "
+                + afterBytes + " bytes (" + afterBytes / timerCount + " per timer)");
+        System.out.println("Direct conversion of " + timerCount + " timers: "
+                + directBytes + " bytes (" + directBytes / timerCount + " per timer)");
+        assertTrue("Reading the index shouldn't convert any timer", afterBytes * 10 < beforeBytes);
+        assertTrue("Direct conversion should allocate less than going through ActiveTimer",
+                directBytes < beforeBytes);
+    }
+
+    /**
+     * How getAllTimers used to read every timer.
+     */
+    private List<Timer> convertThroughActiveTimers() {
+        List<Timer> timers = new ArrayList<>();
+        for (io.jhoyt.bubbletimer.Timer timer : stored.values()) {
+            timers.add(DomainTimerConverter.activeTimerToDomainTimer(TimerConverter.toActiveTimer(timer)));
+        }
+        return timers;
+    }
+
+    private RoomTimerRepository newRepository() {
+        return new RoomTimerRepository(activeTimerRepository, null, null);
+    }
+
+    private void store(io.jhoyt.bubbletimer.Timer timer) {
+        stored.put(timer.getId(), timer);
+    }
+
+    private static io.jhoyt.bubbletimer.Timer paused(String id, String userId, Set<String> tags, Set<String> sharedWith) {
+        return new io.jhoyt.bubbletimer.Timer(new TimerData(id, userId, "Timer " + id,
+                Duration.ofMinutes(10), Duration.ofMinutes(5), null, tags), new HashSet<>(sharedWith));
+    }
+}
@@ -0,0 +1,96 @@
+package io.jhoyt.bubbletimer.performance;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import io.jhoyt.bubbletimer.db.AppDatabase;
+import io.jhoyt.bubbletimer.db.Timer;
+import io.jhoyt.bubbletimer.db.TimerDao;
+import io.jhoyt.bubbletimer.db.TimerSearchDao;
+import io.jhoyt.bubbletimer.db.TimerSearchResult;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Timing of the full text timer search over a large number of saved timers. What it finds is
+ * covered by TimerSearchTest.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TimerSearchPerformanceTest {
+
+    private static final int TIMER_COUNT = 10_000;
+    private static final String[] WORDS = {
+            "tea", "pasta", "laundry", "workout", "nap", "pizza", "bread", "meeting", "study", "plank"
+    };
+
+    private AppDatabase database;
+    private TimerDao timerDao;
+    private TimerSearchDao timerSearchDao;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .addCallback(AppDatabase.TIMER_SEARCH_CALLBACK)
+                .allowMainThreadQueries()
+                .build();
+        timerDao = database.timerDao();
+        timerSearchDao = database.timerSearchDao();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void testPrefixSearchOverTenThousandTimers() {
+        database.runInTransaction(() -> {
+            for (int i = 0; i < TIMER_COUNT; i++) {
+                String name = WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i;
+                timerDao.insert(new Timer(name, Duration.ofMinutes(1 + i % 60),
+                        Set.of(WORDS[(i / 100) % WORDS.length])));
+            }
+        });
+
+        // Warm up the statement cache and the FTS pages
+        for (int i = 0; i < 50; i++) {
+            timerSearchDao.search(WORDS[i % WORDS.length].substring(0, 2), 20);
+        }
+
+        int runs = 200;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            List<TimerSearchResult> results = timerSearchDao.search(WORDS[i % WORDS.length].substring(0, 3), 20);
+            assertEquals(20, results.size());
+        }
+        long prefixNanos = (System.nanoTime() - start) / runs;
+
+        start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            timerSearchDao.search("pas lau", 20);
+        }
+        long twoWordNanos = (System.nanoTime() - start) / runs;
+
+        System.out.println("Prefix search over " + TIMER_COUNT + " timers: "
+                + TimeUnit.NANOSECONDS.toMicros(prefixNanos) + "us");
+        System.out.println("Two word prefix search over " + TIMER_COUNT + " timers: "
+                + TimeUnit.NANOSECONDS.toMicros(twoWordNanos) + "us");
+        assertTrue("Prefix search should take under 5ms, took " + TimeUnit.NANOSECONDS.toMicros(prefixNanos) + "us",
+                prefixNanos < TimeUnit.MILLISECONDS.toNanos(5));
+    }
+}
@@ -0,0 +1,155 @@
+package io.jhoyt.bubbletimer.performance;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import io.jhoyt.bubbletimer.Timer;
+import io.jhoyt.bubbletimer.TimerData;
+import io.jhoyt.bubbletimer.WebsocketMessageCodec;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Throughput and allocations of decoding and encoding websocket frames with
+ * WebsocketMessageCodec, against building org.json trees as the manager used to. What the codec
+ * reads and writes is covered by WebsocketMessageCodecTest.
+ */
+// Robolectric so the comparison runs against the real org.json
+@RunWith(AndroidJUnit4.class)
+public class WebsocketMessageCodecPerformanceTest {
+
+    @Test
+    public void testFrameThroughputAndAllocations() throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+
+        Timer timer = new Timer(new TimerData("5f0c8a1e-timer", "alice", "Pasta", Duration.ofMinutes(11), null,
+                LocalDateTime.now().plusMinutes(8), Set.of("kitchen", "dinner")), Set.of("alice", "bob", "carol"));
+        String frame = "{\"type\":\"updateTimer\",\"messageId\":\"m-1\",\"timer\":"
+                + new JSONObject(WebsocketMessageCodec.encodeUpdateTimer(timer, "resume"))
+                        .getJSONObject("data").getJSONObject("timer") + "}";
+        int runs = 20_000;
+
+        // Warm up both paths
+        for (int i = 0; i < runs; i++) {
+            receiveWithTree(frame);
+            receiveWithCodec(frame);
+        }
+
+        long start = threads.getCurrentThreadAllocatedBytes();
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            receiveWithTree(frame);
+        }
+        long treeNanos = System.nanoTime() - startNanos;
+        long treeBytes = (threads.getCurrentThreadAllocatedBytes() - start) / runs;
+
+        start = threads.getCurrentThreadAllocatedBytes();
+        startNanos = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            receiveWithCodec(frame);
+        }
+        long codecNanos = System.nanoTime() - startNanos;
+        long codecBytes = (threads.getCurrentThreadAllocatedBytes() - start) / runs;
+
+        start = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < runs; i++) {
+            sendWithTree(timer);
+        }
+        long treeSendBytes = (threads.getCurrentThreadAllocatedBytes() - start) / runs;
+
+        start = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < runs; i++) {
+            WebsocketMessageCodec.encodeUpdateTimer(timer, "resume");
+        }
+        long codecSendBytes = (threads.getCurrentThreadAllocatedBytes() - start) / runs;
+
+        System.out.println("Received updateTimer frames, JSONObject: " + perSecond(runs, treeNanos)
+                + " msgs/s, " + treeBytes + " bytes/frame");
+        System.out.println("Received updateTimer frames, streaming: " + perSecond(runs, codecNanos)
+                + " msgs/s, " + codecBytes + " bytes/frame");
+        System.out.println("Sent updateTimer frames, JSONObject: " + treeSendBytes + " bytes/frame");
+        System.out.println("Sent updateTimer frames, streaming: " + codecSendBytes + " bytes/frame");
+        assertTrue("Decoding should allocate less than building a tree", codecBytes < treeBytes);
+        assertTrue("Encoding should allocate less than building a tree", codecSendBytes < treeSendBytes);
+    }
+
+    /**
+     * What onMessage used to do with an updateTimer frame: parse it, pretty-print it for the
+     * log, build and pretty-print the ack, and walk the tree into a timer.
+     */
+    private static Timer receiveWithTree(String text) throws Exception {
+        JSONObject jsonData = new JSONObject(text);
+        String logged = jsonData.toString(2);
+        JSONObject ack = new JSONObject()
+                .put("action", "sendmessage")
+                .put("data", new JSONObject()
+                        .put("type", "acknowledge")
+                        .put("messageId", jsonData.optString("messageId", "")));
+        String sent = ack.toString();
+        String loggedAck = ack.toString(2);
+
+        JSONObject jsonTimer = jsonData.getJSONObject("timer");
+        Set<String> tags = new HashSet<>();
+        JSONArray tagsJson = jsonTimer.getJSONArray("tags");
+        for (int i = 0; i < tagsJson.length(); i++) {
+            tags.add(tagsJson.getString(i));
+        }
+        Timer timer = new Timer(new TimerData(jsonTimer.getString("id"), jsonTimer.getString("userId"),
+                jsonTimer.getString("name"), Duration.parse(jsonTimer.getString("totalDuration")), null,
+                LocalDateTime.parse(jsonTimer.getString("timerEnd")), tags), new HashSet<>());
+        JSONArray sharedWithJson = jsonTimer.getJSONArray("sharedWith");
+        for (int i = 0; i < sharedWithJson.length(); i++) {
+            timer.shareWith(sharedWithJson.getString(i));
+        }
+        return logged.length() + sent.length() + loggedAck.length() > 0 ? timer : null;
+    }
+
+    private static Timer receiveWithCodec(String text) throws IOException {
+        WebsocketMessageCodec.Message message = WebsocketMessageCodec.decode(text);
+        WebsocketMessageCodec.encodeAcknowledge(message.getMessageId());
+        return message.getTimer();
+    }
+
+    /**
+     * What sendUpdateTimerToWebsocket used to do: build the tree, then parse the string again
+     * to pretty-print it for the log.
+     */
+    private static String sendWithTree(Timer timer) throws Exception {
+        JSONObject jsonTimer = new JSONObject()
+                .put("id", timer.getId())
+                .put("userId", timer.getUserId())
+                .put("name", timer.getName())
+                .put("totalDuration", timer.getTotalDuration())
+                .put("timerEnd", timer.getTimerEnd())
+                .put("sharedWith", new JSONArray(timer.getSharedWith()))
+                .put("tags", new JSONArray(timer.getTags()));
+        String message = new JSONObject()
+                .put("action", "sendmessage")
+                .put("data", new JSONObject()
+                        .put("type", "updateTimer")
+                        .put("reason", "resume")
+                        .put("shareWith", new JSONArray(new ArrayList<>(timer.getSharedWith())))
+                        .put("timer", jsonTimer))
+                .toString();
+        return new JSONObject(message).toString(2);
+    }
+
+    private static long perSecond(int count, long nanos) {
+        return count * TimeUnit.SECONDS.toNanos(1) / Math.max(nanos, 1);
+    }
+}
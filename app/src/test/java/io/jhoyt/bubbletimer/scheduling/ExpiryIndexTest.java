@@ -0,0 +1,121 @@
+package io.jhoyt.bubbletimer.scheduling;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+
+import io.jhoyt.bubbletimer.Timer;
+import io.jhoyt.bubbletimer.domain.core.TimeSources;
+import io.jhoyt.bubbletimer.util.FakeTimeSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExpiryIndexTest {
+
+    private FakeTimeSource timeSource;
+    private ExpiryIndex index;
+
+    @Before
+    public void setUp() {
+        timeSource = new FakeTimeSource();
+        TimeSources.set(timeSource);
+        index = new ExpiryIndex();
+    }
+
+    @After
+    public void tearDown() {
+        TimeSources.set(null);
+    }
+
+    @Test
+    public void testPollReturnsExpiredTimersInDeadlineOrder() {
+        Timer third = runningTimer("Third", Duration.ofSeconds(3));
+        Timer first = runningTimer("First", Duration.ofSeconds(1));
+        Timer second = runningTimer("Second", Duration.ofSeconds(2));
+        index.upsert(third, now());
+        index.upsert(first, now());
+        index.upsert(second, now());
+
+        timeSource.advance(Duration.ofSeconds(2));
+        List<Timer> expired = index.pollExpired(now());
+
+        assertEquals("Two timers should have crossed their deadline", 2, expired.size());
+        assertEquals("Earliest deadline should come first", first.getId(), expired.get(0).getId());
+        assertEquals("Second deadline should follow", second.getId(), expired.get(1).getId());
+        assertEquals("Third timer should still be pending", 1, index.getPendingCount());
+    }
+
+    @Test
+    public void testTimersWithEqualDeadlinesAreAllKept() {
+        for (int i = 0; i < 5; i++) {
+            index.upsert(runningTimer("Timer " + i, Duration.ofSeconds(1)), now());
+        }
+
+        timeSource.advance(Duration.ofSeconds(1));
+
+        assertEquals("Equal deadlines should not collapse", 5, index.pollExpired(now()).size());
+    }
+
+    @Test
+    public void testUpsertMovesDeadline() {
+        Timer timer = runningTimer("Timer", Duration.ofSeconds(5));
+        index.upsert(timer, now());
+        long originalDeadline = index.getNextDeadlineNanos();
+
+        timer.addTime(Duration.ofMinutes(1));
+        index.upsert(timer, now());
+
+        assertEquals("Deadline should move by the added time",
+                Duration.ofMinutes(1).toNanos(), index.getNextDeadlineNanos() - originalDeadline);
+        assertEquals("Moving a deadline should not duplicate it", 1, index.getPendingCount());
+    }
+
+    @Test
+    public void testPauseAndRemoveDropTimer() {
+        Timer paused = runningTimer("Paused", Duration.ofSeconds(5));
+        Timer removed = runningTimer("Removed", Duration.ofSeconds(5));
+        index.upsert(paused, now());
+        index.upsert(removed, now());
+
+        paused.pause();
+        index.upsert(paused, now());
+        assertTrue("Removed timer should have been tracked", index.remove(removed.getId()));
+
+        timeSource.advance(Duration.ofSeconds(10));
+        assertTrue("Nothing should expire", index.pollExpired(now()).isEmpty());
+        assertEquals("Index should be empty", 0, index.size());
+        assertEquals("No deadline should remain", -1, index.getNextDeadlineNanos());
+    }
+
+    @Test
+    public void testExpiredTimerStaysExpiredUntilRemoved() {
+        Timer timer = runningTimer("Timer", Duration.ofSeconds(1));
+        index.upsert(timer, now());
+        timeSource.advance(Duration.ofSeconds(2));
+        index.pollExpired(now());
+
+        index.upsert(timer, now());
+        assertTrue("Re-upserting the same expiry should keep it expired", index.isExpired(timer.getId()));
+        assertTrue("Same expiry should not be polled twice", index.pollExpired(now()).isEmpty());
+
+        index.remove(timer.getId());
+        assertFalse("Removed timer should not be expired", index.isExpired(timer.getId()));
+        assertEquals("No timer should be expired", 0, index.getExpiredCount());
+    }
+
+    private long now() {
+        return TimeSources.monotonicNanos();
+    }
+
+    private static Timer runningTimer(String name, Duration duration) {
+        Timer timer = new Timer("user", name, duration, new HashSet<>());
+        timer.unpause();
+        return timer;
+    }
+}
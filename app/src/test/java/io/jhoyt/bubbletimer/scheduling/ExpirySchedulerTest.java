@@ -0,0 +1,138 @@
+package io.jhoyt.bubbletimer.scheduling;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import io.jhoyt.bubbletimer.Timer;
+import io.jhoyt.bubbletimer.domain.core.TimeSources;
+import io.jhoyt.bubbletimer.util.FakeTimeSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExpirySchedulerTest {
+
+    private final List<List<Timer>> batches = new ArrayList<>();
+    private FakeTimeSource timeSource;
+    private ExpiryScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        timeSource = new FakeTimeSource();
+        TimeSources.set(timeSource);
+        scheduler = new ExpiryScheduler(batches::add);
+    }
+
+    @After
+    public void tearDown() {
+        TimeSources.set(null);
+    }
+
+    @Test
+    public void testReportsOnlyTimersPastTheirDeadline() {
+        Timer shortTimer = runningTimer("Short", Duration.ofSeconds(5));
+        Timer longTimer = runningTimer("Long", Duration.ofSeconds(60));
+
+        scheduler.sync(List.of(longTimer, shortTimer));
+        assertEquals("Should track both running timers", 2, scheduler.size());
+
+        timeSource.advance(Duration.ofMillis(4999));
+        assertEquals("Nothing should expire before the first deadline", 0, scheduler.evaluate());
+
+        timeSource.advance(Duration.ofMillis(1));
+        assertEquals("Short timer should expire at its deadline", 1, scheduler.evaluate());
+        assertEquals("Short timer should be the one reported", shortTimer.getId(), batches.get(0).get(0).getId());
+        assertEquals("Long timer should remain tracked", 1, scheduler.size());
+    }
+
+    @Test
+    public void testSimultaneousExpiriesAreReportedAsOneBatch() {
+        List<Timer> timers = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            timers.add(runningTimer("Kitchen " + i, Duration.ofSeconds(10 + (i % 3))));
+        }
+        scheduler.sync(timers);
+
+        timeSource.advance(Duration.ofSeconds(12));
+
+        assertEquals("Every timer past its deadline should be reported", 30, scheduler.evaluate());
+        assertEquals("Expiries should be delivered in a single batch", 1, batches.size());
+        assertEquals("Batch should hold every expired timer", 30, batches.get(0).size());
+        assertTrue("Scheduler should know timers are alarming", scheduler.hasExpired());
+    }
+
+    @Test
+    public void testPausedTimersAreNotTracked() {
+        Timer paused = new Timer("user", "Paused", Duration.ofSeconds(1), new HashSet<>());
+
+        scheduler.sync(List.of(paused));
+        timeSource.advance(Duration.ofSeconds(5));
+
+        assertEquals("Paused timer should have no deadline", 0, scheduler.size());
+        assertEquals("Paused timer should never expire", 0, scheduler.evaluate());
+    }
+
+    @Test
+    public void testSyncDropsRemovedTimers() {
+        scheduler.sync(List.of(runningTimer("Timer", Duration.ofSeconds(5))));
+
+        // Timer was stopped before it expired
+        scheduler.sync(List.of());
+        timeSource.advance(Duration.ofSeconds(10));
+
+        assertEquals("Removed timer should not expire", 0, scheduler.evaluate());
+    }
+
+    @Test
+    public void testAlreadyExpiredTimerIsReportedOncePerExpiry() {
+        Timer timer = runningTimer("Expired", Duration.ofSeconds(1));
+        timeSource.advance(Duration.ofSeconds(2));
+
+        scheduler.sync(List.of(timer));
+        assertEquals("Expired timer should be reported right away", 1, scheduler.evaluate());
+
+        // The repository emits the same timer again, e.g. after another timer changed
+        scheduler.sync(List.of(timer.copy()));
+        assertEquals("Expired timer should not be reported again", 0, scheduler.evaluate());
+        assertTrue("Timer should still be alarming", scheduler.getExpiredTimerIds().contains(timer.getId()));
+    }
+
+    @Test
+    public void testAddingTimeAfterExpiryRearms() {
+        Timer timer = runningTimer("Timer", Duration.ofSeconds(1));
+        scheduler.sync(List.of(timer));
+        timeSource.advance(Duration.ofSeconds(1));
+        assertEquals("Timer should expire", 1, scheduler.evaluate());
+
+        timer.addTime(Duration.ofMinutes(1));
+        scheduler.update(timer);
+        assertFalse("Extended timer should no longer be alarming", scheduler.hasExpired());
+
+        timeSource.advance(Duration.ofMinutes(1));
+        assertEquals("Extended timer should expire again", 1, scheduler.evaluate());
+    }
+
+    @Test
+    public void testClearDropsDeadlines() {
+        scheduler.sync(List.of(runningTimer("Timer", Duration.ofSeconds(1))));
+
+        scheduler.clear();
+        timeSource.advance(Duration.ofSeconds(5));
+
+        assertEquals("Cleared scheduler should not report expiry", 0, scheduler.evaluate());
+        assertTrue("Nothing should have been reported", batches.isEmpty());
+    }
+
+    private static Timer runningTimer(String name, Duration duration) {
+        Timer timer = new Timer("user", name, duration, new HashSet<>());
+        timer.unpause();
+        return timer;
+    }
+}
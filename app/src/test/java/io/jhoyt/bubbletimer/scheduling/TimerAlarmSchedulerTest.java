@@ -0,0 +1,175 @@
+package io.jhoyt.bubbletimer.scheduling;
+
+import android.app.AlarmManager;
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.shadows.ShadowAlarmManager;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+
+import io.jhoyt.bubbletimer.Timer;
+import io.jhoyt.bubbletimer.core.time.AndroidTimeSource;
+import io.jhoyt.bubbletimer.domain.core.TimeSources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(AndroidJUnit4.class)
+public class TimerAlarmSchedulerTest {
+
+    private Context context;
+    private ShadowAlarmManager shadowAlarmManager;
+    private TimerAlarmScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        TimeSources.set(new AndroidTimeSource());
+        ShadowAlarmManager.setCanScheduleExactAlarms(true);
+
+        context = ApplicationProvider.getApplicationContext();
+        shadowAlarmManager = shadowOf((AlarmManager) context.getSystemService(Context.ALARM_SERVICE));
+        scheduler = new TimerAlarmScheduler(context);
+    }
+
+    @After
+    public void tearDown() {
+        TimeSources.set(null);
+    }
+
+    @Test
+    public void testRunningTimerArmsOneAlarm() {
+        Timer timer = runningTimer("Timer", Duration.ofMinutes(5));
+
+        scheduler.sync(List.of(timer));
+
+        assertEquals("One alarm should be scheduled", 1, shadowAlarmManager.getScheduledAlarms().size());
+        assertTrue("Alarm should be armed for the timer", scheduler.getArmedTriggerAt(timer.getId()) > 0);
+    }
+
+    @Test
+    public void testAlarmsAreKeyedPerTimer() {
+        Timer first = runningTimer("First", Duration.ofMinutes(5));
+        Timer second = runningTimer("Second", Duration.ofMinutes(10));
+
+        scheduler.sync(List.of(first, second));
+        assertEquals("Each timer should get its own alarm", 2, shadowAlarmManager.getScheduledAlarms().size());
+
+        scheduler.sync(List.of(first, second));
+        assertEquals("Unchanged timers should not add alarms", 2, shadowAlarmManager.getScheduledAlarms().size());
+    }
+
+    @Test
+    public void testPauseCancelsAndResumeRearms() {
+        Timer timer = runningTimer("Timer", Duration.ofMinutes(5));
+        scheduler.sync(List.of(timer));
+
+        timer.pause();
+        scheduler.sync(List.of(timer));
+        assertEquals("Paused timer should have no alarm", 0, shadowAlarmManager.getScheduledAlarms().size());
+        assertEquals("Paused timer should not be armed", -1, scheduler.getArmedTriggerAt(timer.getId()));
+
+        timer.unpause();
+        scheduler.sync(List.of(timer));
+        assertEquals("Resumed timer should be re-armed", 1, shadowAlarmManager.getScheduledAlarms().size());
+    }
+
+    @Test
+    public void testAddTimeMovesAlarm() {
+        Timer timer = runningTimer("Timer", Duration.ofMinutes(5));
+        scheduler.sync(List.of(timer));
+        long originalTriggerAt = scheduler.getArmedTriggerAt(timer.getId());
+
+        timer.addTime(Duration.ofMinutes(1));
+        scheduler.sync(List.of(timer));
+
+        long movedBy = scheduler.getArmedTriggerAt(timer.getId()) - originalTriggerAt;
+        assertTrue("Alarm should move by one minute, moved by " + movedBy,
+                Math.abs(movedBy - Duration.ofMinutes(1).toMillis()) <= 5);
+        assertEquals("Moved alarm should replace the old one", 1, shadowAlarmManager.getScheduledAlarms().size());
+    }
+
+    @Test
+    public void testRemoteStopCancelsAlarm() {
+        Timer stopped = runningTimer("Stopped remotely", Duration.ofMinutes(5));
+        Timer other = runningTimer("Other", Duration.ofMinutes(5));
+        scheduler.sync(List.of(stopped, other));
+
+        // stopTimer from the websocket cancels right away, then the repository drops the timer
+        scheduler.cancel(stopped.getId());
+        assertEquals("Stopped timer's alarm should be cancelled", 1, shadowAlarmManager.getScheduledAlarms().size());
+
+        scheduler.sync(List.of(other));
+        assertEquals("Other timer should keep its alarm", 1, shadowAlarmManager.getScheduledAlarms().size());
+        assertEquals("Only the other timer should be armed", 1, scheduler.getArmedCount());
+    }
+
+    @Test
+    public void testUpdateTouchesOnlyTheChangedTimer() {
+        Timer changed = runningTimer("Changed", Duration.ofMinutes(5));
+        Timer other = runningTimer("Other", Duration.ofMinutes(10));
+        scheduler.update(changed);
+        scheduler.update(other);
+        assertEquals("Each updated timer should be armed", 2, scheduler.getArmedCount());
+        long otherTriggerAt = scheduler.getArmedTriggerAt(other.getId());
+
+        changed.pause();
+        scheduler.update(changed);
+
+        assertEquals("Paused timer's alarm should be cancelled", -1, scheduler.getArmedTriggerAt(changed.getId()));
+        assertEquals("Other timer's alarm should be left alone", otherTriggerAt, scheduler.getArmedTriggerAt(other.getId()));
+        assertEquals("Only the other alarm should remain", 1, shadowAlarmManager.getScheduledAlarms().size());
+    }
+
+    @Test
+    public void testSyncAfterRestartCancelsAlarmsOfRemovedTimers() {
+        Timer removed = runningTimer("Removed", Duration.ofMinutes(5));
+        Timer running = runningTimer("Running", Duration.ofMinutes(10));
+        scheduler.sync(List.of(removed, running));
+
+        // The alarms outlive the process, and so do the ids they were armed for
+        TimerAlarmScheduler restarted = new TimerAlarmScheduler(context);
+        assertEquals(2, restarted.getArmedCount());
+        restarted.sync(List.of(running));
+
+        assertEquals("Only the running timer should keep an alarm", 1, shadowAlarmManager.getScheduledAlarms().size());
+        assertEquals(-1, restarted.getArmedTriggerAt(removed.getId()));
+        assertTrue(restarted.getArmedTriggerAt(running.getId()) > 0);
+    }
+
+    @Test
+    public void testUpdateAfterRestartCancelsAlarmsOfPausedTimers() {
+        Timer paused = runningTimer("Paused", Duration.ofMinutes(5));
+        scheduler.update(paused);
+
+        paused.pause();
+        new TimerAlarmScheduler(context).update(paused);
+
+        assertEquals("Paused timer's earlier alarm should be cancelled", 0, shadowAlarmManager.getScheduledAlarms().size());
+    }
+
+    @Test
+    public void testExpiredTimerIsNotArmed() {
+        Timer timer = new Timer("user", "Zero", Duration.ZERO, new HashSet<>());
+        timer.unpause();
+
+        scheduler.sync(List.of(timer));
+
+        assertEquals("Already-expired timer needs no alarm", 0, shadowAlarmManager.getScheduledAlarms().size());
+    }
+
+    private static Timer runningTimer(String name, Duration duration) {
+        Timer timer = new Timer("user", name, duration, new HashSet<>());
+        timer.unpause();
+        return timer;
+    }
+}
@@ -14,6 +14,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.time.Duration;
+import java.util.HashSet;
 import java.util.List;
 
 import io.jhoyt.bubbletimer.db.AppDatabase;
@@ -116,7 +117,7 @@ public class SharedTimerAggressiveDeletionTest {
         timer.totalDuration = Duration.ofMinutes(5);
         timer.status = "PENDING";
         timer.sharedBy = "test-user";
-        timer.sharedWith = "";
+        timer.sharedWith = new HashSet<>();
         timer.createdAt = java.time.LocalDateTime.now();
         return timer;
     }
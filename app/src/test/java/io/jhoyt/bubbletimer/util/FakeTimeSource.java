@@ -0,0 +1,39 @@
+package io.jhoyt.bubbletimer.util;
+
+import java.time.Duration;
+
+import io.jhoyt.bubbletimer.domain.core.TimeSource;
+
+/**
+ * Manually advanced {@link TimeSource} for tests. The monotonic and wall clocks can be moved
+ * independently to simulate the user or the network changing the system time.
+ */
+public class FakeTimeSource implements TimeSource {
+    private long monotonicNanos = 1_000_000_000L;
+    private long wallClockMillis = System.currentTimeMillis();
+
+    @Override
+    public long monotonicNanos() {
+        return monotonicNanos;
+    }
+
+    @Override
+    public long wallClockMillis() {
+        return wallClockMillis;
+    }
+
+    /**
+     * Let real time pass: both clocks move forward together.
+     */
+    public void advance(Duration duration) {
+        monotonicNanos += duration.toNanos();
+        wallClockMillis += duration.toMillis();
+    }
+
+    /**
+     * Change the wall clock only, as a manual time change or network time update would.
+     */
+    public void jumpWallClock(Duration offset) {
+        wallClockMillis += offset.toMillis();
+    }
+}
@@ -116,8 +116,8 @@ public class TestDataFactory {
         activeTimer.totalDuration = Duration.ofMinutes(5);
         activeTimer.remainingDurationWhenPaused = Duration.ofMinutes(5);
         activeTimer.timerEnd = LocalDateTime.now().plusMinutes(5);
-        activeTimer.sharedWithString = "";
-        activeTimer.tagsString = "";
+        activeTimer.sharedWith = new HashSet<>();
+        activeTimer.tags = new HashSet<>();
         return activeTimer;
     }
 
@@ -129,8 +129,8 @@ public class TestDataFactory {
         activeTimer.totalDuration = duration;
         activeTimer.remainingDurationWhenPaused = duration;
         activeTimer.timerEnd = LocalDateTime.now().plus(duration);
-        activeTimer.sharedWithString = "";
-        activeTimer.tagsString = "";
+        activeTimer.sharedWith = new HashSet<>();
+        activeTimer.tags = new HashSet<>();
         return activeTimer;
     }
 
@@ -150,18 +150,17 @@ public class TestDataFactory {
 
     public static ActiveTimer createSharedTimer(String... sharedUsers) {
         ActiveTimer activeTimer = createActiveTimer();
-        // Include creator in sharedWithString to match Timer behavior
-        // Creator should always be first in the list
-        List<String> allSharedUsers = new ArrayList<>();
-        allSharedUsers.add("test-user"); // Add creator first
-        allSharedUsers.addAll(Arrays.asList(sharedUsers)); // Add other users
-        activeTimer.sharedWithString = String.join(",", allSharedUsers);
+        // Include creator in sharedWith to match Timer behavior
+        Set<String> allSharedUsers = new HashSet<>();
+        allSharedUsers.add("test-user");
+        allSharedUsers.addAll(Arrays.asList(sharedUsers));
+        activeTimer.sharedWith = allSharedUsers;
         return activeTimer;
     }
 
     public static ActiveTimer createTaggedTimer(String... tags) {
         ActiveTimer activeTimer = createActiveTimer();
-        activeTimer.tagsString = String.join(",", tags);
+        activeTimer.tags = new HashSet<>(Arrays.asList(tags));
         return activeTimer;
     }
 
@@ -168,8 +168,8 @@ public class TestDataFactoryEnhancedTest {
         assertEquals("Should have correct total duration", Duration.ofMinutes(5), activeTimer.totalDuration);
         assertEquals("Should have correct remaining duration", Duration.ofMinutes(5), activeTimer.remainingDurationWhenPaused);
         assertNotNull("Should have timer end", activeTimer.timerEnd);
-        assertEquals("Should have empty shared with string", "", activeTimer.sharedWithString);
-        assertEquals("Should have empty tags string", "", activeTimer.tagsString);
+        assertTrue("Should have no shared users", activeTimer.sharedWith.isEmpty());
+        assertTrue("Should have no tags", activeTimer.tags.isEmpty());
     }
 
     @Test
@@ -205,8 +205,8 @@ public class TestDataFactoryEnhancedTest {
         ActiveTimer activeTimer = TestDataFactory.createSharedTimer("user1", "user2", "user3");
         
         assertNotNull("ActiveTimer should not be null", activeTimer);
-        // Creator is automatically included, so we expect "test-user,user1,user2,user3"
-        assertEquals("Should have correct shared with string", "test-user,user1,user2,user3", activeTimer.sharedWithString);
+        // Creator is automatically included
+        assertEquals("Should have correct shared users", Set.of("test-user", "user1", "user2", "user3"), activeTimer.sharedWith);
     }
 
     @Test
@@ -214,7 +214,7 @@ public class TestDataFactoryEnhancedTest {
         ActiveTimer activeTimer = TestDataFactory.createTaggedTimer("work", "important");
         
         assertNotNull("ActiveTimer should not be null", activeTimer);
-        assertEquals("Should have correct tags string", "work,important", activeTimer.tagsString);
+        assertEquals("Should have correct tags", Set.of("work", "important"), activeTimer.tags);
     }
 
     @Test
@@ -161,14 +161,13 @@ public class TestFixtureBuilder {
         activeTimer.remainingDurationWhenPaused = duration;
         activeTimer.timerEnd = startTime.plus(duration);
         
-        // Include creator in sharedWithString to match Timer behavior
-        // Creator should always be first in the list
-        List<String> allSharedUsers = new ArrayList<>();
-        allSharedUsers.add(userId); // Add creator first
-        allSharedUsers.addAll(sharedUsers); // Add other users
-        activeTimer.sharedWithString = String.join(",", allSharedUsers);
+        // Include creator in sharedWith to match Timer behavior
+        Set<String> allSharedUsers = new HashSet<>();
+        allSharedUsers.add(userId);
+        allSharedUsers.addAll(sharedUsers);
+        activeTimer.sharedWith = allSharedUsers;
         
-        activeTimer.tagsString = String.join(",", tags);
+        activeTimer.tags = new HashSet<>(tags);
         return activeTimer;
     }
 
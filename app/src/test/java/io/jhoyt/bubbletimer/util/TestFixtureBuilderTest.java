@@ -9,6 +9,7 @@ import io.jhoyt.bubbletimer.db.ActiveTimer;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 public class TestFixtureBuilderTest {
 
@@ -49,10 +50,10 @@ public class TestFixtureBuilderTest {
         assertEquals("Should have correct total duration", Duration.ofMinutes(15), activeTimer.totalDuration);
         assertEquals("Should have correct remaining duration", Duration.ofMinutes(15), activeTimer.remainingDurationWhenPaused);
         assertNotNull("Should have timer end", activeTimer.timerEnd);
-        // Creator is automatically included, so we expect "test-user,user1,user2"
-        assertEquals("Should have correct shared with string", "test-user,user1,user2", activeTimer.sharedWithString);
-        assertTrue("Should contain work tag", activeTimer.tagsString.contains("work"));
-        assertTrue("Should contain important tag", activeTimer.tagsString.contains("important"));
+        // Creator is automatically included
+        assertEquals("Should have correct shared users", Set.of("test-user", "user1", "user2"), activeTimer.sharedWith);
+        assertTrue("Should contain work tag", activeTimer.tags.contains("work"));
+        assertTrue("Should contain important tag", activeTimer.tags.contains("important"));
     }
 
     @Test
@@ -171,11 +172,11 @@ public class TestFixtureBuilderTest {
         
         // Check work timer
         assertEquals("First timer should be work timer", "Work Timer", activeTimers.get(0).name);
-        assertTrue("Work timer should have work tag", activeTimers.get(0).tagsString.contains("work"));
+        assertTrue("Work timer should have work tag", activeTimers.get(0).tags.contains("work"));
         
         // Check break timer
         assertEquals("Second timer should be break timer", "Break Timer", activeTimers.get(1).name);
-        assertTrue("Break timer should have break tag", activeTimers.get(1).tagsString.contains("break"));
+        assertTrue("Break timer should have break tag", activeTimers.get(1).tags.contains("break"));
         
         // Check short timer
         assertEquals("Third timer should be short timer", "Short Timer", activeTimers.get(2).name);
@@ -187,7 +188,7 @@ public class TestFixtureBuilderTest {
         
         // Check shared timer
         assertEquals("Fifth timer should be shared timer", "Shared Timer", activeTimers.get(4).name);
-        assertTrue("Shared timer should have shared users", activeTimers.get(4).sharedWithString.length() > 0);
+        assertTrue("Shared timer should have shared users", !activeTimers.get(4).sharedWith.isEmpty());
         
         // Check running timer
         assertEquals("Sixth timer should be running timer", "Running Timer", activeTimers.get(5).name);
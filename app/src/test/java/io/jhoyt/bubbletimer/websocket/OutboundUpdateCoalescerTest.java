@@ -0,0 +1,90 @@
+package io.jhoyt.bubbletimer.websocket;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import io.jhoyt.bubbletimer.OutboundUpdateCoalescer;
+import io.jhoyt.bubbletimer.Timer;
+import io.jhoyt.bubbletimer.TimerData;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OutboundUpdateCoalescerTest {
+
+    private final OutboundUpdateCoalescer coalescer = new OutboundUpdateCoalescer();
+
+    @Test
+    public void testBurstToOneTimerSendsTheLatestState() {
+        assertTrue("The first update schedules a flush", coalescer.offer(timer("a", 10), "drag"));
+        assertFalse(coalescer.offer(timer("a", 11), "add time"));
+        assertFalse(coalescer.offer(timer("a", 12), "add time"));
+
+        List<OutboundUpdateCoalescer.Update> updates = coalescer.drain();
+        assertEquals(1, updates.size());
+        assertEquals(Duration.ofMinutes(12), updates.get(0).getTimer().getTotalDuration());
+        assertEquals("add time", updates.get(0).getReason());
+        assertEquals(3, coalescer.getLogicalUpdateCount());
+        assertEquals(2, coalescer.getFramesSavedCount());
+
+        assertTrue("Drained, so the next update schedules a flush again", coalescer.offer(timer("a", 13), "drag"));
+    }
+
+    @Test
+    public void testTimersKeepTheOrderTheyWereFirstUpdatedIn() {
+        coalescer.offer(timer("a", 1), null);
+        coalescer.offer(timer("b", 1), null);
+        coalescer.offer(timer("a", 2), null);
+        coalescer.offer(timer("c", 1), null);
+
+        assertEquals(List.of("a", "b", "c"), ids(coalescer.drain()));
+        assertEquals(List.of(), coalescer.drain());
+        assertEquals(1, coalescer.getFramesSavedCount());
+    }
+
+    @Test
+    public void testStopDiscardsItsTimersPendingUpdate() {
+        coalescer.offer(timer("a", 1), null);
+        coalescer.offer(timer("b", 1), null);
+
+        assertTrue(coalescer.discard("a"));
+        assertFalse(coalescer.discard("missing"));
+        assertEquals(List.of("b"), ids(coalescer.drain()));
+        assertEquals(1, coalescer.getFramesSavedCount());
+    }
+
+    @Test
+    public void testBatchesCountAsSavedFrames() {
+        coalescer.offer(timer("a", 1), null);
+        coalescer.offer(timer("b", 1), null);
+        coalescer.offer(timer("c", 1), null);
+        coalescer.onBatchSent(coalescer.drain().size());
+        coalescer.onBatchSent(1);
+
+        assertEquals(3, coalescer.getLogicalUpdateCount());
+        assertEquals(2, coalescer.getFramesSavedCount());
+    }
+
+    @Test
+    public void testClearDropsPendingUpdates() {
+        coalescer.offer(timer("a", 1), null);
+        coalescer.clear();
+
+        assertEquals(List.of(), coalescer.drain());
+        assertEquals("Dropped updates weren't saved by coalescing", 0, coalescer.getFramesSavedCount());
+    }
+
+    private static Timer timer(String id, int minutes) {
+        return new Timer(new TimerData(id, "alice", "Timer " + id, Duration.ofMinutes(minutes),
+                Duration.ofMinutes(minutes), null, Set.of()), Set.of());
+    }
+
+    private static List<String> ids(List<OutboundUpdateCoalescer.Update> updates) {
+        return updates.stream().map(update -> update.getTimer().getId()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,368 @@
+package io.jhoyt.bubbletimer.websocket;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.jhoyt.bubbletimer.Timer;
+import io.jhoyt.bubbletimer.TimerData;
+import io.jhoyt.bubbletimer.TimerPatch;
+import io.jhoyt.bubbletimer.TimerPatchTracker;
+import io.jhoyt.bubbletimer.WebsocketMessageCodec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TimerPatchTrackerTest {
+
+    private static final Gson GSON = new Gson();
+    private static final String TIMER_ID = "8f14e45f-ceea-467f-a0e6-7a5c2b3d9e10";
+
+    @Test
+    public void testPatchCarriesOnlyTheChangedFields() throws IOException {
+        Timer base = timer();
+        base.setVersion(3);
+        Timer paused = base.copy();
+        paused.pause();
+
+        TimerPatch patch = TimerPatch.diff(base, paused, 3, 4);
+        WebsocketMessageCodec.Message message = WebsocketMessageCodec.decode(
+                data(WebsocketMessageCodec.encodePatchTimer(patch, paused.getSharedWith())).toString());
+        assertEquals(WebsocketMessageCodec.TYPE_PATCH_TIMER, message.getType());
+        JsonObject changes = data(WebsocketMessageCodec.encodePatchTimer(patch, paused.getSharedWith()))
+                .getAsJsonObject("changes");
+        assertEquals("Pausing sets the remaining time and clears the end",
+                Set.of("remainingDuration", "timerEnd"), changes.keySet());
+        assertTrue(changes.get("timerEnd").isJsonNull());
+
+        TimerPatch decoded = message.getPatch();
+        assertEquals(TIMER_ID, decoded.getTimerId());
+        assertEquals(3, decoded.getBaseVersion());
+        assertEquals(4, decoded.getVersion());
+        Timer patched = decoded.applyTo(base);
+        assertEquals(paused, patched);
+        assertEquals(4, patched.getVersion());
+        assertTrue(patched.isPaused());
+    }
+
+    @Test
+    public void testUpdatesAreVersionedAndPatchedOnceAgreed() throws IOException {
+        TimerPatchTracker tracker = new TimerPatchTracker();
+        tracker.setPatchesEnabled(true);
+        Timer timer = timer();
+
+        WebsocketMessageCodec.Message first = decode(tracker.encodeUpdate(timer, "create"));
+        assertEquals("Nothing agreed yet, so the timer goes out in full",
+                WebsocketMessageCodec.TYPE_UPDATE_TIMER, first.getType());
+        assertEquals(1, first.getTimer().getVersion());
+
+        assertNull("An unchanged timer isn't sent again", tracker.encodeUpdate(timer, "drag"));
+
+        timer.addTime(Duration.ofMinutes(1));
+        WebsocketMessageCodec.Message second = decode(tracker.encodeUpdate(timer, "add time"));
+        assertEquals(WebsocketMessageCodec.TYPE_PATCH_TIMER, second.getType());
+        assertEquals(1, second.getPatch().getBaseVersion());
+        assertEquals(2, second.getPatch().getVersion());
+        assertEquals(1, tracker.getPatchesSentCount());
+
+        tracker.forget(timer.getId());
+        assertEquals("A forgotten timer is sent in full again",
+                WebsocketMessageCodec.TYPE_UPDATE_TIMER, decode(tracker.encodeUpdate(timer, null)).getType());
+    }
+
+    @Test
+    public void testMismatchedPatchAsksForOneResync() {
+        TimerPatchTracker tracker = new TimerPatchTracker();
+        Timer base = timer();
+        base.setVersion(5);
+        Timer changed = base.copy();
+        changed.addTime(Duration.ofMinutes(1));
+
+        assertNull("Nothing to patch", tracker.applyPatch(TimerPatch.diff(base, changed, 5, 6)));
+
+        tracker.onFullTimerReceived(base);
+        assertNull("Patch made against a version this side never saw",
+                tracker.applyPatch(TimerPatch.diff(base, changed, 4, 6)));
+        assertTrue(tracker.requestResync(base.getId()));
+        assertFalse("A resync is requested only once", tracker.requestResync(base.getId()));
+        assertNull("Patches wait for the resync", tracker.applyPatch(TimerPatch.diff(base, changed, 5, 6)));
+
+        tracker.onFullTimerReceived(base);
+        Timer patched = tracker.applyPatch(TimerPatch.diff(base, changed, 5, 6));
+        assertNotNull(patched);
+        assertEquals(changed, patched);
+        assertTrue("Answered, so a later mismatch asks again", tracker.requestResync(base.getId()));
+    }
+
+    @Test
+    public void testOldAndRepeatedFramesAreDropped() {
+        TimerPatchTracker tracker = new TimerPatchTracker();
+        Timer timer = at(timer(), 3);
+        assertEquals(TimerPatchTracker.Admission.APPLY, tracker.admitTimer(timer));
+        tracker.onFullTimerReceived(timer);
+
+        assertEquals(TimerPatchTracker.Admission.DUPLICATE, tracker.admitTimer(timer.copy()));
+        assertEquals(TimerPatchTracker.Admission.STALE, tracker.admitTimer(at(timer, 2)));
+        Timer other = timer.copy();
+        other.addTime(Duration.ofMinutes(1));
+        assertEquals("Another state at the same version", TimerPatchTracker.Admission.CONFLICT, tracker.admitTimer(other));
+
+        TimerPatch patch = TimerPatch.diff(timer, other, 3, 4);
+        assertEquals(TimerPatchTracker.Admission.APPLY, tracker.admitPatch(patch));
+        tracker.applyPatch(patch);
+        assertEquals(4, tracker.getKnownVersion(TIMER_ID));
+        assertEquals(TimerPatchTracker.Admission.DUPLICATE, tracker.admitPatch(patch));
+        assertEquals(TimerPatchTracker.Admission.STALE, tracker.admitTimer(at(other, 3)));
+        assertEquals("Unversioned senders are trusted", TimerPatchTracker.Admission.APPLY, tracker.admitTimer(at(timer, 0)));
+    }
+
+    @Test
+    public void testStopsOutlastLateUpdates() {
+        TimerPatchTracker tracker = new TimerPatchTracker();
+        Timer timer = at(timer(), 4);
+        tracker.onFullTimerReceived(timer);
+
+        assertEquals(TimerPatchTracker.Admission.APPLY, tracker.admitStop(TIMER_ID, 5));
+        tracker.onStopped(TIMER_ID, 5);
+        assertEquals(TimerPatchTracker.Admission.DUPLICATE, tracker.admitStop(TIMER_ID, 5));
+        assertEquals("A late update doesn't bring the timer back",
+                TimerPatchTracker.Admission.STALE, tracker.admitTimer(at(timer, 5)));
+
+        Timer reshared = at(timer, 6);
+        assertEquals(TimerPatchTracker.Admission.APPLY, tracker.admitTimer(reshared));
+        tracker.onFullTimerReceived(reshared);
+        assertEquals("A replayed stop doesn't stop the timer shared again",
+                TimerPatchTracker.Admission.STALE, tracker.admitStop(TIMER_ID, 5));
+
+        Timer stop = tracker.stampStop(reshared);
+        assertEquals(7, stop.getVersion());
+        assertEquals("Sharing it again here continues from the stop",
+                8, tracker.stampFullUpdate(timer()).getVersion());
+    }
+
+    @Test
+    public void testStoppedTimerIsNotStoppedAgain() {
+        TimerPatchTracker tracker = new TimerPatchTracker();
+        Timer timer = at(timer(), 4);
+        tracker.onFullTimerReceived(timer);
+        assertFalse(tracker.isStopped(TIMER_ID));
+
+        tracker.stampStop(timer);
+        assertTrue("Removing the timer after stopping it shouldn't send another stop", tracker.isStopped(TIMER_ID));
+
+        tracker.onFullTimerReceived(at(timer, 6));
+        assertFalse("Shared again, so it can be stopped again", tracker.isStopped(TIMER_ID));
+
+        tracker.onStopped(TIMER_ID, 0);
+        assertTrue("Stopped by a sender that doesn't version", tracker.isStopped(TIMER_ID));
+    }
+
+    @Test
+    public void testStoppedAndUnusedTimersAreForgotten() {
+        TimerPatchTracker tracker = new TimerPatchTracker();
+        tracker.onFullTimerReceived(at(timer(), 4));
+        tracker.requestResync(TIMER_ID);
+        assertEquals(1, tracker.getTrackedTimerCount());
+        tracker.onStopped(TIMER_ID, 5);
+        assertEquals("A stopped timer is only kept as a tombstone", 0, tracker.getTrackedTimerCount());
+
+        int timerCount = TimerPatchTracker.MAX_TRACKED_TIMERS + 10;
+        for (int i = 0; i < timerCount; i++) {
+            tracker.onFullTimerReceived(at(timer("timer-" + i), 1));
+            // The first timer is still in use
+            tracker.getKnownVersion("timer-0");
+        }
+        assertEquals(TimerPatchTracker.MAX_TRACKED_TIMERS, tracker.getTrackedTimerCount());
+        assertEquals(1, tracker.getKnownVersion("timer-0"));
+        assertEquals("The least recently used timers are forgotten", 0, tracker.getKnownVersion("timer-1"));
+        assertEquals(1, tracker.getKnownVersion("timer-" + (timerCount - 1)));
+    }
+
+    @Test
+    public void testStoredVersionsCountAfterARestart() {
+        Map<String, Timer> stored = new HashMap<>();
+        Timer timer = at(timer(), 7);
+        stored.put(TIMER_ID, timer);
+        TimerPatchTracker tracker = new TimerPatchTracker(stored::get);
+
+        assertEquals(TimerPatchTracker.Admission.DUPLICATE, tracker.admitTimer(timer.copy()));
+        assertEquals(TimerPatchTracker.Admission.STALE, tracker.admitTimer(at(timer, 6)));
+        assertEquals(8, tracker.stampFullUpdate(timer()).getVersion());
+    }
+
+    @Test
+    public void testPatchesCutBandwidthThroughAStubServer() throws IOException {
+        StubServer full = runSession(false);
+        StubServer patched = runSession(true);
+
+        System.out.println("Shared timer session, full updates: " + full.bytes + " bytes in " + full.frames + " frames");
+        System.out.println("Shared timer session, patches: " + patched.bytes + " bytes in " + patched.frames
+                + " frames (" + (100 - patched.bytes * 100 / full.bytes) + "% less)");
+        assertTrue("Patches should cut the bytes by at least a quarter", patched.bytes * 4 < full.bytes * 3);
+    }
+
+    /**
+     * Alice shares a timer with Bob and both keep changing it, with one of Bob's frames lost
+     * on the way so he has to resync.
+     */
+    private static StubServer runSession(boolean patches) throws IOException {
+        StubServer server = new StubServer();
+        Device alice = new Device(server, patches);
+        Device bob = new Device(server, patches);
+        server.devices.add(alice);
+        server.devices.add(bob);
+
+        alice.local = timer();
+        alice.send("create");
+        assertEquals(alice.local, bob.local);
+
+        for (int i = 0; i < 10; i++) {
+            alice.local.pause();
+            alice.send("pause");
+            bob.local.unpause();
+            bob.send("resume");
+            if (i == 5) {
+                server.dropNextFrameTo = bob;
+            }
+            alice.local.addTime(Duration.ofMinutes(1));
+            alice.send("add time");
+            if (i != 5) {
+                // Otherwise Bob catches up on Alice's next change
+                assertEquals("Bob converges on Alice's timer", alice.local, bob.local);
+            }
+        }
+        return server;
+    }
+
+    /**
+     * Relays frames between devices like the backend does, keeping its own copy of each timer
+     * to answer resyncs with. Counts the bytes it receives and sends.
+     */
+    private static final class StubServer {
+        private final List<Device> devices = new ArrayList<>();
+        private final TimerPatchTracker tracker = new TimerPatchTracker();
+        private final Map<String, Timer> timers = new HashMap<>();
+        private Device dropNextFrameTo;
+        private long bytes;
+        private int frames;
+
+        void receive(Device from, String frame) throws IOException {
+            count(frame);
+            JsonObject data = data(frame);
+            WebsocketMessageCodec.Message message = WebsocketMessageCodec.decode(data.toString());
+            switch (message.getType()) {
+                case WebsocketMessageCodec.TYPE_UPDATE_TIMER:
+                    tracker.onFullTimerReceived(message.getTimer());
+                    timers.put(message.getTimer().getId(), message.getTimer());
+                    break;
+                case WebsocketMessageCodec.TYPE_PATCH_TIMER:
+                    Timer patched = tracker.applyPatch(message.getPatch());
+                    assertNotNull("The server always has the base", patched);
+                    timers.put(patched.getId(), patched);
+                    break;
+                case WebsocketMessageCodec.TYPE_RESYNC_TIMER:
+                    Timer timer = timers.get(message.getTimerId());
+                    send(from, data(WebsocketMessageCodec.encodeUpdateTimer(timer, "resync")));
+                    return;
+                default:
+                    throw new AssertionError(message.getType());
+            }
+            data.remove("shareWith");
+            for (Device device : devices) {
+                if (device != from) {
+                    send(device, data);
+                }
+            }
+        }
+
+        private void send(Device to, JsonObject data) throws IOException {
+            data.addProperty("messageId", "m-" + frames);
+            String frame = data.toString();
+            count(frame);
+            if (to == dropNextFrameTo) {
+                dropNextFrameTo = null;
+                return;
+            }
+            to.receive(frame);
+        }
+
+        private void count(String frame) {
+            bytes += frame.length();
+            frames++;
+        }
+    }
+
+    private static final class Device {
+        private final StubServer server;
+        private final TimerPatchTracker tracker = new TimerPatchTracker();
+        private Timer local;
+
+        Device(StubServer server, boolean patches) {
+            this.server = server;
+            tracker.setPatchesEnabled(patches);
+        }
+
+        void send(String reason) throws IOException {
+            String frame = tracker.encodeUpdate(local, reason);
+            if (frame != null) {
+                server.receive(this, frame);
+            }
+        }
+
+        void receive(String frame) throws IOException {
+            WebsocketMessageCodec.Message message = WebsocketMessageCodec.decode(frame);
+            switch (message.getType()) {
+                case WebsocketMessageCodec.TYPE_UPDATE_TIMER:
+                    tracker.onFullTimerReceived(message.getTimer());
+                    local = message.getTimer();
+                    break;
+                case WebsocketMessageCodec.TYPE_PATCH_TIMER:
+                    Timer patched = tracker.applyPatch(message.getPatch());
+                    if (patched != null) {
+                        local = patched;
+                    } else if (tracker.requestResync(message.getPatch().getTimerId())) {
+                        server.receive(this, WebsocketMessageCodec.encodeResyncTimer(message.getPatch().getTimerId()));
+                    }
+                    break;
+                default:
+                    throw new AssertionError(message.getType());
+            }
+        }
+    }
+
+    private static WebsocketMessageCodec.Message decode(String frame) throws IOException {
+        return WebsocketMessageCodec.decode(data(frame).toString());
+    }
+
+    private static JsonObject data(String frame) {
+        return GSON.fromJson(frame, JsonObject.class).getAsJsonObject("data");
+    }
+
+    private static Timer at(Timer timer, long version) {
+        Timer copy = timer.copy();
+        copy.setVersion(version);
+        return copy;
+    }
+
+    private static Timer timer() {
+        return timer(TIMER_ID);
+    }
+
+    private static Timer timer(String timerId) {
+        return new Timer(new TimerData(timerId, "alice", "Pasta water", Duration.ofMinutes(10), null,
+                LocalDateTime.of(2025, 1, 2, 18, 30), Set.of("kitchen", "dinner")), Set.of("alice", "bob", "carol"));
+    }
+}
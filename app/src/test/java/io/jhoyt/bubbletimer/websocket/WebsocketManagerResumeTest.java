@@ -0,0 +1,305 @@
+package io.jhoyt.bubbletimer.websocket;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import io.jhoyt.bubbletimer.ServerCursorStore;
+import io.jhoyt.bubbletimer.Timer;
+import io.jhoyt.bubbletimer.TimerData;
+import io.jhoyt.bubbletimer.WebsocketManager;
+import io.jhoyt.bubbletimer.db.ActiveTimerRepository;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Reconnects against a local websocket server standing in for the gateway, which replays the
+ * changes after the cursor a connection presents or the full list without one.
+ */
+@RunWith(AndroidJUnit4.class)
+public class WebsocketManagerResumeTest {
+
+    private static final String USER = "alice";
+    private static final String RESUME_HEADER = "ResumeCursor";
+    // WebsocketManager waits this long before reconnecting
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private MockWebServer server;
+    private SharedPreferences preferences;
+    private ActiveTimerRepository repository;
+    private WebsocketManager manager;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        Context context = ApplicationProvider.getApplicationContext();
+        preferences = context.getSharedPreferences("websocket_sync_test", Context.MODE_PRIVATE);
+        preferences.edit().clear().commit();
+        repository = mock(ActiveTimerRepository.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (manager != null) {
+            manager.close();
+        }
+        server.shutdown();
+    }
+
+    @Test
+    public void testReconnectOnlyReplaysChangesSinceTheCursor() throws Exception {
+        Connection first = serve(timerList("m-1", 5, "t-1"), updateTimer("m-2", 6, "t-2"));
+        manager = connect();
+
+        assertNull("A first connection should ask for the full list",
+                takeRequest().getHeader(RESUME_HEADER));
+        first.awaitAck("m-2");
+
+        // The connection drops; the server only has t-3's update left to send
+        Connection second = serve(updateTimer("m-3", 7, "t-3"), resumed(7));
+        first.socket.cancel();
+
+        assertEquals("The reconnect should resume after the last applied change",
+                "6", awaitReconnect().getHeader(RESUME_HEADER));
+        second.awaitAck("m-3");
+        verify(repository, times(1)).replaceAll(anyList(), any());
+        verify(repository).upsert(argThat(timer -> timer.getId().equals("t-3")));
+        // Applied before the drop, so not replayed after it
+        verify(repository, times(1)).upsert(argThat(timer -> timer.getId().equals("t-2")));
+
+        // The cursor outlives the manager, as it would an app restart
+        manager.close();
+        serve();
+        manager = connect();
+        assertEquals("A restarted app should resume where it left off",
+                "7", takeRequest().getHeader(RESUME_HEADER));
+    }
+
+    @Test
+    public void testStaleCursorFallsBackToTheFullList() throws Exception {
+        // Applied long before any clock the manager reads
+        new ServerCursorStore(preferences).onApplied(USER, 42, -Duration.ofDays(2).toMillis());
+        Connection first = serve(timerList("m-1", 50, "t-1", "t-2"));
+        manager = connect();
+
+        assertNull("A cursor older than the server keeps changes for shouldn't be presented",
+                takeRequest().getHeader(RESUME_HEADER));
+        first.awaitAck("m-1");
+        verify(repository).replaceAll(anyList(), any());
+
+        manager.close();
+        serve();
+        manager = connect();
+        assertEquals("The full list's cursor should be resumed from next",
+                "50", takeRequest().getHeader(RESUME_HEADER));
+    }
+
+    @Test
+    public void testFullListAnsweringACursorStartsTheStreamOver() throws Exception {
+        Connection first = serve(timerList("m-1", 50, "t-1"));
+        manager = connect();
+        takeRequest();
+        first.awaitAck("m-1");
+
+        // The server no longer has changes from cursor 50 and sends everything, with its
+        // stream restarted at 3. t-1 was stopped in the meantime, so it's not in the list.
+        Connection second = serve(timerList("m-2", 3, "t-2"));
+        first.socket.cancel();
+
+        assertEquals("50", awaitReconnect().getHeader(RESUME_HEADER));
+        second.awaitAck("m-2");
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Predicate<Timer>> keepIfMissing = ArgumentCaptor.forClass(Predicate.class);
+        verify(repository, times(2)).replaceAll(anyList(), keepIfMissing.capture());
+        assertFalse("A synced shared timer missing from the fallback list should be removed",
+                keepIfMissing.getValue().test(syncedTimer("t-1")));
+
+        manager.close();
+        serve();
+        manager = connect();
+        assertEquals("The fallback list's cursor should replace the old one, even though it's lower",
+                "3", takeRequest().getHeader(RESUME_HEADER));
+    }
+
+    @Test
+    public void testUnappliedPatchHoldsTheCursorUntilItsResyncIsAnswered() throws Exception {
+        // t-1 was never agreed here, so its patch can't be applied and t-1 is resynced
+        Connection first = serve(updateTimer("m-1", 5, "t-2"), patchTimer("m-2", 6, "t-1"),
+                updateTimer("m-3", 7, "t-3"));
+        manager = connect();
+        takeRequest();
+        first.awaitFrame("\"resyncTimer\"");
+        first.awaitAck("m-3");
+
+        // The connection drops before the full t-1 arrives
+        Connection second = serve(updateTimer("m-4", 8, "t-1"));
+        first.socket.cancel();
+
+        assertEquals("The reconnect should replay the change that wasn't applied",
+                "5", awaitReconnect().getHeader(RESUME_HEADER));
+        second.awaitFrame("\"resyncTimer\"");
+        second.awaitAck("m-4");
+
+        manager.close();
+        serve();
+        manager = connect();
+        assertEquals("Once t-1 arrived in full the cursor moves on",
+                "8", takeRequest().getHeader(RESUME_HEADER));
+    }
+
+    private WebsocketManager connect() {
+        WebsocketManager websocketManager = new WebsocketManager(repository, new OkHttpClient(),
+                new ServerCursorStore(preferences));
+        websocketManager.setMessageListener(mock(WebsocketManager.WebsocketMessageListener.class));
+        websocketManager.initialize("token", "device-1", USER);
+        websocketManager.setWebsocketEndpoint(server.url("/").toString());
+        websocketManager.connectIfNeeded();
+        return websocketManager;
+    }
+
+    private Connection serve(String... frames) {
+        Connection connection = new Connection(frames);
+        server.enqueue(new MockResponse().withWebSocketUpgrade(connection));
+        return connection;
+    }
+
+    @NonNull
+    private RecordedRequest takeRequest() throws InterruptedException {
+        RecordedRequest request = server.takeRequest(5, TimeUnit.SECONDS);
+        assertNotNull("Expected a connection", request);
+        return request;
+    }
+
+    private RecordedRequest awaitReconnect() throws InterruptedException {
+        // The reconnect is posted to the main looper once the dropped connection is noticed
+        for (int i = 0; i < 50; i++) {
+            shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(RECONNECT_DELAY_MS));
+            RecordedRequest request = server.takeRequest(100, TimeUnit.MILLISECONDS);
+            if (request != null) {
+                return request;
+            }
+        }
+        fail("Expected a reconnect after the connection dropped");
+        return null;
+    }
+
+    private static Timer syncedTimer(String timerId) {
+        Timer timer = new Timer(new TimerData(timerId, "bob", "Tea", Duration.ofMinutes(3),
+                Duration.ofMinutes(2), null, Set.of()), Set.of("alice", "bob"));
+        timer.setVersion(1);
+        return timer;
+    }
+
+    private static String timerList(String messageId, long cursor, String... timerIds) {
+        StringBuilder timers = new StringBuilder();
+        for (String timerId : timerIds) {
+            timers.append(timers.length() > 0 ? "," : "").append(timer(timerId));
+        }
+        return "{\"type\":\"activeTimerList\",\"messageId\":\"" + messageId + "\",\"cursor\":" + cursor
+                + ",\"timerList\":[" + timers + "]}";
+    }
+
+    private static String updateTimer(String messageId, long cursor, String timerId) {
+        return "{\"type\":\"updateTimer\",\"messageId\":\"" + messageId + "\",\"cursor\":" + cursor
+                + ",\"timer\":" + timer(timerId) + "}";
+    }
+
+    private static String patchTimer(String messageId, long cursor, String timerId) {
+        return "{\"type\":\"patchTimer\",\"messageId\":\"" + messageId + "\",\"cursor\":" + cursor
+                + ",\"timerId\":\"" + timerId + "\",\"baseVersion\":4,\"version\":5"
+                + ",\"changes\":{\"name\":\"Coffee\"}}";
+    }
+
+    private static String resumed(long cursor) {
+        return "{\"type\":\"resumed\",\"cursor\":" + cursor + "}";
+    }
+
+    private static String timer(String timerId) {
+        return "{\"id\":\"" + timerId + "\",\"userId\":\"bob\",\"name\":\"Tea\",\"totalDuration\":\"PT3M\","
+                + "\"remainingDuration\":\"PT2M\",\"sharedWith\":[\"alice\",\"bob\"]}";
+    }
+
+    /**
+     * One server side connection, which sends its frames once open and keeps what it receives.
+     */
+    private static final class Connection extends WebSocketListener {
+        private final String[] frames;
+        private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        private volatile WebSocket socket;
+
+        Connection(String... frames) {
+            this.frames = frames;
+        }
+
+        @Override
+        public void onOpen(@NonNull WebSocket webSocket, @NonNull Response response) {
+            socket = webSocket;
+            for (String frame : frames) {
+                webSocket.send(frame);
+            }
+        }
+
+        @Override
+        public void onMessage(@NonNull WebSocket webSocket, @NonNull String text) {
+            received.add(text);
+        }
+
+        /**
+         * Wait for a message to be acknowledged, which the client does once it's applied.
+         */
+        void awaitAck(String messageId) throws InterruptedException {
+            awaitFrame("\"acknowledge\"", "\"messageId\":\"" + messageId + "\"");
+        }
+
+        /**
+         * Wait for a frame from the client holding all the given parts, skipping any before it.
+         */
+        void awaitFrame(String... parts) throws InterruptedException {
+            for (int i = 0; i < 50; i++) {
+                String frame = received.poll(100, TimeUnit.MILLISECONDS);
+                if (frame != null && Arrays.stream(parts).allMatch(frame::contains)) {
+                    return;
+                }
+            }
+            fail("Expected a frame with " + String.join(", ", parts));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package io.jhoyt.bubbletimer.websocket;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import io.jhoyt.bubbletimer.OutboundUpdateCoalescer;
+import io.jhoyt.bubbletimer.Timer;
+import io.jhoyt.bubbletimer.TimerData;
+import io.jhoyt.bubbletimer.WebsocketMessageCodec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+// Robolectric for the real org.json
+@RunWith(AndroidJUnit4.class)
+public class WebsocketMessageCodecTest {
+
+    private static final String UPDATE_TIMER = "{\"type\":\"updateTimer\",\"messageId\":\"m-1\","
+            + "\"timer\":{\"id\":\"t-1\",\"userId\":\"alice\",\"name\":\"Tea\",\"totalDuration\":\"PT3M\","
+            + "\"remainingDuration\":\"PT2M\",\"sharedWith\":[\"bob\",\" carol \",\"\"],\"tags\":[\"kitchen\"],"
+            + "\"updatedBy\":\"bob\"}}";
+
+    @Test
+    public void testDecodesATimerUpdate() throws IOException {
+        WebsocketMessageCodec.Message message = WebsocketMessageCodec.decode(UPDATE_TIMER);
+        assertEquals(WebsocketMessageCodec.TYPE_UPDATE_TIMER, message.getType());
+        assertEquals("m-1", message.getMessageId());
+
+        Timer timer = message.getTimer();
+        assertEquals("t-1", timer.getId());
+        assertEquals("alice", timer.getUserId());
+        assertEquals("Tea", timer.getName());
+        assertEquals(Duration.ofMinutes(3), timer.getTotalDuration());
+        assertEquals(Duration.ofMinutes(2), timer.getTimerData().remainingDurationWhenPaused);
+        assertNull(timer.getTimerEnd());
+        assertEquals(Set.of("kitchen"), timer.getTags());
+        assertEquals("Shares are cleaned up and include the creator",
+                Set.of("alice", "bob", "carol"), timer.getSharedWith());
+    }
+
+    @Test
+    public void testDecodesTheOtherMessageTypes() throws IOException {
+        String end = LocalDateTime.of(2025, 1, 2, 3, 4, 5).toString();
+        WebsocketMessageCodec.Message list = WebsocketMessageCodec.decode("{\"timerList\":["
+                + "{\"id\":\"a\",\"userId\":\"alice\",\"name\":\"A\",\"timerEnd\":\"" + end + "\",\"sharedWith\":[]},"
+                + "{\"id\":\"b\",\"userId\":\"bob\",\"name\":\"B\",\"timerEnd\":null,\"sharedWith\":[\"alice\"]}"
+                + "],\"type\":\"activeTimerList\"}");
+        assertEquals("The list is decoded even before the type is known", 2, list.getTimerList().size());
+        assertEquals(LocalDateTime.parse(end), list.getTimerList().get(0).getTimerEnd());
+        assertEquals(Set.of(), list.getTimerList().get(0).getSharedWith());
+        assertEquals(Set.of("alice", "bob"), list.getTimerList().get(1).getSharedWith());
+
+        WebsocketMessageCodec.Message stop = WebsocketMessageCodec.decode(
+                "{\"type\":\"stopTimer\",\"timerId\":\"a\",\"timer\":{\"id\":\"a\"}}");
+        assertEquals("a", stop.getTimerId());
+        assertNull("A stop's timer isn't decoded", stop.getTimer());
+        assertEquals("", stop.getMessageId());
+
+        WebsocketMessageCodec.Message pong = WebsocketMessageCodec.decode("{\"type\":\"pong\",\"timestamp\":1234}");
+        assertEquals(1234, pong.getTimestamp());
+
+        WebsocketMessageCodec.Message resumed = WebsocketMessageCodec.decode("{\"type\":\"resumed\",\"cursor\":1042}");
+        assertEquals(WebsocketMessageCodec.TYPE_RESUMED, resumed.getType());
+        assertEquals(1042, resumed.getCursor());
+        assertEquals("A message without a cursor has none", 0, pong.getCursor());
+
+        WebsocketMessageCodec.Message error = WebsocketMessageCodec.decode(
+                "{\"message\":\"Internal server error\",\"connectionId\":\"c-1\",\"requestId\":\"r-1\"}");
+        assertTrue(error.isServerError());
+        assertEquals("Internal server error", error.getErrorMessage());
+        assertNull(error.getType());
+    }
+
+    @Test
+    public void testMalformedFramesAreRejected() {
+        for (String text : new String[] {
+                "not json",
+                "{\"type\":\"updateTimer\",\"timer\":{\"id\":\"t-1\",\"name\":\"Tea\"}}",
+                "{\"type\":\"updateTimer\",\"timer\":{\"id\":\"t-1\",\"userId\":\"a\",\"name\":\"Tea\",\"totalDuration\":\"3m\"}}",
+                "{\"type\":\"activeTimerList\",\"timerList\":{}}",
+                "[]"}) {
+            try {
+                WebsocketMessageCodec.decode(text);
+                fail("Should have rejected " + text);
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testEncodedMessagesRoundTrip() throws Exception {
+        Timer timer = new Timer(new TimerData("t-1", "alice", "Tea \"green\"", Duration.ofMinutes(3), null,
+                LocalDateTime.of(2025, 1, 2, 3, 4, 5), Set.of("kitchen")), Set.of("alice", "bob"));
+
+        JSONObject update = new JSONObject(WebsocketMessageCodec.encodeUpdateTimer(timer, "pause"));
+        assertEquals("sendmessage", update.getString("action"));
+        JSONObject data = update.getJSONObject("data");
+        assertEquals("updateTimer", data.getString("type"));
+        assertEquals("pause", data.getString("reason"));
+        assertEquals(2, data.getJSONArray("shareWith").length());
+        JSONObject timerJson = data.getJSONObject("timer");
+        assertEquals("Tea \"green\"", timerJson.getString("name"));
+        assertEquals("PT3M", timerJson.getString("totalDuration"));
+        assertFalse("Null fields are left out", timerJson.has("remainingDuration"));
+        assertEquals("2025-01-02T03:04:05", timerJson.getString("timerEnd"));
+
+        OutboundUpdateCoalescer coalescer = new OutboundUpdateCoalescer();
+        coalescer.offer(timer, "pause");
+        coalescer.offer(new Timer(new TimerData("t-2", "bob", "Nap", Duration.ofMinutes(20), Duration.ofMinutes(20),
+                null, Set.of()), Set.of()), null);
+        JSONObject batch = new JSONObject(WebsocketMessageCodec.encodeUpdateTimers(coalescer.drain()))
+                .getJSONObject("data");
+        assertEquals("updateTimers", batch.getString("type"));
+        JSONArray updates = batch.getJSONArray("updates");
+        assertEquals(2, updates.length());
+        assertEquals("pause", updates.getJSONObject(0).getString("reason"));
+        assertEquals("t-2", updates.getJSONObject(1).getJSONObject("timer").getString("id"));
+        assertFalse(updates.getJSONObject(1).has("reason"));
+
+        JSONObject stop = new JSONObject(WebsocketMessageCodec.encodeStopTimer(timer)).getJSONObject("data");
+        assertEquals("stopTimer", stop.getString("type"));
+        assertEquals("t-1", stop.getString("timerId"));
+        assertFalse(stop.has("reason"));
+        assertFalse("An unversioned timer is stopped without a version", stop.has("version"));
+        Timer stamped = timer.copy();
+        stamped.setVersion(9);
+        assertEquals(9, WebsocketMessageCodec.decode(new JSONObject(WebsocketMessageCodec.encodeStopTimer(stamped))
+                .getJSONObject("data").toString()).getVersion());
+
+        JSONObject ping = new JSONObject(WebsocketMessageCodec.encodePing(42)).getJSONObject("data");
+        assertEquals(42, ping.getLong("timestamp"));
+        assertTrue(ping.getBoolean("direct"));
+
+        JSONObject ack = new JSONObject(WebsocketMessageCodec.encodeAcknowledge("m-1")).getJSONObject("data");
+        assertEquals("acknowledge", ack.getString("type"));
+        assertEquals("m-1", ack.getString("messageId"));
+        JSONObject cumulativeAck = new JSONObject(WebsocketMessageCodec.encodeAcknowledge("m-2", "t-1", 9))
+                .getJSONObject("data");
+        assertEquals("t-1", cumulativeAck.getString("timerId"));
+        assertEquals(9, cumulativeAck.getLong("version"));
+
+        // What goes out comes back the same
+        Timer decoded = WebsocketMessageCodec.decode(data.toString()).getTimer();
+        assertEquals(timer.getTimerData(), decoded.getTimerData());
+        assertEquals(timer.getSharedWith(), decoded.getSharedWith());
+    }
+}